@@ -0,0 +1,285 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.backend;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
+
+import no.priv.bang.ratatoskr.asvocabulary.ActivityStreamObject;
+import no.priv.bang.ratatoskr.asvocabulary.Article;
+import no.priv.bang.ratatoskr.asvocabulary.Group;
+import no.priv.bang.ratatoskr.services.AsyncRatatoskrService;
+import no.priv.bang.ratatoskr.services.Metrics;
+import no.priv.bang.ratatoskr.services.RatatoskrService;
+import no.priv.bang.ratatoskr.services.activitypub.ArticleThread;
+import no.priv.bang.ratatoskr.services.activitypub.Like;
+import no.priv.bang.ratatoskr.services.activitypub.Person;
+import no.priv.bang.ratatoskr.services.activitypub.Replies;
+import no.priv.bang.ratatoskr.services.activitypub.TagTimeline;
+import no.priv.bang.ratatoskr.services.beans.Account;
+import no.priv.bang.ratatoskr.services.beans.ActorCounts;
+import no.priv.bang.ratatoskr.services.beans.ArticleCounts;
+import no.priv.bang.ratatoskr.services.beans.CounterBean;
+import no.priv.bang.ratatoskr.services.beans.CounterIncrementStepBean;
+import no.priv.bang.ratatoskr.services.beans.ResourceVersion;
+
+/**
+ * Runs each call to the blocking {@link RatatoskrService} on a virtual thread
+ * of its own.  A virtual thread waiting for JDBC is parked without holding
+ * a platform thread, so the number of concurrent database calls is limited
+ * by the connection pool rather than by a thread pool.
+ */
+@Component(service=AsyncRatatoskrService.class, immediate=true)
+public class AsyncRatatoskrServiceProvider implements AsyncRatatoskrService {
+
+    private RatatoskrService ratatoskr;
+    private volatile Metrics metrics;
+    private ExecutorService executor;
+
+    @Reference
+    public void setRatatoskrService(RatatoskrService ratatoskr) {
+        this.ratatoskr = ratatoskr;
+    }
+
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL, policy = ReferencePolicy.DYNAMIC)
+    public void setMetrics(Metrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public void unsetMetrics(Metrics metrics) {
+        if (this.metrics == metrics) {
+            this.metrics = null;
+        }
+    }
+
+    @Activate
+    public void activate() {
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    @Deactivate
+    public void deactivate() {
+        executor.shutdown();
+    }
+
+    @Override
+    public CompletionStage<List<Account>> getAccounts() {
+        return supply("getAccounts", () -> ratatoskr.getAccounts());
+    }
+
+    @Override
+    public CompletionStage<Optional<Person>> addPerson(Person person) {
+        return supply("addPerson", () -> ratatoskr.addPerson(person));
+    }
+
+    @Override
+    public CompletionStage<Optional<Person>> findPerson(String id) {
+        return supply("findPerson", () -> ratatoskr.findPerson(id));
+    }
+
+    @Override
+    public CompletionStage<Optional<Person>> findPersonWithUsername(String username) {
+        return supply("findPersonWithUsername", () -> ratatoskr.findPersonWithUsername(username));
+    }
+
+    @Override
+    public CompletionStage<Optional<ResourceVersion>> findActorVersion(String username) {
+        return supply("findActorVersion", () -> ratatoskr.findActorVersion(username));
+    }
+
+    @Override
+    public CompletionStage<Optional<Group>> addGroup(Group group) {
+        return supply("addGroup", () -> ratatoskr.addGroup(group));
+    }
+
+    @Override
+    public CompletionStage<Optional<Article>> addArticle(Article article) {
+        return supply("addArticle", () -> ratatoskr.addArticle(article));
+    }
+
+    @Override
+    public CompletionStage<Optional<Article>> findArticle(String id) {
+        return supply("findArticle", () -> ratatoskr.findArticle(id));
+    }
+
+    @Override
+    public CompletionStage<TagTimeline> findTagTimeline(String hashtag, String olderThan, int limit) {
+        return supply("findTagTimeline", () -> ratatoskr.findTagTimeline(hashtag, olderThan, limit));
+    }
+
+    @Override
+    public CompletionStage<Optional<ArticleThread>> findThread(String id) {
+        return supply("findThread", () -> ratatoskr.findThread(id));
+    }
+
+    @Override
+    public CompletionStage<Replies> findReplies(String id, String after, int limit) {
+        return supply("findReplies", () -> ratatoskr.findReplies(id, after, limit));
+    }
+
+    @Override
+    public CompletionStage<List<Person>> findFollowersWithUsername(String username) {
+        return supply("findFollowersWithUsername", () -> ratatoskr.findFollowersWithUsername(username));
+    }
+
+    @Override
+    public CompletionStage<Integer> forEachFollowerWithUsername(String username, Consumer<Person> follower) {
+        return supply("forEachFollowerWithUsername", () -> ratatoskr.forEachFollowerWithUsername(username, follower));
+    }
+
+    @Override
+    public CompletionStage<List<Person>> addFollowerToUsername(String username, String id) {
+        return supply("addFollowerToUsername", () -> ratatoskr.addFollowerToUsername(username, id));
+    }
+
+    @Override
+    public CompletionStage<ResourceVersion> findFollowersVersion(String username) {
+        return supply("findFollowersVersion", () -> ratatoskr.findFollowersVersion(username));
+    }
+
+    @Override
+    public CompletionStage<List<Person>> findFollowingWithUsername(String username) {
+        return supply("findFollowingWithUsername", () -> ratatoskr.findFollowingWithUsername(username));
+    }
+
+    @Override
+    public CompletionStage<List<Person>> addFollowedToUsername(String username, String id) {
+        return supply("addFollowedToUsername", () -> ratatoskr.addFollowedToUsername(username, id));
+    }
+
+    @Override
+    public CompletionStage<ResourceVersion> findFollowingVersion(String username) {
+        return supply("findFollowingVersion", () -> ratatoskr.findFollowingVersion(username));
+    }
+
+    @Override
+    public CompletionStage<List<Like>> findLikedWithUsername(String username) {
+        return supply("findLikedWithUsername", () -> ratatoskr.findLikedWithUsername(username));
+    }
+
+    @Override
+    public CompletionStage<List<Like>> addLikeToUsername(String username, Like like) {
+        return supply("addLikeToUsername", () -> ratatoskr.addLikeToUsername(username, like));
+    }
+
+    @Override
+    public CompletionStage<ResourceVersion> findLikedVersion(String username) {
+        return supply("findLikedVersion", () -> ratatoskr.findLikedVersion(username));
+    }
+
+    @Override
+    public CompletionStage<Optional<ActorCounts>> findActorCounts(String username) {
+        return supply("findActorCounts", () -> ratatoskr.findActorCounts(username));
+    }
+
+    @Override
+    public CompletionStage<Optional<ArticleCounts>> findArticleCounts(String id) {
+        return supply("findArticleCounts", () -> ratatoskr.findArticleCounts(id));
+    }
+
+    @Override
+    public CompletionStage<List<Like>> userLikeArticle(String username, Article article, Group audience, String localWebContext) {
+        return supply("userLikeArticle", () -> ratatoskr.userLikeArticle(username, article, audience, localWebContext));
+    }
+
+    @Override
+    public CompletionStage<List<ActivityStreamObject>> listInbox(Person actor) {
+        return supply("listInbox", () -> ratatoskr.listInbox(actor));
+    }
+
+    @Override
+    public CompletionStage<List<ActivityStreamObject>> postToInbox(Person actor, ActivityStreamObject message) {
+        return supply("postToInbox", () -> ratatoskr.postToInbox(actor, message));
+    }
+
+    @Override
+    public CompletionStage<List<ActivityStreamObject>> listOutbox(Person actor) {
+        return supply("listOutbox", () -> ratatoskr.listOutbox(actor));
+    }
+
+    @Override
+    public CompletionStage<List<ActivityStreamObject>> postToOutbox(Person actor, ActivityStreamObject message) {
+        return supply("postToOutbox", () -> ratatoskr.postToOutbox(actor, message));
+    }
+
+    @Override
+    public CompletionStage<Optional<CounterIncrementStepBean>> getCounterIncrementStep(String username) {
+        return supply("getCounterIncrementStep", () -> ratatoskr.getCounterIncrementStep(username));
+    }
+
+    @Override
+    public CompletionStage<Optional<CounterIncrementStepBean>> updateCounterIncrementStep(CounterIncrementStepBean updatedIncrementStep) {
+        return supply("updateCounterIncrementStep", () -> ratatoskr.updateCounterIncrementStep(updatedIncrementStep));
+    }
+
+    @Override
+    public CompletionStage<Optional<CounterBean>> getCounter(String username) {
+        return supply("getCounter", () -> ratatoskr.getCounter(username));
+    }
+
+    @Override
+    public CompletionStage<Optional<CounterBean>> incrementCounter(String username) {
+        return supply("incrementCounter", () -> ratatoskr.incrementCounter(username));
+    }
+
+    @Override
+    public CompletionStage<Optional<CounterBean>> decrementCounter(String username) {
+        return supply("decrementCounter", () -> ratatoskr.decrementCounter(username));
+    }
+
+    @Override
+    public CompletionStage<Boolean> lazilyCreateAccount(String username) {
+        return supply("lazilyCreateAccount", () -> ratatoskr.lazilyCreateAccount(username));
+    }
+
+    /**
+     * Run a call on a virtual thread of its own.  The time spent in the
+     * {@link RatatoskrService}, without the time waiting to be run, is
+     * recorded in {@link Metrics#SERVICE_CALLS} labeled with the method name.
+     */
+    private <T> CompletionStage<T> supply(String method, Supplier<T> call) {
+        var timing = metrics;
+        if (timing == null) {
+            return CompletableFuture.supplyAsync(call, executor);
+        }
+
+        return CompletableFuture.supplyAsync(() -> {
+            var start = System.nanoTime();
+            var failed = true;
+            try {
+                var result = call.get();
+                failed = false;
+                return result;
+            } finally {
+                timing.record(Metrics.SERVICE_CALLS, System.nanoTime() - start, failed, "method", method);
+            }
+        }, executor);
+    }
+
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.backend;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Encoder of <a href="https://blurha.sh">blurhash</a>, a short text
+ * holding a few cosine components of an image, that clients decode into
+ * a blurred placeholder shown while the image loads.
+ *
+ * The components are computed from every pixel of the image, so the image
+ * should be scaled down to a few tens of pixels first.
+ */
+class BlurHash {
+    static final String CHARACTERS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz#$%*+,-.:;=?@[]^_{|}~";
+
+    private BlurHash() {}
+
+    static String encode(BufferedImage image, int componentsX, int componentsY) {
+        var width = image.getWidth();
+        var height = image.getHeight();
+        var pixels = image.getRGB(0, 0, width, height, null, 0, width);
+        var linear = new double[pixels.length * 3];
+        for (int i = 0; i < pixels.length; ++i) {
+            linear[i * 3] = SRGB_TO_LINEAR[(pixels[i] >> 16) & 0xff];
+            linear[i * 3 + 1] = SRGB_TO_LINEAR[(pixels[i] >> 8) & 0xff];
+            linear[i * 3 + 2] = SRGB_TO_LINEAR[pixels[i] & 0xff];
+        }
+
+        var cosinesX = cosines(componentsX, width);
+        var cosinesY = cosines(componentsY, height);
+        var factors = new double[componentsX * componentsY][];
+        for (int j = 0; j < componentsY; ++j) {
+            for (int i = 0; i < componentsX; ++i) {
+                factors[j * componentsX + i] = factor(linear, width, height, cosinesX[i], cosinesY[j], i == 0 && j == 0 ? 1 : 2);
+            }
+        }
+
+        var hash = new StringBuilder();
+        encode83(hash, (componentsX - 1) + (componentsY - 1) * 9, 1);
+        var maximumValue = 1.0;
+        if (factors.length > 1) {
+            var actualMaximumValue = 0.0;
+            for (int i = 1; i < factors.length; ++i) {
+                for (var value : factors[i]) {
+                    actualMaximumValue = Math.max(actualMaximumValue, Math.abs(value));
+                }
+            }
+
+            var quantisedMaximumValue = (int) Math.max(0, Math.min(82, Math.floor(actualMaximumValue * 166 - 0.5)));
+            maximumValue = (quantisedMaximumValue + 1) / 166.0;
+            encode83(hash, quantisedMaximumValue, 1);
+        } else {
+            encode83(hash, 0, 1);
+        }
+
+        encode83(hash, encodeDc(factors[0]), 4);
+        for (int i = 1; i < factors.length; ++i) {
+            encode83(hash, encodeAc(factors[i], maximumValue), 2);
+        }
+
+        return hash.toString();
+    }
+
+    private static double[][] cosines(int components, int size) {
+        var cosines = new double[components][size];
+        for (int component = 0; component < components; ++component) {
+            for (int position = 0; position < size; ++position) {
+                cosines[component][position] = Math.cos(Math.PI * component * position / size);
+            }
+        }
+
+        return cosines;
+    }
+
+    private static double[] factor(double[] linear, int width, int height, double[] cosinesX, double[] cosinesY, double normalisation) {
+        double r = 0;
+        double g = 0;
+        double b = 0;
+        for (int y = 0; y < height; ++y) {
+            for (int x = 0; x < width; ++x) {
+                var basis = cosinesX[x] * cosinesY[y];
+                var pixel = (y * width + x) * 3;
+                r += basis * linear[pixel];
+                g += basis * linear[pixel + 1];
+                b += basis * linear[pixel + 2];
+            }
+        }
+
+        var scale = normalisation / (width * height);
+        return new double[] { r * scale, g * scale, b * scale };
+    }
+
+    private static int encodeDc(double[] value) {
+        return (linearToSrgb(value[0]) << 16) + (linearToSrgb(value[1]) << 8) + linearToSrgb(value[2]);
+    }
+
+    private static int encodeAc(double[] value, double maximumValue) {
+        var quantR = quantise(value[0] / maximumValue);
+        var quantG = quantise(value[1] / maximumValue);
+        var quantB = quantise(value[2] / maximumValue);
+        return quantR * 19 * 19 + quantG * 19 + quantB;
+    }
+
+    private static int quantise(double value) {
+        var signedRoot = Math.copySign(Math.sqrt(Math.abs(value)), value);
+        return (int) Math.max(0, Math.min(18, Math.floor(signedRoot * 9 + 9.5)));
+    }
+
+    static void encode83(StringBuilder hash, int value, int length) {
+        var divisor = 1;
+        for (int i = 1; i < length; ++i) {
+            divisor *= 83;
+        }
+
+        for (int i = 0; i < length; ++i) {
+            hash.append(CHARACTERS.charAt((value / divisor) % 83));
+            divisor /= 83;
+        }
+    }
+
+    private static final double[] SRGB_TO_LINEAR = new double[256];
+    static {
+        for (int i = 0; i < 256; ++i) {
+            var value = i / 255.0;
+            SRGB_TO_LINEAR[i] = value <= 0.04045 ? value / 12.92 : Math.pow((value + 0.055) / 1.055, 2.4);
+        }
+    }
+
+    static int linearToSrgb(double value) {
+        var clamped = Math.max(0, Math.min(1, value));
+        if (clamped <= 0.0031308) {
+            return (int) (clamped * 12.92 * 255 + 0.5);
+        }
+
+        return (int) ((1.055 * Math.pow(clamped, 1 / 2.4) - 0.055) * 255 + 0.5);
+    }
+
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.backend;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import no.priv.bang.ratatoskr.services.activitypub.Like;
+import no.priv.bang.ratatoskr.services.activitypub.Person;
+import no.priv.bang.ratatoskr.services.activitypub.Status;
+
+/**
+ * Fill in the actors and articles referenced by id from the items of a
+ * collection, with one query per type for all of the items of a page.
+ *
+ * A loader is created for one call to the service, on the connection of
+ * that call, and remembers what it has loaded, including the ids that
+ * weren't found, so that an object referenced by several items is only
+ * read once.  It is not kept between calls, where the rows may have
+ * changed.  A collection GET is served by a single call, so for the
+ * ActivityStreams resources a call is also a request.
+ */
+class CallScopedBatchLoader {
+    static final int MAX_BATCH_SIZE = 100;
+
+    private final Connection connection;
+    private final Map<String, Optional<Person>> persons = new HashMap<>();
+    private final Map<String, Optional<Status>> statuses = new HashMap<>();
+
+    CallScopedBatchLoader(Connection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * Replace the stub author and stub liked article of each like with the
+     * full objects.  Stubs with ids that aren't found are left as they are.
+     */
+    List<Like> hydrateLikes(List<Like> likes) throws SQLException {
+        var personIds = new LinkedHashSet<String>();
+        var statusIds = new LinkedHashSet<String>();
+        for (var like : likes) {
+            addId(personIds, like.authoredBy() != null ? like.authoredBy().id() : null);
+            addId(statusIds, like.inReplyTo() != null ? like.inReplyTo().id() : null);
+        }
+
+        loadPersons(personIds);
+        loadStatuses(statusIds);
+        var hydrated = new ArrayList<Like>(likes.size());
+        for (var like : likes) {
+            hydrated.add(Like.with()
+                .id(like.id())
+                .summary(like.summary())
+                .authoredBy(like.authoredBy() != null ? persons.getOrDefault(like.authoredBy().id(), Optional.empty()).orElse(like.authoredBy()) : null)
+                .inReplyTo(like.inReplyTo() != null ? statuses.getOrDefault(like.inReplyTo().id(), Optional.empty()).orElse(like.inReplyTo()) : null)
+                .published(like.published())
+                .build());
+        }
+
+        return hydrated;
+    }
+
+    void loadPersons(Set<String> ids) throws SQLException {
+        var sql = "select id, preferred_username, name, summary, inbox, following, followers, liked, icon from actors where id in (%s)";
+        for (var batch : missing(ids, persons)) {
+            try(var statement = connection.prepareStatement(String.format(sql, parameters(batch.size())))) {
+                setIds(statement, batch);
+                try(var results = statement.executeQuery()) {
+                    while(results.next()) {
+                        var person = unpackPerson(results);
+                        persons.put(person.id(), Optional.of(person));
+                    }
+                }
+            }
+
+            batch.forEach(id -> persons.putIfAbsent(id, Optional.empty()));
+        }
+    }
+
+    void loadStatuses(Set<String> ids) throws SQLException {
+        var sql = "select id, name, content, published from articles where id in (%s)";
+        for (var batch : missing(ids, statuses)) {
+            try(var statement = connection.prepareStatement(String.format(sql, parameters(batch.size())))) {
+                setIds(statement, batch);
+                try(var results = statement.executeQuery()) {
+                    while(results.next()) {
+                        var status = unpackStatus(results);
+                        statuses.put(status.id(), Optional.of(status));
+                    }
+                }
+            }
+
+            batch.forEach(id -> statuses.putIfAbsent(id, Optional.empty()));
+        }
+    }
+
+    private List<List<String>> missing(Set<String> ids, Map<String, ?> loaded) {
+        var batches = new ArrayList<List<String>>();
+        var batch = new ArrayList<String>();
+        for (var id : ids) {
+            if (id != null && !loaded.containsKey(id)) {
+                batch.add(id);
+                if (batch.size() == MAX_BATCH_SIZE) {
+                    batches.add(batch);
+                    batch = new ArrayList<>();
+                }
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+
+        return batches;
+    }
+
+    private void addId(Set<String> ids, String id) {
+        if (id != null) {
+            ids.add(id);
+        }
+    }
+
+    private String parameters(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private void setIds(PreparedStatement statement, List<String> ids) throws SQLException {
+        for (int i = 0; i < ids.size(); ++i) {
+            statement.setString(i + 1, ids.get(i));
+        }
+    }
+
+    private Person unpackPerson(ResultSet results) throws SQLException {
+        return Person.with()
+            .id(results.getString("id"))
+            .preferredUsername(results.getString("preferred_username"))
+            .name(results.getString("name"))
+            .summary(results.getString("summary"))
+            .inbox(results.getString("inbox"))
+            .following(results.getString("following"))
+            .followers(results.getString("followers"))
+            .liked(results.getString("liked"))
+            .icon(results.getString("icon"))
+            .build();
+    }
+
+    private Status unpackStatus(ResultSet results) throws SQLException {
+        var published = results.getTimestamp("published");
+        return Status.with()
+            .id(results.getString("id"))
+            .name(results.getString("name"))
+            .content(results.getString("content"))
+            .published(published != null ? ZonedDateTime.ofInstant(published.toInstant(), ZoneId.of("UTC")) : null)
+            .build();
+    }
+
+}
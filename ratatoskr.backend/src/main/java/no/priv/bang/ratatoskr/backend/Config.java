@@ -0,0 +1,74 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.backend;
+
+import java.util.Map;
+
+/**
+ * Reads the values of component configurations, which are numbers or
+ * booleans when set from code, and strings when read from a .cfg file.
+ * Missing and unparseable values give the default.
+ */
+class Config {
+
+    private Config() {}
+
+    static long longConfig(Map<String, Object> config, String key, long defaultValue) {
+        return longConfig(config, key, defaultValue, Long.MIN_VALUE);
+    }
+
+    /**
+     * Values below the minimum give the default too.
+     */
+    static long longConfig(Map<String, Object> config, String key, long defaultValue, long minimum) {
+        var value = config != null ? config.get(key) : null;
+        if (value instanceof Number number && number.longValue() >= minimum) {
+            return number.longValue();
+        }
+
+        if (value instanceof String string) {
+            try {
+                var parsed = Long.parseLong(string.trim());
+                if (parsed >= minimum) {
+                    return parsed;
+                }
+            } catch (NumberFormatException e) {
+                // Fall through to the default
+            }
+        }
+
+        return defaultValue;
+    }
+
+    static boolean booleanConfig(Map<String, Object> config, String key, boolean defaultValue) {
+        var value = config != null ? config.get(key) : null;
+        if (value instanceof Boolean bool) {
+            return bool;
+        }
+
+        if (value instanceof String string) {
+            return Boolean.parseBoolean(string.trim());
+        }
+
+        return defaultValue;
+    }
+
+    static String stringConfig(Map<String, Object> config, String key, String defaultValue) {
+        var value = config != null ? config.get(key) : null;
+        return value instanceof String string && !string.isBlank() ? string.trim() : defaultValue;
+    }
+
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.backend;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds the <code>@user</code> and <code>@user@host</code> mentions and the
+ * <code>#hashtag</code>s of content in a single pass, without regular
+ * expressions, allocating only for what is found.
+ *
+ * HTML markup is skipped, and so is the text of <code>a</code> elements,
+ * which is already a link.  A <code>&lt;</code> that doesn't start a tag,
+ * i.e. isn't followed by a letter or a slash, or that isn't closed by a
+ * <code>&gt;</code>, is text, as in "I &lt;3 #java".  A mention or hashtag must start the text or
+ * follow a character that can't be part of a word, a URL path or an HTML
+ * entity, so that e-mail addresses, URL fragments and <code>&amp;#35;</code>
+ * aren't found.
+ */
+class ContentScanner {
+
+    enum Kind { MENTION, HASHTAG }
+
+    /**
+     * A mention or hashtag, from the start offset up to, but not including,
+     * the end offset.  The name is the username of mentions and the tag of
+     * hashtags, and the host is null for hashtags and for mentions without
+     * a host.
+     */
+    record Token(Kind kind, int start, int end, String name, String host) {}
+
+    private ContentScanner() {}
+
+    static List<Token> scan(String content) {
+        var tokens = new ArrayList<Token>();
+        if (content == null) {
+            return tokens;
+        }
+
+        var length = content.length();
+        var linkDepth = 0;
+        var i = 0;
+        while (i < length) {
+            var c = content.charAt(i);
+            var close = c == '<' && startsTag(content, i + 1) ? content.indexOf('>', i) : -1;
+            if (close >= 0) {
+                if (isElement(content, i + 1, close, "a")) {
+                    ++linkDepth;
+                } else if (isElement(content, i + 1, close, "/a")) {
+                    linkDepth = Math.max(0, linkDepth - 1);
+                }
+
+                i = close + 1;
+                continue;
+            }
+
+            if (linkDepth == 0 && (c == '@' || c == '#') && startsToken(content, i)) {
+                var end = c == '@' ? scanMention(content, i, tokens) : scanHashtag(content, i, tokens);
+                if (end > i) {
+                    i = end;
+                    continue;
+                }
+            }
+
+            ++i;
+        }
+
+        return tokens;
+    }
+
+    private static int scanMention(String content, int at, List<Token> tokens) {
+        var usernameEnd = trimPunctuation(content, at + 1, scanWhile(content, at + 1, true));
+        if (usernameEnd == at + 1) {
+            return at;
+        }
+
+        var username = content.substring(at + 1, usernameEnd);
+        String host = null;
+        var end = usernameEnd;
+        if (usernameEnd + 1 < content.length() && content.charAt(usernameEnd) == '@') {
+            var hostEnd = trimPunctuation(content, usernameEnd + 1, scanWhile(content, usernameEnd + 1, false));
+            if (hostEnd > usernameEnd + 1) {
+                hostEnd = scanPort(content, hostEnd);
+                host = content.substring(usernameEnd + 1, hostEnd);
+                end = hostEnd;
+            }
+        }
+
+        tokens.add(new Token(Kind.MENTION, at, end, username, host));
+        return end;
+    }
+
+    private static int scanHashtag(String content, int hash, List<Token> tokens) {
+        var end = hash + 1;
+        var onlyDigits = true;
+        while (end < content.length()) {
+            var codePoint = content.codePointAt(end);
+            if (!Character.isLetterOrDigit(codePoint) && codePoint != '_') {
+                break;
+            }
+
+            onlyDigits &= Character.isDigit(codePoint);
+            end += Character.charCount(codePoint);
+        }
+
+        if (end == hash + 1 || onlyDigits) {
+            return hash;
+        }
+
+        tokens.add(new Token(Kind.HASHTAG, hash, end, content.substring(hash + 1, end), null));
+        return end;
+    }
+
+    /**
+     * Skip the characters of a username, or of a host name, which are ASCII
+     * letters, digits, dots and dashes, and underscores in usernames.
+     */
+    private static int scanWhile(String content, int start, boolean username) {
+        var i = start;
+        while (i < content.length()) {
+            var c = content.charAt(i);
+            var allowed = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '.' || c == '-' || (username && c == '_');
+            if (!allowed) {
+                break;
+            }
+
+            ++i;
+        }
+
+        return i;
+    }
+
+    /**
+     * Skip the port following a host name, if there is one.
+     */
+    private static int scanPort(String content, int hostEnd) {
+        var i = hostEnd + 1;
+        while (i < content.length() && content.charAt(i) >= '0' && content.charAt(i) <= '9') {
+            ++i;
+        }
+
+        return hostEnd < content.length() && content.charAt(hostEnd) == ':' && i > hostEnd + 1 ? i : hostEnd;
+    }
+
+    /**
+     * Leave out dots and dashes at the end, e.g. the full stop of a sentence
+     * ending with a mention.
+     */
+    private static int trimPunctuation(String content, int start, int end) {
+        while (end > start && (content.charAt(end - 1) == '.' || content.charAt(end - 1) == '-')) {
+            --end;
+        }
+
+        return end;
+    }
+
+    private static boolean startsToken(String content, int i) {
+        if (i == 0) {
+            return true;
+        }
+
+        var before = content.charAt(i - 1);
+        return !Character.isLetterOrDigit(before) && "_&/@#.:".indexOf(before) < 0;
+    }
+
+    private static boolean startsTag(String content, int i) {
+        if (i >= content.length()) {
+            return false;
+        }
+
+        var c = content.charAt(i);
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '/';
+    }
+
+    /**
+     * True if the markup between the angle brackets is the start or end tag
+     * of an element, matching the name case insensitively.
+     */
+    private static boolean isElement(String content, int start, int end, String name) {
+        var nameEnd = start + name.length();
+        if (nameEnd > end || !content.regionMatches(true, start, name, 0, name.length())) {
+            return false;
+        }
+
+        return nameEnd == end || Character.isWhitespace(content.charAt(nameEnd)) || content.charAt(nameEnd) == '/';
+    }
+
+}
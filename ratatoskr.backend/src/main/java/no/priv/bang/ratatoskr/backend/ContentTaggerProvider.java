@@ -0,0 +1,169 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.backend;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.log.LogService;
+import org.osgi.service.log.Logger;
+
+import no.priv.bang.ratatoskr.backend.ContentScanner.Kind;
+import no.priv.bang.ratatoskr.backend.ContentScanner.Token;
+import no.priv.bang.ratatoskr.services.AsyncRatatoskrService;
+import no.priv.bang.ratatoskr.services.ContentTagger;
+import no.priv.bang.ratatoskr.services.RemoteObjectFetcher;
+import no.priv.bang.ratatoskr.services.activitypub.Hashtag;
+import no.priv.bang.ratatoskr.services.activitypub.Mention;
+import no.priv.bang.ratatoskr.services.activitypub.Person;
+import no.priv.bang.ratatoskr.services.activitypub.Tag;
+import no.priv.bang.ratatoskr.services.beans.TagSpan;
+import no.priv.bang.ratatoskr.services.beans.TaggedContent;
+
+/**
+ * Tags content with the {@link ContentScanner}, and looks up the actors of
+ * all of the mentioned accounts at once: local users in the database, and
+ * accounts on other servers with WebFinger through the
+ * {@link RemoteObjectFetcher}, which caches the answers.  An account
+ * mentioned several times is only looked up once.
+ */
+@Component(service=ContentTagger.class, immediate=true)
+public class ContentTaggerProvider implements ContentTagger {
+
+    private Logger logger;
+    private AsyncRatatoskrService ratatoskr;
+    private RemoteObjectFetcher remoteObjectFetcher;
+
+    @Reference
+    public void setLogservice(LogService logservice) {
+        this.logger = logservice.getLogger(ContentTaggerProvider.class);
+    }
+
+    @Reference
+    public void setAsyncRatatoskrService(AsyncRatatoskrService ratatoskr) {
+        this.ratatoskr = ratatoskr;
+    }
+
+    @Reference
+    public void setRemoteObjectFetcher(RemoteObjectFetcher remoteObjectFetcher) {
+        this.remoteObjectFetcher = remoteObjectFetcher;
+    }
+
+    @Override
+    public CompletionStage<TaggedContent> tag(String content, String localWebContext) {
+        var tokens = ContentScanner.scan(content);
+        var webContext = localWebContext != null && localWebContext.endsWith("/") ? localWebContext.substring(0, localWebContext.length() - 1) : localWebContext;
+        var localHost = localHost(webContext);
+        var actorIds = new LinkedHashMap<String, CompletableFuture<Optional<String>>>();
+        for (var token : tokens) {
+            if (token.kind() == Kind.MENTION) {
+                actorIds.computeIfAbsent(account(token, localHost), account -> findActorId(token, localHost));
+            }
+        }
+
+        return CompletableFuture.allOf(actorIds.values().toArray(CompletableFuture[]::new))
+            .thenApply(allFound -> taggedContent(tokens, actorIds, webContext, localHost));
+    }
+
+    private TaggedContent taggedContent(List<Token> tokens, Map<String, CompletableFuture<Optional<String>>> actorIds, String webContext, String localHost) {
+        var spans = new ArrayList<TagSpan>(tokens.size());
+        var mentioned = new LinkedHashSet<String>();
+        for (var token : tokens) {
+            if (token.kind() == Kind.HASHTAG) {
+                spans.add(span(token, Hashtag.with()
+                    .name("#" + token.name())
+                    .href(webContext != null ? webContext + "/as/tags/" + URLEncoder.encode(token.name().toLowerCase(Locale.ROOT), StandardCharsets.UTF_8) : null)
+                    .build()));
+            } else {
+                var local = isLocal(token, localHost);
+                var actorId = actorIds.get(account(token, localHost)).join();
+                actorId.ifPresent(id -> {
+                    mentioned.add(id);
+                    spans.add(span(token, Mention.with()
+                        .name(local ? "@" + token.name() : "@" + token.name() + "@" + token.host())
+                        .href(id)
+                        .build()));
+                });
+            }
+        }
+
+        return TaggedContent.with()
+            .spans(spans)
+            .mentioned(List.copyOf(mentioned))
+            .build();
+    }
+
+    private CompletableFuture<Optional<String>> findActorId(Token token, String localHost) {
+        var actorId = isLocal(token, localHost) ?
+            ratatoskr.findPersonWithUsername(token.name()).thenApply(person -> person.map(Person::id)) :
+            remoteObjectFetcher.findActorId(token.name() + "@" + token.host());
+        return actorId.toCompletableFuture().exceptionally(e -> {
+            logger.warn("Failed to look up mentioned account \"{}\"", account(token, localHost), e);
+            return Optional.empty();
+        });
+    }
+
+    private static TagSpan span(Token token, Tag tag) {
+        return TagSpan.with()
+            .start(token.start())
+            .end(token.end())
+            .tag(tag)
+            .build();
+    }
+
+    /**
+     * The key of a mentioned account, usernames and hosts being case
+     * insensitive.
+     */
+    private static String account(Token token, String localHost) {
+        var username = token.name().toLowerCase(Locale.ROOT);
+        return isLocal(token, localHost) ? username : username + "@" + token.host().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * True for mentions without a host, and for mentions with the host of
+     * this server, with or without the port.
+     */
+    private static boolean isLocal(Token token, String localHost) {
+        var host = token.host();
+        if (host == null) {
+            return true;
+        }
+
+        return localHost != null && (host.equalsIgnoreCase(localHost) || localHost.regionMatches(true, 0, host + ":", 0, host.length() + 1));
+    }
+
+    static String localHost(String webContext) {
+        try {
+            return webContext != null ? URI.create(webContext).getAuthority() : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.backend;
+
+import static no.priv.bang.ratatoskr.backend.Config.longConfig;
+
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.log.LogService;
+import org.osgi.service.log.Logger;
+
+import no.priv.bang.ratatoskr.services.RatatoskrException;
+import no.priv.bang.ratatoskr.services.RatatoskrService;
+
+/**
+ * Periodically recount the collections counted in the counts tables, and
+ * correct counts that have drifted, e.g. from rows changed outside of the
+ * {@link RatatoskrService}.
+ */
+@Component(immediate=true)
+public class CountsReconciliation {
+
+    static final long DEFAULT_INTERVAL_MINUTES = 60;
+
+    private Logger logger;
+    private RatatoskrService ratatoskr;
+    private ScheduledExecutorService scheduler;
+
+    @Reference
+    public void setLogservice(LogService logservice) {
+        this.logger = logservice.getLogger(CountsReconciliation.class);
+    }
+
+    @Reference
+    public void setRatatoskrService(RatatoskrService ratatoskr) {
+        this.ratatoskr = ratatoskr;
+    }
+
+    @Activate
+    public void activate(Map<String, Object> config) {
+        var intervalMinutes = longConfig(config, "intervalMinutes", DEFAULT_INTERVAL_MINUTES, 1);
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("ratatoskr-counts-reconciliation").factory());
+        scheduler.scheduleWithFixedDelay(this::reconcile, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+    }
+
+    @Deactivate
+    public void deactivate() {
+        scheduler.shutdownNow();
+    }
+
+    void reconcile() {
+        try {
+            var corrected = ratatoskr.reconcileCounts();
+            if (corrected > 0) {
+                logger.info("Corrected {} counts rows", corrected);
+            }
+        } catch (RatatoskrException e) {
+            logger.warn("Failed to reconcile counts", e);
+        }
+    }
+
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.backend;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.log.LogService;
+import org.osgi.service.log.Logger;
+
+import no.priv.bang.ratatoskr.services.EmojiRegistry;
+import no.priv.bang.ratatoskr.services.RatatoskrException;
+import no.priv.bang.ratatoskr.services.RatatoskrService;
+import no.priv.bang.ratatoskr.services.activitypub.Emoji;
+import no.priv.bang.ratatoskr.services.beans.CustomEmoji;
+
+/**
+ * Keeps the custom emojis stored by the {@link RatatoskrService} in memory,
+ * with a {@link ShortcodeMatcher} per domain.
+ *
+ * Adding or removing an emoji only invalidates the matcher of its domain,
+ * and the matcher is rebuilt the next time texts of the domain are
+ * scanned, so that the emojis of a server can be fetched and registered
+ * one at a time without rebuilding the matcher for each one.  Replacing
+ * the image of an emoji doesn't invalidate the matcher.
+ */
+@Component(service=EmojiRegistry.class, immediate=true)
+public class EmojiRegistryProvider implements EmojiRegistry {
+    static final Pattern SHORTCODE = Pattern.compile("\\w{2,}", Pattern.UNICODE_CHARACTER_CLASS);
+
+    private Logger logger;
+    private RatatoskrService ratatoskr;
+    private final Map<String, DomainEmojis> domains = new ConcurrentHashMap<>();
+
+    @Reference
+    public void setLogservice(LogService logservice) {
+        this.logger = logservice.getLogger(EmojiRegistryProvider.class);
+    }
+
+    @Reference
+    public void setRatatoskrService(RatatoskrService ratatoskr) {
+        this.ratatoskr = ratatoskr;
+    }
+
+    @Activate
+    public void activate() {
+        domains.clear();
+        try {
+            for (var emoji : ratatoskr.listCustomEmojis()) {
+                domain(emoji.domain()).put(emoji);
+            }
+        } catch (RatatoskrException e) {
+            logger.warn("Failed to read the custom emojis, starting without custom emojis", e);
+        }
+    }
+
+    @Override
+    public CustomEmoji register(CustomEmoji emoji) {
+        if (emoji.shortcode() == null || !SHORTCODE.matcher(emoji.shortcode()).matches()) {
+            throw new RatatoskrException(String.format("Not a valid custom emoji shortcode: \"%s\"", emoji.shortcode()));
+        }
+
+        var domain = emoji.domain() != null ? emoji.domain() : LOCAL_DOMAIN;
+        var saved = ratatoskr.saveCustomEmoji(CustomEmoji.with(emoji).domain(domain).build());
+        domain(domain).put(saved);
+        return saved;
+    }
+
+    @Override
+    public boolean remove(String domain, String shortcode) {
+        if (!ratatoskr.deleteCustomEmoji(domain, shortcode)) {
+            return false;
+        }
+
+        var emojis = domains.get(domain);
+        if (emojis != null) {
+            emojis.remove(shortcode);
+        }
+
+        return true;
+    }
+
+    @Override
+    public Optional<CustomEmoji> find(String domain, String shortcode) {
+        var emojis = domain != null ? domains.get(domain) : null;
+        return emojis != null && shortcode != null ? Optional.ofNullable(emojis.emojis.get(shortcode)) : Optional.empty();
+    }
+
+    @Override
+    public List<CustomEmoji> listEmojis(String domain) {
+        var emojis = domain != null ? domains.get(domain) : null;
+        if (emojis == null) {
+            return List.of();
+        }
+
+        var list = new ArrayList<>(emojis.emojis.values());
+        list.sort(Comparator.comparing(CustomEmoji::shortcode));
+        return list;
+    }
+
+    @Override
+    public List<Emoji> emojisIn(String domain, String... texts) {
+        var emojis = domain != null ? domains.get(domain) : null;
+        if (emojis == null) {
+            return List.of();
+        }
+
+        var matcher = emojis.matcher();
+        var shortcodes = new LinkedHashSet<String>();
+        for (var text : texts) {
+            matcher.find(text, shortcodes);
+        }
+
+        var tags = new ArrayList<Emoji>(shortcodes.size());
+        for (var shortcode : shortcodes) {
+            var emoji = emojis.emojis.get(shortcode);
+            if (emoji != null) { // Null if removed while scanning
+                tags.add(emoji.tag());
+            }
+        }
+
+        return tags;
+    }
+
+    private DomainEmojis domain(String domain) {
+        return domains.computeIfAbsent(domain, d -> new DomainEmojis());
+    }
+
+    /**
+     * The emojis of a domain, and the matcher of their shortcodes, tagged with
+     * the version of the set of shortcodes it was built from.
+     */
+    static class DomainEmojis {
+        private final Map<String, CustomEmoji> emojis = new ConcurrentHashMap<>();
+        private final AtomicLong version = new AtomicLong();
+        private volatile BuiltMatcher built;
+
+        void put(CustomEmoji emoji) {
+            if (emojis.put(emoji.shortcode(), emoji) == null) {
+                version.incrementAndGet();
+            }
+        }
+
+        void remove(String shortcode) {
+            if (emojis.remove(shortcode) != null) {
+                version.incrementAndGet();
+            }
+        }
+
+        ShortcodeMatcher matcher() {
+            var current = built;
+            if (current != null && current.version() == version.get()) {
+                return current.matcher();
+            }
+
+            synchronized (this) {
+                var shortcodesVersion = version.get();
+                if (built == null || built.version() != shortcodesVersion) {
+                    built = new BuiltMatcher(shortcodesVersion, new ShortcodeMatcher(emojis.keySet()));
+                }
+
+                return built.matcher();
+            }
+        }
+
+    }
+
+    record BuiltMatcher(long version, ShortcodeMatcher matcher) {}
+
+}
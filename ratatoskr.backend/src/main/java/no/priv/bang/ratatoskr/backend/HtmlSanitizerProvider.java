@@ -0,0 +1,611 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.backend;
+
+import static java.util.Map.entry;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.osgi.service.component.annotations.Component;
+
+import no.priv.bang.ratatoskr.services.HtmlSanitizer;
+
+/**
+ * An allowlist HTML sanitizer making a single pass over the HTML, writing
+ * the allowed markup and the text as it goes, without building a DOM.
+ *
+ * The allowed elements and attributes are those of the content written by
+ * Mastodon and similar servers: paragraphs, line breaks, links, spans with
+ * microformat and mention classes, inline formatting, lists, quotes and
+ * code.  Every <code>&lt;</code> of the result is the start of a tag
+ * written by the sanitizer, and attribute values are always quoted and
+ * escaped, so whatever the input, the result is parsed the same way by
+ * every browser.
+ */
+@Component(service=HtmlSanitizer.class, immediate=true)
+public class HtmlSanitizerProvider implements HtmlSanitizer {
+    static final int MAX_DEPTH = 100;
+    static final String LINK_REL = "nofollow noopener noreferrer";
+    static final Set<String> URL_SCHEMES = Set.of("http", "https", "dat", "dweb", "ipfs", "ipns", "ssb", "gopher", "xmpp", "magnet", "gemini");
+    static final Set<String> CLASSES = Set.of("mention", "hashtag", "ellipsis", "invisible");
+    static final List<String> MICROFORMAT_PREFIXES = List.of("h-", "p-", "u-", "dt-", "e-");
+    static final Map<String, List<String>> ELEMENTS = Map.ofEntries(
+        entry("a", List.of("href", "class", "translate", "rel")),
+        entry("b", List.of()),
+        entry("blockquote", List.of()),
+        entry("br", List.of()),
+        entry("code", List.of()),
+        entry("del", List.of()),
+        entry("em", List.of()),
+        entry("i", List.of()),
+        entry("li", List.of("value")),
+        entry("ol", List.of("start", "reversed")),
+        entry("p", List.of()),
+        entry("pre", List.of()),
+        entry("s", List.of()),
+        entry("span", List.of("class", "translate")),
+        entry("strong", List.of()),
+        entry("sub", List.of()),
+        entry("sup", List.of()),
+        entry("u", List.of()),
+        entry("ul", List.of()));
+    static final Set<String> VOID_ELEMENTS = Set.of("br");
+    static final Set<String> DROPPED_WITH_CONTENT = Set.of("script", "style", "title", "textarea", "xmp", "iframe", "noembed", "noframes", "noscript", "template", "object");
+    private static final Pattern INTEGER = Pattern.compile("-?\\d{1,9}");
+    private static final int MAX_ENTITY_LENGTH = 32;
+    private static final int MAX_SCHEME_LENGTH = 32;
+    private static final Map<String, String> ATTRIBUTE_ENTITIES = Map.of(
+        "amp", "&",
+        "lt", "<",
+        "gt", ">",
+        "quot", "\"",
+        "apos", "'",
+        "nbsp", "\u00a0",
+        "colon", ":",
+        "Tab", "\t",
+        "NewLine", "\n");
+
+    @Override
+    public String sanitize(String html) {
+        if (html == null || nextSpecial(html, 0) == html.length()) {
+            return html;
+        }
+
+        return new Sanitizer(html).sanitize();
+    }
+
+    /**
+     * The state of sanitizing one string: the position in the HTML and the
+     * stack of elements written and not yet closed.
+     */
+    private static class Sanitizer {
+        private final String html;
+        private final int length;
+        private final StringBuilder out;
+        private final String[] open = new String[MAX_DEPTH];
+        private int depth;
+        private int pos;
+
+        Sanitizer(String html) {
+            this.html = html;
+            this.length = html.length();
+            this.out = new StringBuilder(length + 64);
+        }
+
+        String sanitize() {
+            while (pos < length) {
+                var c = html.charAt(pos);
+                if (c == '<') {
+                    markup();
+                } else if (c == '&') {
+                    textEntity();
+                } else if (c == '>') {
+                    out.append("&gt;");
+                    ++pos;
+                } else {
+                    var next = nextSpecial(html, pos);
+                    out.append(html, pos, next);
+                    pos = next;
+                }
+            }
+
+            while (depth > 0) {
+                closeTop();
+            }
+
+            return out.toString();
+        }
+
+        private void markup() {
+            var next = pos + 1 < length ? html.charAt(pos + 1) : 0;
+            if (isAsciiLetter(next)) {
+                startTag();
+            } else if (next == '/' && pos + 2 < length && isAsciiLetter(html.charAt(pos + 2))) {
+                endTag();
+            } else if (html.startsWith("<!--", pos)) {
+                skipPast("-->", pos + 4);
+            } else if (next == '!' || next == '?') {
+                skipPast(">", pos + 2);
+            } else {
+                out.append("&lt;");
+                ++pos;
+            }
+        }
+
+        private void startTag() {
+            var nameStart = pos + 1;
+            var nameEnd = tagNameEnd(nameStart);
+            var name = html.substring(nameStart, nameEnd).toLowerCase(Locale.ROOT);
+            var allowed = ELEMENTS.get(name);
+            var values = allowed != null ? new String[allowed.size()] : null;
+            var i = nameEnd;
+            while (true) {
+                while (i < length && (isWhitespace(html.charAt(i)) || html.charAt(i) == '/')) {
+                    ++i;
+                }
+
+                if (i >= length) {
+                    pos = length; // Unterminated tags are dropped
+                    return;
+                }
+
+                if (html.charAt(i) == '>') {
+                    break;
+                }
+
+                var attributeStart = i;
+                while (i < length && isAttributeNameChar(html.charAt(i))) {
+                    ++i;
+                }
+
+                if (i == attributeStart) {
+                    ++i; // An attribute name starting with '='
+                }
+
+                var attributeEnd = i;
+                var valueStart = i;
+                var valueEnd = i;
+                i = skipWhitespace(i);
+                if (i < length && html.charAt(i) == '=') {
+                    i = skipWhitespace(i + 1);
+                    var quote = i < length ? html.charAt(i) : 0;
+                    if (quote == '"' || quote == '\'') {
+                        valueStart = i + 1;
+                        valueEnd = html.indexOf(quote, valueStart);
+                        if (valueEnd < 0) {
+                            pos = length;
+                            return;
+                        }
+
+                        i = valueEnd + 1;
+                    } else {
+                        valueStart = i;
+                        while (i < length && !isWhitespace(html.charAt(i)) && html.charAt(i) != '>') {
+                            ++i;
+                        }
+
+                        valueEnd = i;
+                    }
+                }
+
+                if (values != null) {
+                    var index = indexOfAttribute(allowed, attributeStart, attributeEnd);
+                    if (index >= 0 && values[index] == null) {
+                        values[index] = decodeAttribute(html.substring(valueStart, valueEnd));
+                    }
+                }
+            }
+
+            pos = i + 1;
+            if (DROPPED_WITH_CONTENT.contains(name)) {
+                skipPastEndTag(name);
+                return;
+            }
+
+            if (allowed == null || depth == MAX_DEPTH) {
+                return;
+            }
+
+            if (("p".equals(name) || "li".equals(name)) && depth > 0 && name.equals(open[depth - 1])) {
+                closeTop();
+            }
+
+            writeStartTag(name, allowed, values);
+            if (!VOID_ELEMENTS.contains(name)) {
+                open[depth++] = name;
+            }
+        }
+
+        /**
+         * Close the innermost open element with the name of the end tag,
+         * and the elements opened inside it.  End tags of elements that
+         * aren't open are dropped.
+         */
+        private void endTag() {
+            var nameStart = pos + 2;
+            var nameEnd = tagNameEnd(nameStart);
+            var close = html.indexOf('>', nameEnd);
+            pos = close < 0 ? length : close + 1;
+            var nameLength = nameEnd - nameStart;
+            for (int i = depth - 1; i >= 0; --i) {
+                if (open[i].length() == nameLength && html.regionMatches(true, nameStart, open[i], 0, nameLength)) {
+                    while (depth > i) {
+                        closeTop();
+                    }
+
+                    return;
+                }
+            }
+        }
+
+        private void closeTop() {
+            out.append("</").append(open[--depth]).append('>');
+        }
+
+        private void writeStartTag(String name, List<String> allowed, String[] values) {
+            out.append('<').append(name);
+            String href = null;
+            var relTag = false;
+            for (int i = 0; i < allowed.size(); ++i) {
+                var attribute = allowed.get(i);
+                if ("rel".equals(attribute)) {
+                    relTag = values[i] != null && hasToken(values[i], "tag");
+                    continue;
+                }
+
+                var value = attributeValue(attribute, values[i]);
+                if (value != null) {
+                    out.append(' ').append(attribute).append("=\"");
+                    appendEscaped(value);
+                    out.append('"');
+                    if ("href".equals(attribute)) {
+                        href = value;
+                    }
+                }
+            }
+
+            if (href != null) {
+                out.append(" rel=\"").append(LINK_REL).append(relTag ? " tag" : "").append("\" target=\"_blank\"");
+            }
+
+            out.append('>');
+        }
+
+        /**
+         * Copy a character reference as it is, or escape the ampersand if
+         * it doesn't start one.
+         */
+        private void textEntity() {
+            var end = entityEnd(pos);
+            if (end > 0) {
+                out.append(html, pos, end);
+                pos = end;
+            } else {
+                out.append("&amp;");
+                ++pos;
+            }
+        }
+
+        private int entityEnd(int ampersand) {
+            var i = ampersand + 1;
+            var limit = Math.min(length, ampersand + MAX_ENTITY_LENGTH);
+            var start = i;
+            if (i < limit && html.charAt(i) == '#') {
+                ++i;
+                var hex = i < limit && (html.charAt(i) == 'x' || html.charAt(i) == 'X');
+                if (hex) {
+                    ++i;
+                }
+
+                start = i;
+                while (i < limit && (hex ? Character.digit(html.charAt(i), 16) >= 0 : isAsciiDigit(html.charAt(i)))) {
+                    ++i;
+                }
+            } else {
+                while (i < limit && (isAsciiLetter(html.charAt(i)) || (i > start && isAsciiDigit(html.charAt(i))))) {
+                    ++i;
+                }
+            }
+
+            return i > start && i < limit && html.charAt(i) == ';' ? i + 1 : -1;
+        }
+
+        private void skipPast(String terminator, int from) {
+            var found = html.indexOf(terminator, from);
+            pos = found < 0 ? length : found + terminator.length();
+        }
+
+        /**
+         * Skip the content of an element whose content is dropped, up to
+         * and including its end tag.
+         */
+        private void skipPastEndTag(String name) {
+            var from = pos;
+            while (true) {
+                var found = html.indexOf("</", from);
+                if (found < 0) {
+                    pos = length;
+                    return;
+                }
+
+                var nameEnd = found + 2 + name.length();
+                if (html.regionMatches(true, found + 2, name, 0, name.length()) && (nameEnd == length || !isAttributeNameChar(html.charAt(nameEnd)))) {
+                    skipPast(">", nameEnd);
+                    return;
+                }
+
+                from = found + 2;
+            }
+        }
+
+        private int tagNameEnd(int start) {
+            var i = start;
+            while (i < length && !isWhitespace(html.charAt(i)) && html.charAt(i) != '/' && html.charAt(i) != '>') {
+                ++i;
+            }
+
+            return i;
+        }
+
+        private int skipWhitespace(int start) {
+            var i = start;
+            while (i < length && isWhitespace(html.charAt(i))) {
+                ++i;
+            }
+
+            return i;
+        }
+
+        private int indexOfAttribute(List<String> allowed, int start, int end) {
+            for (int i = 0; i < allowed.size(); ++i) {
+                var attribute = allowed.get(i);
+                if (attribute.length() == end - start && html.regionMatches(true, start, attribute, 0, attribute.length())) {
+                    return i;
+                }
+            }
+
+            return -1;
+        }
+
+        private void appendEscaped(String value) {
+            for (int i = 0; i < value.length(); ++i) {
+                var c = value.charAt(i);
+                switch (c) {
+                    case '&' -> out.append("&amp;");
+                    case '"' -> out.append("&quot;");
+                    case '<' -> out.append("&lt;");
+                    case '>' -> out.append("&gt;");
+                    default -> out.append(c);
+                }
+            }
+        }
+
+    }
+
+    static String attributeValue(String attribute, String value) {
+        if (value == null) {
+            return null;
+        }
+
+        return switch (attribute) {
+            case "href" -> safeUrl(value);
+            case "class" -> allowedClasses(value);
+            case "translate" -> "no".equalsIgnoreCase(value) || "yes".equalsIgnoreCase(value) ? value.toLowerCase(Locale.ROOT) : null;
+            case "start", "value" -> INTEGER.matcher(value).matches() ? value : null;
+            case "reversed" -> "";
+            default -> null;
+        };
+    }
+
+    /**
+     * The URL if it is absolute with one of the allowed schemes, and null
+     * otherwise.  Whitespace and control characters are ignored when
+     * finding the scheme, as they are by browsers.
+     */
+    static String safeUrl(String value) {
+        var url = value.strip();
+        var scheme = new StringBuilder();
+        for (int i = 0; i < url.length(); ++i) {
+            var c = url.charAt(i);
+            if (c == ':') {
+                return URL_SCHEMES.contains(scheme.toString()) ? url : null;
+            }
+
+            if (c == '/' || c == '?' || c == '#' || scheme.length() > MAX_SCHEME_LENGTH) {
+                return null;
+            }
+
+            if (c > ' ') {
+                scheme.append(Character.toLowerCase(c));
+            }
+        }
+
+        return null;
+    }
+
+    static String allowedClasses(String value) {
+        var classes = new StringBuilder(value.length());
+        var start = 0;
+        while (start < value.length()) {
+            var end = wordEnd(value, start);
+            if (isAllowedClass(value, start, end)) {
+                if (!classes.isEmpty()) {
+                    classes.append(' ');
+                }
+
+                classes.append(value, start, end);
+            }
+
+            start = end + 1;
+        }
+
+        return classes.isEmpty() ? null : classes.toString();
+    }
+
+    private static boolean isAllowedClass(String value, int start, int end) {
+        var length = end - start;
+        for (var name : CLASSES) {
+            if (name.length() == length && value.startsWith(name, start)) {
+                return true;
+            }
+        }
+
+        for (var prefix : MICROFORMAT_PREFIXES) {
+            if (length > prefix.length() && value.startsWith(prefix, start)) {
+                for (int i = start + prefix.length(); i < end; ++i) {
+                    var c = value.charAt(i);
+                    if (!(c >= 'a' && c <= 'z') && !isAsciiDigit(c) && c != '-') {
+                        return false;
+                    }
+                }
+
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Decode the character references of an attribute value: the numeric
+     * ones, with or without the semicolon, as browsers do, and the named
+     * ones that may matter when checking URLs.  Other named references are
+     * left as they are, and will be escaped when written.
+     */
+    static String decodeAttribute(String value) {
+        var ampersand = value.indexOf('&');
+        if (ampersand < 0) {
+            return value;
+        }
+
+        var decoded = new StringBuilder(value.length());
+        decoded.append(value, 0, ampersand);
+        var i = ampersand;
+        while (i < value.length()) {
+            var c = value.charAt(i);
+            if (c != '&') {
+                decoded.append(c);
+                ++i;
+            } else if (i + 1 < value.length() && value.charAt(i + 1) == '#') {
+                i = decodeNumeric(value, i, decoded);
+            } else {
+                i = decodeNamed(value, i, decoded);
+            }
+        }
+
+        return decoded.toString();
+    }
+
+    private static int decodeNumeric(String value, int ampersand, StringBuilder decoded) {
+        var i = ampersand + 2;
+        var hex = i < value.length() && (value.charAt(i) == 'x' || value.charAt(i) == 'X');
+        if (hex) {
+            ++i;
+        }
+
+        var start = i;
+        var codePoint = 0L;
+        while (i < value.length() && Character.digit(value.charAt(i), hex ? 16 : 10) >= 0) {
+            codePoint = Math.min(codePoint * (hex ? 16 : 10) + Character.digit(value.charAt(i), hex ? 16 : 10), Integer.MAX_VALUE);
+            ++i;
+        }
+
+        if (i == start) {
+            decoded.append('&');
+            return ampersand + 1;
+        }
+
+        var valid = codePoint > 0 && codePoint <= Character.MAX_CODE_POINT && (codePoint < Character.MIN_SURROGATE || codePoint > Character.MAX_SURROGATE);
+        decoded.appendCodePoint(valid ? (int) codePoint : 0xfffd);
+        return i < value.length() && value.charAt(i) == ';' ? i + 1 : i;
+    }
+
+    private static int decodeNamed(String value, int ampersand, StringBuilder decoded) {
+        var semicolon = value.indexOf(';', ampersand + 1);
+        if (semicolon > ampersand + 1 && semicolon <= ampersand + MAX_ENTITY_LENGTH) {
+            var replacement = ATTRIBUTE_ENTITIES.get(value.substring(ampersand + 1, semicolon));
+            if (replacement != null) {
+                decoded.append(replacement);
+                return semicolon + 1;
+            }
+        }
+
+        decoded.append('&');
+        return ampersand + 1;
+    }
+
+    private static boolean hasToken(String value, String token) {
+        var start = 0;
+        while (start < value.length()) {
+            var end = wordEnd(value, start);
+            if (end - start == token.length() && value.regionMatches(true, start, token, 0, token.length())) {
+                return true;
+            }
+
+            start = end + 1;
+        }
+
+        return false;
+    }
+
+    private static int wordEnd(String value, int start) {
+        var end = start;
+        while (end < value.length() && !isWhitespace(value.charAt(end))) {
+            ++end;
+        }
+
+        return end;
+    }
+
+    /**
+     * The index of the first character at or after start that needs a look,
+     * or the length of the HTML if there is none.
+     */
+    static int nextSpecial(String html, int start) {
+        var i = start;
+        while (i < html.length()) {
+            var c = html.charAt(i);
+            if (c == '<' || c == '>' || c == '&') {
+                return i;
+            }
+
+            ++i;
+        }
+
+        return i;
+    }
+
+    private static boolean isAttributeNameChar(char c) {
+        return !isWhitespace(c) && c != '/' && c != '>' && c != '=';
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isAsciiDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+}
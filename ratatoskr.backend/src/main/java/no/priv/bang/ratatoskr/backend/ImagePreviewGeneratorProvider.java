@@ -0,0 +1,334 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.backend;
+
+import static no.priv.bang.ratatoskr.backend.Config.longConfig;
+
+import java.awt.Color;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.log.LogService;
+import org.osgi.service.log.Logger;
+
+import no.priv.bang.ratatoskr.services.ImagePreviewGenerator;
+import no.priv.bang.ratatoskr.services.MediaStore;
+import no.priv.bang.ratatoskr.services.beans.ImagePreviews;
+import no.priv.bang.ratatoskr.services.beans.StoredMedia;
+
+/**
+ * Makes the previews of images on a pool with a thread per processor
+ * (by default half of the processors, so that the web requests aren't
+ * starved).  The number of images waiting to be worked on is limited,
+ * and an image is only worked on by one thread at a time.
+ *
+ * Large images are subsampled while they are decoded, and then scaled
+ * down by halving, which is both faster and gives a better result than
+ * scaling in one step.  The blurhash is computed from a tiny version of
+ * the icon.
+ *
+ * The preview and the icon are stored as JPEG in the {@link MediaStore},
+ * and the sizes, the blurhash and the hashes of the preview and the icon
+ * are kept in a properties file next to the image, named by the hash of
+ * the image followed by {@link #PREVIEWS_SUFFIX}.
+ */
+@Component(service=ImagePreviewGenerator.class, immediate=true)
+public class ImagePreviewGeneratorProvider implements ImagePreviewGenerator {
+
+    static final int DEFAULT_PREVIEW_SIZE = 640;
+    static final int DEFAULT_ICON_SIZE = 128;
+    static final int DEFAULT_MAX_QUEUED_IMAGES = 100;
+    static final int BLURHASH_SIZE = 32;
+    static final long MAX_PIXELS = 100_000_000L;
+    static final float JPEG_QUALITY = 0.85f;
+    static final String PREVIEW_MEDIA_TYPE = "image/jpeg";
+    static final String PREVIEWS_SUFFIX = ".previews.properties";
+
+    private Logger logger;
+    private MediaStore mediaStore;
+    private ForkJoinPool pool;
+    private Semaphore queued;
+    private int previewSize;
+    private int iconSize;
+    private final Map<String, CompletableFuture<Optional<ImagePreviews>>> jobs = new ConcurrentHashMap<>();
+
+    @Reference
+    public void setLogservice(LogService logservice) {
+        this.logger = logservice.getLogger(ImagePreviewGeneratorProvider.class);
+    }
+
+    @Reference
+    public void setMediaStore(MediaStore mediaStore) {
+        this.mediaStore = mediaStore;
+    }
+
+    @Activate
+    public void activate(Map<String, Object> config) {
+        var parallelism = (int) longConfig(config, "parallelism", Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        queued = new Semaphore((int) longConfig(config, "maxQueuedImages", DEFAULT_MAX_QUEUED_IMAGES));
+        previewSize = (int) longConfig(config, "previewSize", DEFAULT_PREVIEW_SIZE);
+        iconSize = (int) longConfig(config, "iconSize", DEFAULT_ICON_SIZE);
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    @Deactivate
+    public void deactivate() {
+        pool.shutdownNow();
+    }
+
+    @Override
+    public CompletionStage<Optional<ImagePreviews>> generate(StoredMedia media) {
+        if (media == null || media.mediaType() == null || !media.mediaType().startsWith("image/")) {
+            return CompletableFuture.completedStage(Optional.empty());
+        }
+
+        var existing = find(media);
+        if (existing.isPresent()) {
+            return CompletableFuture.completedStage(existing);
+        }
+
+        var job = new CompletableFuture<Optional<ImagePreviews>>();
+        var ongoing = jobs.putIfAbsent(media.hash(), job);
+        if (ongoing != null) {
+            return ongoing.minimalCompletionStage();
+        }
+
+        if (!queued.tryAcquire()) {
+            logger.warn("Too many images waiting for previews, not making previews of \"{}\"", media.hash());
+            jobs.remove(media.hash(), job);
+            job.complete(Optional.empty());
+            return job.minimalCompletionStage();
+        }
+
+        try {
+            pool.execute(() -> {
+                try {
+                    var previews = makePreviews(media);
+                    jobs.remove(media.hash(), job);
+                    job.complete(previews);
+                } finally {
+                    queued.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            queued.release();
+            jobs.remove(media.hash(), job);
+            job.complete(Optional.empty());
+        }
+
+        return job.minimalCompletionStage();
+    }
+
+    @Override
+    public Optional<ImagePreviews> find(StoredMedia media) {
+        var file = previewsPath(media);
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+
+        var properties = new Properties();
+        try (var input = Files.newInputStream(file)) {
+            properties.load(input);
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+
+        // The preview and the icon of fetched images may have been evicted
+        var preview = mediaStore.find(properties.getProperty("preview"));
+        var icon = mediaStore.find(properties.getProperty("icon"));
+        if (preview.isEmpty() || icon.isEmpty()) {
+            return Optional.empty();
+        }
+
+        return Optional.of(ImagePreviews.with()
+            .width(Integer.parseInt(properties.getProperty("width", "0")))
+            .height(Integer.parseInt(properties.getProperty("height", "0")))
+            .blurHash(properties.getProperty("blurHash"))
+            .preview(preview.get())
+            .previewWidth(Integer.parseInt(properties.getProperty("previewWidth", "0")))
+            .previewHeight(Integer.parseInt(properties.getProperty("previewHeight", "0")))
+            .icon(icon.get())
+            .iconWidth(Integer.parseInt(properties.getProperty("iconWidth", "0")))
+            .iconHeight(Integer.parseInt(properties.getProperty("iconHeight", "0")))
+            .build());
+    }
+
+    private Optional<ImagePreviews> makePreviews(StoredMedia media) {
+        try {
+            var decoded = decode(mediaStore.path(media));
+            if (decoded == null) {
+                return Optional.empty();
+            }
+
+            var image = decoded.image();
+            var preview = scale(image, previewSize);
+            var icon = scale(preview, iconSize);
+            var landscape = image.getWidth() >= image.getHeight();
+            var blurHash = BlurHash.encode(scale(icon, BLURHASH_SIZE), landscape ? 4 : 3, landscape ? 3 : 4);
+            var previews = ImagePreviews.with()
+                .width(decoded.width())
+                .height(decoded.height())
+                .blurHash(blurHash)
+                .preview(mediaStore.storeDerived(jpeg(preview), PREVIEW_MEDIA_TYPE, media))
+                .previewWidth(preview.getWidth())
+                .previewHeight(preview.getHeight())
+                .icon(mediaStore.storeDerived(jpeg(icon), PREVIEW_MEDIA_TYPE, media))
+                .iconWidth(icon.getWidth())
+                .iconHeight(icon.getHeight())
+                .build();
+            writePreviews(media, previews);
+            return Optional.of(previews);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to make previews of image \"{}\"", media.hash(), e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Decode an image, subsampled so that it is no more than twice the size
+     * of the preview.
+     *
+     * @return the decoded image with the size of the original, or null if the
+     *         file isn't an image that can be read, or if it is too large
+     */
+    private DecodedImage decode(Path file) throws IOException {
+        try (var input = ImageIO.createImageInputStream(file.toFile())) {
+            var readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+
+            var reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                var width = reader.getWidth(0);
+                var height = reader.getHeight(0);
+                if ((long) width * height > MAX_PIXELS) {
+                    logger.warn("Not making previews of {}x{} image \"{}\"", width, height, file.getFileName());
+                    return null;
+                }
+
+                var subsampling = Math.max(1, Math.max(width, height) / (previewSize * 2));
+                var parameters = reader.getDefaultReadParam();
+                parameters.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return new DecodedImage(reader.read(0, parameters), width, height);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Scale an image down, keeping the aspect ratio, so that neither side
+     * is longer than the size.  Images that are small enough are only
+     * converted to RGB, with transparent pixels made white.
+     */
+    static BufferedImage scale(BufferedImage image, int size) {
+        var ratio = Math.min(1.0, (double) size / Math.max(image.getWidth(), image.getHeight()));
+        var targetWidth = Math.max(1, (int) Math.round(image.getWidth() * ratio));
+        var targetHeight = Math.max(1, (int) Math.round(image.getHeight() * ratio));
+        var scaled = image;
+        while (scaled.getWidth() / 2 >= targetWidth && scaled.getHeight() / 2 >= targetHeight) {
+            scaled = draw(scaled, scaled.getWidth() / 2, scaled.getHeight() / 2);
+        }
+
+        if (scaled.getWidth() != targetWidth || scaled.getHeight() != targetHeight || scaled.getType() != BufferedImage.TYPE_INT_RGB) {
+            scaled = draw(scaled, targetWidth, targetHeight);
+        }
+
+        return scaled;
+    }
+
+    private static BufferedImage draw(BufferedImage image, int width, int height) {
+        var scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        var graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, width, height, Color.WHITE, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        return scaled;
+    }
+
+    static ByteArrayInputStream jpeg(BufferedImage image) throws IOException {
+        var writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        var output = new ByteArrayOutputStream();
+        try (var stream = ImageIO.createImageOutputStream(output)) {
+            writer.setOutput(stream);
+            var parameters = writer.getDefaultWriteParam();
+            parameters.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            parameters.setCompressionQuality(JPEG_QUALITY);
+            writer.write(null, new IIOImage(image, null, null), parameters);
+        } finally {
+            writer.dispose();
+        }
+
+        return new ByteArrayInputStream(output.toByteArray());
+    }
+
+    private void writePreviews(StoredMedia media, ImagePreviews previews) throws IOException {
+        var properties = new Properties();
+        properties.setProperty("width", Integer.toString(previews.width()));
+        properties.setProperty("height", Integer.toString(previews.height()));
+        properties.setProperty("blurHash", previews.blurHash());
+        properties.setProperty("preview", previews.preview().hash());
+        properties.setProperty("previewWidth", Integer.toString(previews.previewWidth()));
+        properties.setProperty("previewHeight", Integer.toString(previews.previewHeight()));
+        properties.setProperty("icon", previews.icon().hash());
+        properties.setProperty("iconWidth", Integer.toString(previews.iconWidth()));
+        properties.setProperty("iconHeight", Integer.toString(previews.iconHeight()));
+        var file = previewsPath(media);
+        var temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (var output = Files.newOutputStream(temporary)) {
+            properties.store(output, null);
+        }
+
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Path previewsPath(StoredMedia media) {
+        return mediaStore.path(media).resolveSibling(media.hash() + PREVIEWS_SUFFIX);
+    }
+
+    record DecodedImage(BufferedImage image, int width, int height) {}
+
+}
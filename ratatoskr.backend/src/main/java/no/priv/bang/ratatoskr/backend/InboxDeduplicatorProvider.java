@@ -0,0 +1,372 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.backend;
+
+import static no.priv.bang.ratatoskr.backend.Config.longConfig;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.log.LogService;
+import org.osgi.service.log.Logger;
+
+import no.priv.bang.ratatoskr.services.InboxDeduplicator;
+import no.priv.bang.ratatoskr.services.RatatoskrException;
+import no.priv.bang.ratatoskr.services.RatatoskrService;
+
+/**
+ * Recognizes duplicate deliveries in three layers.
+ *
+ * A {@link TimeWindowedBloomFilter} of the activities received in the last
+ * window answers most new activities without a lookup.  An exact LRU of
+ * the recently received ids answers most duplicates without a lookup.
+ * The database, with its unique index on the received activity ids, is
+ * only asked when the filter says maybe and the LRU doesn't know the id.
+ * The unique index also catches duplicates arriving after the filter has
+ * forgotten them, when they are recorded.
+ *
+ * On activation the filter is filled with the activities received in the
+ * last window, so that a restart doesn't let the duplicates of the
+ * activities received just before it through without a lookup.  The
+ * received activities older than the retention, which is never shorter
+ * than the window, are deleted on activation and then periodically.
+ *
+ * Ids longer than {@link #MAX_ID_LENGTH}, the size of the database
+ * column, aren't accepted.
+ */
+@Component(service=InboxDeduplicator.class, immediate=true)
+public class InboxDeduplicatorProvider implements InboxDeduplicator {
+
+    static final long DEFAULT_WINDOW_SECONDS = 86400;
+    static final long DEFAULT_RETENTION_SECONDS = 7 * 86400L;
+    static final long DEFAULT_PRUNE_INTERVAL_MINUTES = 60;
+    static final int DEFAULT_EXPECTED_ACTIVITIES = 100000;
+    static final int DEFAULT_MAX_RECENT_IDS = 10000;
+    static final double FALSE_POSITIVE_RATE = 0.01;
+    static final int MAX_ID_LENGTH = 512;
+
+    private Logger logger;
+    private RatatoskrService ratatoskr;
+    private TimeWindowedBloomFilter recentlyReceived;
+    private int maxRecentIds;
+    private Duration retention;
+    private ScheduledExecutorService scheduler;
+    private final LinkedHashMap<String, Boolean> recentIds = new LinkedHashMap<>(16, 0.75f, true);
+
+    @Reference
+    public void setLogservice(LogService logservice) {
+        this.logger = logservice.getLogger(InboxDeduplicatorProvider.class);
+    }
+
+    @Reference
+    public void setRatatoskrService(RatatoskrService ratatoskr) {
+        this.ratatoskr = ratatoskr;
+    }
+
+    @Activate
+    public void activate(Map<String, Object> config) {
+        var windowSeconds = longConfig(config, "windowSeconds", DEFAULT_WINDOW_SECONDS);
+        var window = TimeUnit.SECONDS.toNanos(windowSeconds);
+        var expectedActivities = (int) longConfig(config, "expectedActivities", DEFAULT_EXPECTED_ACTIVITIES);
+        maxRecentIds = (int) longConfig(config, "maxRecentIds", DEFAULT_MAX_RECENT_IDS);
+        retention = Duration.ofSeconds(Math.max(windowSeconds, longConfig(config, "retentionSeconds", DEFAULT_RETENTION_SECONDS)));
+        recentlyReceived = new TimeWindowedBloomFilter(expectedActivities, FALSE_POSITIVE_RATE, window, System.nanoTime());
+        prune();
+        warmUp(Instant.now().minusSeconds(windowSeconds));
+        var pruneIntervalMinutes = Math.max(1, longConfig(config, "pruneIntervalMinutes", DEFAULT_PRUNE_INTERVAL_MINUTES));
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("ratatoskr-received-activities-pruning").factory());
+        scheduler.scheduleWithFixedDelay(this::prune, pruneIntervalMinutes, pruneIntervalMinutes, TimeUnit.MINUTES);
+    }
+
+    @Deactivate
+    public void deactivate() {
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public Optional<String> activityId(byte[] body) {
+        var id = body != null ? topLevelId(body) : null;
+        return Optional.ofNullable(id).filter(i -> !i.isEmpty() && i.length() <= MAX_ID_LENGTH);
+    }
+
+    @Override
+    public boolean isDuplicate(String activityId) {
+        if (!recentlyReceived.mightContain(activityId, System.nanoTime())) {
+            return false;
+        }
+
+        if (isRecent(activityId)) {
+            return true;
+        }
+
+        try {
+            if (ratatoskr.hasReceivedActivity(activityId)) {
+                rememberRecent(activityId);
+                return true;
+            }
+        } catch (RatatoskrException e) {
+            // The unique index will still catch the duplicate when it is recorded
+            logger.warn("Failed to look up received activity \"{}\", handling it as a new activity", activityId, e);
+        }
+
+        return false;
+    }
+
+    @Override
+    public boolean received(String activityId) {
+        var added = ratatoskr.addReceivedActivity(activityId);
+        recentlyReceived.add(activityId, System.nanoTime());
+        rememberRecent(activityId);
+        return added;
+    }
+
+    void warmUp(Instant since) {
+        try {
+            var now = System.nanoTime();
+            for (var activityId : ratatoskr.listReceivedActivitiesSince(since)) {
+                recentlyReceived.add(activityId, now);
+            }
+        } catch (RatatoskrException e) {
+            // Duplicates of the activities received before activation are still caught by the unique index
+            logger.warn("Failed to read the activities received since {}", since, e);
+        }
+    }
+
+    void prune() {
+        try {
+            var deleted = ratatoskr.deleteReceivedActivitiesBefore(Instant.now().minus(retention));
+            if (deleted > 0) {
+                logger.info("Deleted {} received activities older than {}", deleted, retention);
+            }
+        } catch (RatatoskrException e) {
+            logger.warn("Failed to delete old received activities", e);
+        }
+    }
+
+    private boolean isRecent(String activityId) {
+        synchronized (recentIds) {
+            return recentIds.get(activityId) != null;
+        }
+    }
+
+    private void rememberRecent(String activityId) {
+        synchronized (recentIds) {
+            recentIds.put(activityId, Boolean.TRUE);
+            var eldest = recentIds.entrySet().iterator();
+            while (recentIds.size() > maxRecentIds && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+            }
+        }
+    }
+
+    /**
+     * The string value of the first "id" member of the top level JSON
+     * object.  The values of the members before it are skipped by only
+     * matching brackets and quotes, and nothing after it is read.
+     *
+     * @return the id, or null if the JSON isn't an object with a string id
+     *         before the first syntax error found
+     */
+    static String topLevelId(byte[] json) {
+        var i = skipWhitespace(json, 0);
+        if (i >= json.length || json[i] != '{') {
+            return null;
+        }
+
+        i = skipWhitespace(json, i + 1);
+        while (i < json.length && json[i] == '"') {
+            var keyEnd = stringEnd(json, i);
+            if (keyEnd < 0) {
+                return null;
+            }
+
+            var isId = keyEnd - i == 4 && json[i + 1] == 'i' && json[i + 2] == 'd';
+            i = skipWhitespace(json, keyEnd);
+            if (i >= json.length || json[i] != ':') {
+                return null;
+            }
+
+            i = skipWhitespace(json, i + 1);
+            if (isId) {
+                var valueEnd = i < json.length && json[i] == '"' ? stringEnd(json, i) : -1;
+                return valueEnd < 0 ? null : decodeString(json, i + 1, valueEnd - 1);
+            }
+
+            i = valueEnd(json, i);
+            if (i < 0) {
+                return null;
+            }
+
+            i = skipWhitespace(json, i);
+            if (i >= json.length || json[i] != ',') {
+                return null;
+            }
+
+            i = skipWhitespace(json, i + 1);
+        }
+
+        return null;
+    }
+
+    /**
+     * The index after a JSON value, counting brackets without looking at
+     * what is between them, except for strings that may contain brackets.
+     */
+    private static int valueEnd(byte[] json, int start) {
+        if (start >= json.length) {
+            return -1;
+        }
+
+        if (json[start] == '"') {
+            return stringEnd(json, start);
+        }
+
+        if (json[start] == '{' || json[start] == '[') {
+            var depth = 0;
+            var i = start;
+            while (i < json.length) {
+                var b = json[i];
+                if (b == '"') {
+                    i = stringEnd(json, i);
+                    if (i < 0) {
+                        return -1;
+                    }
+
+                    continue;
+                }
+
+                if (b == '{' || b == '[') {
+                    ++depth;
+                } else if ((b == '}' || b == ']') && --depth == 0) {
+                    return i + 1;
+                }
+
+                ++i;
+            }
+
+            return -1;
+        }
+
+        var i = start;
+        while (i < json.length && json[i] != ',' && json[i] != '}' && json[i] != ']' && !isWhitespace(json[i])) {
+            ++i;
+        }
+
+        return i > start ? i : -1;
+    }
+
+    /**
+     * The index after the closing quote of the string starting at the
+     * index, or -1 if the string isn't closed.
+     */
+    private static int stringEnd(byte[] json, int start) {
+        var i = start + 1;
+        while (i < json.length) {
+            if (json[i] == '\\') {
+                i += 2;
+            } else if (json[i] == '"') {
+                return i + 1;
+            } else {
+                ++i;
+            }
+        }
+
+        return -1;
+    }
+
+    private static String decodeString(byte[] json, int start, int end) {
+        var raw = new String(json, start, end - start, StandardCharsets.UTF_8);
+        if (raw.indexOf('\\') < 0) {
+            return raw;
+        }
+
+        var decoded = new StringBuilder(raw.length());
+        for (int i = 0; i < raw.length(); ++i) {
+            var c = raw.charAt(i);
+            if (c != '\\') {
+                decoded.append(c);
+                continue;
+            }
+
+            if (++i >= raw.length()) {
+                return null;
+            }
+
+            switch (raw.charAt(i)) {
+                case '"', '\\', '/' -> decoded.append(raw.charAt(i));
+                case 'b' -> decoded.append('\b');
+                case 'f' -> decoded.append('\f');
+                case 'n' -> decoded.append('\n');
+                case 'r' -> decoded.append('\r');
+                case 't' -> decoded.append('\t');
+                case 'u' -> {
+                    var codeUnit = i + 4 < raw.length() ? hexValue(raw, i + 1) : -1;
+                    if (codeUnit < 0) {
+                        return null;
+                    }
+
+                    decoded.append((char) codeUnit);
+                    i += 4;
+                }
+                default -> {
+                    return null;
+                }
+            }
+        }
+
+        return decoded.toString();
+    }
+
+    private static int hexValue(String text, int start) {
+        var value = 0;
+        for (int i = start; i < start + 4; ++i) {
+            var digit = Character.digit(text.charAt(i), 16);
+            if (digit < 0) {
+                return -1;
+            }
+
+            value = value * 16 + digit;
+        }
+
+        return value;
+    }
+
+    private static int skipWhitespace(byte[] json, int start) {
+        var i = start;
+        while (i < json.length && isWhitespace(json[i])) {
+            ++i;
+        }
+
+        return i;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.backend;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.TreeMap;
+import java.util.zip.GZIPOutputStream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import no.priv.bang.ratatoskr.services.RatatoskrException;
+import no.priv.bang.ratatoskr.services.beans.DisplayTextsBody;
+import no.priv.bang.ratatoskr.services.beans.LocaleBean;
+
+/**
+ * The display texts of the available locales and of the default locale,
+ * read from the resource bundles once, when the cache is created.
+ *
+ * Each locale has an immutable map of its texts, and the texts serialized
+ * as a JSON object, both plain and gzip compressed, with an ETag that is
+ * a hash of the JSON.  The texts of a locale can be looked up both with
+ * the locale and with the locale string sent by the frontend,
+ * e.g. "nb_NO" or "nb-NO".
+ */
+class LocalizationCache {
+    static final int ETAG_BYTES = 16;
+    static final ObjectMapper mapper = new ObjectMapper();
+
+    private final Locale defaultLocale;
+    private final List<LocaleBean> availableLocales;
+    private final Map<Locale, Map<String, String>> texts;
+    private final Map<String, Map<String, String>> textsByCode;
+    private final Map<Locale, DisplayTextsBody> bodies;
+
+    LocalizationCache(String bundleName, Locale defaultLocale, List<Locale> locales) {
+        this.defaultLocale = defaultLocale;
+        this.availableLocales = locales.stream().map(l -> LocaleBean.with().locale(l).build()).toList();
+        var loadedTexts = new HashMap<Locale, Map<String, String>>();
+        var loadedTextsByCode = new HashMap<String, Map<String, String>>();
+        var loadedBodies = new HashMap<Locale, DisplayTextsBody>();
+        var allLocales = new LinkedHashSet<>(locales);
+        allLocales.add(defaultLocale);
+        for (var locale : allLocales) {
+            var localeTexts = readResourceBundle(bundleName, locale);
+            loadedTexts.put(locale, localeTexts);
+            loadedTextsByCode.put(locale.toString(), localeTexts);
+            loadedTextsByCode.put(locale.toLanguageTag(), localeTexts);
+            loadedBodies.put(locale, serialize(localeTexts));
+        }
+
+        loadedTextsByCode.put("", loadedTexts.get(defaultLocale));
+        this.texts = Map.copyOf(loadedTexts);
+        this.textsByCode = Map.copyOf(loadedTextsByCode);
+        this.bodies = Map.copyOf(loadedBodies);
+    }
+
+    Locale defaultLocale() {
+        return defaultLocale;
+    }
+
+    List<LocaleBean> availableLocales() {
+        return availableLocales;
+    }
+
+    /**
+     * The texts of a locale, or null if the locale isn't cached.
+     */
+    Map<String, String> texts(Locale locale) {
+        return locale != null ? texts.get(locale) : null;
+    }
+
+    /**
+     * The texts of a locale string from the frontend, where null or an empty
+     * string is the default locale, or null if the locale isn't cached.
+     */
+    Map<String, String> textsForCode(String locale) {
+        return textsByCode.get(locale != null ? locale : "");
+    }
+
+    /**
+     * The serialized texts of a locale, or null if the locale isn't cached.
+     */
+    DisplayTextsBody body(Locale locale) {
+        return locale != null ? bodies.get(locale) : null;
+    }
+
+    static Map<String, String> readResourceBundle(String bundleName, Locale locale) {
+        var map = new HashMap<String, String>();
+        var bundle = ResourceBundle.getBundle(bundleName, locale);
+        var keys = bundle.getKeys();
+        while(keys.hasMoreElements()) {
+            var key = keys.nextElement();
+            map.put(key, bundle.getString(key));
+        }
+
+        return Map.copyOf(map);
+    }
+
+    static DisplayTextsBody serialize(Map<String, String> texts) {
+        try {
+            var json = mapper.writeValueAsBytes(new TreeMap<>(texts));
+            var compressed = new ByteArrayOutputStream(json.length / 2 + 32);
+            try (var gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(json);
+            }
+
+            var hash = MessageDigest.getInstance("SHA-256").digest(json);
+            return DisplayTextsBody.with()
+                .etag(HexFormat.of().formatHex(hash, 0, ETAG_BYTES))
+                .json(json)
+                .gzipped(compressed.toByteArray())
+                .build();
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new RatatoskrException("Unable to serialize display texts", e);
+        }
+    }
+
+}
@@ -0,0 +1,652 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.backend;
+
+import static no.priv.bang.ratatoskr.backend.Config.booleanConfig;
+import static no.priv.bang.ratatoskr.backend.Config.longConfig;
+import static no.priv.bang.ratatoskr.backend.Config.stringConfig;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.log.LogService;
+import org.osgi.service.log.Logger;
+
+import no.priv.bang.ratatoskr.services.MediaStore;
+import no.priv.bang.ratatoskr.services.MediaTooLargeException;
+import no.priv.bang.ratatoskr.services.RatatoskrException;
+import no.priv.bang.ratatoskr.services.beans.StoredMedia;
+
+/**
+ * Keeps media in files named by the SHA-256 of their content, in a
+ * directory per first byte of the hash, with the media type and the URL
+ * of fetched media in a properties file next to the content.  Content
+ * derived from other media, e.g. thumbnails, gets the URL of the media it
+ * is derived from, so that it is evicted like that media.
+ *
+ * Content is written to a temporary file while its hash is computed, and
+ * then moved into place, so that a file with a hash name is always
+ * complete.  If the content is already stored, the temporary file is
+ * deleted instead.
+ *
+ * The store is indexed in memory, in least recently used order, from the
+ * files found on activation.  When the total size grows beyond the quota,
+ * the least recently used fetched media is deleted until the store is
+ * within the quota again.  Uploaded media is never evicted, so uploads
+ * have a quota of their own, and a limit on the size of each upload.
+ *
+ * Remote media, and the redirects it is answered with, is only fetched
+ * from hosts that resolve to public addresses, unless
+ * <code>allowPrivateAddresses</code> is configured.
+ *
+ * The files of a hash are only written and deleted with a lock held for
+ * the directory they are in, and the lock of the index is only held while
+ * the index is read or updated, so that storing, evicting and finding media
+ * don't wait for the file operations of other media.  A lock is only taken
+ * on the index while holding the lock of a directory, never the other way.
+ */
+@Component(service=MediaStore.class, immediate=true)
+public class MediaStoreProvider implements MediaStore {
+
+    static final long DEFAULT_QUOTA_BYTES = 1L << 30;
+    static final long DEFAULT_MAX_REMOTE_BYTES = 50L << 20;
+    static final long DEFAULT_UPLOAD_QUOTA_BYTES = 10L << 30;
+    static final long DEFAULT_MAX_UPLOAD_BYTES = 50L << 20;
+    static final long DEFAULT_TIMEOUT_MILLIS = 30000;
+    static final String DEFAULT_MEDIA_TYPE = "application/octet-stream";
+    static final Pattern HASH = Pattern.compile("^[0-9a-f]{64}$");
+    static final String METADATA_SUFFIX = ".properties";
+    static final String DERIVED_FROM = "derivedFrom";
+    static final String TEMPORARY_DIRECTORY = "tmp";
+
+    private Logger logger;
+    private Path directory;
+    private long quotaBytes;
+    private long maxRemoteBytes;
+    private long uploadQuotaBytes;
+    private long maxUploadBytes;
+    private Duration timeout;
+    private boolean allowPrivateAddresses;
+    private HttpClient client;
+    private ExecutorService executor;
+    private long totalBytes;
+    private long uploadedBytes;
+    private final LinkedHashMap<String, StoredMedia> media = new LinkedHashMap<>(16, 0.75f, true);
+    private final Object[] directoryLocks = Stream.generate(Object::new).limit(256).toArray();
+    private final Map<String, String> remoteHashes = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Optional<StoredMedia>>> fetches = new ConcurrentHashMap<>();
+
+    @Reference
+    public void setLogservice(LogService logservice) {
+        this.logger = logservice.getLogger(MediaStoreProvider.class);
+    }
+
+    @Activate
+    public void activate(Map<String, Object> config) {
+        directory = Path.of(stringConfig(config, "directory", defaultDirectory()));
+        quotaBytes = longConfig(config, "quotaBytes", DEFAULT_QUOTA_BYTES);
+        maxRemoteBytes = longConfig(config, "maxRemoteBytes", DEFAULT_MAX_REMOTE_BYTES);
+        uploadQuotaBytes = longConfig(config, "uploadQuotaBytes", DEFAULT_UPLOAD_QUOTA_BYTES);
+        maxUploadBytes = longConfig(config, "maxUploadBytes", DEFAULT_MAX_UPLOAD_BYTES);
+        timeout = Duration.ofMillis(longConfig(config, "timeoutMillis", DEFAULT_TIMEOUT_MILLIS));
+        allowPrivateAddresses = booleanConfig(config, "allowPrivateAddresses", false);
+        try {
+            Files.createDirectories(directory.resolve(TEMPORARY_DIRECTORY));
+            deleteTemporaryFiles();
+            readIndex();
+        } catch (IOException e) {
+            throw new RatatoskrException("Unable to open media store in " + directory, e);
+        }
+
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        client = HttpClient.newBuilder()
+            .connectTimeout(timeout)
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .executor(executor)
+            .build();
+    }
+
+    @Deactivate
+    public void deactivate() {
+        executor.shutdownNow();
+        client.close();
+    }
+
+    @Override
+    public StoredMedia store(InputStream content, String mediaType) {
+        return storeLocal(content, mediaType, null, null);
+    }
+
+    @Override
+    public StoredMedia storeDerived(InputStream content, String mediaType, StoredMedia original) {
+        return storeLocal(content, mediaType, original.remoteUrl(), original.hash());
+    }
+
+    private StoredMedia storeLocal(InputStream content, String mediaType, String remoteUrl, String derivedFrom) {
+        try {
+            var temporary = Files.createTempFile(directory.resolve(TEMPORARY_DIRECTORY), "upload", null);
+            try {
+                var hash = copyAndHash(content, temporary, maxUploadBytes);
+                if (hash == null) {
+                    throw new MediaTooLargeException(String.format("Not storing media larger than %d bytes", maxUploadBytes));
+                }
+
+                return commit(temporary, hash, mediaType, remoteUrl, derivedFrom);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (IOException e) {
+            throw new RatatoskrException("Unable to store media", e);
+        }
+    }
+
+    @Override
+    public CompletionStage<Optional<StoredMedia>> fetchRemote(String url) {
+        if (url == null) {
+            return CompletableFuture.completedStage(Optional.empty());
+        }
+
+        var stored = findRemote(url);
+        if (stored.isPresent()) {
+            return CompletableFuture.completedStage(stored);
+        }
+
+        var fetch = new CompletableFuture<Optional<StoredMedia>>();
+        var ongoing = fetches.putIfAbsent(url, fetch);
+        if (ongoing != null) {
+            return ongoing.minimalCompletionStage();
+        }
+
+        try {
+            executor.execute(() -> {
+                var value = download(url);
+                fetches.remove(url, fetch);
+                fetch.complete(value);
+            });
+        } catch (RejectedExecutionException e) {
+            fetches.remove(url, fetch);
+            fetch.complete(Optional.empty());
+        }
+
+        return fetch.minimalCompletionStage();
+    }
+
+    @Override
+    public Optional<StoredMedia> find(String hash) {
+        if (hash == null || !HASH.matcher(hash).matches()) {
+            return Optional.empty();
+        }
+
+        synchronized (media) {
+            return Optional.ofNullable(media.get(hash));
+        }
+    }
+
+    @Override
+    public Path path(StoredMedia stored) {
+        return contentPath(stored.hash());
+    }
+
+    @Override
+    public boolean delete(String hash) {
+        if (hash == null || !HASH.matcher(hash).matches()) {
+            return false;
+        }
+
+        StoredMedia deleted;
+        synchronized (media) {
+            deleted = media.remove(hash);
+            if (deleted == null) {
+                return false;
+            }
+
+            unindexed(deleted);
+        }
+
+        deleteFiles(List.of(deleted));
+        return true;
+    }
+
+    long totalBytes() {
+        synchronized (media) {
+            return totalBytes;
+        }
+    }
+
+    long uploadedBytes() {
+        synchronized (media) {
+            return uploadedBytes;
+        }
+    }
+
+    private Optional<StoredMedia> findRemote(String url) {
+        var hash = remoteHashes.get(url);
+        return hash != null ? find(hash) : Optional.empty();
+    }
+
+    private Optional<StoredMedia> download(String url) {
+        var uri = parseHttpUri(url);
+        if (uri == null) {
+            logger.warn("Not fetching remote media with unsupported URL \"{}\"", url);
+            return Optional.empty();
+        }
+
+        try {
+            var response = get(uri, url);
+            if (response == null) {
+                return Optional.empty();
+            }
+
+            try (var body = response.body()) {
+                if (response.statusCode() != 200) {
+                    logger.warn("Got HTTP status {} when fetching remote media \"{}\"", response.statusCode(), url);
+                    return Optional.empty();
+                }
+
+                if (response.headers().firstValueAsLong("Content-Length").orElse(0) > maxRemoteBytes) {
+                    logger.warn("Not fetching remote media \"{}\" larger than {} bytes", url, maxRemoteBytes);
+                    return Optional.empty();
+                }
+
+                var mediaType = response.headers().firstValue("Content-Type").orElse(DEFAULT_MEDIA_TYPE);
+                var temporary = Files.createTempFile(directory.resolve(TEMPORARY_DIRECTORY), "remote", null);
+                try {
+                    var hash = copyAndHash(body, temporary, maxRemoteBytes);
+                    if (hash == null) {
+                        logger.warn("Not storing remote media \"{}\" larger than {} bytes", url, maxRemoteBytes);
+                        return Optional.empty();
+                    }
+
+                    var stored = commit(temporary, hash, mediaType, url, null);
+                    remoteHashes.put(url, hash);
+                    return Optional.of(stored);
+                } finally {
+                    Files.deleteIfExists(temporary);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to fetch remote media \"{}\"", url, e);
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Send a GET and follow up to {@link RemoteObjectFetcherProvider#MAX_REDIRECTS}
+     * redirects, checking the host of every request like the
+     * {@link RemoteObjectFetcherProvider} does, since the URLs of remote
+     * media come from other servers too.
+     *
+     * Returns null if a host isn't allowed or there are too many redirects.
+     */
+    private HttpResponse<InputStream> get(URI uri, String url) throws IOException, InterruptedException {
+        var target = uri;
+        for (int redirects = 0; redirects <= RemoteObjectFetcherProvider.MAX_REDIRECTS; ++redirects) {
+            if (!allowPrivateAddresses && !RemoteObjectFetcherProvider.isPublicHost(target)) {
+                logger.warn("Not fetching remote media \"{}\" from {}, a loopback, private or link-local address", url, target.getHost());
+                return null;
+            }
+
+            var request = HttpRequest.newBuilder(target).timeout(timeout).GET().build();
+            var response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            var location = response.headers().firstValue("Location").orElse(null);
+            if (!RemoteObjectFetcherProvider.isRedirect(response.statusCode()) || location == null) {
+                return response;
+            }
+
+            response.body().close();
+            target = parseHttpUri(RemoteObjectFetcherProvider.resolve(target, location));
+            if (target == null) {
+                logger.warn("Not following redirect to unsupported location \"{}\" when fetching remote media \"{}\"", location, url);
+                return null;
+            }
+        }
+
+        logger.warn("Too many redirects when fetching remote media \"{}\"", url);
+        return null;
+    }
+
+    /**
+     * Copy content to a file while computing its SHA-256.  The content
+     * stream is left open.
+     *
+     * @return the hex encoded hash, or null if the content is longer than the limit
+     */
+    static String copyAndHash(InputStream content, Path file, long limit) throws IOException {
+        var digest = sha256();
+        var copied = 0L;
+        var hashed = new DigestInputStream(content, digest);
+        try (var output = Files.newOutputStream(file)) {
+            var buffer = new byte[64 * 1024];
+            int read;
+            while ((read = hashed.read(buffer)) != -1) {
+                copied += read;
+                if (copied > limit) {
+                    return null;
+                }
+
+                output.write(buffer, 0, read);
+            }
+        }
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Move a complete temporary file into place, unless content with the
+     * same hash is already stored.  Uploading content that has been fetched
+     * makes it uploaded, so that it is no longer evicted.
+     *
+     * @throws MediaTooLargeException if uploaded content would take the
+     *         uploads beyond their quota
+     */
+    private StoredMedia commit(Path temporary, String hash, String mediaType, String remoteUrl, String derivedFrom) throws IOException {
+        StoredMedia stored;
+        synchronized (directoryLock(hash)) {
+            StoredMedia existing;
+            synchronized (media) {
+                existing = media.get(hash);
+            }
+
+            if (existing != null && (existing.remoteUrl() == null || remoteUrl != null)) {
+                return existing;
+            }
+
+            stored = existing != null ?
+                StoredMedia.with(existing).remoteUrl(null).build() :
+                StoredMedia.with()
+                    .hash(hash)
+                    .mediaType(mediaType != null ? mediaType : DEFAULT_MEDIA_TYPE)
+                    .size(Files.size(temporary))
+                    .remoteUrl(remoteUrl)
+                    .build();
+            var uploaded = stored.remoteUrl() == null;
+            if (uploaded) {
+                reserveUploadBytes(stored.size());
+            }
+
+            try {
+                writeMetadata(stored, derivedFrom);
+                if (existing == null) {
+                    var content = contentPath(hash);
+                    Files.createDirectories(content.getParent());
+                    Files.move(temporary, content, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (IOException e) {
+                if (uploaded) {
+                    releaseUploadBytes(stored.size());
+                }
+
+                throw e;
+            }
+
+            synchronized (media) {
+                // Fetched media may have been evicted from the index while its metadata was written
+                if (media.put(hash, stored) == null) {
+                    totalBytes += stored.size();
+                }
+            }
+        }
+
+        deleteFiles(evictRemoteMedia());
+        return stored;
+    }
+
+    private void reserveUploadBytes(long size) {
+        synchronized (media) {
+            if (uploadedBytes + size > uploadQuotaBytes) {
+                throw new MediaTooLargeException(String.format("Storing %d bytes would take the uploaded media beyond its quota of %d bytes", size, uploadQuotaBytes));
+            }
+
+            uploadedBytes += size;
+        }
+    }
+
+    private void releaseUploadBytes(long size) {
+        synchronized (media) {
+            uploadedBytes -= size;
+        }
+    }
+
+    /**
+     * Remove the least recently used fetched media from the index until the
+     * store is within its quota, or there is no more fetched media to remove.
+     *
+     * @return the media removed, whose files are to be deleted
+     */
+    private List<StoredMedia> evictRemoteMedia() {
+        var evicted = new ArrayList<StoredMedia>();
+        synchronized (media) {
+            var entries = media.values().iterator();
+            while (totalBytes > quotaBytes && entries.hasNext()) {
+                var stored = entries.next();
+                if (stored.remoteUrl() != null) {
+                    entries.remove();
+                    unindexed(stored);
+                    evicted.add(stored);
+                }
+            }
+        }
+
+        return evicted;
+    }
+
+    /**
+     * Account for media removed from the index.  Must be called with the
+     * lock of the index held.
+     */
+    private void unindexed(StoredMedia stored) {
+        totalBytes -= stored.size();
+        if (stored.remoteUrl() == null) {
+            uploadedBytes -= stored.size();
+        }
+    }
+
+    /**
+     * Delete the content, and the files next to it named by the hash followed
+     * by a dot, i.e. the metadata and whatever has been computed from the content,
+     * of media removed from the index.  Media that has been stored again since
+     * it was removed is left alone.
+     */
+    private void deleteFiles(List<StoredMedia> deleted) {
+        for (var stored : deleted) {
+            synchronized (directoryLock(stored.hash())) {
+                synchronized (media) {
+                    if (media.containsKey(stored.hash())) {
+                        continue;
+                    }
+                }
+
+                if (stored.remoteUrl() != null) {
+                    remoteHashes.remove(stored.remoteUrl(), stored.hash());
+                }
+
+                deleteFiles(stored);
+            }
+        }
+    }
+
+    private void deleteFiles(StoredMedia stored) {
+        var content = contentPath(stored.hash());
+        try {
+            Files.deleteIfExists(content);
+            try (var sidecars = Files.newDirectoryStream(content.getParent(), stored.hash() + ".*")) {
+                for (var sidecar : sidecars) {
+                    Files.deleteIfExists(sidecar);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to delete media file \"{}\"", stored.hash(), e);
+        }
+    }
+
+    private void writeMetadata(StoredMedia stored, String derivedFrom) throws IOException {
+        var metadata = new Properties();
+        metadata.setProperty("mediaType", stored.mediaType());
+        if (stored.remoteUrl() != null) {
+            metadata.setProperty("remoteUrl", stored.remoteUrl());
+        }
+
+        if (derivedFrom != null) {
+            metadata.setProperty(DERIVED_FROM, derivedFrom);
+        }
+
+        var temporary = Files.createTempFile(directory.resolve(TEMPORARY_DIRECTORY), "metadata", null);
+        try (var output = Files.newOutputStream(temporary)) {
+            metadata.store(output, null);
+        }
+
+        Files.createDirectories(metadataPath(stored.hash()).getParent());
+        Files.move(temporary, metadataPath(stored.hash()), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Index the stored files, oldest first, so that the files that have been
+     * least recently stored are the first to be evicted.
+     */
+    private void readIndex() throws IOException {
+        var found = new ArrayList<StoredMediaFile>();
+        try (var files = Files.find(directory, 2, (file, attributes) -> attributes.isRegularFile() && HASH.matcher(file.getFileName().toString()).matches())) {
+            for (var content : (Iterable<Path>) files::iterator) {
+                var hash = content.getFileName().toString();
+                var metadata = new Properties();
+                var metadataFile = metadataPath(hash);
+                if (Files.exists(metadataFile)) {
+                    try (var input = Files.newInputStream(metadataFile)) {
+                        metadata.load(input);
+                    }
+                }
+
+                var stored = StoredMedia.with()
+                    .hash(hash)
+                    .mediaType(metadata.getProperty("mediaType", DEFAULT_MEDIA_TYPE))
+                    .size(Files.size(content))
+                    .remoteUrl(metadata.getProperty("remoteUrl"))
+                    .build();
+                found.add(new StoredMediaFile(stored, metadata.getProperty(DERIVED_FROM) != null, Files.getLastModifiedTime(content)));
+            }
+        }
+
+        found.sort(Comparator.comparing(StoredMediaFile::lastModified));
+        synchronized (media) {
+            media.clear();
+            remoteHashes.clear();
+            totalBytes = 0;
+            uploadedBytes = 0;
+            for (var file : found) {
+                var stored = file.media();
+                media.put(stored.hash(), stored);
+                totalBytes += stored.size();
+                if (stored.remoteUrl() == null) {
+                    uploadedBytes += stored.size();
+                } else if (!file.derived()) {
+                    remoteHashes.put(stored.remoteUrl(), stored.hash());
+                }
+            }
+        }
+
+        deleteFiles(evictRemoteMedia());
+    }
+
+    private void deleteTemporaryFiles() throws IOException {
+        try (var files = Files.list(directory.resolve(TEMPORARY_DIRECTORY))) {
+            for (var file : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private Object directoryLock(String hash) {
+        return directoryLocks[Integer.parseInt(hash.substring(0, 2), 16)];
+    }
+
+    private Path contentPath(String hash) {
+        return directory.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private Path metadataPath(String hash) {
+        return directory.resolve(hash.substring(0, 2)).resolve(hash + METADATA_SUFFIX);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RatatoskrException("SHA-256 not available", e);
+        }
+    }
+
+    private static String defaultDirectory() {
+        var data = System.getProperty("karaf.data", System.getProperty("java.io.tmpdir"));
+        return Path.of(data, "ratatoskr", "media").toString();
+    }
+
+    private static URI parseHttpUri(String url) {
+        if (url == null) {
+            return null;
+        }
+
+        try {
+            var uri = new URI(url);
+            var scheme = uri.getScheme();
+            if (("http".equalsIgnoreCase(scheme) || "https".equalsIgnoreCase(scheme)) && uri.getAuthority() != null) {
+                return uri;
+            }
+        } catch (URISyntaxException e) {
+            // Not a usable URL
+        }
+
+        return null;
+    }
+
+    record StoredMediaFile(StoredMedia media, boolean derived, FileTime lastModified) {}
+
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.backend;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+import org.osgi.service.component.annotations.Component;
+
+import no.priv.bang.ratatoskr.services.Metrics;
+
+/**
+ * Keeps a {@link LatencyHistogram} for each metric name and set of label
+ * values, and writes them as Prometheus summaries with a counter of the
+ * failed calls next to each summary.  Registered values are written as
+ * counters or gauges after the summaries.
+ */
+@Component(service=Metrics.class, immediate=true)
+public class MetricsProvider implements Metrics {
+    static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+    static final Map<String, String> HELP = Map.of(
+        SERVICE_CALLS, "Duration of calls to the RatatoskrService",
+        JDBC_STATEMENTS, "Duration of JDBC statement executions",
+        HTTP_REQUESTS, "Duration of HTTP requests by servlet and resource template");
+
+    private final Map<Series, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final Map<Series, Registered> registered = new ConcurrentHashMap<>();
+
+    @Override
+    public void record(String name, long nanos, boolean failed, String... labels) {
+        var series = new Series(name, Arrays.asList(labels));
+        var histogram = histograms.get(series);
+        if (histogram == null) {
+            histogram = histograms.computeIfAbsent(series, s -> new LatencyHistogram());
+        }
+
+        histogram.record(nanos, failed);
+    }
+
+    @Override
+    public void register(String name, String type, String help, LongSupplier value, String... labels) {
+        registered.put(new Series(name, Arrays.asList(labels)), new Registered(type, help, value));
+    }
+
+    @Override
+    public void unregister(String name, String... labels) {
+        registered.remove(new Series(name, Arrays.asList(labels)));
+    }
+
+    @Override
+    public void writePrometheusText(Writer writer) throws IOException {
+        var byName = new TreeMap<String, List<Series>>();
+        for (var series : histograms.keySet()) {
+            byName.computeIfAbsent(series.name(), n -> new ArrayList<>()).add(series);
+        }
+
+        for (var entry : byName.entrySet()) {
+            var name = entry.getKey();
+            var allSeries = entry.getValue();
+            allSeries.sort(Comparator.comparing(s -> s.labels().toString()));
+            writer.write("# HELP " + name + " " + HELP.getOrDefault(name, name) + "\n");
+            writer.write("# TYPE " + name + " summary\n");
+            for (var series : allSeries) {
+                var histogram = histograms.get(series);
+                for (var quantile : QUANTILES) {
+                    writer.write(name + labels(series, "quantile", Double.toString(quantile)) + " " + seconds(histogram.valueAtQuantile(quantile)) + "\n");
+                }
+                writer.write(name + "_sum" + labels(series) + " " + seconds(histogram.sumNanos()) + "\n");
+                writer.write(name + "_count" + labels(series) + " " + histogram.count() + "\n");
+            }
+
+            var errorsName = errorsName(name);
+            writer.write("# HELP " + errorsName + " Number of failed calls counted in " + name + "\n");
+            writer.write("# TYPE " + errorsName + " counter\n");
+            for (var series : allSeries) {
+                writer.write(errorsName + labels(series) + " " + histograms.get(series).errors() + "\n");
+            }
+        }
+
+        writeRegistered(writer);
+        writer.flush();
+    }
+
+    private void writeRegistered(Writer writer) throws IOException {
+        var byName = new TreeMap<String, List<Series>>();
+        for (var series : registered.keySet()) {
+            byName.computeIfAbsent(series.name(), n -> new ArrayList<>()).add(series);
+        }
+
+        for (var entry : byName.entrySet()) {
+            var name = entry.getKey();
+            var allSeries = entry.getValue();
+            allSeries.sort(Comparator.comparing(s -> s.labels().toString()));
+            var first = registered.get(allSeries.get(0));
+            if (first == null) {
+                continue; // Unregistered while writing
+            }
+
+            writer.write("# HELP " + name + " " + first.help() + "\n");
+            writer.write("# TYPE " + name + " " + first.type() + "\n");
+            for (var series : allSeries) {
+                var value = registered.get(series);
+                if (value != null) {
+                    writer.write(name + labels(series) + " " + value.value().getAsLong() + "\n");
+                }
+            }
+        }
+    }
+
+    static String errorsName(String name) {
+        var base = name.endsWith("_seconds") ? name.substring(0, name.length() - "_seconds".length()) : name;
+        return base + "_errors_total";
+    }
+
+    private String labels(Series series, String... extraLabels) {
+        var labels = new ArrayList<>(series.labels());
+        labels.addAll(List.of(extraLabels));
+        if (labels.isEmpty()) {
+            return "";
+        }
+
+        var text = new StringBuilder("{");
+        for (int i = 0; i + 1 < labels.size(); i += 2) {
+            if (i > 0) {
+                text.append(',');
+            }
+
+            text.append(labels.get(i)).append("=\"").append(escape(labels.get(i + 1))).append('"');
+        }
+
+        return text.append('}').toString();
+    }
+
+    static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private String seconds(long nanos) {
+        return Double.toString(nanos / 1e9);
+    }
+
+    record Series(String name, List<String> labels) {}
+
+    record Registered(String type, String help, LongSupplier value) {}
+
+}
@@ -19,42 +19,68 @@ import static no.priv.bang.ratatoskr.services.RatatoskrConstants.*;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Timestamp;
+import java.text.Normalizer;
+import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.MissingResourceException;
 import java.util.Optional;
-import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import javax.sql.DataSource;
 
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
+import org.osgi.service.component.annotations.ReferencePolicyOption;
 import org.osgi.service.log.LogService;
 import org.osgi.service.log.Logger;
 
 import no.priv.bang.ratatoskr.asvocabulary.ActivityStreamObject;
 import no.priv.bang.ratatoskr.asvocabulary.Article;
 import no.priv.bang.ratatoskr.asvocabulary.Group;
+import no.priv.bang.ratatoskr.asvocabulary.Hashtag;
 import no.priv.bang.ratatoskr.asvocabulary.Link;
 import no.priv.bang.ratatoskr.asvocabulary.LinkOrObject;
+import no.priv.bang.ratatoskr.asvocabulary.LinkOrObjectList;
+import no.priv.bang.ratatoskr.services.AccountChangeListener;
+import no.priv.bang.ratatoskr.services.ActorChangeListener;
+import no.priv.bang.ratatoskr.services.Metrics;
 import no.priv.bang.ratatoskr.services.RatatoskrException;
 import no.priv.bang.ratatoskr.services.RatatoskrService;
+import no.priv.bang.ratatoskr.services.StatementStatistics;
+import no.priv.bang.ratatoskr.services.activitypub.ArticleThread;
 import no.priv.bang.ratatoskr.services.activitypub.Like;
 import no.priv.bang.ratatoskr.services.activitypub.Person;
+import no.priv.bang.ratatoskr.services.activitypub.Replies;
 import no.priv.bang.ratatoskr.services.activitypub.Status;
+import no.priv.bang.ratatoskr.services.activitypub.TagTimeline;
 import no.priv.bang.ratatoskr.services.beans.Account;
+import no.priv.bang.ratatoskr.services.beans.AccountChange;
+import no.priv.bang.ratatoskr.services.beans.ActorCounts;
+import no.priv.bang.ratatoskr.services.beans.ArticleCounts;
 import no.priv.bang.ratatoskr.services.beans.CounterBean;
 import no.priv.bang.ratatoskr.services.beans.CounterIncrementStepBean;
+import no.priv.bang.ratatoskr.services.beans.CustomEmoji;
+import no.priv.bang.ratatoskr.services.beans.DisplayTextsBody;
 import no.priv.bang.ratatoskr.services.beans.LocaleBean;
+import no.priv.bang.ratatoskr.services.beans.ResourceVersion;
 import no.priv.bang.osgiservice.users.Role;
 import no.priv.bang.osgiservice.users.UserManagementService;
 
@@ -62,10 +88,26 @@ import no.priv.bang.osgiservice.users.UserManagementService;
 public class RatatoskrServiceProvider implements RatatoskrService {
 
     private static final String DISPLAY_TEXT_RESOURCES = "i18n.Texts";
+    static final List<Locale> AVAILABLE_LOCALES = List.of(Locale.forLanguageTag("nb-NO"), Locale.UK);
+    static final int STREAMING_FETCH_SIZE = 100;
+    static final String UNIQUE_VIOLATION = "23505";
+    static final String INCREMENT_FOLLOWERS_COUNT = "update actor_counts set followers_count=followers_count+1, followers_updated=CURRENT_TIMESTAMP where actor=(select actor_id from actors where preferred_username=?)";
+    static final String INCREMENT_FOLLOWING_COUNT = "update actor_counts set following_count=following_count+1, following_updated=CURRENT_TIMESTAMP where actor=(select actor_id from actors where preferred_username=?)";
+    static final String INCREMENT_LIKED_COUNT = "update actor_counts set liked_count=liked_count+1, liked_updated=CURRENT_TIMESTAMP where actor=(select actor_id from actors where preferred_username=?)";
+    static final String FOLLOWERS_COUNT = "(select count(*) from followers f where f.followed=c.actor)";
+    static final String FOLLOWING_COUNT = "(select count(*) from following f where f.followed=c.actor)";
+    static final String LIKED_COUNT = "(select count(*) from likes l where l.actor=c.actor)";
+    static final String LIKES_COUNT = "(select count(*) from likes l where l.article=c.article)";
+    static final String REPLIES_COUNT = "(select count(*) from article_threads th where th.ancestor=c.article and th.depth=1)";
     private Logger logger;
     private DataSource datasource;
     private UserManagementService useradmin;
-    private Locale defaultLocale;
+    private Metrics metrics;
+    private StatementStatistics statementStatistics;
+    private volatile LocalizationCache localizations;
+    private final List<ActorChangeListener> actorChangeListeners = new CopyOnWriteArrayList<>();
+    private final List<AccountChangeListener> accountChangeListeners = new CopyOnWriteArrayList<>();
+    private final Set<String> knownAccounts = ConcurrentHashMap.newKeySet();
 
     @Reference
     public void setLogservice(LogService logservice) {
@@ -82,27 +124,86 @@ public class RatatoskrServiceProvider implements RatatoskrService {
         this.useradmin = useradmin;
     }
 
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL, policyOption = ReferencePolicyOption.GREEDY)
+    public void setMetrics(Metrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL, policyOption = ReferencePolicyOption.GREEDY)
+    public void setStatementStatistics(StatementStatistics statementStatistics) {
+        this.statementStatistics = statementStatistics;
+    }
+
+    @Reference(cardinality = ReferenceCardinality.MULTIPLE, policy = ReferencePolicy.DYNAMIC)
+    public void addActorChangeListener(ActorChangeListener listener) {
+        actorChangeListeners.add(listener);
+    }
+
+    public void removeActorChangeListener(ActorChangeListener listener) {
+        actorChangeListeners.remove(listener);
+    }
+
+    @Reference(cardinality = ReferenceCardinality.MULTIPLE, policy = ReferencePolicy.DYNAMIC)
+    public void addAccountChangeListener(AccountChangeListener listener) {
+        accountChangeListeners.add(listener);
+    }
+
+    public void removeAccountChangeListener(AccountChangeListener listener) {
+        accountChangeListeners.remove(listener);
+    }
+
     @Activate
     public void activate(Map<String, Object> config) {
-        defaultLocale = Locale.forLanguageTag(((String) config.get("defaultlocale")).replace('_', '-'));
+        modified(config);
+        if (metrics != null || statementStatistics != null) {
+            datasource = new TimedDataSource(datasource, metrics, statementStatistics);
+        }
+
         addRolesIfNotpresent();
+        readKnownAccounts();
+    }
+
+    /**
+     * Read the display texts again with the new default locale, without
+     * deactivating the component.
+     */
+    @Modified
+    public void modified(Map<String, Object> config) {
+        var defaultLocale = Locale.forLanguageTag(((String) config.get("defaultlocale")).replace('_', '-'));
+        localizations = new LocalizationCache(DISPLAY_TEXT_RESOURCES, defaultLocale, AVAILABLE_LOCALES);
     }
 
+    /**
+     * Accounts that are in the database are remembered, so that the logins
+     * of existing users don't touch the database.  The first login of a
+     * user creates the account, the counter and the increment step in one
+     * transaction.
+     */
     @Override
     public boolean lazilyCreateAccount(String username) {
-        try(var connection = datasource.getConnection()) {
-            var accountid = findAccount(connection, username);
+        if (knownAccounts.contains(username)) {
+            return false;
+        }
 
-            if (accountid != -1) {
-                return false;
-            }
+        try(var connection = datasource.getConnection()) {
+            var created = createAccount(connection, username);
+            knownAccounts.add(username);
+            return created;
+        } catch (SQLException e) {
+            logger.warn("Failed to create ratatoskr account for username \"{}\"", username, e);
+        }
 
-            try(var createAccount = connection.prepareStatement("insert into ratatoskr_accounts (username) values (?)")) {
-                createAccount.setString(1, username);
-                createAccount.executeUpdate();
-            }
+        return false;
+    }
 
-            accountid = findAccount(connection, username);
+    /**
+     * Returns false, and leaves the database as it was, if the account
+     * already exists.
+     */
+    private boolean createAccount(Connection connection, String username) throws SQLException {
+        connection.setAutoCommit(false);
+        try {
+            var accountid = insertAccount(connection, username);
             try(var createIncrementStep = connection.prepareStatement("insert into counter_increment_steps (account_id) values (?)")) {
                 createIncrementStep.setInt(1, accountid);
                 createIncrementStep.executeUpdate();
@@ -113,12 +214,48 @@ public class RatatoskrServiceProvider implements RatatoskrService {
                 createCounter.executeUpdate();
             }
 
+            connection.commit();
             return true;
         } catch (SQLException e) {
-            logger.warn("Failed to create ratatoskr account for username \"{}\"", username, e);
+            connection.rollback();
+            if (UNIQUE_VIOLATION.equals(e.getSQLState())) {
+                return false;
+            }
+
+            throw e;
         }
+    }
 
-        return false;
+    private int insertAccount(Connection connection, String username) throws SQLException {
+        try(var createAccount = connection.prepareStatement("insert into ratatoskr_accounts (username) values (?)", Statement.RETURN_GENERATED_KEYS)) {
+            createAccount.setString(1, username);
+            createAccount.executeUpdate();
+            try(var generatedKeys = createAccount.getGeneratedKeys()) {
+                if (generatedKeys.next()) {
+                    return generatedKeys.getInt(1);
+                }
+            }
+        }
+
+        return findAccount(connection, username);
+    }
+
+    /**
+     * Failing to read the accounts isn't fatal, the accounts that
+     * aren't known will be found when the users log in.
+     */
+    void readKnownAccounts() {
+        try(var connection = datasource.getConnection()) {
+            try(var statement = connection.createStatement()) {
+                try(var results = statement.executeQuery("select username from ratatoskr_accounts")) {
+                    while(results.next()) {
+                        knownAccounts.add(results.getString(1));
+                    }
+                }
+            }
+        } catch (SQLException e) { // NOSONAR the accounts will be looked up on login
+            knownAccounts.clear();
+        }
     }
 
     @Override
@@ -148,6 +285,7 @@ public class RatatoskrServiceProvider implements RatatoskrService {
     public Optional<Person> addPerson(Person person) {
         var sql = "insert into actors (id, preferred_username, name, summary, inbox, following, followers, liked, icon) values (?, ?, ?, ?, ?, ?, ?, ?, ?)";
         try(var connection = datasource.getConnection()) {
+            connection.setAutoCommit(false);
             try(var statement = connection.prepareStatement(sql)) {
                 statement.setString(1, person.id());
                 statement.setString(2, person.preferredUsername());
@@ -159,12 +297,23 @@ public class RatatoskrServiceProvider implements RatatoskrService {
                 statement.setString(8, person.liked());
                 statement.setString(9, person.icon());
                 statement.executeUpdate();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+
+            try(var statement = connection.prepareStatement("insert into actor_counts (actor) select actor_id from actors where id=?")) {
+                statement.setString(1, person.id());
+                statement.executeUpdate();
             }
+            connection.commit();
         } catch (SQLException e) {
             return Optional.empty();
         }
 
-        return findPerson(person.id());
+        var addedPerson = findPerson(person.id());
+        addedPerson.ifPresent(this::notifyActorChanged);
+        return addedPerson;
     }
 
     @Override
@@ -204,14 +353,29 @@ public class RatatoskrServiceProvider implements RatatoskrService {
     @Override
     public Optional<Article> addArticle(Article article) {
         var attributedToActorId = findActorId(findId(article.attributedTo()));
-        var sql = "insert into articles (id, name, content, attributed_to) values (?, ?, ?, ?)";
+        var inReplyTo = findInReplyTo(article);
+        var published = Timestamp.from((article.published() != null ? article.published().toInstant() : Instant.now()).truncatedTo(ChronoUnit.MILLIS));
+        var sql = "insert into articles (id, name, content, attributed_to, in_reply_to, published) values (?, ?, ?, ?, ?, ?)";
         try(var connection = datasource.getConnection()) {
-            try(var statement = connection.prepareStatement(sql)) {
-                statement.setString(1, article.id());
-                statement.setString(2, article.name());
-                statement.setString(3, article.content());
-                statement.setInt(4, attributedToActorId);
-                statement.executeUpdate();
+            connection.setAutoCommit(false);
+            try {
+                try(var statement = connection.prepareStatement(sql)) {
+                    statement.setString(1, article.id());
+                    statement.setString(2, article.name());
+                    statement.setString(3, article.content());
+                    statement.setInt(4, attributedToActorId);
+                    statement.setString(5, inReplyTo);
+                    statement.setTimestamp(6, published);
+                    statement.executeUpdate();
+                }
+
+                indexThread(connection, article.id(), inReplyTo);
+                countArticle(connection, article.id(), inReplyTo);
+                indexHashtags(connection, article, published);
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
             }
         } catch (SQLException e) {
             throw new RatatoskrException("Unable to add article", e);
@@ -222,7 +386,7 @@ public class RatatoskrServiceProvider implements RatatoskrService {
 
     @Override
     public Optional<Article> findArticle(String id) {
-        var sql = "select a.id, a.name, a.content, t.id as attributed_to from articles a join actors t on a.attributed_to=t.actor_id where a.id=?";
+        var sql = "select a.id, a.name, a.content, t.id as attributed_to, a.in_reply_to from articles a join actors t on a.attributed_to=t.actor_id where a.id=?";
         try(var connection = datasource.getConnection()) {
             try(var statement = connection.prepareStatement(sql)) {
                 statement.setString(1, id);
@@ -239,6 +403,138 @@ public class RatatoskrServiceProvider implements RatatoskrService {
         return Optional.empty();
     }
 
+    @Override
+    public TagTimeline findTagTimeline(String hashtag, String olderThan, int limit) {
+        var name = normalizeHashtag(hashtag);
+        var timeline = TagTimeline.with().hashtag(name);
+        var sql = olderThan == null ?
+            "select a.id, a.name, a.content, t.id as attributed_to, a.in_reply_to, ta.published, ta.article from tagged_articles ta join hashtags h on ta.hashtag=h.hashtag_id join articles a on ta.article=a.article_id join actors t on a.attributed_to=t.actor_id where h.name=? order by ta.published desc, ta.article desc fetch first ? rows only" :
+            "select a.id, a.name, a.content, t.id as attributed_to, a.in_reply_to, ta.published, ta.article from tagged_articles ta join hashtags h on ta.hashtag=h.hashtag_id join articles a on ta.article=a.article_id join actors t on a.attributed_to=t.actor_id where h.name=? and (ta.published < ? or (ta.published = ? and ta.article < ?)) order by ta.published desc, ta.article desc fetch first ? rows only";
+        try(var connection = datasource.getConnection()) {
+            try(var statement = connection.prepareStatement("select usage_count from hashtags where name=?")) {
+                statement.setString(1, name);
+                try(var results = statement.executeQuery()) {
+                    while(results.next()) {
+                        timeline.totalItems(results.getInt("usage_count"));
+                    }
+                }
+            }
+
+            try(var statement = connection.prepareStatement(sql)) {
+                var parameterIndex = 1;
+                statement.setString(parameterIndex++, name);
+                if (olderThan != null) {
+                    var cursor = olderThan.split("-", 2);
+                    var published = new Timestamp(Long.parseLong(cursor[0]));
+                    statement.setTimestamp(parameterIndex++, published);
+                    statement.setTimestamp(parameterIndex++, published);
+                    statement.setInt(parameterIndex++, Integer.parseInt(cursor[1]));
+                }
+                statement.setInt(parameterIndex, limit);
+                try(var results = statement.executeQuery()) {
+                    var articles = new ArrayList<Article>();
+                    String next = null;
+                    while(results.next()) {
+                        unpackArticle(results).ifPresent(articles::add);
+                        next = results.getTimestamp("published").getTime() + "-" + results.getInt("article");
+                    }
+
+                    timeline.orderedItems(articles).next(articles.size() < limit ? null : next);
+                }
+            }
+        } catch (SQLException e) {
+            throw new RatatoskrException("Unable to fetch tag timeline", e);
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new RatatoskrException(String.format("Malformed tag timeline cursor \"%s\"", olderThan), e);
+        }
+
+        return timeline.build();
+    }
+
+    @Override
+    public Optional<ArticleThread> findThread(String id) {
+        var columns = "a.article_id, a.id, a.name, a.content, t.id as attributed_to, a.in_reply_to, a.published";
+        var sql =
+            "select 0 as thread_part, -th.depth as thread_depth, " + columns + " from article_threads th join articles a on th.ancestor=a.article_id join actors t on a.attributed_to=t.actor_id where th.descendant=(select article_id from articles where id=?)" +
+            " union all " +
+            "select 1 as thread_part, 0 as thread_depth, " + columns + " from article_threads th join articles a on th.descendant=a.article_id join actors t on a.attributed_to=t.actor_id where th.ancestor=(select article_id from articles where id=?) and th.depth > 0" +
+            " order by thread_part, thread_depth, published, article_id";
+        try(var connection = datasource.getConnection()) {
+            try(var statement = connection.prepareStatement(sql)) {
+                statement.setString(1, id);
+                statement.setString(2, id);
+                try(var results = statement.executeQuery()) {
+                    var ancestors = new ArrayList<Article>();
+                    var descendants = new ArrayList<Article>();
+                    Article article = null;
+                    while(results.next()) {
+                        var unpacked = unpackArticle(results).orElseThrow();
+                        if (results.getInt("thread_part") == 1) {
+                            descendants.add(unpacked);
+                        } else if (results.getInt("thread_depth") == 0) {
+                            article = unpacked;
+                        } else {
+                            ancestors.add(unpacked);
+                        }
+                    }
+
+                    return article == null ?
+                        Optional.empty() :
+                        Optional.of(ArticleThread.with().ancestors(ancestors).article(article).descendants(descendants).build());
+                }
+            }
+        } catch (SQLException e) {
+            throw new RatatoskrException("Unable to fetch article thread", e);
+        }
+    }
+
+    @Override
+    public Replies findReplies(String id, String after, int limit) {
+        var replies = Replies.with().partOf(id);
+        var sql = after == null ?
+            "select a.article_id, a.id, a.name, a.content, t.id as attributed_to, a.in_reply_to, a.published from article_threads th join articles a on th.descendant=a.article_id join actors t on a.attributed_to=t.actor_id where th.ancestor=(select article_id from articles where id=?) and th.depth=1 order by a.published, a.article_id fetch first ? rows only" :
+            "select a.article_id, a.id, a.name, a.content, t.id as attributed_to, a.in_reply_to, a.published from article_threads th join articles a on th.descendant=a.article_id join actors t on a.attributed_to=t.actor_id where th.ancestor=(select article_id from articles where id=?) and th.depth=1 and (a.published > ? or (a.published = ? and a.article_id > ?)) order by a.published, a.article_id fetch first ? rows only";
+        try(var connection = datasource.getConnection()) {
+            try(var statement = connection.prepareStatement("select c.replies_count as reply_count from article_counts c join articles a on c.article=a.article_id where a.id=?")) {
+                statement.setString(1, id);
+                try(var results = statement.executeQuery()) {
+                    while(results.next()) {
+                        replies.totalItems(results.getInt("reply_count"));
+                    }
+                }
+            }
+
+            try(var statement = connection.prepareStatement(sql)) {
+                var parameterIndex = 1;
+                statement.setString(parameterIndex++, id);
+                if (after != null) {
+                    var cursor = after.split("-", 2);
+                    var published = new Timestamp(Long.parseLong(cursor[0]));
+                    statement.setTimestamp(parameterIndex++, published);
+                    statement.setTimestamp(parameterIndex++, published);
+                    statement.setInt(parameterIndex++, Integer.parseInt(cursor[1]));
+                }
+                statement.setInt(parameterIndex, limit);
+                try(var results = statement.executeQuery()) {
+                    var articles = new ArrayList<Article>();
+                    String next = null;
+                    while(results.next()) {
+                        unpackArticle(results).ifPresent(articles::add);
+                        next = results.getTimestamp("published").getTime() + "-" + results.getInt("article_id");
+                    }
+
+                    replies.orderedItems(articles).next(articles.size() < limit ? null : next);
+                }
+            }
+        } catch (SQLException e) {
+            throw new RatatoskrException("Unable to fetch replies", e);
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new RatatoskrException(String.format("Malformed replies cursor \"%s\"", after), e);
+        }
+
+        return replies.build();
+    }
+
     @Override
     public Optional<Person> findPersonWithUsername(String username) {
         var sql = "select id, preferred_username, name, summary, inbox, following, followers, liked, icon from actors where preferred_username=?";
@@ -258,6 +554,28 @@ public class RatatoskrServiceProvider implements RatatoskrService {
         return Optional.empty();
     }
 
+    @Override
+    public Optional<ResourceVersion> findActorVersion(String username) {
+        var sql = "select updated from actors where preferred_username=?";
+        try(var connection = datasource.getConnection()) {
+            try(var statement = connection.prepareStatement(sql)) {
+                statement.setString(1, username);
+                try(var results = statement.executeQuery()) {
+                    while(results.next()) {
+                        return Optional.of(ResourceVersion.with()
+                            .count(1)
+                            .lastModified(zonedDateTimeOrNull(results, "updated"))
+                            .build());
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new RatatoskrException("Unable to fetch actor version", e);
+        }
+
+        return Optional.empty();
+    }
+
     @Override
     public List<Person> findFollowersWithUsername(String username) {
         var list = new ArrayList<Person>();
@@ -279,13 +597,48 @@ public class RatatoskrServiceProvider implements RatatoskrService {
     }
 
     @Override
-    public List<Person> addFollowerToUsername(String username, String id) {
-        var sql = "insert into followers (followed, follower) values ((select actor_id from actors where preferred_username=?), (select actor_id from actors where id=?))";
+    public int forEachFollowerWithUsername(String username, Consumer<Person> follower) {
+        var count = 0;
+        var sql = "select a2.id, a2.preferred_username, a2.name, a2.summary, a2.inbox, a2.following, a2.followers, a2.liked, a2.icon from actors a join followers f on a.actor_id=f.followed join actors a2 on f.follower=a2.actor_id where a.preferred_username=?";
         try(var connection = datasource.getConnection()) {
+            // The PostgreSQL JDBC driver only fetches rows in batches of the fetch size inside a transaction
+            connection.setAutoCommit(false);
             try(var statement = connection.prepareStatement(sql)) {
+                statement.setFetchSize(STREAMING_FETCH_SIZE);
                 statement.setString(1, username);
-                statement.setString(2, id);
-                statement.executeUpdate();
+                try(var results = statement.executeQuery()) {
+                    while(results.next()) {
+                        unpackPerson(results).ifPresent(follower);
+                        ++count;
+                    }
+                }
+            } finally {
+                connection.rollback();
+            }
+        } catch (SQLException e) {
+            throw new RatatoskrException("Error streaming followers list", e);
+        }
+
+        return count;
+    }
+
+    @Override
+    public List<Person> addFollowerToUsername(String username, String id) {
+        var sql = "insert into followers (followed, follower) values ((select actor_id from actors where preferred_username=?), (select actor_id from actors where id=?))";
+        try(var connection = datasource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                try(var statement = connection.prepareStatement(sql)) {
+                    statement.setString(1, username);
+                    statement.setString(2, id);
+                    statement.executeUpdate();
+                }
+
+                incrementActorCount(connection, INCREMENT_FOLLOWERS_COUNT, username);
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
             }
         } catch (SQLException e) {
             throw new RatatoskrException("Error adding to followers list", e);
@@ -294,6 +647,12 @@ public class RatatoskrServiceProvider implements RatatoskrService {
         return findFollowersWithUsername(username);
     }
 
+    @Override
+    public ResourceVersion findFollowersVersion(String username) {
+        var sql = "select c.followers_count as item_count, c.followers_updated as updated from actor_counts c join actors a on c.actor=a.actor_id where a.preferred_username=?";
+        return findCollectionVersion(sql, username, "Error fetching followers list version");
+    }
+
     @Override
     public List<Person> findFollowingWithUsername(String username) {
         var list = new ArrayList<Person>();
@@ -318,10 +677,19 @@ public class RatatoskrServiceProvider implements RatatoskrService {
     public List<Person> addFollowedToUsername(String username, String id) {
         var sql = "insert into following (followed, follower) values ((select actor_id from actors where preferred_username=?), (select actor_id from actors where id=?))";
         try(var connection = datasource.getConnection()) {
-            try(var statement = connection.prepareStatement(sql)) {
-                statement.setString(1, username);
-                statement.setString(2, id);
-                statement.executeUpdate();
+            connection.setAutoCommit(false);
+            try {
+                try(var statement = connection.prepareStatement(sql)) {
+                    statement.setString(1, username);
+                    statement.setString(2, id);
+                    statement.executeUpdate();
+                }
+
+                incrementActorCount(connection, INCREMENT_FOLLOWING_COUNT, username);
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
             }
         } catch (SQLException e) {
             throw new RatatoskrException("Error adding to following list", e);
@@ -330,10 +698,16 @@ public class RatatoskrServiceProvider implements RatatoskrService {
         return findFollowingWithUsername(username);
     }
 
+    @Override
+    public ResourceVersion findFollowingVersion(String username) {
+        var sql = "select c.following_count as item_count, c.following_updated as updated from actor_counts c join actors a on c.actor=a.actor_id where a.preferred_username=?";
+        return findCollectionVersion(sql, username, "Error fetching following list version");
+    }
+
     @Override
     public List<Like> findLikedWithUsername(String username) {
         var list = new ArrayList<Like>();
-        var sql = "select l.id, l.summary, g.name as audience, a.id as actor, t.id as article, published from likes l left join groups g on l.audience=g.group_id join actors a on l.actor=a.actor_id join articles t on l.article=t.article_id where a.preferred_username=?";
+        var sql = "select l.id, l.summary, g.name as audience, a.id as actor, t.id as article, l.published from likes l left join groups g on l.audience=g.group_id join actors a on l.actor=a.actor_id join articles t on l.article=t.article_id where a.preferred_username=?";
         try(var connection = datasource.getConnection()) {
             try(var statement = connection.prepareStatement(sql)) {
                 statement.setString(1, username);
@@ -343,25 +717,36 @@ public class RatatoskrServiceProvider implements RatatoskrService {
                     }
                 }
             }
+
+            return new CallScopedBatchLoader(connection).hydrateLikes(list);
         } catch (SQLException e) {
             throw new RatatoskrException("Error fetching following list", e);
         }
-
-        return list;
     }
 
     @Override
     public List<Like> addLikeToUsername(String username, Like like) {
         var sql = "insert into likes (id, summary, audience, actor, article, published) values (?, ?, (select group_id from groups where name=?), (select actor_id from actors where preferred_username=?), (select article_id from articles where id=?), ?)";
+        var article = Optional.ofNullable(like.inReplyTo()).map(Status::id).orElse(null);
         try(var connection = datasource.getConnection()) {
-            try(var statement = connection.prepareStatement(sql)) {
-                statement.setString(1, like.id());
-                statement.setString(2, like.summary());
-                statement.setString(3, like.authoredBy().name());
-                statement.setString(4, username);
-                statement.setString(5, Optional.ofNullable(like.inReplyTo()).map(Status::id).orElse(null));
-                statement.setTimestamp(6, like.published() == null ? null : Timestamp.from(like.published().toInstant()));
-                statement.executeUpdate();
+            connection.setAutoCommit(false);
+            try {
+                try(var statement = connection.prepareStatement(sql)) {
+                    statement.setString(1, like.id());
+                    statement.setString(2, like.summary());
+                    statement.setString(3, like.authoredBy().name());
+                    statement.setString(4, username);
+                    statement.setString(5, article);
+                    statement.setTimestamp(6, like.published() == null ? null : Timestamp.from(like.published().toInstant()));
+                    statement.executeUpdate();
+                }
+
+                incrementActorCount(connection, INCREMENT_LIKED_COUNT, username);
+                incrementLikesCount(connection, article);
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
             }
         } catch (SQLException e) {
             throw new RatatoskrException("Unable to add like", e);
@@ -370,13 +755,237 @@ public class RatatoskrServiceProvider implements RatatoskrService {
         return findLikedWithUsername(username);
     }
 
+    @Override
+    public ResourceVersion findLikedVersion(String username) {
+        var sql = "select c.liked_count as item_count, c.liked_updated as updated from actor_counts c join actors a on c.actor=a.actor_id where a.preferred_username=?";
+        return findCollectionVersion(sql, username, "Error fetching liked list version");
+    }
+
+    @Override
+    public Optional<ActorCounts> findActorCounts(String username) {
+        var sql = "select c.followers_count, c.following_count, c.liked_count from actor_counts c join actors a on c.actor=a.actor_id where a.preferred_username=?";
+        try(var connection = datasource.getConnection()) {
+            try(var statement = connection.prepareStatement(sql)) {
+                statement.setString(1, username);
+                try(var results = statement.executeQuery()) {
+                    while(results.next()) {
+                        return Optional.of(ActorCounts.with()
+                            .followers(results.getInt("followers_count"))
+                            .following(results.getInt("following_count"))
+                            .liked(results.getInt("liked_count"))
+                            .build());
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new RatatoskrException("Unable to fetch actor counts", e);
+        }
+
+        return Optional.empty();
+    }
+
+    @Override
+    public Optional<ArticleCounts> findArticleCounts(String id) {
+        var sql = "select c.likes_count, c.shares_count, c.replies_count from article_counts c join articles a on c.article=a.article_id where a.id=?";
+        try(var connection = datasource.getConnection()) {
+            try(var statement = connection.prepareStatement(sql)) {
+                statement.setString(1, id);
+                try(var results = statement.executeQuery()) {
+                    while(results.next()) {
+                        return Optional.of(ArticleCounts.with()
+                            .likes(results.getInt("likes_count"))
+                            .shares(results.getInt("shares_count"))
+                            .replies(results.getInt("replies_count"))
+                            .build());
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new RatatoskrException("Unable to fetch article counts", e);
+        }
+
+        return Optional.empty();
+    }
+
+    @Override
+    public int reconcileCounts() {
+        var corrected = 0;
+        try(var connection = datasource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                try(var statement = connection.createStatement()) {
+                    corrected += statement.executeUpdate("insert into actor_counts (actor) select actor_id from actors a where not exists (select 1 from actor_counts c where c.actor=a.actor_id)");
+                    corrected += statement.executeUpdate("insert into article_counts (article) select article_id from articles t where not exists (select 1 from article_counts c where c.article=t.article_id)");
+                    corrected += statement.executeUpdate(String.format(
+                        "update actor_counts c set followers_count=%1$s, following_count=%2$s, liked_count=%3$s, followers_updated=CURRENT_TIMESTAMP, following_updated=CURRENT_TIMESTAMP, liked_updated=CURRENT_TIMESTAMP where followers_count<>%1$s or following_count<>%2$s or liked_count<>%3$s",
+                        FOLLOWERS_COUNT,
+                        FOLLOWING_COUNT,
+                        LIKED_COUNT));
+                    corrected += statement.executeUpdate(String.format(
+                        "update article_counts c set likes_count=%1$s, replies_count=%2$s where likes_count<>%1$s or replies_count<>%2$s",
+                        LIKES_COUNT,
+                        REPLIES_COUNT));
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new RatatoskrException("Unable to reconcile counts", e);
+        }
+
+        return corrected;
+    }
+
+    @Override
+    public List<CustomEmoji> listCustomEmojis() {
+        var emojis = new ArrayList<CustomEmoji>();
+        try(var connection = datasource.getConnection()) {
+            try(var statement = connection.prepareStatement("select domain_name, shortcode, url, media_type from custom_emojis")) {
+                try(var results = statement.executeQuery()) {
+                    while(results.next()) {
+                        emojis.add(CustomEmoji.with()
+                            .domain(results.getString("domain_name"))
+                            .shortcode(results.getString("shortcode"))
+                            .url(results.getString("url"))
+                            .mediaType(results.getString("media_type"))
+                            .build());
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new RatatoskrException("Unable to list custom emojis", e);
+        }
+
+        return emojis;
+    }
+
+    @Override
+    public CustomEmoji saveCustomEmoji(CustomEmoji emoji) {
+        try(var connection = datasource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                var updated = 0;
+                try(var statement = connection.prepareStatement("update custom_emojis set url=?, media_type=? where domain_name=? and shortcode=?")) {
+                    statement.setString(1, emoji.url());
+                    statement.setString(2, emoji.mediaType());
+                    statement.setString(3, emoji.domain());
+                    statement.setString(4, emoji.shortcode());
+                    updated = statement.executeUpdate();
+                }
+
+                if (updated == 0) {
+                    try(var statement = connection.prepareStatement("insert into custom_emojis (domain_name, shortcode, url, media_type) values (?, ?, ?, ?)")) {
+                        statement.setString(1, emoji.domain());
+                        statement.setString(2, emoji.shortcode());
+                        statement.setString(3, emoji.url());
+                        statement.setString(4, emoji.mediaType());
+                        statement.executeUpdate();
+                    }
+                }
+
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new RatatoskrException(String.format("Unable to save custom emoji \"%s\" of \"%s\"", emoji.shortcode(), emoji.domain()), e);
+        }
+
+        return emoji;
+    }
+
+    @Override
+    public boolean deleteCustomEmoji(String domain, String shortcode) {
+        try(var connection = datasource.getConnection()) {
+            try(var statement = connection.prepareStatement("delete from custom_emojis where domain_name=? and shortcode=?")) {
+                statement.setString(1, domain);
+                statement.setString(2, shortcode);
+                return statement.executeUpdate() > 0;
+            }
+        } catch (SQLException e) {
+            throw new RatatoskrException(String.format("Unable to delete custom emoji \"%s\" of \"%s\"", shortcode, domain), e);
+        }
+    }
+
+    @Override
+    public boolean hasReceivedActivity(String activityId) {
+        try(var connection = datasource.getConnection()) {
+            try(var statement = connection.prepareStatement("select received_activity_id from received_activities where activity_id=?")) {
+                statement.setString(1, activityId);
+                try(var results = statement.executeQuery()) {
+                    return results.next();
+                }
+            }
+        } catch (SQLException e) {
+            throw new RatatoskrException(String.format("Unable to look up received activity \"%s\"", activityId), e);
+        }
+    }
+
+    @Override
+    public boolean addReceivedActivity(String activityId) {
+        try(var connection = datasource.getConnection()) {
+            try(var statement = connection.prepareStatement("insert into received_activities (activity_id) values (?)")) {
+                statement.setString(1, activityId);
+                statement.executeUpdate();
+                return true;
+            }
+        } catch (SQLException e) {
+            if (UNIQUE_VIOLATION.equals(e.getSQLState())) {
+                return false;
+            }
+
+            throw new RatatoskrException(String.format("Unable to record received activity \"%s\"", activityId), e);
+        }
+    }
+
+    @Override
+    public List<String> listReceivedActivitiesSince(Instant since) {
+        var activityIds = new ArrayList<String>();
+        try(var connection = datasource.getConnection()) {
+            try(var statement = connection.prepareStatement("select activity_id from received_activities where received >= ?")) {
+                statement.setTimestamp(1, Timestamp.from(since));
+                try(var results = statement.executeQuery()) {
+                    while (results.next()) {
+                        activityIds.add(results.getString(1));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new RatatoskrException(String.format("Unable to list activities received since %s", since), e);
+        }
+
+        return activityIds;
+    }
+
+    @Override
+    public int deleteReceivedActivitiesBefore(Instant before) {
+        try(var connection = datasource.getConnection()) {
+            try(var statement = connection.prepareStatement("delete from received_activities where received < ?")) {
+                statement.setTimestamp(1, Timestamp.from(before));
+                return statement.executeUpdate();
+            }
+        } catch (SQLException e) {
+            throw new RatatoskrException(String.format("Unable to delete activities received before %s", before), e);
+        }
+    }
+
     @Override
     public List<Like> userLikeArticle(String username, Article article, Group audience, String localWebContext) {
         try(var connection = datasource.getConnection()) {
-            Integer likeId = null;
-            createNewLike(connection, username, article, audience);
-            likeId = findLikeIdOfMostRecentlyCreatedLike(connection);
-            updateLikesToSetIdOfCreatedLike(connection, username, likeId, localWebContext);
+            connection.setAutoCommit(false);
+            try {
+                var likeId = createNewLike(connection, username, article, audience);
+                updateLikesToSetIdOfCreatedLike(connection, username, likeId, localWebContext);
+                incrementActorCount(connection, INCREMENT_LIKED_COUNT, username);
+                incrementLikesCount(connection, article.id());
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
         } catch (SQLException e) {
             throw new RatatoskrException("Error liking article for user", e);
         }
@@ -384,31 +993,22 @@ public class RatatoskrServiceProvider implements RatatoskrService {
         return findLikedWithUsername(username);
     }
 
-    private void createNewLike(Connection connection, String username, Article article, Group audience) throws SQLException {
-        try(var statement = connection.prepareStatement("insert into likes (actor, article, audience) values ((select actor_id from actors where preferred_username=?), (select article_id from articles where id=?), (select group_id from groups where name=?))")) {
+    private Integer createNewLike(Connection connection, String username, Article article, Group audience) throws SQLException {
+        // The generated key is used instead of looking up the most recent like, which could be another user's like added concurrently
+        try(var statement = connection.prepareStatement("insert into likes (actor, article, audience) values ((select actor_id from actors where preferred_username=?), (select article_id from articles where id=?), (select group_id from groups where name=?))", Statement.RETURN_GENERATED_KEYS)) {
             statement.setString(1, username);
             statement.setString(2, article.id());
             statement.setString(3, audience.name());
             statement.executeUpdate();
-        }
-    }
-
-    private Integer findLikeIdOfMostRecentlyCreatedLike(Connection connection) throws SQLException {
-        Integer likeId = null;
-        try(var statement = connection.createStatement()) {
-            try(var results = statement.executeQuery("select like_id from likes order by like_id desc")) {
-                if (results.next()) {
-                    likeId = results.getInt("like_id");
-                }
+            try(var generatedKeys = statement.getGeneratedKeys()) {
+                return generatedKeys.next() ? generatedKeys.getInt(1) : null;
             }
         }
-
-        return likeId;
     }
 
     private void updateLikesToSetIdOfCreatedLike(Connection connection, String username, Integer likeId, String localWebContext) throws SQLException {
         var id = localWebContext + "liked/" + username + "/" + Optional.ofNullable(likeId).orElse(0).toString();
-        try(var statement = connection.prepareStatement("update likes set id=? where like_id=?")) {
+        try(var statement = connection.prepareStatement("update likes set id=?, updated=CURRENT_TIMESTAMP where like_id=?")) {
             statement.setString(1, id);
             statement.setInt(2, likeId);
             statement.executeUpdate();
@@ -467,7 +1067,9 @@ public class RatatoskrServiceProvider implements RatatoskrService {
             return Optional.empty();
         }
 
-        return getCounterIncrementStep(username);
+        var incrementStep = getCounterIncrementStep(username);
+        incrementStep.ifPresent(step -> notifyAccountChanged(username, AccountChange.COUNTER_INCREMENT_STEP, step));
+        return incrementStep;
     }
 
     @Override
@@ -493,7 +1095,9 @@ public class RatatoskrServiceProvider implements RatatoskrService {
                 statement.executeUpdate();
             }
 
-            return findAndCreateCounterBean(connection, username);
+            var incremented = findAndCreateCounterBean(connection, username);
+            incremented.ifPresent(c -> notifyAccountChanged(username, AccountChange.COUNTER, c));
+            return incremented;
         } catch (SQLException e) {
             logger.warn("Failed to increment counter for user \"{}\"", username, e);
         }
@@ -513,7 +1117,9 @@ public class RatatoskrServiceProvider implements RatatoskrService {
                 statement.executeUpdate();
             }
 
-            return findAndCreateCounterBean(connection, username);
+            var decremented = findAndCreateCounterBean(connection, username);
+            decremented.ifPresent(c -> notifyAccountChanged(username, AccountChange.COUNTER, c));
+            return decremented;
         } catch (SQLException e) {
             logger.warn("Failed to decrement counter for user \"{}\"", username, e);
         }
@@ -523,24 +1129,38 @@ public class RatatoskrServiceProvider implements RatatoskrService {
 
     @Override
     public Locale defaultLocale() {
-        return defaultLocale;
+        return localizations.defaultLocale();
     }
 
     @Override
     public List<LocaleBean> availableLocales() {
-        return Arrays.asList(Locale.forLanguageTag("nb-NO"), Locale.UK).stream().map(l -> LocaleBean.with().locale(l).build()).toList();
+        return localizations.availableLocales();
     }
 
     @Override
     public Map<String, String> displayTexts(Locale locale) {
-        return transformResourceBundleToMap(locale);
+        var texts = localizations.texts(locale);
+        return texts != null ? texts : transformResourceBundleToMap(locale);
+    }
+
+    @Override
+    public Optional<DisplayTextsBody> displayTextsBody(Locale locale) {
+        return Optional.ofNullable(localizations.body(locale));
     }
 
     @Override
     public String displayText(String key, String locale) {
-        var active = locale == null || locale.isEmpty() ? defaultLocale : Locale.forLanguageTag(locale.replace('_', '-'));
-        var bundle = ResourceBundle.getBundle(DISPLAY_TEXT_RESOURCES, active);
-        return bundle.getString(key);
+        var texts = localizations.textsForCode(locale);
+        if (texts == null) {
+            texts = transformResourceBundleToMap(Locale.forLanguageTag(locale.replace('_', '-')));
+        }
+
+        var text = texts.get(key);
+        if (text == null) {
+            throw new MissingResourceException("Can't find display text for key " + key, DISPLAY_TEXT_RESOURCES, key);
+        }
+
+        return text;
     }
 
     private int findAccount(Connection connection, String username) throws SQLException {
@@ -592,6 +1212,228 @@ public class RatatoskrServiceProvider implements RatatoskrService {
         return Optional.empty();
     }
 
+    /**
+     * The count and the time of the last change of a collection are read
+     * from the actor_counts row of the actor, which is updated in the same
+     * transaction as the collection itself.
+     */
+    private ResourceVersion findCollectionVersion(String sql, String username, String errorMessage) {
+        var version = ResourceVersion.with();
+        try(var connection = datasource.getConnection()) {
+            try(var statement = connection.prepareStatement(sql)) {
+                statement.setString(1, username);
+                try(var results = statement.executeQuery()) {
+                    while(results.next()) {
+                        version
+                            .count(results.getInt("item_count"))
+                            .lastModified(zonedDateTimeOrNull(results, "updated"));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new RatatoskrException(errorMessage, e);
+        }
+
+        return version.build();
+    }
+
+    private void notifyActorChanged(Person actor) {
+        for (var listener : actorChangeListeners) {
+            try {
+                listener.actorChanged(actor);
+            } catch (Exception e) {
+                logger.warn("Actor change listener failed for actor \"{}\"", actor.id(), e);
+            }
+        }
+    }
+
+    private void notifyAccountChanged(String username, String type, Object data) {
+        var change = AccountChange.with().username(username).type(type).data(data).build();
+        for (var listener : accountChangeListeners) {
+            try {
+                listener.accountChanged(change);
+            } catch (Exception e) {
+                logger.warn("Account change listener failed for user \"{}\"", username, e);
+            }
+        }
+    }
+
+    private void incrementActorCount(Connection connection, String sql, String username) throws SQLException {
+        try(var statement = connection.prepareStatement(sql)) {
+            statement.setString(1, username);
+            statement.executeUpdate();
+        }
+    }
+
+    private void incrementLikesCount(Connection connection, String article) throws SQLException {
+        try(var statement = connection.prepareStatement("update article_counts set likes_count=likes_count+1 where article=(select article_id from articles where id=?)")) {
+            statement.setString(1, article);
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * Add the counts of the article, with the replies that were added before
+     * it, and count the article as a reply to the article it replies to.
+     */
+    private void countArticle(Connection connection, String id, String inReplyTo) throws SQLException {
+        try(var statement = connection.prepareStatement("insert into article_counts (article, replies_count) select article_id, (select count(*) from article_threads th where th.ancestor=t.article_id and th.depth=1) from articles t where t.id=?")) {
+            statement.setString(1, id);
+            statement.executeUpdate();
+        }
+
+        if (inReplyTo != null && !inReplyTo.equals(id)) {
+            try(var statement = connection.prepareStatement("update article_counts set replies_count=replies_count+1 where article=(select article_id from articles where id=?)")) {
+                statement.setString(1, inReplyTo);
+                statement.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * Add the article to the closure table of reply threads, i.e. a row for
+     * the article itself and one for each ancestor of the article replied to.
+     *
+     * Replies that were added before the article they reply to are moved,
+     * with all of their descendants, into the thread of the article.
+     */
+    private void indexThread(Connection connection, String id, String inReplyTo) throws SQLException {
+        var articleId = findArticleId(connection, id);
+        try(var statement = connection.prepareStatement("insert into article_threads (ancestor, descendant, depth) values (?, ?, 0)")) {
+            statement.setInt(1, articleId);
+            statement.setInt(2, articleId);
+            statement.executeUpdate();
+        }
+
+        if (inReplyTo != null && !inReplyTo.equals(id)) {
+            try(var statement = connection.prepareStatement("insert into article_threads (ancestor, descendant, depth) select ancestor, cast(? as integer), depth + 1 from article_threads where descendant=(select article_id from articles where id=?)")) {
+                statement.setInt(1, articleId);
+                statement.setString(2, inReplyTo);
+                statement.executeUpdate();
+            }
+        }
+
+        var adoptReplies = "insert into article_threads (ancestor, descendant, depth) " +
+            "select a.ancestor, d.descendant, a.depth + d.depth + 1 from article_threads a, articles r, article_threads d " +
+            "where a.descendant=? and r.in_reply_to=? and r.article_id<>? and d.ancestor=r.article_id " +
+            "and r.article_id not in (select ancestor from article_threads where descendant=?)";
+        try(var statement = connection.prepareStatement(adoptReplies)) {
+            statement.setInt(1, articleId);
+            statement.setString(2, id);
+            statement.setInt(3, articleId);
+            statement.setInt(4, articleId);
+            statement.executeUpdate();
+        }
+    }
+
+    private String findInReplyTo(Article article) {
+        return switch (article.inReplyTo()) {
+            case ActivityStreamObject asobject -> asobject.id();
+            case Link link -> link.href();
+            case null, default -> null;
+        };
+    }
+
+    /**
+     * Index the hashtags of an article with the publishing time stored in
+     * the article row, so that the tag timeline cursor, which holds
+     * milliseconds, matches both.
+     */
+    private void indexHashtags(Connection connection, Article article, Timestamp published) throws SQLException {
+        var hashtags = findHashtagNames(article.tag(), new LinkedHashSet<>());
+        if (hashtags.isEmpty()) {
+            return;
+        }
+
+        var articleId = findArticleId(connection, article.id());
+        for (var hashtag : hashtags) {
+            var hashtagId = findOrCreateHashtagId(connection, hashtag);
+            try(var statement = connection.prepareStatement("insert into tagged_articles (hashtag, published, article) values (?, ?, ?)")) {
+                statement.setInt(1, hashtagId);
+                statement.setTimestamp(2, published);
+                statement.setInt(3, articleId);
+                statement.executeUpdate();
+            }
+
+            try(var statement = connection.prepareStatement("update hashtags set usage_count=usage_count+1 where hashtag_id=?")) {
+                statement.setInt(1, hashtagId);
+                statement.executeUpdate();
+            }
+        }
+    }
+
+    Set<String> findHashtagNames(LinkOrObject tag, Set<String> names) {
+        switch (tag) {
+            case LinkOrObjectList list -> list.forEach(t -> findHashtagNames(t, names));
+            case Hashtag hashtag -> {
+                var name = normalizeHashtag(hashtag.name());
+                if (!name.isEmpty()) {
+                    names.add(name);
+                }
+            }
+            case null, default -> { /* Not a hashtag */ }
+        }
+
+        return names;
+    }
+
+    String normalizeHashtag(String hashtag) {
+        if (hashtag == null) {
+            return "";
+        }
+
+        var name = hashtag.startsWith("#") ? hashtag.substring(1) : hashtag;
+        return Normalizer.normalize(name, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+    }
+
+    private int findArticleId(Connection connection, String id) throws SQLException {
+        try(var statement = connection.prepareStatement("select article_id from articles where id=?")) {
+            statement.setString(1, id);
+            try(var results = statement.executeQuery()) {
+                while(results.next()) {
+                    return results.getInt("article_id");
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    private int findOrCreateHashtagId(Connection connection, String name) throws SQLException {
+        var sql = "select hashtag_id from hashtags where name=?";
+        try(var statement = connection.prepareStatement(sql)) {
+            statement.setString(1, name);
+            try(var results = statement.executeQuery()) {
+                while(results.next()) {
+                    return results.getInt("hashtag_id");
+                }
+            }
+        }
+
+        // A concurrent article may create the same hashtag between the select
+        // and the insert.  The savepoint keeps the rest of the transaction
+        // usable after the unique violation, also on PostgreSQL
+        var savepoint = connection.setSavepoint();
+        try(var statement = connection.prepareStatement("insert into hashtags (name) values (?)")) {
+            statement.setString(1, name);
+            statement.executeUpdate();
+            connection.releaseSavepoint(savepoint);
+        } catch (SQLException e) {
+            connection.rollback(savepoint);
+            if (!UNIQUE_VIOLATION.equals(e.getSQLState())) {
+                throw e;
+            }
+        }
+
+        try(var statement = connection.prepareStatement(sql)) {
+            statement.setString(1, name);
+            try(var results = statement.executeQuery()) {
+                results.next();
+                return results.getInt("hashtag_id");
+            }
+        }
+    }
+
     private Integer findCounterIncrementStep(Connection connection, String username) throws SQLException {
         try(var statement = connection.prepareStatement("select counter_increment_step from counter_increment_steps c join ratatoskr_accounts a on c.account_id=a.account_id where a.username=?")) {
             statement.setString(1, username);
@@ -661,9 +1503,15 @@ public class RatatoskrServiceProvider implements RatatoskrService {
             .name(results.getString("name"))
             .content(results.getString("content"))
             .attributedTo(Link.with().href(results.getString("attributed_to")).build())
+            .inReplyTo(linkOrNull(results, "in_reply_to"))
             .build());
     }
 
+    private Link linkOrNull(ResultSet results, String columnName) throws SQLException {
+        var href = stringOrNull(results, columnName);
+        return href != null ? Link.with().href(href).build() : null;
+    }
+
     private Optional<Like> unpackLike(ResultSet results) throws SQLException {
         return Optional.of(Like.with()
             .id(stringOrNull(results, "id"))
@@ -708,15 +1556,7 @@ public class RatatoskrServiceProvider implements RatatoskrService {
     }
 
     Map<String, String> transformResourceBundleToMap(Locale locale) {
-        var map = new HashMap<String, String>();
-        var bundle = ResourceBundle.getBundle(DISPLAY_TEXT_RESOURCES, locale);
-        var keys = bundle.getKeys();
-        while(keys.hasMoreElements()) {
-            var key = keys.nextElement();
-            map.put(key, bundle.getString(key));
-        }
-
-        return map;
+        return LocalizationCache.readResourceBundle(DISPLAY_TEXT_RESOURCES, locale);
     }
 
 }
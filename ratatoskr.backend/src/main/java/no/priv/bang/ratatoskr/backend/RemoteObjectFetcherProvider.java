@@ -0,0 +1,612 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.backend;
+
+import static no.priv.bang.ratatoskr.backend.Config.booleanConfig;
+import static no.priv.bang.ratatoskr.backend.Config.longConfig;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.log.LogService;
+import org.osgi.service.log.Logger;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import no.priv.bang.ratatoskr.asvocabulary.Link;
+import no.priv.bang.ratatoskr.asvocabulary.LinkOrObject;
+import no.priv.bang.ratatoskr.services.HtmlSanitizer;
+import no.priv.bang.ratatoskr.services.RemoteObjectFetcher;
+
+/**
+ * Fetches remote ActivityStreams objects over HTTP into a size bounded LRU
+ * cache.
+ *
+ * Objects are cached for as long as the <code>Cache-Control</code> header of
+ * the response allows.  Objects that are gone (404 and 410) and fetches that
+ * time out are cached as missing for {@link #DEFAULT_NEGATIVE_TTL_SECONDS}, so
+ * that a dead server isn't asked again for every reference to it.
+ *
+ * Accounts are looked up with WebFinger, and the IRIs of their actors are
+ * cached with the objects, as links keyed by <code>acct:user@host</code>.
+ *
+ * The HTML of the <code>content</code> and <code>contentMap</code> of the
+ * fetched objects, and of the objects nested in them, is sanitized before
+ * the objects are parsed and cached.
+ *
+ * Only one request is sent for an IRI or an account at a time: callers
+ * asking for an IRI that is already being fetched wait for that fetch.
+ * The number of concurrent requests to a single host is limited.
+ *
+ * The IRIs come from other servers, so requests, and the redirects they
+ * are answered with, are only sent to hosts that resolve to public
+ * addresses, and response bodies larger than {@link #DEFAULT_MAX_BODY_BYTES}
+ * are dropped.  The host is resolved again when connecting, so a DNS
+ * server answering differently the second time isn't stopped by this.
+ */
+@Component(service=RemoteObjectFetcher.class, immediate=true)
+public class RemoteObjectFetcherProvider implements RemoteObjectFetcher {
+
+    static final int DEFAULT_MAX_ENTRIES = 10000;
+    static final int DEFAULT_MAX_REQUESTS_PER_HOST = 4;
+    static final long DEFAULT_TIMEOUT_MILLIS = 10000;
+    static final long DEFAULT_TTL_SECONDS = 300;
+    static final long DEFAULT_NEGATIVE_TTL_SECONDS = 600;
+    static final long MAX_TTL_SECONDS = 86400;
+    static final long DEFAULT_MAX_BODY_BYTES = 1024L * 1024L;
+    static final int MAX_REDIRECTS = 5;
+    static final String ACCEPT = "application/activity+json, application/ld+json; profile=\"https://www.w3.org/ns/activitystreams\"";
+    static final String WEBFINGER_ACCEPT = "application/jrd+json, application/json";
+    static final String ACCOUNT_KEY_PREFIX = "acct:";
+
+    private Logger logger;
+    private HtmlSanitizer sanitizer;
+    private ObjectMapper mapper;
+    private HttpClient client;
+    private ExecutorService executor;
+    private int maxEntries;
+    private int maxRequestsPerHost;
+    private Duration timeout;
+    private long negativeTtlNanos;
+    private int maxBodyBytes;
+    private boolean allowPrivateAddresses;
+    private final LinkedHashMap<String, CachedObject> objects = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, CompletableFuture<Optional<LinkOrObject>>> fetches = new ConcurrentHashMap<>();
+    final Map<String, HostPermits> hostPermits = new ConcurrentHashMap<>();
+    String webFingerScheme = "https";
+
+    @Reference
+    public void setLogservice(LogService logservice) {
+        this.logger = logservice.getLogger(RemoteObjectFetcherProvider.class);
+    }
+
+    @Reference
+    public void setHtmlSanitizer(HtmlSanitizer sanitizer) {
+        this.sanitizer = sanitizer;
+    }
+
+    @Activate
+    public void activate(Map<String, Object> config) {
+        maxEntries = (int) longConfig(config, "maxEntries", DEFAULT_MAX_ENTRIES);
+        maxRequestsPerHost = (int) longConfig(config, "maxRequestsPerHost", DEFAULT_MAX_REQUESTS_PER_HOST);
+        timeout = Duration.ofMillis(longConfig(config, "timeoutMillis", DEFAULT_TIMEOUT_MILLIS));
+        negativeTtlNanos = TimeUnit.SECONDS.toNanos(longConfig(config, "negativeTtlSeconds", DEFAULT_NEGATIVE_TTL_SECONDS));
+        maxBodyBytes = (int) Math.min(longConfig(config, "maxBodyBytes", DEFAULT_MAX_BODY_BYTES), Integer.MAX_VALUE - 1);
+        allowPrivateAddresses = booleanConfig(config, "allowPrivateAddresses", false);
+        mapper = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .enable(DeserializationFeature.READ_UNKNOWN_ENUM_VALUES_USING_DEFAULT_VALUE)
+            .build();
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        client = HttpClient.newBuilder()
+            .connectTimeout(timeout)
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .executor(executor)
+            .build();
+    }
+
+    @Deactivate
+    public void deactivate() {
+        executor.shutdownNow();
+        client.close();
+    }
+
+    @Override
+    public CompletionStage<Optional<LinkOrObject>> fetch(String iri) {
+        if (iri == null) {
+            return CompletableFuture.completedStage(Optional.empty());
+        }
+
+        return coalesced(iri, () -> fetchAndCache(iri));
+    }
+
+    @Override
+    public CompletionStage<Optional<String>> findActorId(String account) {
+        var host = accountHost(account);
+        if (host == null) {
+            return CompletableFuture.completedStage(Optional.empty());
+        }
+
+        var key = ACCOUNT_KEY_PREFIX + account;
+        return coalesced(key, () -> webFingerAndCache(key, account, host))
+            .thenApply(value -> value.filter(Link.class::isInstance).map(link -> ((Link) link).href()));
+    }
+
+    /**
+     * Answer from the cache, or wait for an ongoing load of the same key, or
+     * else load on a virtual thread.
+     */
+    private CompletionStage<Optional<LinkOrObject>> coalesced(String key, Supplier<Optional<LinkOrObject>> load) {
+        var cached = findCached(key);
+        if (cached != null) {
+            return CompletableFuture.completedStage(cached.value());
+        }
+
+        var fetch = new CompletableFuture<Optional<LinkOrObject>>();
+        var ongoing = fetches.putIfAbsent(key, fetch);
+        if (ongoing != null) {
+            return ongoing.minimalCompletionStage();
+        }
+
+        // A fetch of the same key may have completed and been cached since the first lookup
+        cached = findCached(key);
+        if (cached != null) {
+            fetches.remove(key, fetch);
+            fetch.complete(cached.value());
+            return fetch.minimalCompletionStage();
+        }
+
+        try {
+            executor.execute(() -> {
+                var value = load.get();
+                fetches.remove(key, fetch);
+                fetch.complete(value);
+            });
+        } catch (RejectedExecutionException e) {
+            fetches.remove(key, fetch);
+            fetch.complete(Optional.empty());
+        }
+
+        return fetch.minimalCompletionStage();
+    }
+
+    private Optional<LinkOrObject> fetchAndCache(String iri) {
+        var uri = parseHttpUri(iri);
+        if (uri == null) {
+            logger.warn("Not fetching remote object with unsupported IRI \"{}\"", iri);
+            return Optional.empty();
+        }
+
+        return sendWithHostPermit(uri, iri, () -> send(iri, uri));
+    }
+
+    private Optional<LinkOrObject> webFingerAndCache(String key, String account, String host) {
+        URI uri;
+        try {
+            uri = new URI(webFingerScheme, host, "/.well-known/webfinger", "resource=acct:" + account, null);
+        } catch (URISyntaxException e) {
+            logger.warn("Not looking up account with unsupported host \"{}\"", account);
+            return Optional.empty();
+        }
+
+        return sendWithHostPermit(uri, account, () -> sendWebFinger(key, account, uri));
+    }
+
+    /**
+     * The permits of a host are removed when no request is using or waiting
+     * for them, so that the map doesn't grow with every host ever fetched
+     * from.
+     */
+    private Optional<LinkOrObject> sendWithHostPermit(URI uri, String name, Request request) {
+        var host = uri.getAuthority();
+        var permits = hostPermits.compute(host, (h, existing) -> (existing != null ? existing : new HostPermits(maxRequestsPerHost)).use()).semaphore();
+        try {
+            if (!permits.tryAcquire(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                logger.warn("Too many concurrent requests to {}, not fetching \"{}\"", host, name);
+                return Optional.empty();
+            }
+
+            try {
+                return request.send();
+            } finally {
+                permits.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to fetch \"{}\"", name, e);
+            return Optional.empty();
+        } finally {
+            hostPermits.computeIfPresent(host, (h, existing) -> existing.unuse() ? null : existing);
+        }
+    }
+
+    private Optional<LinkOrObject> send(String iri, URI uri) throws InterruptedException {
+        try {
+            var response = get(uri, ACCEPT, iri);
+            if (response == null) {
+                return Optional.empty();
+            }
+
+            try (var body = response.body()) {
+                var status = response.statusCode();
+                if (status == 404 || status == 410) {
+                    store(iri, Optional.empty(), negativeTtlNanos);
+                    return Optional.empty();
+                }
+
+                if (status != 200) {
+                    logger.warn("Got HTTP status {} when fetching remote object \"{}\"", status, iri);
+                    return Optional.empty();
+                }
+
+                var bytes = readBody(response, body, iri);
+                if (bytes == null) {
+                    store(iri, Optional.empty(), negativeTtlNanos);
+                    return Optional.empty();
+                }
+
+                var tree = mapper.readTree(bytes);
+                sanitizeContent(tree);
+                Optional<LinkOrObject> value = Optional.of(mapper.treeToValue(tree, LinkOrObject.class));
+                store(iri, value, ttlNanos(response.headers().firstValue("Cache-Control").orElse(null)));
+                return value;
+            }
+        } catch (HttpTimeoutException e) {
+            logger.warn("Timed out fetching remote object \"{}\"", iri);
+            store(iri, Optional.empty(), negativeTtlNanos);
+            return Optional.empty();
+        } catch (IOException e) {
+            logger.warn("Failed to fetch remote object \"{}\"", iri, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Send a GET and follow up to {@link #MAX_REDIRECTS} redirects, checking
+     * the host of every request, so that a redirect can't reach an address
+     * that the IRI itself isn't allowed to.
+     *
+     * Returns null if a host isn't allowed or there are too many redirects.
+     */
+    private HttpResponse<InputStream> get(URI uri, String accept, String name) throws IOException, InterruptedException {
+        var target = uri;
+        for (int redirects = 0; redirects <= MAX_REDIRECTS; ++redirects) {
+            if (!allowedHost(target)) {
+                logger.warn("Not fetching \"{}\" from {}, a loopback, private or link-local address", name, target.getHost());
+                return null;
+            }
+
+            var request = HttpRequest.newBuilder(target)
+                .header("Accept", accept)
+                .timeout(timeout)
+                .GET()
+                .build();
+            var response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            var location = response.headers().firstValue("Location").orElse(null);
+            if (!isRedirect(response.statusCode()) || location == null) {
+                return response;
+            }
+
+            response.body().close();
+            target = parseHttpUri(resolve(target, location));
+            if (target == null) {
+                logger.warn("Not following redirect to unsupported location \"{}\" when fetching \"{}\"", location, name);
+                return null;
+            }
+        }
+
+        logger.warn("Too many redirects when fetching \"{}\"", name);
+        return null;
+    }
+
+    /**
+     * Returns null, and closes the body, if the response is larger than
+     * {@link #maxBodyBytes}.  The body is read no further than one byte past
+     * the limit, whatever the Content-Length header says.
+     */
+    private byte[] readBody(HttpResponse<InputStream> response, InputStream body, String name) throws IOException {
+        if (response.headers().firstValueAsLong("Content-Length").orElse(0) > maxBodyBytes) {
+            logger.warn("Not fetching \"{}\" larger than {} bytes", name, maxBodyBytes);
+            return null;
+        }
+
+        var bytes = body.readNBytes(maxBodyBytes + 1);
+        if (bytes.length > maxBodyBytes) {
+            logger.warn("Not fetching \"{}\" larger than {} bytes", name, maxBodyBytes);
+            return null;
+        }
+
+        return bytes;
+    }
+
+    private boolean allowedHost(URI uri) throws IOException {
+        return allowPrivateAddresses || isPublicHost(uri);
+    }
+
+    /**
+     * True if every address the host of the URI resolves to is public.
+     */
+    static boolean isPublicHost(URI uri) throws IOException {
+        var host = uri.getHost();
+        if (host == null) {
+            return false;
+        }
+
+        for (var address : InetAddress.getAllByName(host)) {
+            if (!isPublicAddress(address)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * False for the wildcard, loopback, link-local, private and multicast
+     * addresses, for the IPv4 shared address space used by carrier NAT,
+     * and for IPv6 unique local addresses.
+     */
+    static boolean isPublicAddress(InetAddress address) {
+        if (address.isAnyLocalAddress() || address.isLoopbackAddress() || address.isLinkLocalAddress() || address.isSiteLocalAddress() || address.isMulticastAddress()) {
+            return false;
+        }
+
+        var bytes = address.getAddress();
+        if (address instanceof Inet6Address) {
+            return (bytes[0] & 0xfe) != 0xfc;
+        }
+
+        return bytes[0] != 0 && !(bytes[0] == 100 && (bytes[1] & 0xc0) == 64);
+    }
+
+    static boolean isRedirect(int status) {
+        return status == 301 || status == 302 || status == 303 || status == 307 || status == 308;
+    }
+
+    static String resolve(URI base, String location) {
+        try {
+            return base.resolve(location).toString();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private void sanitizeContent(JsonNode node) {
+        if (node instanceof ObjectNode object) {
+            var content = object.get("content");
+            if (content != null && content.isTextual()) {
+                object.put("content", sanitizer.sanitize(content.asText()));
+            }
+
+            if (object.get("contentMap") instanceof ObjectNode contentMap) {
+                contentMap.fields().forEachRemaining(language -> {
+                    if (language.getValue().isTextual()) {
+                        language.setValue(TextNode.valueOf(sanitizer.sanitize(language.getValue().asText())));
+                    }
+                });
+            }
+        }
+
+        for (var child : node) {
+            sanitizeContent(child);
+        }
+    }
+
+    /**
+     * Look up an account with WebFinger, and cache the IRI of the actor as
+     * a {@link Link}, so that it shares the cache with the fetched objects.
+     */
+    private Optional<LinkOrObject> sendWebFinger(String key, String account, URI uri) throws InterruptedException {
+        try {
+            var response = get(uri, WEBFINGER_ACCEPT, account);
+            if (response == null) {
+                return Optional.empty();
+            }
+
+            try (var body = response.body()) {
+                var status = response.statusCode();
+                if (status == 404 || status == 410) {
+                    store(key, Optional.empty(), negativeTtlNanos);
+                    return Optional.empty();
+                }
+
+                if (status != 200) {
+                    logger.warn("Got HTTP status {} when looking up account \"{}\"", status, account);
+                    return Optional.empty();
+                }
+
+                var bytes = readBody(response, body, account);
+                if (bytes == null) {
+                    store(key, Optional.empty(), negativeTtlNanos);
+                    return Optional.empty();
+                }
+
+                for (var link : mapper.readTree(bytes).path("links")) {
+                    var type = link.path("type").asText("");
+                    if ("self".equals(link.path("rel").asText()) && (type.startsWith("application/activity+json") || type.startsWith("application/ld+json")) && link.hasNonNull("href")) {
+                        Optional<LinkOrObject> value = Optional.of(Link.with().href(link.get("href").asText()).build());
+                        store(key, value, ttlNanos(response.headers().firstValue("Cache-Control").orElse(null)));
+                        return value;
+                    }
+                }
+
+                store(key, Optional.empty(), negativeTtlNanos);
+                return Optional.empty();
+            }
+        } catch (HttpTimeoutException e) {
+            logger.warn("Timed out looking up account \"{}\"", account);
+            store(key, Optional.empty(), negativeTtlNanos);
+            return Optional.empty();
+        } catch (IOException e) {
+            logger.warn("Failed to look up account \"{}\"", account, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * The host of an account written as <code>user@host</code>, or null if it
+     * isn't written like that.
+     */
+    static String accountHost(String account) {
+        var at = account != null ? account.lastIndexOf('@') : -1;
+        if (at <= 0 || at == account.length() - 1 || account.indexOf('@') != at || account.indexOf('/') >= 0) {
+            return null;
+        }
+
+        return account.substring(at + 1);
+    }
+
+    static long ttlNanos(String cacheControl) {
+        if (cacheControl == null) {
+            return TimeUnit.SECONDS.toNanos(DEFAULT_TTL_SECONDS);
+        }
+
+        var maxAge = -1L;
+        for (var directive : cacheControl.split(",")) {
+            var nameAndValue = directive.trim().split("=", 2);
+            var name = nameAndValue[0].trim().toLowerCase();
+            if ("no-store".equals(name) || "no-cache".equals(name)) {
+                return 0;
+            }
+
+            if ("max-age".equals(name) && nameAndValue.length == 2) {
+                try {
+                    maxAge = Long.parseLong(nameAndValue[1].trim().replace("\"", ""));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+
+        return TimeUnit.SECONDS.toNanos(maxAge >= 0 ? Math.min(maxAge, MAX_TTL_SECONDS) : DEFAULT_TTL_SECONDS);
+    }
+
+    private CachedObject findCached(String iri) {
+        synchronized (objects) {
+            var cached = objects.get(iri);
+            if (cached != null && cached.expires() - System.nanoTime() <= 0) {
+                objects.remove(iri);
+                return null;
+            }
+
+            return cached;
+        }
+    }
+
+    private void store(String iri, Optional<LinkOrObject> value, long ttlNanos) {
+        if (ttlNanos <= 0) {
+            return;
+        }
+
+        synchronized (objects) {
+            objects.put(iri, new CachedObject(value, System.nanoTime() + ttlNanos));
+            var eldest = objects.entrySet().iterator();
+            while (objects.size() > maxEntries && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+            }
+        }
+    }
+
+    private static URI parseHttpUri(String iri) {
+        if (iri == null) {
+            return null;
+        }
+
+        try {
+            var uri = new URI(iri);
+            var scheme = uri.getScheme();
+            if (("http".equalsIgnoreCase(scheme) || "https".equalsIgnoreCase(scheme)) && uri.getAuthority() != null) {
+                return uri;
+            }
+        } catch (URISyntaxException e) {
+            // Not a usable IRI
+        }
+
+        return null;
+    }
+
+    record CachedObject(Optional<LinkOrObject> value, long expires) {}
+
+    /**
+     * The users are the requests holding or waiting for a permit.  They are
+     * only counted inside {@link Map#compute} of the map holding the permits.
+     */
+    static class HostPermits {
+        private final Semaphore semaphore;
+        private int users;
+
+        HostPermits(int permits) {
+            semaphore = new Semaphore(permits, true);
+        }
+
+        Semaphore semaphore() {
+            return semaphore;
+        }
+
+        HostPermits use() {
+            ++users;
+            return this;
+        }
+
+        /**
+         * Returns true when there are no users left.
+         */
+        boolean unuse() {
+            return --users == 0;
+        }
+    }
+
+    @FunctionalInterface
+    interface Request {
+        Optional<LinkOrObject> send() throws InterruptedException;
+    }
+
+}
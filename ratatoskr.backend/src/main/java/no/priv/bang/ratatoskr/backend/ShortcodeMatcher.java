@@ -0,0 +1,199 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.backend;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * An Aho-Corasick automaton finding the custom emoji shortcodes, written as
+ * <code>:shortcode:</code>, of a set of shortcodes in a text, in a single
+ * pass over the text, whatever the number of shortcodes.
+ *
+ * The automaton is immutable once built.  The edges of all states are kept
+ * in flat arrays, sorted by character within each state, so that a matcher
+ * of thousands of shortcodes is a few arrays rather than a map per state.
+ *
+ * A shortcode is only matched when it isn't glued to a letter or digit on
+ * either side, so that e.g. "a:blobcat:b" doesn't use the emoji.
+ */
+class ShortcodeMatcher {
+    private static final int ROOT = 0;
+    private static final int NO_MATCH = -1;
+
+    private final String[] shortcodes;
+    private final int[] firstEdge;
+    private final char[] edgeCharacters;
+    private final int[] edgeTargets;
+    private final int[] failure;
+    private final int[] matches;
+    private final int[] nextMatchingState;
+
+    ShortcodeMatcher(Collection<String> shortcodes) {
+        this.shortcodes = shortcodes.toArray(new String[0]);
+        var edges = new ArrayList<TreeMap<Character, Integer>>();
+        var matching = new ArrayList<Integer>();
+        edges.add(new TreeMap<>());
+        matching.add(NO_MATCH);
+        for (int shortcode = 0; shortcode < this.shortcodes.length; ++shortcode) {
+            var pattern = ":" + this.shortcodes[shortcode] + ":";
+            var state = ROOT;
+            for (int i = 0; i < pattern.length(); ++i) {
+                var next = edges.get(state).get(pattern.charAt(i));
+                if (next == null) {
+                    next = edges.size();
+                    edges.add(new TreeMap<>());
+                    matching.add(NO_MATCH);
+                    edges.get(state).put(pattern.charAt(i), next);
+                }
+
+                state = next;
+            }
+
+            matching.set(state, shortcode);
+        }
+
+        var stateCount = edges.size();
+        failure = new int[stateCount];
+        matches = new int[stateCount];
+        nextMatchingState = new int[stateCount];
+        firstEdge = new int[stateCount + 1];
+        var edgeCount = edges.stream().mapToInt(Map::size).sum();
+        edgeCharacters = new char[edgeCount];
+        edgeTargets = new int[edgeCount];
+        var edge = 0;
+        for (int state = 0; state < stateCount; ++state) {
+            firstEdge[state] = edge;
+            matches[state] = matching.get(state);
+            for (var entry : edges.get(state).entrySet()) {
+                edgeCharacters[edge] = entry.getKey();
+                edgeTargets[edge] = entry.getValue();
+                ++edge;
+            }
+        }
+
+        firstEdge[stateCount] = edge;
+        computeFailures();
+    }
+
+    /**
+     * Set the failure state of each state to the state of the longest proper
+     * suffix of its path that is also a path in the trie, in breadth first
+     * order, so that the failures of the shorter paths are known first.
+     */
+    private void computeFailures() {
+        var queue = new ArrayDeque<Integer>();
+        nextMatchingState[ROOT] = NO_MATCH;
+        for (int edge = firstEdge[ROOT]; edge < firstEdge[ROOT + 1]; ++edge) {
+            failure[edgeTargets[edge]] = ROOT;
+            nextMatchingState[edgeTargets[edge]] = NO_MATCH;
+            queue.add(edgeTargets[edge]);
+        }
+
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int edge = firstEdge[state]; edge < firstEdge[state + 1]; ++edge) {
+                var target = edgeTargets[edge];
+                var fallback = failure[state];
+                var next = transition(fallback, edgeCharacters[edge]);
+                while (next == NO_MATCH && fallback != ROOT) {
+                    fallback = failure[fallback];
+                    next = transition(fallback, edgeCharacters[edge]);
+                }
+
+                failure[target] = next != NO_MATCH ? next : ROOT;
+                nextMatchingState[target] = matches[failure[target]] != NO_MATCH ? failure[target] : nextMatchingState[failure[target]];
+                queue.add(target);
+            }
+        }
+    }
+
+    /**
+     * Find the shortcodes used in a text.
+     *
+     * @param text the text to look in
+     * @param found the shortcodes found are added to this set, so that the
+     *        shortcodes of several texts can be collected in one set
+     * @return the set of shortcodes found
+     */
+    Set<String> find(String text, Set<String> found) {
+        if (text == null || shortcodes.length == 0) {
+            return found;
+        }
+
+        var state = ROOT;
+        for (int i = 0; i < text.length(); ++i) {
+            var character = text.charAt(i);
+            var next = transition(state, character);
+            while (next == NO_MATCH && state != ROOT) {
+                state = failure[state];
+                next = transition(state, character);
+            }
+
+            state = next != NO_MATCH ? next : ROOT;
+            var matchingState = matches[state] != NO_MATCH ? state : nextMatchingState[state];
+            while (matchingState != NO_MATCH) {
+                var shortcode = shortcodes[matches[matchingState]];
+                if (isDelimited(text, i - shortcode.length() - 1, i)) {
+                    found.add(shortcode);
+                }
+
+                matchingState = nextMatchingState[matchingState];
+            }
+        }
+
+        return found;
+    }
+
+    List<String> find(String text) {
+        return List.copyOf(find(text, new LinkedHashSet<>()));
+    }
+
+    int size() {
+        return shortcodes.length;
+    }
+
+    private int transition(int state, char character) {
+        var low = firstEdge[state];
+        var high = firstEdge[state + 1] - 1;
+        while (low <= high) {
+            var middle = (low + high) >>> 1;
+            var edgeCharacter = edgeCharacters[middle];
+            if (edgeCharacter < character) {
+                low = middle + 1;
+            } else if (edgeCharacter > character) {
+                high = middle - 1;
+            } else {
+                return edgeTargets[middle];
+            }
+        }
+
+        return NO_MATCH;
+    }
+
+    private static boolean isDelimited(String text, int openingColon, int closingColon) {
+        var before = openingColon > 0 ? text.charAt(openingColon - 1) : ' ';
+        var after = closingColon + 1 < text.length() ? text.charAt(closingColon + 1) : ' ';
+        return !Character.isLetterOrDigit(before) && !Character.isLetterOrDigit(after);
+    }
+
+}
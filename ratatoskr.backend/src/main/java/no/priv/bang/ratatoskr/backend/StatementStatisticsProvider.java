@@ -0,0 +1,144 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.backend;
+
+import static no.priv.bang.ratatoskr.backend.Config.longConfig;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.log.LogService;
+import org.osgi.service.log.Logger;
+
+import no.priv.bang.ratatoskr.services.StatementStatistics;
+import no.priv.bang.ratatoskr.services.beans.StatementStatistic;
+
+/**
+ * Sum up the executions of each normalized statement, and log the
+ * executions taking longer than the configured
+ * <code>slowQueryThresholdMillis</code>.
+ *
+ * At most {@link #MAX_STATEMENTS} statements are kept apart, executions
+ * of statements beyond that are counted under {@link #OTHER_STATEMENTS}.
+ *
+ * Statements are only counted when the component has a configuration,
+ * e.g. from etc/no.priv.bang.ratatoskr.backend.StatementStatisticsProvider.cfg,
+ * and the threshold can be changed without losing the statistics.
+ */
+@Component(service=StatementStatistics.class, immediate=true, configurationPolicy=ConfigurationPolicy.REQUIRE)
+public class StatementStatisticsProvider implements StatementStatistics {
+    static final long DEFAULT_SLOW_QUERY_THRESHOLD_MILLIS = 1000;
+    static final int MAX_STATEMENTS = 1000;
+    static final String OTHER_STATEMENTS = "other statements";
+
+    private Logger logger;
+    private volatile long slowQueryThresholdNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_SLOW_QUERY_THRESHOLD_MILLIS);
+    private final Map<String, Totals> statements = new ConcurrentHashMap<>();
+
+    @Reference
+    public void setLogservice(LogService logservice) {
+        this.logger = logservice.getLogger(StatementStatisticsProvider.class);
+    }
+
+    @Activate
+    public void activate(Map<String, Object> config) {
+        modified(config);
+    }
+
+    @Modified
+    public void modified(Map<String, Object> config) {
+        slowQueryThresholdNanos = TimeUnit.MILLISECONDS.toNanos(longConfig(config, "slowQueryThresholdMillis", DEFAULT_SLOW_QUERY_THRESHOLD_MILLIS, 0));
+    }
+
+    @Override
+    public void executed(String statement, long nanos, long rows, boolean failed) {
+        var totals = totals(statement);
+        totals.executions.increment();
+        totals.totalNanos.add(nanos);
+        totals.maxNanos.accumulate(nanos);
+        totals.rows.add(rows);
+        if (failed) {
+            totals.errors.increment();
+        }
+
+        if (nanos >= slowQueryThresholdNanos) {
+            logger.warn("Slow statement took {} ms: {}", TimeUnit.NANOSECONDS.toMillis(nanos), statement);
+        }
+    }
+
+    @Override
+    public void fetched(String statement, long rows) {
+        totals(statement).rows.add(rows);
+    }
+
+    @Override
+    public List<StatementStatistic> topStatements(int count) {
+        return statements.entrySet().stream()
+            .map(entry -> entry.getValue().statistic(entry.getKey()))
+            .sorted(Comparator.comparingLong(StatementStatistic::totalNanos).reversed())
+            .limit(Math.max(0, count))
+            .toList();
+    }
+
+    @Override
+    public void reset() {
+        statements.clear();
+    }
+
+    private Totals totals(String statement) {
+        var key = statement != null ? statement : OTHER_STATEMENTS;
+        var totals = statements.get(key);
+        if (totals != null) {
+            return totals;
+        }
+
+        if (statements.size() >= MAX_STATEMENTS) {
+            key = OTHER_STATEMENTS;
+        }
+
+        return statements.computeIfAbsent(key, k -> new Totals());
+    }
+
+    private static class Totals {
+        final LongAdder executions = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        final LongAdder rows = new LongAdder();
+
+        StatementStatistic statistic(String statement) {
+            return StatementStatistic.with()
+                .statement(statement)
+                .executions(executions.sum())
+                .errors(errors.sum())
+                .totalNanos(totalNanos.sum())
+                .maxNanos(maxNanos.get())
+                .rows(rows.sum())
+                .build();
+        }
+    }
+
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.backend;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A Bloom filter that forgets what was added to it after a while.
+ *
+ * Keys are added to the current of two generations of bits, and every
+ * window the older generation is replaced by a new one.  A key is
+ * remembered for at least one window and at most two, and the filter
+ * never needs more than twice the bits of a filter sized for the keys
+ * expected in one window.
+ *
+ * Adding and checking keys are lock free, only the replacement of a
+ * generation is synchronized.
+ */
+class TimeWindowedBloomFilter {
+    static final int MAX_BITS = 1 << 30;
+
+    private final int bitCount;
+    private final int hashCount;
+    private final long windowNanos;
+    private volatile Generation current;
+    private volatile Generation previous;
+
+    TimeWindowedBloomFilter(int expectedKeys, double falsePositiveRate, long windowNanos, long now) {
+        var keys = Math.max(1, expectedKeys);
+        var bits = (long) Math.ceil(-keys * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bitCount = (int) Math.min(Math.max(bits, Long.SIZE), MAX_BITS);
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / keys * Math.log(2)));
+        this.windowNanos = windowNanos;
+        this.current = new Generation(now, bitCount);
+        this.previous = new Generation(now, bitCount);
+    }
+
+    int bitCount() {
+        return bitCount;
+    }
+
+    int hashCount() {
+        return hashCount;
+    }
+
+    void add(String key, long now) {
+        var generation = currentGeneration(now);
+        var hash = hash(key);
+        for (int i = 0; i < hashCount; ++i) {
+            generation.set(index(hash, i));
+        }
+    }
+
+    /**
+     * False if the key hasn't been added in the last window, and true if
+     * it probably has.
+     */
+    boolean mightContain(String key, long now) {
+        // Read the current generation first, so that a concurrent replacement
+        // can only hide the generation that is being forgotten anyway
+        var latest = currentGeneration(now);
+        var older = previous;
+        var hash = hash(key);
+        return contains(latest, hash) || contains(older, hash);
+    }
+
+    private boolean contains(Generation generation, long hash) {
+        for (int i = 0; i < hashCount; ++i) {
+            if (!generation.get(index(hash, i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private Generation currentGeneration(long now) {
+        var generation = current;
+        if (now - generation.started < windowNanos) {
+            return generation;
+        }
+
+        synchronized (this) {
+            generation = current;
+            var age = now - generation.started;
+            if (age >= windowNanos) {
+                previous = age < 2 * windowNanos ? generation : new Generation(now, bitCount);
+                generation = new Generation(now, bitCount);
+                current = generation;
+            }
+
+            return generation;
+        }
+    }
+
+    /**
+     * The i'th bit of a key, from two hashes combined as described by
+     * Kirsch and Mitzenmacher, taken from the halves of a 64 bit hash.
+     */
+    private int index(long hash, int i) {
+        var combined = (int) hash + i * (int) (hash >>> 32);
+        return Math.floorMod(combined, bitCount);
+    }
+
+    /**
+     * FNV-1a of the characters, followed by the finalizer of MurmurHash3 to
+     * spread the bits of the similar IRIs activity ids tend to be.
+     */
+    static long hash(String key) {
+        var hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); ++i) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static class Generation {
+        private final long started;
+        private final AtomicLongArray words;
+
+        Generation(long started, int bitCount) {
+            this.started = started;
+            this.words = new AtomicLongArray((bitCount + Long.SIZE - 1) / Long.SIZE);
+        }
+
+        void set(int bit) {
+            var mask = 1L << bit;
+            var word = bit / Long.SIZE;
+            if ((words.get(word) & mask) == 0) {
+                words.accumulateAndGet(word, mask, (bits, added) -> bits | added);
+            }
+        }
+
+        boolean get(int bit) {
+            return (words.get(bit / Long.SIZE) & (1L << bit)) != 0;
+        }
+    }
+
+}
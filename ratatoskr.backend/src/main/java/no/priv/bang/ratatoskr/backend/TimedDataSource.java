@@ -0,0 +1,266 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.backend;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import javax.sql.DataSource;
+
+import no.priv.bang.ratatoskr.services.Metrics;
+import no.priv.bang.ratatoskr.services.StatementStatistics;
+
+/**
+ * A {@link DataSource} recording the duration of each statement execution
+ * in {@link Metrics#JDBC_STATEMENTS} and in {@link StatementStatistics},
+ * labeled with the normalized SQL of the statement.
+ *
+ * The connections, statements and result sets handed out are dynamic
+ * proxies around the ones of the wrapped data source, timing the
+ * <code>execute</code> methods, counting the rows read and updated, and
+ * passing everything else straight through.
+ */
+class TimedDataSource implements DataSource {
+    static final int MAX_NORMALIZED_CACHE_SIZE = 1000;
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.])\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final DataSource datasource;
+    private final Metrics metrics;
+    private final StatementStatistics statistics;
+    private final Map<String, String> normalized = new ConcurrentHashMap<>();
+
+    TimedDataSource(DataSource datasource, Metrics metrics, StatementStatistics statistics) {
+        this.datasource = datasource;
+        this.metrics = metrics;
+        this.statistics = statistics;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return timedConnection(datasource.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return timedConnection(datasource.getConnection(username, password));
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return datasource.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        datasource.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        datasource.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return datasource.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return datasource.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return iface.isInstance(datasource) ? iface.cast(datasource) : datasource.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(datasource) || datasource.isWrapperFor(iface);
+    }
+
+    private Connection timedConnection(Connection connection) {
+        return proxy(Connection.class, connection, (proxy, method, args) -> {
+            var result = invoke(connection, method, args);
+            if (result instanceof CallableStatement statement) {
+                return timedStatement(CallableStatement.class, statement, normalize((String) args[0]));
+            }
+
+            if (result instanceof PreparedStatement statement) {
+                return timedStatement(PreparedStatement.class, statement, normalize((String) args[0]));
+            }
+
+            if (result instanceof Statement statement) {
+                return timedStatement(Statement.class, statement, null);
+            }
+
+            return result;
+        });
+    }
+
+    private <T extends Statement> T timedStatement(Class<T> type, T statement, String preparedSql) {
+        var lastSql = new AtomicReference<>(preparedSql);
+        return proxy(type, statement, (proxy, method, args) -> {
+            if ("getResultSet".equals(method.getName())) {
+                return countedResultSet((ResultSet) invoke(statement, method, args), lastSql.get());
+            }
+
+            if (!method.getName().startsWith("execute")) {
+                return invoke(statement, method, args);
+            }
+
+            var sql = preparedSql != null ? preparedSql : sqlArgument(args);
+            lastSql.set(sql);
+            var start = System.nanoTime();
+            var failed = true;
+            var rows = 0L;
+            try {
+                var result = invoke(statement, method, args);
+                failed = false;
+                rows = updatedRows(result);
+                return result instanceof ResultSet results ? countedResultSet(results, sql) : result;
+            } finally {
+                executed(sql, System.nanoTime() - start, rows, failed);
+            }
+        });
+    }
+
+    /**
+     * Count the rows read from a result set, and report them when the
+     * result set is exhausted or closed, whichever comes first.
+     */
+    private ResultSet countedResultSet(ResultSet results, String sql) {
+        if (statistics == null || results == null) {
+            return results;
+        }
+
+        var rows = new AtomicLong();
+        var reported = new AtomicBoolean();
+        return proxy(ResultSet.class, results, (proxy, method, args) -> {
+            var result = invoke(results, method, args);
+            if ("next".equals(method.getName()) && Boolean.TRUE.equals(result)) {
+                rows.incrementAndGet();
+            } else if (("next".equals(method.getName()) || "close".equals(method.getName())) && reported.compareAndSet(false, true)) {
+                statistics.fetched(sql, rows.get());
+            }
+
+            return result;
+        });
+    }
+
+    /**
+     * Called after each statement execution.
+     */
+    void executed(String sql, long nanos, long rows, boolean failed) {
+        if (metrics != null) {
+            metrics.record(Metrics.JDBC_STATEMENTS, nanos, failed, "statement", sql);
+        }
+
+        if (statistics != null) {
+            statistics.executed(sql, nanos, rows, failed);
+        }
+    }
+
+    /**
+     * The SQL with literals and <code>in</code> lists collapsed and the whitespace
+     * normalized, so that statements differing only in their values, or in
+     * the number of values in an <code>in</code> list, are counted together.
+     */
+    String normalize(String sql) {
+        var cached = normalized.get(sql);
+        if (cached != null) {
+            return cached;
+        }
+
+        var text = normalizeSql(sql);
+        if (normalized.size() < MAX_NORMALIZED_CACHE_SIZE) {
+            normalized.put(sql, text);
+        }
+
+        return text;
+    }
+
+    static String normalizeSql(String sql) {
+        if (sql == null) {
+            return null;
+        }
+
+        var text = STRING_LITERAL.matcher(sql).replaceAll("?");
+        text = NUMBER_LITERAL.matcher(text).replaceAll("?");
+        text = WHITESPACE.matcher(text).replaceAll(" ").trim();
+        return IN_LIST.matcher(text).replaceAll("in (?, ...)");
+    }
+
+    private String sqlArgument(Object[] args) {
+        return args != null && args.length > 0 && args[0] instanceof String sql ? normalize(sql) : "batch";
+    }
+
+    private static long updatedRows(Object result) {
+        if (result instanceof Integer count) {
+            return Math.max(0, count);
+        }
+
+        if (result instanceof Long count) {
+            return Math.max(0, count);
+        }
+
+        if (result instanceof int[] counts) {
+            return IntStream.of(counts).filter(count -> count > 0).asLongStream().sum();
+        }
+
+        if (result instanceof long[] counts) {
+            return LongStream.of(counts).filter(count -> count > 0).sum();
+        }
+
+        return 0;
+    }
+
+    private static <T> T proxy(Class<T> type, T target, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(TimedDataSource.class.getClassLoader(), new Class<?>[] { type }, handler));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable { // NOSONAR the exceptions of the target are rethrown as they are
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.backend.commands;
+
+import java.io.PrintStream;
+import java.util.Locale;
+
+import org.apache.karaf.shell.api.action.Action;
+import org.apache.karaf.shell.api.action.Command;
+import org.apache.karaf.shell.api.action.Option;
+import org.apache.karaf.shell.api.action.lifecycle.Reference;
+import org.apache.karaf.shell.api.action.lifecycle.Service;
+
+import no.priv.bang.ratatoskr.services.StatementStatistics;
+
+/**
+ * Karaf console command listing the SQL statements with the highest total
+ * execution time, e.g.
+ * <pre>
+ * ratatoskr:statements -n 20
+ * </pre>
+ */
+@Command(scope = "ratatoskr", name = "statements", description = "List the SQL statements with the highest total execution time")
+@Service
+public class StatementsCommand implements Action {
+    static final int DEFAULT_COUNT = 10;
+    static final String FORMAT = "%10s %8s %6s %10s %10s %10s  %s%n";
+
+    @Reference
+    StatementStatistics statistics;
+
+    @Option(name = "-n", aliases = "--count", description = "The number of statements to list")
+    int count = DEFAULT_COUNT;
+
+    @Option(name = "--reset", description = "Forget the recorded statements after listing them")
+    boolean reset;
+
+    PrintStream out = System.out;
+
+    @Override
+    public Object execute() {
+        out.printf(FORMAT, "Total ms", "Count", "Errors", "Mean ms", "Max ms", "Rows", "Statement");
+        for (var statistic : statistics.topStatements(count)) {
+            var mean = statistic.executions() > 0 ? statistic.totalNanos() / statistic.executions() : 0;
+            out.printf(
+                FORMAT,
+                millis(statistic.totalNanos()),
+                statistic.executions(),
+                statistic.errors(),
+                millis(mean),
+                millis(statistic.maxNanos()),
+                statistic.rows(),
+                statistic.statement());
+        }
+
+        if (reset) {
+            statistics.reset();
+        }
+
+        return null;
+    }
+
+    private String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.backend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+import no.priv.bang.ratatoskr.asvocabulary.ActivityStreamObject;
+import no.priv.bang.ratatoskr.asvocabulary.Article;
+import no.priv.bang.ratatoskr.asvocabulary.Group;
+import no.priv.bang.ratatoskr.services.Metrics;
+import no.priv.bang.ratatoskr.services.RatatoskrException;
+import no.priv.bang.ratatoskr.services.RatatoskrService;
+import no.priv.bang.ratatoskr.services.activitypub.ArticleThread;
+import no.priv.bang.ratatoskr.services.activitypub.Like;
+import no.priv.bang.ratatoskr.services.activitypub.Person;
+import no.priv.bang.ratatoskr.services.activitypub.Replies;
+import no.priv.bang.ratatoskr.services.activitypub.TagTimeline;
+import no.priv.bang.ratatoskr.services.beans.Account;
+import no.priv.bang.ratatoskr.services.beans.ActorCounts;
+import no.priv.bang.ratatoskr.services.beans.ArticleCounts;
+import no.priv.bang.ratatoskr.services.beans.CounterBean;
+import no.priv.bang.ratatoskr.services.beans.CounterIncrementStepBean;
+import no.priv.bang.ratatoskr.services.beans.ResourceVersion;
+
+class AsyncRatatoskrServiceProviderTest {
+
+    @Test
+    void testCallsAreDelegatedToRatatoskrService() {
+        var ratatoskr = mock(RatatoskrService.class);
+        var person = Person.with().id("https://sally.example.com").preferredUsername("sally").build();
+        var people = List.of(person);
+        var article = Article.with().id("https://sally.example.com/posts/1").build();
+        var group = Group.with().id("https://example.com/groups/cats").build();
+        var like = Like.with().summary("John liked Sally's note").build();
+        ActivityStreamObject message = Article.with().id("https://sally.example.com/posts/2").build();
+        var version = ResourceVersion.with().count(2).build();
+        var timeline = TagTimeline.with().hashtag("cats").build();
+        var thread = ArticleThread.with().article(article).build();
+        var replies = Replies.with().partOf(article.id()).build();
+        var actorCounts = ActorCounts.with().followers(2).build();
+        var articleCounts = ArticleCounts.with().likes(1).build();
+        var counter = Optional.of(CounterBean.with().counter(3).build());
+        var incrementStep = Optional.of(CounterIncrementStepBean.with().counterIncrementStep(2).build());
+        when(ratatoskr.getAccounts()).thenReturn(List.of(Account.with().accountId(1).build()));
+        when(ratatoskr.addPerson(any())).thenReturn(Optional.of(person));
+        when(ratatoskr.findPerson(anyString())).thenReturn(Optional.of(person));
+        when(ratatoskr.findPersonWithUsername(anyString())).thenReturn(Optional.of(person));
+        when(ratatoskr.findActorVersion(anyString())).thenReturn(Optional.of(version));
+        when(ratatoskr.addGroup(any())).thenReturn(Optional.of(group));
+        when(ratatoskr.addArticle(any())).thenReturn(Optional.of(article));
+        when(ratatoskr.findArticle(anyString())).thenReturn(Optional.of(article));
+        when(ratatoskr.findTagTimeline(anyString(), any(), anyInt())).thenReturn(timeline);
+        when(ratatoskr.findThread(anyString())).thenReturn(Optional.of(thread));
+        when(ratatoskr.findReplies(anyString(), any(), anyInt())).thenReturn(replies);
+        when(ratatoskr.findFollowersWithUsername(anyString())).thenReturn(people);
+        when(ratatoskr.forEachFollowerWithUsername(anyString(), any())).thenReturn(1);
+        when(ratatoskr.addFollowerToUsername(anyString(), anyString())).thenReturn(people);
+        when(ratatoskr.findFollowersVersion(anyString())).thenReturn(version);
+        when(ratatoskr.findFollowingWithUsername(anyString())).thenReturn(people);
+        when(ratatoskr.addFollowedToUsername(anyString(), anyString())).thenReturn(people);
+        when(ratatoskr.findFollowingVersion(anyString())).thenReturn(version);
+        when(ratatoskr.findLikedWithUsername(anyString())).thenReturn(List.of(like));
+        when(ratatoskr.addLikeToUsername(anyString(), any())).thenReturn(List.of(like));
+        when(ratatoskr.findLikedVersion(anyString())).thenReturn(version);
+        when(ratatoskr.findActorCounts(anyString())).thenReturn(Optional.of(actorCounts));
+        when(ratatoskr.findArticleCounts(anyString())).thenReturn(Optional.of(articleCounts));
+        when(ratatoskr.userLikeArticle(anyString(), any(), any(), anyString())).thenReturn(List.of(like));
+        when(ratatoskr.listInbox(any())).thenReturn(List.of(message));
+        when(ratatoskr.postToInbox(any(), any())).thenReturn(List.of(message));
+        when(ratatoskr.listOutbox(any())).thenReturn(List.of(message));
+        when(ratatoskr.postToOutbox(any(), any())).thenReturn(List.of(message));
+        when(ratatoskr.getCounterIncrementStep(anyString())).thenReturn(incrementStep);
+        when(ratatoskr.updateCounterIncrementStep(any())).thenReturn(incrementStep);
+        when(ratatoskr.getCounter(anyString())).thenReturn(counter);
+        when(ratatoskr.incrementCounter(anyString())).thenReturn(counter);
+        when(ratatoskr.decrementCounter(anyString())).thenReturn(counter);
+        when(ratatoskr.lazilyCreateAccount(anyString())).thenReturn(true);
+        var provider = new AsyncRatatoskrServiceProvider();
+        provider.setRatatoskrService(ratatoskr);
+        provider.activate();
+
+        assertThat(provider.getAccounts().toCompletableFuture().join()).hasSize(1);
+        assertThat(provider.addPerson(person).toCompletableFuture().join()).contains(person);
+        assertThat(provider.findPerson(person.id()).toCompletableFuture().join()).contains(person);
+        assertThat(provider.findPersonWithUsername("sally").toCompletableFuture().join()).contains(person);
+        assertThat(provider.findActorVersion("sally").toCompletableFuture().join()).contains(version);
+        assertThat(provider.addGroup(group).toCompletableFuture().join()).contains(group);
+        assertThat(provider.addArticle(article).toCompletableFuture().join()).contains(article);
+        assertThat(provider.findArticle(article.id()).toCompletableFuture().join()).contains(article);
+        assertEquals(timeline, provider.findTagTimeline("cats", null, 20).toCompletableFuture().join());
+        assertThat(provider.findThread(article.id()).toCompletableFuture().join()).contains(thread);
+        assertEquals(replies, provider.findReplies(article.id(), null, 20).toCompletableFuture().join());
+        assertEquals(people, provider.findFollowersWithUsername("johnd").toCompletableFuture().join());
+        assertEquals(1, provider.forEachFollowerWithUsername("johnd", p -> { }).toCompletableFuture().join());
+        assertEquals(people, provider.addFollowerToUsername("johnd", person.id()).toCompletableFuture().join());
+        assertEquals(version, provider.findFollowersVersion("johnd").toCompletableFuture().join());
+        assertEquals(people, provider.findFollowingWithUsername("johnd").toCompletableFuture().join());
+        assertEquals(people, provider.addFollowedToUsername("johnd", person.id()).toCompletableFuture().join());
+        assertEquals(version, provider.findFollowingVersion("johnd").toCompletableFuture().join());
+        assertThat(provider.findLikedWithUsername("johnd").toCompletableFuture().join()).containsExactly(like);
+        assertThat(provider.addLikeToUsername("johnd", like).toCompletableFuture().join()).containsExactly(like);
+        assertEquals(version, provider.findLikedVersion("johnd").toCompletableFuture().join());
+        assertThat(provider.findActorCounts("johnd").toCompletableFuture().join()).contains(actorCounts);
+        assertThat(provider.findArticleCounts(article.id()).toCompletableFuture().join()).contains(articleCounts);
+        assertThat(provider.userLikeArticle("johnd", article, group, "http://localhost:8181/ratatoskr").toCompletableFuture().join()).containsExactly(like);
+        assertThat(provider.listInbox(person).toCompletableFuture().join()).containsExactly(message);
+        assertThat(provider.postToInbox(person, message).toCompletableFuture().join()).containsExactly(message);
+        assertThat(provider.listOutbox(person).toCompletableFuture().join()).containsExactly(message);
+        assertThat(provider.postToOutbox(person, message).toCompletableFuture().join()).containsExactly(message);
+        assertEquals(incrementStep, provider.getCounterIncrementStep("johnd").toCompletableFuture().join());
+        assertEquals(incrementStep, provider.updateCounterIncrementStep(incrementStep.get()).toCompletableFuture().join());
+        assertEquals(counter, provider.getCounter("johnd").toCompletableFuture().join());
+        assertEquals(counter, provider.incrementCounter("johnd").toCompletableFuture().join());
+        assertEquals(counter, provider.decrementCounter("johnd").toCompletableFuture().join());
+        assertTrue(provider.lazilyCreateAccount("johnd").toCompletableFuture().join());
+        provider.deactivate();
+    }
+
+    @Test
+    void testCallsRunOnVirtualThreads() {
+        var ratatoskr = mock(RatatoskrService.class);
+        var calledOnVirtualThread = new AtomicBoolean();
+        when(ratatoskr.getAccounts()).thenAnswer(i -> {
+            calledOnVirtualThread.set(Thread.currentThread().isVirtual());
+            return List.of();
+        });
+        var provider = new AsyncRatatoskrServiceProvider();
+        provider.setRatatoskrService(ratatoskr);
+        provider.activate();
+
+        provider.getAccounts().toCompletableFuture().join();
+        assertTrue(calledOnVirtualThread.get());
+        provider.deactivate();
+    }
+
+    @Test
+    void testFailuresCompleteTheStageExceptionally() {
+        var ratatoskr = mock(RatatoskrService.class);
+        when(ratatoskr.getCounter(anyString())).thenThrow(new RatatoskrException("Database is down"));
+        var provider = new AsyncRatatoskrServiceProvider();
+        provider.setRatatoskrService(ratatoskr);
+        provider.activate();
+
+        var result = provider.getCounter("johnd").toCompletableFuture();
+        var e = assertThrows(CompletionException.class, result::join);
+        assertThat(e.getCause()).isInstanceOf(RatatoskrException.class).hasMessage("Database is down");
+        provider.deactivate();
+    }
+
+    @Test
+    void testCallsAreRecordedInMetrics() {
+        var ratatoskr = mock(RatatoskrService.class);
+        when(ratatoskr.getAccounts()).thenReturn(List.of());
+        when(ratatoskr.getCounter(anyString())).thenThrow(new RatatoskrException("Database is down"));
+        var metrics = mock(Metrics.class);
+        var provider = new AsyncRatatoskrServiceProvider();
+        provider.setRatatoskrService(ratatoskr);
+        provider.setMetrics(metrics);
+        provider.activate();
+
+        provider.getAccounts().toCompletableFuture().join();
+        var failedCall = provider.getCounter("johnd").toCompletableFuture();
+        assertThrows(CompletionException.class, failedCall::join);
+        verify(metrics).record(eq(Metrics.SERVICE_CALLS), anyLong(), eq(false), eq("method"), eq("getAccounts"));
+        verify(metrics).record(eq(Metrics.SERVICE_CALLS), anyLong(), eq(true), eq("method"), eq("getCounter"));
+
+        provider.unsetMetrics(metrics);
+        provider.getAccounts().toCompletableFuture().join();
+        verifyNoMoreInteractions(metrics);
+        provider.deactivate();
+    }
+
+    @Test
+    void testCallsAreRejectedAfterDeactivate() {
+        var provider = new AsyncRatatoskrServiceProvider();
+        provider.setRatatoskrService(mock(RatatoskrService.class));
+        provider.activate();
+        provider.deactivate();
+
+        assertThrows(RejectedExecutionException.class, () -> provider.getAccounts());
+    }
+
+}
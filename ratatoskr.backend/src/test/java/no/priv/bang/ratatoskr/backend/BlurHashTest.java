@@ -0,0 +1,93 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.backend;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+
+import org.junit.jupiter.api.Test;
+
+class BlurHashTest {
+
+    @Test
+    void testEncodeSolidImage() {
+        var hash = BlurHash.encode(solidImage(32, 24, Color.WHITE), 4, 3);
+
+        assertEquals(28, hash.length());
+        assertEquals('L', hash.charAt(0)); // 4x3 components
+        assertEquals("TSUA", hash.substring(2, 6)); // White average colour
+    }
+
+    @Test
+    void testEncodeTwoColouredImage() {
+        var image = solidImage(32, 24, Color.RED);
+        var graphics = image.createGraphics();
+        graphics.setColor(Color.BLUE);
+        graphics.fillRect(16, 0, 16, 24);
+        graphics.dispose();
+
+        var hash = BlurHash.encode(image, 4, 3);
+
+        assertEquals("L~LjfL|TsRJrsXn~jsa}fQfQfQfQ", hash);
+    }
+
+    @Test
+    void testEncodePortraitComponents() {
+        var hash = BlurHash.encode(solidImage(24, 32, Color.BLACK), 3, 4);
+
+        assertEquals(28, hash.length());
+        assertEquals('T', hash.charAt(0)); // 3x4 components
+        assertEquals("0000", hash.substring(2, 6)); // Black average colour
+    }
+
+    @Test
+    void testEncodeSingleComponent() {
+        var hash = BlurHash.encode(solidImage(8, 8, Color.WHITE), 1, 1);
+
+        assertEquals("00TSUA", hash);
+    }
+
+    @Test
+    void testEncode83() {
+        var hash = new StringBuilder();
+        BlurHash.encode83(hash, 82, 1);
+        BlurHash.encode83(hash, 83, 2);
+        BlurHash.encode83(hash, 0xffffff, 4);
+
+        assertEquals("~10TSUA", hash.toString());
+    }
+
+    @Test
+    void testLinearToSrgb() {
+        assertEquals(0, BlurHash.linearToSrgb(-1.0));
+        assertEquals(0, BlurHash.linearToSrgb(0.0));
+        assertEquals(255, BlurHash.linearToSrgb(1.0));
+        assertEquals(255, BlurHash.linearToSrgb(2.0));
+        assertEquals(188, BlurHash.linearToSrgb(0.5));
+    }
+
+    private BufferedImage solidImage(int width, int height, Color colour) {
+        var image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        var graphics = image.createGraphics();
+        graphics.setColor(colour);
+        graphics.fillRect(0, 0, width, height);
+        graphics.dispose();
+        return image;
+    }
+
+}
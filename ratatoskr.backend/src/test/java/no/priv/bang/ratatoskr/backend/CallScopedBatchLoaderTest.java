@@ -0,0 +1,157 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.backend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.Mockito.*;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.ops4j.pax.jdbc.derby.impl.DerbyDataSourceFactory;
+import org.osgi.service.jdbc.DataSourceFactory;
+
+import no.priv.bang.osgiservice.users.UserManagementService;
+import no.priv.bang.ratatoskr.asvocabulary.Article;
+import no.priv.bang.ratatoskr.asvocabulary.Link;
+import no.priv.bang.ratatoskr.db.liquibase.test.RatatoskrTestDbLiquibaseRunner;
+import no.priv.bang.ratatoskr.services.activitypub.Like;
+import no.priv.bang.ratatoskr.services.activitypub.Person;
+import no.priv.bang.ratatoskr.services.activitypub.Status;
+
+class CallScopedBatchLoaderTest {
+    private static final int ACTOR_COUNT = CallScopedBatchLoader.MAX_BATCH_SIZE + 5;
+
+    private static DataSource datasource;
+
+    @BeforeAll
+    static void commonSetupForAllTests() throws Exception {
+        var derbyDataSourceFactory = new DerbyDataSourceFactory();
+        var properties = new Properties();
+        properties.setProperty(DataSourceFactory.JDBC_URL, "jdbc:derby:memory:ratatoskrbatchloader;create=true");
+        datasource = derbyDataSourceFactory.createDataSource(properties);
+        var runner = new RatatoskrTestDbLiquibaseRunner();
+        runner.activate();
+        runner.prepare(datasource);
+        var ratatoskr = new RatatoskrServiceProvider();
+        ratatoskr.setDatasource(datasource);
+        ratatoskr.setUseradmin(mock(UserManagementService.class));
+        ratatoskr.activate(Collections.singletonMap("defaultlocale", "nb_NO"));
+        for (int i = 0; i < ACTOR_COUNT; ++i) {
+            ratatoskr.addPerson(Person.with().id(actorId(i)).preferredUsername("actor" + i).name("Actor " + i).build());
+        }
+        ratatoskr.addArticle(Article.with().id(articleId(0)).name("First article").attributedTo(Link.with().href(actorId(0)).build()).build());
+    }
+
+    @Test
+    void testHydrateLikes() throws Exception {
+        try (var connection = countingConnection()) {
+            var loader = new CallScopedBatchLoader(connection);
+            var likes = List.of(
+                stubLike(actorId(0), articleId(0)),
+                stubLike(actorId(1), articleId(0)),
+                stubLike(actorId(0), articleId(0)));
+
+            var hydrated = loader.hydrateLikes(likes);
+
+            assertThat(hydrated).extracting(l -> l.authoredBy().name()).containsExactly("Actor 0", "Actor 1", "Actor 0");
+            assertThat(hydrated).extracting(l -> l.inReplyTo().name()).containsOnly("First article");
+            assertThat(hydrated).extracting(Like::summary).containsOnly("Liked");
+            verify(connection, times(2)).prepareStatement(anyString());
+        }
+    }
+
+    @Test
+    void testLoadedObjectsAreMemoized() throws Exception {
+        try (var connection = countingConnection()) {
+            var loader = new CallScopedBatchLoader(connection);
+            loader.hydrateLikes(List.of(stubLike(actorId(0), articleId(0))));
+            var hydrated = loader.hydrateLikes(List.of(stubLike(actorId(0), articleId(0))));
+
+            assertThat(hydrated.getFirst().authoredBy().name()).isEqualTo("Actor 0");
+            verify(connection, times(2)).prepareStatement(anyString());
+        }
+    }
+
+    @Test
+    void testObjectsNotFoundAreLeftAsStubsAndNotLoadedAgain() throws Exception {
+        try (var connection = countingConnection()) {
+            var loader = new CallScopedBatchLoader(connection);
+            var like = stubLike("https://nosuchactor.example.com", "https://nosuchactor.example.com/posts/1");
+            loader.hydrateLikes(List.of(like));
+            var hydrated = loader.hydrateLikes(List.of(like));
+
+            assertThat(hydrated.getFirst().authoredBy()).isEqualTo(like.authoredBy());
+            assertThat(hydrated.getFirst().inReplyTo()).isEqualTo(like.inReplyTo());
+            verify(connection, times(2)).prepareStatement(anyString());
+        }
+    }
+
+    @Test
+    void testLargePagesAreLoadedInBatches() throws Exception {
+        try (var connection = countingConnection()) {
+            var loader = new CallScopedBatchLoader(connection);
+            var likes = new ArrayList<Like>();
+            for (int i = 0; i < ACTOR_COUNT; ++i) {
+                likes.add(Like.with().authoredBy(Person.with().id(actorId(i)).build()).build());
+            }
+
+            var hydrated = loader.hydrateLikes(likes);
+
+            assertThat(hydrated).extracting(l -> l.authoredBy().name()).doesNotContainNull();
+            verify(connection, times(2)).prepareStatement(anyString());
+        }
+    }
+
+    @Test
+    void testEmptyPageDoesNoQueries() throws Exception {
+        try (var connection = countingConnection()) {
+            var hydrated = new CallScopedBatchLoader(connection).hydrateLikes(List.of(Like.with().build()));
+
+            assertThat(hydrated).hasSize(1);
+            verify(connection, never()).prepareStatement(anyString());
+        }
+    }
+
+    private Connection countingConnection() throws Exception {
+        return mock(Connection.class, delegatesTo(datasource.getConnection()));
+    }
+
+    private Like stubLike(String actor, String article) {
+        return Like.with()
+            .summary("Liked")
+            .authoredBy(Person.with().id(actor).build())
+            .inReplyTo(Status.with().id(article).build())
+            .build();
+    }
+
+    private static String actorId(int i) {
+        return "https://actor" + i + ".example.com";
+    }
+
+    private static String articleId(int i) {
+        return "https://actor0.example.com/posts/" + i;
+    }
+
+}
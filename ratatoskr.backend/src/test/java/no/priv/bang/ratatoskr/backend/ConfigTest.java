@@ -0,0 +1,72 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.backend;
+
+import static no.priv.bang.ratatoskr.backend.Config.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class ConfigTest {
+
+    @Test
+    void testLongConfig() {
+        Map<String, Object> config = Map.of("number", 42, "string", " 43 ", "unparseable", "many", "negative", "-1");
+
+        assertEquals(42, longConfig(config, "number", 7));
+        assertEquals(43, longConfig(config, "string", 7));
+        assertEquals(7, longConfig(config, "unparseable", 7));
+        assertEquals(7, longConfig(config, "missing", 7));
+        assertEquals(7, longConfig(null, "number", 7));
+        assertEquals(-1, longConfig(config, "negative", 7));
+    }
+
+    @Test
+    void testLongConfigBelowMinimumGivesTheDefault() {
+        Map<String, Object> config = Map.of("zero", 0L, "negative", "-1", "one", "1");
+
+        assertEquals(7, longConfig(config, "zero", 7, 1));
+        assertEquals(0, longConfig(config, "zero", 7, 0));
+        assertEquals(7, longConfig(config, "negative", 7, 0));
+        assertEquals(1, longConfig(config, "one", 7, 1));
+    }
+
+    @Test
+    void testBooleanConfig() {
+        Map<String, Object> config = Map.of("boolean", true, "string", " true ", "other", "yes", "number", 1);
+
+        assertTrue(booleanConfig(config, "boolean", false));
+        assertTrue(booleanConfig(config, "string", false));
+        assertFalse(booleanConfig(config, "other", true));
+        assertTrue(booleanConfig(config, "number", true));
+        assertTrue(booleanConfig(config, "missing", true));
+        assertFalse(booleanConfig(null, "boolean", false));
+    }
+
+    @Test
+    void testStringConfig() {
+        Map<String, Object> config = Map.of("string", " value ", "blank", "  ", "number", 1);
+
+        assertEquals("value", stringConfig(config, "string", "default"));
+        assertEquals("default", stringConfig(config, "blank", "default"));
+        assertEquals("default", stringConfig(config, "number", "default"));
+        assertEquals("default", stringConfig(config, "missing", "default"));
+        assertEquals("default", stringConfig(null, "string", "default"));
+    }
+
+}
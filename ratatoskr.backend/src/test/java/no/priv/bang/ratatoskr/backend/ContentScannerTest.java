@@ -0,0 +1,121 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.backend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import no.priv.bang.ratatoskr.backend.ContentScanner.Kind;
+import no.priv.bang.ratatoskr.backend.ContentScanner.Token;
+
+class ContentScannerTest {
+
+    @Test
+    void testScanMentionsAndHashtags() {
+        var content = "Hi @jod@mastodon.example.com and @sally, #ratatoskr is #Great!";
+
+        var tokens = ContentScanner.scan(content);
+
+        assertThat(tokens).containsExactly(
+            new Token(Kind.MENTION, 3, 28, "jod", "mastodon.example.com"),
+            new Token(Kind.MENTION, 33, 39, "sally", null),
+            new Token(Kind.HASHTAG, 41, 51, "ratatoskr", null),
+            new Token(Kind.HASHTAG, 55, 61, "Great", null));
+        assertEquals("@jod@mastodon.example.com", content.substring(3, 28));
+        assertEquals("#Great", content.substring(55, 61));
+    }
+
+    @Test
+    void testTrailingPunctuationIsntPartOfMention() {
+        assertThat(ContentScanner.scan("Thanks @jod@example.com.")).containsExactly(new Token(Kind.MENTION, 7, 23, "jod", "example.com"));
+        assertThat(ContentScanner.scan("Thanks @jod.")).containsExactly(new Token(Kind.MENTION, 7, 11, "jod", null));
+        assertThat(ContentScanner.scan("@jod@example.com: hi")).containsExactly(new Token(Kind.MENTION, 0, 16, "jod", "example.com"));
+        assertThat(ContentScanner.scan("@jod@ hi")).containsExactly(new Token(Kind.MENTION, 0, 4, "jod", null));
+    }
+
+    @Test
+    void testMentionWithPort() {
+        assertThat(ContentScanner.scan("@jod@localhost:8181 hi")).containsExactly(new Token(Kind.MENTION, 0, 19, "jod", "localhost:8181"));
+    }
+
+    @Test
+    void testHashtagsWithLettersOutsideOfAscii() {
+        var content = "#blåbærsyltetøy og #日本語";
+
+        assertThat(ContentScanner.scan(content)).extracting(Token::name).containsExactly("blåbærsyltetøy", "日本語");
+    }
+
+    @Test
+    void testNotMentionsOrHashtags() {
+        assertThat(ContentScanner.scan("mail jod@example.com")).isEmpty();
+        assertThat(ContentScanner.scan("see https://example.com/@jod and https://example.com/page#section")).isEmpty();
+        assertThat(ContentScanner.scan("issue #1234 and C# and &#35;tag")).isEmpty();
+        assertThat(ContentScanner.scan("@ alone, # alone, @@ and ##")).isEmpty();
+        assertThat(ContentScanner.scan(null)).isEmpty();
+    }
+
+    @Test
+    void testMarkupAndLinksAreSkipped() {
+        var content = "<p class=\"#notatag\">Hi <span class=\"h-card\"><a href=\"https://example.com/@jod\">@<span>jod</span></a></span> <a href=\"https://example.com/tags/linked\">#linked</a> #new<br/>@sally</p>";
+
+        var tokens = ContentScanner.scan(content);
+
+        assertThat(tokens).extracting(Token::name).containsExactly("new", "sally");
+        var hashtag = tokens.get(0);
+        assertEquals("#new", content.substring(hashtag.start(), hashtag.end()));
+    }
+
+    @Test
+    void testAbbrAndArticleElementsArentLinks() {
+        assertThat(ContentScanner.scan("<abbr>#one</abbr><article>@jod</article>")).extracting(Token::name).containsExactly("one", "jod");
+    }
+
+    @Test
+    void testUnterminatedMarkupIsText() {
+        assertThat(ContentScanner.scan("#one <a href=\"#two")).extracting(Token::name).containsExactly("one", "two");
+        assertThat(ContentScanner.scan("if a<b then #three")).extracting(Token::name).containsExactly("three");
+    }
+
+    @Test
+    void testLessThanNotStartingATagIsText() {
+        var content = "I <3 #java @bob@example.com <- and 1 < 2 > 0 #four";
+
+        var tokens = ContentScanner.scan(content);
+
+        assertThat(tokens).containsExactly(
+            new Token(Kind.HASHTAG, 5, 10, "java", null),
+            new Token(Kind.MENTION, 11, 27, "bob", "example.com"),
+            new Token(Kind.HASHTAG, 45, 50, "four", null));
+    }
+
+    @Test
+    void testManyMentions() {
+        var content = new StringBuilder();
+        for (int i = 0; i < 100; ++i) {
+            content.append("@user").append(i).append("@example.com ");
+        }
+
+        var tokens = ContentScanner.scan(content.toString());
+
+        assertEquals(100, tokens.size());
+        assertEquals(List.of("user0", "user99"), List.of(tokens.get(0).name(), tokens.get(99).name()));
+    }
+
+}
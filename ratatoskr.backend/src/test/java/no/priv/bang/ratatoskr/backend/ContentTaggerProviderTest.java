@@ -0,0 +1,136 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.backend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+
+import no.priv.bang.osgi.service.mocks.logservice.MockLogService;
+import no.priv.bang.ratatoskr.services.AsyncRatatoskrService;
+import no.priv.bang.ratatoskr.services.RemoteObjectFetcher;
+import no.priv.bang.ratatoskr.services.activitypub.Hashtag;
+import no.priv.bang.ratatoskr.services.activitypub.Mention;
+import no.priv.bang.ratatoskr.services.activitypub.Person;
+import no.priv.bang.ratatoskr.services.beans.TagSpan;
+
+class ContentTaggerProviderTest {
+    private static final String LOCAL_WEB_CONTEXT = "http://localhost:8181/ratatoskr";
+
+    @Test
+    void testTagMentionsAndHashtags() {
+        var ratatoskr = mock(AsyncRatatoskrService.class);
+        when(ratatoskr.findPersonWithUsername("sally")).thenReturn(CompletableFuture.completedFuture(Optional.of(Person.with().id(LOCAL_WEB_CONTEXT + "/as/actor/sally").build())));
+        var fetcher = mock(RemoteObjectFetcher.class);
+        when(fetcher.findActorId("jod@example.com")).thenReturn(CompletableFuture.completedFuture(Optional.of("https://example.com/users/jod")));
+        var tagger = createTagger(ratatoskr, fetcher, new MockLogService());
+        var content = "@jod@example.com and @sally: #Ratatoskr";
+
+        var tagged = tagger.tag(content, LOCAL_WEB_CONTEXT).toCompletableFuture().join();
+
+        var jod = Mention.with().name("@jod@example.com").href("https://example.com/users/jod").build();
+        var sally = Mention.with().name("@sally").href(LOCAL_WEB_CONTEXT + "/as/actor/sally").build();
+        var hashtag = Hashtag.with().name("#Ratatoskr").href(LOCAL_WEB_CONTEXT + "/as/tags/ratatoskr").build();
+        assertThat(tagged.spans()).containsExactly(
+            TagSpan.with().start(0).end(16).tag(jod).build(),
+            TagSpan.with().start(21).end(27).tag(sally).build(),
+            TagSpan.with().start(29).end(39).tag(hashtag).build());
+        assertThat(tagged.mentioned()).containsExactly("https://example.com/users/jod", LOCAL_WEB_CONTEXT + "/as/actor/sally");
+        assertThat(tagged.tags()).containsExactly(jod, sally, hashtag);
+    }
+
+    @Test
+    void testAllAccountsAreLookedUpAtOnce() {
+        var ratatoskr = mock(AsyncRatatoskrService.class);
+        var fetcher = mock(RemoteObjectFetcher.class);
+        var jod = new CompletableFuture<Optional<String>>();
+        var sally = new CompletableFuture<Optional<String>>();
+        when(fetcher.findActorId("jod@example.com")).thenReturn(jod);
+        when(fetcher.findActorId("sally@example.org")).thenReturn(sally);
+        var tagger = createTagger(ratatoskr, fetcher, new MockLogService());
+
+        var tagged = tagger.tag("@jod@example.com @sally@example.org @JOD@Example.com", LOCAL_WEB_CONTEXT).toCompletableFuture();
+
+        // Both lookups have started before either has completed
+        verify(fetcher).findActorId("jod@example.com");
+        verify(fetcher).findActorId("sally@example.org");
+        assertFalse(tagged.isDone());
+        sally.complete(Optional.of("https://example.org/users/sally"));
+        jod.complete(Optional.of("https://example.com/users/jod"));
+        assertThat(tagged.join().spans()).hasSize(3);
+        assertThat(tagged.join().mentioned()).containsExactly("https://example.com/users/jod", "https://example.org/users/sally");
+    }
+
+    @Test
+    void testMentionsOfLocalHostAreLocal() {
+        var ratatoskr = mock(AsyncRatatoskrService.class);
+        when(ratatoskr.findPersonWithUsername("sally")).thenReturn(CompletableFuture.completedFuture(Optional.of(Person.with().id(LOCAL_WEB_CONTEXT + "/as/actor/sally").build())));
+        var fetcher = mock(RemoteObjectFetcher.class);
+        var tagger = createTagger(ratatoskr, fetcher, new MockLogService());
+
+        var tagged = tagger.tag("@sally@localhost:8181 @sally@localhost", LOCAL_WEB_CONTEXT + "/").toCompletableFuture().join();
+
+        assertThat(tagged.spans()).hasSize(2);
+        assertThat(tagged.mentioned()).containsExactly(LOCAL_WEB_CONTEXT + "/as/actor/sally");
+        verify(ratatoskr, times(1)).findPersonWithUsername("sally");
+        verifyNoInteractions(fetcher);
+    }
+
+    @Test
+    void testUnknownAndFailedAccountsArentTagged() {
+        var ratatoskr = mock(AsyncRatatoskrService.class);
+        when(ratatoskr.findPersonWithUsername(anyString())).thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+        var fetcher = mock(RemoteObjectFetcher.class);
+        when(fetcher.findActorId("jod@example.com")).thenReturn(CompletableFuture.failedFuture(new IllegalStateException("Network down")));
+        var logservice = new MockLogService();
+        var tagger = createTagger(ratatoskr, fetcher, logservice);
+
+        var tagged = tagger.tag("@nobody and @jod@example.com #tagged", LOCAL_WEB_CONTEXT).toCompletableFuture().join();
+
+        assertThat(tagged.spans()).extracting(TagSpan::tag).containsExactly(Hashtag.with().name("#tagged").href(LOCAL_WEB_CONTEXT + "/as/tags/tagged").build());
+        assertThat(tagged.mentioned()).isEmpty();
+        assertThat(logservice.getLogmessages()).hasSize(1);
+    }
+
+    @Test
+    void testTagContentWithoutTags() {
+        var tagger = createTagger(mock(AsyncRatatoskrService.class), mock(RemoteObjectFetcher.class), new MockLogService());
+
+        assertThat(tagger.tag("Nothing to see here", LOCAL_WEB_CONTEXT).toCompletableFuture().join().spans()).isEmpty();
+        assertThat(tagger.tag(null, null).toCompletableFuture().join().spans()).isEmpty();
+    }
+
+    @Test
+    void testLocalHost() {
+        assertEquals("localhost:8181", ContentTaggerProvider.localHost(LOCAL_WEB_CONTEXT));
+        assertNull(ContentTaggerProvider.localHost(null));
+        assertNull(ContentTaggerProvider.localHost("not a uri"));
+    }
+
+    private ContentTaggerProvider createTagger(AsyncRatatoskrService ratatoskr, RemoteObjectFetcher fetcher, MockLogService logservice) {
+        var tagger = new ContentTaggerProvider();
+        tagger.setLogservice(logservice);
+        tagger.setAsyncRatatoskrService(ratatoskr);
+        tagger.setRemoteObjectFetcher(fetcher);
+        return tagger;
+    }
+
+}
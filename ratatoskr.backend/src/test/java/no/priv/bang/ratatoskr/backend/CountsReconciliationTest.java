@@ -0,0 +1,76 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.backend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import no.priv.bang.osgi.service.mocks.logservice.MockLogService;
+import no.priv.bang.ratatoskr.services.RatatoskrException;
+import no.priv.bang.ratatoskr.services.RatatoskrService;
+
+class CountsReconciliationTest {
+
+    @Test
+    void testReconcile() {
+        var logservice = new MockLogService();
+        var ratatoskr = mock(RatatoskrService.class);
+        when(ratatoskr.reconcileCounts()).thenReturn(0);
+        var reconciliation = new CountsReconciliation();
+        reconciliation.setLogservice(logservice);
+        reconciliation.setRatatoskrService(ratatoskr);
+        reconciliation.activate(Collections.emptyMap());
+
+        reconciliation.reconcile();
+        verify(ratatoskr).reconcileCounts();
+        assertThat(logservice.getLogmessages()).isEmpty();
+        reconciliation.deactivate();
+    }
+
+    @Test
+    void testReconcileIsScheduled() {
+        var ratatoskr = mock(RatatoskrService.class);
+        var reconciliation = new CountsReconciliation();
+        reconciliation.setLogservice(new MockLogService());
+        reconciliation.setRatatoskrService(ratatoskr);
+        reconciliation.activate(Map.of("intervalMinutes", "1"));
+
+        // The first reconciliation is one interval after activation
+        verify(ratatoskr, after(100).never()).reconcileCounts();
+        reconciliation.deactivate();
+    }
+
+    @Test
+    void testReconcileFailureIsLogged() {
+        var logservice = new MockLogService();
+        var ratatoskr = mock(RatatoskrService.class);
+        when(ratatoskr.reconcileCounts()).thenThrow(new RatatoskrException("Database is down"));
+        var reconciliation = new CountsReconciliation();
+        reconciliation.setLogservice(logservice);
+        reconciliation.setRatatoskrService(ratatoskr);
+        reconciliation.activate(Map.of("intervalMinutes", "not a number"));
+
+        reconciliation.reconcile();
+        assertThat(logservice.getLogmessages()).hasSize(1);
+        reconciliation.deactivate();
+    }
+
+}
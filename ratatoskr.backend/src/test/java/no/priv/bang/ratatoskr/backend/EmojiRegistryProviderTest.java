@@ -0,0 +1,173 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.backend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import no.priv.bang.osgi.service.mocks.logservice.MockLogService;
+import no.priv.bang.ratatoskr.services.EmojiRegistry;
+import no.priv.bang.ratatoskr.services.RatatoskrException;
+import no.priv.bang.ratatoskr.services.RatatoskrService;
+import no.priv.bang.ratatoskr.services.activitypub.Emoji;
+import no.priv.bang.ratatoskr.services.beans.CustomEmoji;
+
+class EmojiRegistryProviderTest {
+    private static final String REMOTE_DOMAIN = "emojis.example.com";
+    private static final CustomEmoji BLOBCAT = CustomEmoji.with()
+        .domain(EmojiRegistry.LOCAL_DOMAIN)
+        .shortcode("blobcat")
+        .url("http://localhost:8181/ratatoskr/media/1234")
+        .mediaType("image/png")
+        .build();
+    private static final CustomEmoji CATJAM = CustomEmoji.with()
+        .domain(EmojiRegistry.LOCAL_DOMAIN)
+        .shortcode("catjam")
+        .url("http://localhost:8181/ratatoskr/media/5678")
+        .mediaType("image/gif")
+        .build();
+    private static final CustomEmoji REMOTE_BLOBCAT = CustomEmoji.with(BLOBCAT)
+        .domain(REMOTE_DOMAIN)
+        .url("https://emojis.example.com/blobcat.png")
+        .build();
+
+    @Test
+    void testEmojisAreReadOnActivate() {
+        var registry = createRegistry(List.of(BLOBCAT, CATJAM, REMOTE_BLOBCAT));
+
+        assertThat(registry.listEmojis(EmojiRegistry.LOCAL_DOMAIN)).containsExactly(BLOBCAT, CATJAM);
+        assertThat(registry.listEmojis(REMOTE_DOMAIN)).containsExactly(REMOTE_BLOBCAT);
+        assertThat(registry.listEmojis("unknown.example.com")).isEmpty();
+        assertThat(registry.listEmojis(null)).isEmpty();
+        assertThat(registry.find(REMOTE_DOMAIN, "blobcat")).hasValue(REMOTE_BLOBCAT);
+        assertThat(registry.find(REMOTE_DOMAIN, "catjam")).isEmpty();
+        assertThat(registry.find(null, "catjam")).isEmpty();
+    }
+
+    @Test
+    void testEmojisIn() {
+        var registry = createRegistry(List.of(BLOBCAT, CATJAM, REMOTE_BLOBCAT));
+
+        var tags = registry.emojisIn(EmojiRegistry.LOCAL_DOMAIN, "<p>:catjam: all night</p>", null, "Summary :blobcat: :catjam:");
+
+        assertThat(tags).containsExactly(CATJAM.tag(), BLOBCAT.tag());
+        assertThat(tags).extracting(Emoji::name).containsExactly(":catjam:", ":blobcat:");
+        assertThat(registry.emojisIn(REMOTE_DOMAIN, ":catjam: :blobcat:")).containsExactly(REMOTE_BLOBCAT.tag());
+        assertThat(registry.emojisIn("unknown.example.com", ":blobcat:")).isEmpty();
+    }
+
+    @Test
+    void testRegisterAndRemove() {
+        var ratatoskr = mock(RatatoskrService.class);
+        when(ratatoskr.saveCustomEmoji(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(ratatoskr.deleteCustomEmoji(EmojiRegistry.LOCAL_DOMAIN, "blobcat")).thenReturn(true);
+        var registry = createRegistry(ratatoskr);
+        assertThat(registry.emojisIn(EmojiRegistry.LOCAL_DOMAIN, ":blobcat:")).isEmpty();
+
+        assertEquals(BLOBCAT, registry.register(BLOBCAT));
+        assertThat(registry.emojisIn(EmojiRegistry.LOCAL_DOMAIN, ":blobcat:")).containsExactly(BLOBCAT.tag());
+
+        var replaced = CustomEmoji.with(BLOBCAT).url("http://localhost:8181/ratatoskr/media/4321").build();
+        registry.register(replaced);
+        assertThat(registry.emojisIn(EmojiRegistry.LOCAL_DOMAIN, ":blobcat:")).containsExactly(replaced.tag());
+
+        assertTrue(registry.remove(EmojiRegistry.LOCAL_DOMAIN, "blobcat"));
+        assertThat(registry.emojisIn(EmojiRegistry.LOCAL_DOMAIN, ":blobcat:")).isEmpty();
+        assertFalse(registry.remove(EmojiRegistry.LOCAL_DOMAIN, "catjam"));
+        verify(ratatoskr, times(2)).saveCustomEmoji(any());
+    }
+
+    @Test
+    void testRegisterWithoutDomainRegistersLocalEmoji() {
+        var ratatoskr = mock(RatatoskrService.class);
+        when(ratatoskr.saveCustomEmoji(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        var registry = createRegistry(ratatoskr);
+
+        registry.register(CustomEmoji.with(CATJAM).domain(null).build());
+
+        assertThat(registry.find(EmojiRegistry.LOCAL_DOMAIN, "catjam")).hasValue(CATJAM);
+    }
+
+    @Test
+    void testRegisterWithInvalidShortcode() {
+        var ratatoskr = mock(RatatoskrService.class);
+        var registry = createRegistry(ratatoskr);
+        var withColon = CustomEmoji.with(BLOBCAT).shortcode("blob:cat").build();
+        var tooShort = CustomEmoji.with(BLOBCAT).shortcode("b").build();
+        var withoutShortcode = CustomEmoji.with(BLOBCAT).shortcode(null).build();
+
+        assertThrows(RatatoskrException.class, () -> registry.register(withColon));
+        assertThrows(RatatoskrException.class, () -> registry.register(tooShort));
+        assertThrows(RatatoskrException.class, () -> registry.register(withoutShortcode));
+        verify(ratatoskr, never()).saveCustomEmoji(any());
+    }
+
+    @Test
+    void testActivateWhenEmojisCantBeRead() {
+        var ratatoskr = mock(RatatoskrService.class);
+        when(ratatoskr.listCustomEmojis()).thenThrow(RatatoskrException.class);
+        var logservice = new MockLogService();
+        var registry = new EmojiRegistryProvider();
+        registry.setLogservice(logservice);
+        registry.setRatatoskrService(ratatoskr);
+
+        registry.activate();
+
+        assertThat(registry.listEmojis(EmojiRegistry.LOCAL_DOMAIN)).isEmpty();
+        assertThat(logservice.getLogmessages()).hasSize(1);
+    }
+
+    @Test
+    void testMatcherIsOnlyRebuiltWhenShortcodesChange() {
+        var emojis = new EmojiRegistryProvider.DomainEmojis();
+        emojis.put(BLOBCAT);
+        var matcher = emojis.matcher();
+
+        emojis.put(CustomEmoji.with(BLOBCAT).url("http://localhost:8181/ratatoskr/media/4321").build());
+        assertSame(matcher, emojis.matcher());
+
+        emojis.remove("catjam");
+        assertSame(matcher, emojis.matcher());
+
+        emojis.put(CATJAM);
+        var rebuilt = emojis.matcher();
+        assertNotSame(matcher, rebuilt);
+        assertEquals(2, rebuilt.size());
+
+        emojis.remove("blobcat");
+        assertEquals(1, emojis.matcher().size());
+    }
+
+    private EmojiRegistryProvider createRegistry(List<CustomEmoji> emojis) {
+        var ratatoskr = mock(RatatoskrService.class);
+        when(ratatoskr.listCustomEmojis()).thenReturn(emojis);
+        return createRegistry(ratatoskr);
+    }
+
+    private EmojiRegistryProvider createRegistry(RatatoskrService ratatoskr) {
+        var registry = new EmojiRegistryProvider();
+        registry.setLogservice(new MockLogService());
+        registry.setRatatoskrService(ratatoskr);
+        registry.activate();
+        return registry;
+    }
+
+}
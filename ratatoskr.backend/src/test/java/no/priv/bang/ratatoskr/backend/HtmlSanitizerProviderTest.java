@@ -0,0 +1,217 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.backend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayDeque;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+class HtmlSanitizerProviderTest {
+    private static final String[] MASTODON_CONTENT = {
+        "<p>Hello Fediverse! :blob_wave: #introduction</p>",
+        "<p><span class=\"h-card\" translate=\"no\"><a href=\"https://activitypub.academy/@braussia_vrottariul\" class=\"u-url mention\">@<span>braussia_vrottariul</span></a></span> Nice picture</p>",
+        "<p>Comment without mention</p>",
+        "<p>Test post with image</p><p><a href=\"https://activitypub.academy/tags/stovnert%C3%A5rnet\" class=\"mention hashtag\" rel=\"tag\">#<span>stovnertårnet</span></a></p>",
+        "<p>Dette er en enkel tut på norsk.</p>",
+    };
+    private static final String[] FUZZ_FRAGMENTS = {
+        "<p>", "</p>", "<a href=\"", "<A HREF=", "javascript:", "jav&#x09;ascript&colon;", "https://example.com/", "\">", "\"", "'", "=",
+        "<script>", "</script>", "<style>", "</style", "<!--", "-->", "<!", "<?", "</", "<", ">", "&", "&amp;", "&#", "x3c;", "&colon;",
+        " onclick=alert(1)", "<span class=\"h-card mention evil\">", "</span>", "<br/>", "<ol start=", "<li>", "</li>", "<b>", "</b>",
+        "<img src=x onerror=alert(1)>", "<svg/onload=alert(1)>", "<iframe src=x>", "text", " ", "\n", "\t", "é", "😀",
+    };
+    private static final Pattern TAG = Pattern.compile("<(/?)([a-z]+)((?: [a-z]+=\"[^\"<>]*\")*)>");
+    private static final Pattern ATTRIBUTE = Pattern.compile(" ([a-z]+)=\"([^\"]*)\"");
+
+    private final HtmlSanitizerProvider sanitizer = new HtmlSanitizerProvider();
+
+    @Test
+    void testMastodonContentIsKept() {
+        assertEquals(MASTODON_CONTENT[0], sanitizer.sanitize(MASTODON_CONTENT[0]));
+        assertEquals(MASTODON_CONTENT[2], sanitizer.sanitize(MASTODON_CONTENT[2]));
+        assertEquals(MASTODON_CONTENT[4], sanitizer.sanitize(MASTODON_CONTENT[4]));
+    }
+
+    @Test
+    void testLinksAreRewritten() {
+        assertEquals(
+            "<p><span class=\"h-card\" translate=\"no\"><a href=\"https://activitypub.academy/@braussia_vrottariul\" class=\"u-url mention\" rel=\"nofollow noopener noreferrer\" target=\"_blank\">@<span>braussia_vrottariul</span></a></span> Nice picture</p>",
+            sanitizer.sanitize(MASTODON_CONTENT[1]));
+        assertEquals(
+            "<p>Test post with image</p><p><a href=\"https://activitypub.academy/tags/stovnert%C3%A5rnet\" class=\"mention hashtag\" rel=\"nofollow noopener noreferrer tag\" target=\"_blank\">#<span>stovnertårnet</span></a></p>",
+            sanitizer.sanitize(MASTODON_CONTENT[3]));
+        assertEquals(
+            "<a href=\"https://example.com/?a=1&amp;b=2\" rel=\"nofollow noopener noreferrer\" target=\"_blank\">x</a>",
+            sanitizer.sanitize("<A HREF=https://example.com/?a=1&b=2 target=_self rel=\"opener\">x</a>"));
+    }
+
+    @Test
+    void testUnsafeUrlsAreRemoved() {
+        assertEquals("<a>x</a>", sanitizer.sanitize("<a href=\"javascript:alert(1)\">x</a>"));
+        assertEquals("<a>x</a>", sanitizer.sanitize("<a href=\" JAVASCRIPT:alert(1)\">x</a>"));
+        assertEquals("<a>x</a>", sanitizer.sanitize("<a href=\"jav&#x09;ascript&colon;alert(1)\">x</a>"));
+        assertEquals("<a>x</a>", sanitizer.sanitize("<a href=\"&#106&#97&#118&#97&#115&#99&#114&#105&#112&#116&#58alert(1)\">x</a>"));
+        assertEquals("<a>x</a>", sanitizer.sanitize("<a href=\"data:text/html;base64,PHNjcmlwdD4=\">x</a>"));
+        assertEquals("<a>x</a>", sanitizer.sanitize("<a href=\"/users/jod\">x</a>"));
+        assertEquals("<a>x</a>", sanitizer.sanitize("<a href=\"//example.com/users/jod\">x</a>"));
+    }
+
+    @Test
+    void testScriptsAndStylesAreRemovedWithTheirContent() {
+        assertEquals("<p>Hi</p>", sanitizer.sanitize("<p>Hi<script>alert('<p>')</script></p><style>p { color: red }</style>"));
+        assertEquals("x", sanitizer.sanitize("<SCRIPT type=\"text/javascript\">document.write('</scripty>')</SCRIPT >x"));
+        assertEquals("", sanitizer.sanitize("<iframe src=\"https://example.com\">never closed"));
+    }
+
+    @Test
+    void testTextOfDisallowedElementsIsKept() {
+        assertEquals("TitleText", sanitizer.sanitize("<div><h1>Title</h1><img src=\"x.png\" onerror=\"alert(1)\">Text</div>"));
+        assertEquals("text", sanitizer.sanitize("<!-- comment -->text<!DOCTYPE html><?xml version=\"1.0\"?>"));
+    }
+
+    @Test
+    void testDisallowedAttributesAreRemoved() {
+        assertEquals("<p>x</p>", sanitizer.sanitize("<p style=\"color: red\" onclick=\"alert(1)\">x</p>"));
+        assertEquals("<span class=\"h-card mention\">x</span>", sanitizer.sanitize("<span class=\"h-card evil mention\" data-x=\"1\">x</span>"));
+        assertEquals("<span>x</span>", sanitizer.sanitize("<span class=\"evil\" translate=\"maybe\">x</span>"));
+        assertEquals("<ol start=\"3\" reversed=\"\"><li>a</li></ol>", sanitizer.sanitize("<ol start=\"3\" reversed><li value=\"x\">a</li></ol>"));
+        assertEquals("<p>x</p>", sanitizer.sanitize("<p/onclick=alert(1)>x</p>"));
+    }
+
+    @Test
+    void testTextIsEscaped() {
+        assertEquals("1 &lt; 2 &amp;&amp; 3 &gt; 2 &amp; &#x3C; &amp;#; &lt;/ 4", sanitizer.sanitize("1 < 2 && 3 > 2 &amp; &#x3C; &#; </ 4"));
+    }
+
+    @Test
+    void testElementsAreClosed() {
+        assertEquals("<p><strong>bold<em>both</em></strong></p>after", sanitizer.sanitize("<p><strong>bold<em>both</p>after"));
+        assertEquals("text", sanitizer.sanitize("</p>text</strong>"));
+        assertEquals("<p>a</p><p>b</p>", sanitizer.sanitize("<p>a<p>b"));
+        assertEquals("<ul><li>a</li><li>b</li></ul>", sanitizer.sanitize("<ul><li>a<li>b</ul>"));
+        assertEquals("<p>unterminated </p>", sanitizer.sanitize("<p>unterminated <a href=\"https://example.com\""));
+    }
+
+    @Test
+    void testNestingIsLimited() {
+        var sanitized = sanitizer.sanitize("<b>".repeat(HtmlSanitizerProvider.MAX_DEPTH + 10) + "x");
+
+        assertEquals("<b>".repeat(HtmlSanitizerProvider.MAX_DEPTH) + "x" + "</b>".repeat(HtmlSanitizerProvider.MAX_DEPTH), sanitized);
+    }
+
+    @Test
+    void testNullAndPlainText() {
+        assertNull(sanitizer.sanitize(null));
+        var text = "Just text";
+        assertSame(text, sanitizer.sanitize(text));
+    }
+
+    @Test
+    void testSafeUrl() {
+        assertEquals("https://example.com", HtmlSanitizerProvider.safeUrl(" https://example.com\n"));
+        assertEquals("gemini://example.com", HtmlSanitizerProvider.safeUrl("gemini://example.com"));
+        assertNull(HtmlSanitizerProvider.safeUrl("vbscript:msgbox(1)"));
+        assertNull(HtmlSanitizerProvider.safeUrl("java\u0000script:alert(1)"));
+        assertNull(HtmlSanitizerProvider.safeUrl("no scheme"));
+        assertNull(HtmlSanitizerProvider.safeUrl("a".repeat(100) + ":"));
+    }
+
+    @Test
+    void testDecodeAttribute() {
+        assertEquals("a < b & c", HtmlSanitizerProvider.decodeAttribute("a &lt; b &amp; c"));
+        assertEquals("jav\tascript:", HtmlSanitizerProvider.decodeAttribute("jav&Tab;ascript&#x3a;"));
+        assertEquals("&copy; &#; \ufffd", HtmlSanitizerProvider.decodeAttribute("&copy; &#; &#0;"));
+        assertEquals("no references", HtmlSanitizerProvider.decodeAttribute("no references"));
+    }
+
+    /**
+     * Sanitize random mixes of markup fragments, and mangled copies of the
+     * Mastodon content, checking that the results are well formed, contain
+     * only allowed markup and safe URLs, and stay the same when sanitized
+     * again.
+     */
+    @Test
+    void testFuzz() {
+        var random = new Random(4711);
+        for (int i = 0; i < 20000; ++i) {
+            var html = i % 2 == 0 ? randomFragments(random) : mangle(random, MASTODON_CONTENT[random.nextInt(MASTODON_CONTENT.length)]);
+
+            var sanitized = sanitizer.sanitize(html);
+
+            assertAllowedMarkup(html, sanitized);
+            assertEquals(sanitized, sanitizer.sanitize(sanitized), html);
+        }
+    }
+
+    private String randomFragments(Random random) {
+        var html = new StringBuilder();
+        var count = random.nextInt(40);
+        for (int i = 0; i < count; ++i) {
+            html.append(FUZZ_FRAGMENTS[random.nextInt(FUZZ_FRAGMENTS.length)]);
+        }
+
+        return html.toString();
+    }
+
+    private String mangle(Random random, String content) {
+        var html = new StringBuilder(content);
+        var changes = 1 + random.nextInt(5);
+        for (int i = 0; i < changes; ++i) {
+            var at = random.nextInt(html.length() + 1);
+            if (random.nextBoolean()) {
+                html.insert(at, FUZZ_FRAGMENTS[random.nextInt(FUZZ_FRAGMENTS.length)]);
+            } else {
+                html.delete(at, Math.min(html.length(), at + random.nextInt(10)));
+            }
+        }
+
+        return html.toString();
+    }
+
+    private void assertAllowedMarkup(String html, String sanitized) {
+        var open = new ArrayDeque<String>();
+        var tag = TAG.matcher(sanitized);
+        var i = sanitized.indexOf('<');
+        while (i >= 0) {
+            assertTrue(tag.region(i, sanitized.length()).lookingAt(), html);
+            var name = tag.group(2);
+            assertThat(HtmlSanitizerProvider.ELEMENTS).as(html).containsKey(name);
+            if (!tag.group(1).isEmpty()) {
+                assertEquals(open.pop(), name, html);
+            } else if (!HtmlSanitizerProvider.VOID_ELEMENTS.contains(name)) {
+                open.push(name);
+            }
+
+            var attribute = ATTRIBUTE.matcher(tag.group(3));
+            while (attribute.find()) {
+                assertThat(HtmlSanitizerProvider.ELEMENTS.get(name)).as(html).contains(attribute.group(1).replace("target", "rel"));
+                if ("href".equals(attribute.group(1))) {
+                    assertNotNull(HtmlSanitizerProvider.safeUrl(HtmlSanitizerProvider.decodeAttribute(attribute.group(2))), html);
+                }
+            }
+
+            i = sanitized.indexOf('<', tag.end());
+        }
+
+        assertThat(open).as(html).isEmpty();
+    }
+
+}
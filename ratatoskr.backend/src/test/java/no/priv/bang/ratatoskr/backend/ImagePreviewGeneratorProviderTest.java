@@ -0,0 +1,216 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.backend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import no.priv.bang.osgi.service.mocks.logservice.MockLogService;
+
+class ImagePreviewGeneratorProviderTest {
+
+    @TempDir
+    Path directory;
+
+    private MediaStoreProvider mediaStore;
+    private ImagePreviewGeneratorProvider generator;
+
+    @AfterEach
+    void deactivate() {
+        if (generator != null) {
+            generator.deactivate();
+        }
+
+        if (mediaStore != null) {
+            mediaStore.deactivate();
+        }
+    }
+
+    @Test
+    void testGeneratePreviews() throws Exception {
+        var logservice = new MockLogService();
+        generator = createGenerator(Map.of(), logservice);
+        var image = mediaStore.store(png(1600, 1200), "image/png");
+
+        var previews = generator.generate(image).toCompletableFuture().get().orElseThrow();
+
+        assertEquals(1600, previews.width());
+        assertEquals(1200, previews.height());
+        assertEquals(640, previews.previewWidth());
+        assertEquals(480, previews.previewHeight());
+        assertEquals(128, previews.iconWidth());
+        assertEquals(96, previews.iconHeight());
+        assertEquals(28, previews.blurHash().length());
+        assertEquals("image/jpeg", previews.preview().mediaType());
+        assertEquals("image/jpeg", previews.icon().mediaType());
+        assertEquals(640, ImageIO.read(mediaStore.path(previews.preview()).toFile()).getWidth());
+        assertEquals(128, ImageIO.read(mediaStore.path(previews.icon()).toFile()).getWidth());
+        assertThat(generator.find(image)).hasValue(previews);
+        assertThat(logservice.getLogmessages()).isEmpty();
+    }
+
+    @Test
+    void testGeneratePreviewsOfPortraitImage() throws Exception {
+        generator = createGenerator(Map.of());
+        var image = mediaStore.store(png(300, 400), "image/png");
+
+        var previews = generator.generate(image).toCompletableFuture().get().orElseThrow();
+
+        assertEquals(300, previews.previewWidth());
+        assertEquals(400, previews.previewHeight());
+        assertEquals(96, previews.iconWidth());
+        assertEquals(128, previews.iconHeight());
+        assertEquals('T', previews.blurHash().charAt(0));
+    }
+
+    @Test
+    void testGenerateTwiceGivesTheStoredPreviews() throws Exception {
+        generator = createGenerator(Map.of());
+        var image = mediaStore.store(png(200, 100), "image/png");
+        var first = generator.generate(image);
+        var second = generator.generate(image);
+
+        var previews = first.toCompletableFuture().get().orElseThrow();
+
+        assertThat(second.toCompletableFuture().get()).hasValue(previews);
+        assertThat(generator.generate(image).toCompletableFuture().get()).hasValue(previews);
+    }
+
+    @Test
+    void testPreviewsAreFoundAfterRestart() throws Exception {
+        generator = createGenerator(Map.of());
+        var image = mediaStore.store(png(200, 100), "image/png");
+        var previews = generator.generate(image).toCompletableFuture().get().orElseThrow();
+        generator.deactivate();
+        mediaStore.deactivate();
+
+        generator = createGenerator(Map.of());
+
+        assertThat(generator.find(image)).hasValue(previews);
+        assertThat(mediaStore.find(previews.preview().hash())).isPresent();
+    }
+
+    @Test
+    void testPreviewsAreDeletedWithTheImage() throws Exception {
+        generator = createGenerator(Map.of());
+        var image = mediaStore.store(png(200, 100), "image/png");
+        generator.generate(image).toCompletableFuture().get().orElseThrow();
+        var previewsFile = mediaStore.path(image).resolveSibling(image.hash() + ImagePreviewGeneratorProvider.PREVIEWS_SUFFIX);
+        assertTrue(Files.exists(previewsFile));
+
+        mediaStore.delete(image.hash());
+
+        assertFalse(Files.exists(previewsFile));
+        assertThat(generator.find(image)).isEmpty();
+    }
+
+    @Test
+    void testFindWhenNoPreviewsHaveBeenGenerated() throws Exception {
+        generator = createGenerator(Map.of());
+        var image = mediaStore.store(png(200, 100), "image/png");
+
+        assertThat(generator.find(image)).isEmpty();
+    }
+
+    @Test
+    void testGenerateWhenNotAnImage() throws Exception {
+        generator = createGenerator(Map.of());
+        var text = mediaStore.store(new ByteArrayInputStream("hello".getBytes(StandardCharsets.UTF_8)), "text/plain");
+
+        assertThat(generator.generate(text).toCompletableFuture().get()).isEmpty();
+        assertThat(generator.generate(null).toCompletableFuture().get()).isEmpty();
+    }
+
+    @Test
+    void testGenerateWhenImageCantBeDecoded() throws Exception {
+        var logservice = new MockLogService();
+        generator = createGenerator(Map.of(), logservice);
+        var broken = mediaStore.store(new ByteArrayInputStream("not really a png".getBytes(StandardCharsets.UTF_8)), "image/png");
+
+        assertThat(generator.generate(broken).toCompletableFuture().get()).isEmpty();
+        assertThat(generator.find(broken)).isEmpty();
+    }
+
+    @Test
+    void testGenerateWhenTooManyImagesAreQueued() throws Exception {
+        var logservice = new MockLogService();
+        generator = createGenerator(Map.of("maxQueuedImages", "0"), logservice);
+        var image = mediaStore.store(png(200, 100), "image/png");
+
+        assertThat(generator.generate(image).toCompletableFuture().get()).isEmpty();
+        assertThat(logservice.getLogmessages()).hasSize(1);
+    }
+
+    @Test
+    void testScaleKeepsSmallImages() {
+        var image = new BufferedImage(10, 5, BufferedImage.TYPE_INT_ARGB);
+
+        var scaled = ImagePreviewGeneratorProvider.scale(image, 128);
+
+        assertEquals(10, scaled.getWidth());
+        assertEquals(5, scaled.getHeight());
+        assertEquals(BufferedImage.TYPE_INT_RGB, scaled.getType());
+        assertEquals(Color.WHITE.getRGB(), scaled.getRGB(0, 0)); // Transparent pixels become white
+    }
+
+    private ImagePreviewGeneratorProvider createGenerator(Map<String, Object> config) {
+        return createGenerator(config, new MockLogService());
+    }
+
+    private ImagePreviewGeneratorProvider createGenerator(Map<String, Object> config, MockLogService logservice) {
+        mediaStore = new MediaStoreProvider();
+        mediaStore.setLogservice(logservice);
+        var mediaStoreConfig = new HashMap<String, Object>();
+        mediaStoreConfig.put("directory", directory.toString());
+        mediaStore.activate(mediaStoreConfig);
+        var provider = new ImagePreviewGeneratorProvider();
+        provider.setLogservice(logservice);
+        provider.setMediaStore(mediaStore);
+        provider.activate(config);
+        return provider;
+    }
+
+    private ByteArrayInputStream png(int width, int height) throws IOException {
+        var image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        var graphics = image.createGraphics();
+        graphics.setColor(Color.RED);
+        graphics.fillRect(0, 0, width / 2, height);
+        graphics.setColor(Color.BLUE);
+        graphics.fillRect(width / 2, 0, width - width / 2, height);
+        graphics.dispose();
+        var png = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", png);
+        return new ByteArrayInputStream(png.toByteArray());
+    }
+
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.backend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import no.priv.bang.osgi.service.mocks.logservice.MockLogService;
+import no.priv.bang.ratatoskr.services.RatatoskrException;
+import no.priv.bang.ratatoskr.services.RatatoskrService;
+
+class InboxDeduplicatorProviderTest {
+    private static final String ACTIVITY_ID = "https://mastodon.example.com/users/jod/statuses/1/activity";
+
+    @Test
+    void testActivityId() {
+        var deduplicator = createDeduplicator(mock(RatatoskrService.class), new MockLogService(), Map.of());
+
+        assertEquals(Optional.of(ACTIVITY_ID), deduplicator.activityId(json(String.format(
+            "{\n  \"@context\": \"https://www.w3.org/ns/activitystreams\",\n  \"id\": \"%s\",\n  \"type\": \"Create\",\n  \"object\": {\"id\": \"https://mastodon.example.com/users/jod/statuses/1\"}\n}",
+            ACTIVITY_ID))));
+        assertEquals(Optional.of("top"), deduplicator.activityId(json("{\"object\": {\"id\": \"nested\", \"tag\": [1, \"}\", {\"name\": \"\\\"]\"}], \"sensitive\": false}, \"idx\": null, \"id\" : \"top\", \"id\": \"ignored\"")));
+        assertEquals(Optional.of("https://example.com/a\u00e9/b"), deduplicator.activityId(json("{\"id\": \"https:\\/\\/example.com\\/a\\u00e9/b\"}")));
+        assertEquals(Optional.of("https://example.com/\u00e6\u00f8\u00e5"), deduplicator.activityId(json("{\"id\": \"https://example.com/\u00e6\u00f8\u00e5\"}")));
+    }
+
+    @Test
+    void testActivityIdOfBodiesWithoutId() {
+        var deduplicator = createDeduplicator(mock(RatatoskrService.class), new MockLogService(), Map.of());
+
+        assertThat(deduplicator.activityId(null)).isEmpty();
+        assertThat(deduplicator.activityId(json(""))).isEmpty();
+        assertThat(deduplicator.activityId(json("[{\"id\": \"in an array\"}]"))).isEmpty();
+        assertThat(deduplicator.activityId(json("{\"type\": \"Create\"}"))).isEmpty();
+        assertThat(deduplicator.activityId(json("{\"id\": 1}"))).isEmpty();
+        assertThat(deduplicator.activityId(json("{\"id\": \"\"}"))).isEmpty();
+        assertThat(deduplicator.activityId(json("{\"id\": \"not closed"))).isEmpty();
+        assertThat(deduplicator.activityId(json("{\"id\": \"bad escape \\x\"}"))).isEmpty();
+        assertThat(deduplicator.activityId(json("{\"type\" \"Create\", \"id\": \"a\"}"))).isEmpty();
+        assertThat(deduplicator.activityId(json("{\"object\": {\"id\": \"not closed\", \"id\": \"a\"}"))).isEmpty();
+        assertThat(deduplicator.activityId(json("{\"id\": \"" + "a".repeat(InboxDeduplicatorProvider.MAX_ID_LENGTH + 1) + "\"}"))).isEmpty();
+    }
+
+    @Test
+    void testNewActivityIsFoundWithoutTheDatabase() {
+        var ratatoskr = mock(RatatoskrService.class);
+        var deduplicator = createDeduplicator(ratatoskr, new MockLogService(), Map.of());
+
+        assertFalse(deduplicator.isDuplicate(ACTIVITY_ID));
+        verify(ratatoskr, never()).hasReceivedActivity(anyString());
+        deduplicator.deactivate();
+    }
+
+    @Test
+    void testFilterIsFilledWithTheActivitiesReceivedInTheLastWindow() {
+        var ratatoskr = mock(RatatoskrService.class);
+        when(ratatoskr.listReceivedActivitiesSince(any())).thenReturn(List.of(ACTIVITY_ID));
+        when(ratatoskr.hasReceivedActivity(ACTIVITY_ID)).thenReturn(true);
+        var before = Instant.now();
+        var deduplicator = createDeduplicator(ratatoskr, new MockLogService(), Map.of("windowSeconds", "3600"));
+
+        assertTrue(deduplicator.isDuplicate(ACTIVITY_ID));
+        assertFalse(deduplicator.isDuplicate(ACTIVITY_ID + "/2"));
+        verify(ratatoskr, never()).hasReceivedActivity(ACTIVITY_ID + "/2");
+        var since = ArgumentCaptor.forClass(Instant.class);
+        verify(ratatoskr).listReceivedActivitiesSince(since.capture());
+        assertThat(since.getValue()).isBetween(before.minusSeconds(3600), Instant.now().minusSeconds(3600));
+        deduplicator.deactivate();
+    }
+
+    @Test
+    void testActivationWhenTheReceivedActivitiesCantBeRead() {
+        var ratatoskr = mock(RatatoskrService.class);
+        when(ratatoskr.listReceivedActivitiesSince(any())).thenThrow(new RatatoskrException("Database is down"));
+        var logservice = new MockLogService();
+
+        var deduplicator = createDeduplicator(ratatoskr, logservice, Map.of());
+
+        assertFalse(deduplicator.isDuplicate(ACTIVITY_ID));
+        assertThat(logservice.getLogmessages()).hasSize(1);
+        deduplicator.deactivate();
+    }
+
+    @Test
+    void testReceivedActivitiesOlderThanTheRetentionArePruned() {
+        var ratatoskr = mock(RatatoskrService.class);
+        when(ratatoskr.deleteReceivedActivitiesBefore(any())).thenReturn(2);
+        var logservice = new MockLogService();
+        var before = Instant.now();
+        var deduplicator = createDeduplicator(ratatoskr, logservice, Map.of("windowSeconds", "3600", "retentionSeconds", "7200"));
+
+        var cutoff = ArgumentCaptor.forClass(Instant.class);
+        verify(ratatoskr).deleteReceivedActivitiesBefore(cutoff.capture());
+        assertThat(cutoff.getValue()).isBetween(before.minusSeconds(7200), Instant.now().minusSeconds(7200));
+        assertThat(logservice.getLogmessages()).hasSize(1);
+        deduplicator.deactivate();
+    }
+
+    @Test
+    void testRetentionIsNeverShorterThanTheWindow() {
+        var ratatoskr = mock(RatatoskrService.class);
+        var before = Instant.now();
+        var deduplicator = createDeduplicator(ratatoskr, new MockLogService(), Map.of("windowSeconds", "3600", "retentionSeconds", "60"));
+
+        var cutoff = ArgumentCaptor.forClass(Instant.class);
+        verify(ratatoskr).deleteReceivedActivitiesBefore(cutoff.capture());
+        assertThat(cutoff.getValue()).isBetween(before.minusSeconds(3600), Instant.now().minusSeconds(3600));
+        deduplicator.deactivate();
+    }
+
+    @Test
+    void testPruneWhenTheDatabaseFails() {
+        var ratatoskr = mock(RatatoskrService.class);
+        when(ratatoskr.deleteReceivedActivitiesBefore(any())).thenThrow(new RatatoskrException("Database is down"));
+        var logservice = new MockLogService();
+        var deduplicator = createDeduplicator(ratatoskr, logservice, Map.of());
+
+        deduplicator.prune();
+
+        assertThat(logservice.getLogmessages()).hasSize(2);
+        deduplicator.deactivate();
+    }
+
+    @Test
+    void testReceivedActivityIsDuplicate() {
+        var ratatoskr = mock(RatatoskrService.class);
+        when(ratatoskr.addReceivedActivity(anyString())).thenReturn(true);
+        var deduplicator = createDeduplicator(ratatoskr, new MockLogService(), Map.of());
+
+        assertTrue(deduplicator.received(ACTIVITY_ID));
+
+        assertTrue(deduplicator.isDuplicate(ACTIVITY_ID));
+        verify(ratatoskr, never()).hasReceivedActivity(anyString());
+    }
+
+    @Test
+    void testDuplicateForgottenByTheLruIsFoundInTheDatabase() {
+        var ratatoskr = mock(RatatoskrService.class);
+        when(ratatoskr.addReceivedActivity(anyString())).thenReturn(true);
+        when(ratatoskr.hasReceivedActivity(ACTIVITY_ID)).thenReturn(true);
+        var deduplicator = createDeduplicator(ratatoskr, new MockLogService(), Map.of("maxRecentIds", "1"));
+        deduplicator.received(ACTIVITY_ID);
+        deduplicator.received(ACTIVITY_ID + "/2");
+
+        assertTrue(deduplicator.isDuplicate(ACTIVITY_ID));
+        assertTrue(deduplicator.isDuplicate(ACTIVITY_ID));
+        verify(ratatoskr, times(1)).hasReceivedActivity(ACTIVITY_ID);
+    }
+
+    @Test
+    void testConcurrentDeliveryIsCaughtByTheUniqueIndex() {
+        var ratatoskr = mock(RatatoskrService.class);
+        when(ratatoskr.addReceivedActivity(ACTIVITY_ID)).thenReturn(false);
+        var deduplicator = createDeduplicator(ratatoskr, new MockLogService(), Map.of());
+
+        assertFalse(deduplicator.received(ACTIVITY_ID));
+        assertTrue(deduplicator.isDuplicate(ACTIVITY_ID));
+    }
+
+    @Test
+    void testActivityIsNewWhenTheDatabaseFails() {
+        var ratatoskr = mock(RatatoskrService.class);
+        when(ratatoskr.addReceivedActivity(anyString())).thenReturn(true);
+        when(ratatoskr.hasReceivedActivity(anyString())).thenThrow(new RatatoskrException("Database is down"));
+        var logservice = new MockLogService();
+        var deduplicator = createDeduplicator(ratatoskr, logservice, Map.of("maxRecentIds", 1));
+        deduplicator.received(ACTIVITY_ID);
+        deduplicator.received(ACTIVITY_ID + "/2");
+
+        assertFalse(deduplicator.isDuplicate(ACTIVITY_ID));
+        assertThat(logservice.getLogmessages()).hasSize(1);
+    }
+
+    private InboxDeduplicatorProvider createDeduplicator(RatatoskrService ratatoskr, MockLogService logservice, Map<String, Object> config) {
+        var deduplicator = new InboxDeduplicatorProvider();
+        deduplicator.setLogservice(logservice);
+        deduplicator.setRatatoskrService(ratatoskr);
+        deduplicator.activate(config);
+        return deduplicator;
+    }
+
+    private static byte[] json(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+}
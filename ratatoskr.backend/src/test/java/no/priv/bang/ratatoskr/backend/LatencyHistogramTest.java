@@ -0,0 +1,106 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.backend;
+
+import static no.priv.bang.ratatoskr.backend.LatencyHistogram.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+    @Test
+    void testBucketsCoverAllValuesWithoutGaps() {
+        for (int index = 0; index < BUCKET_COUNT; ++index) {
+            var highest = highestValueInBucket(index);
+            assertEquals(index, bucketIndex(highest));
+            if (index + 1 < BUCKET_COUNT) {
+                assertEquals(index + 1, bucketIndex(highest + 1));
+            }
+        }
+
+        assertEquals(MAX_NANOS, highestValueInBucket(BUCKET_COUNT - 1));
+    }
+
+    @Test
+    void testSmallValuesGetABucketEach() {
+        for (int value = 0; value < LINEAR_LIMIT; ++value) {
+            assertEquals(value, bucketIndex(value));
+            assertEquals(value, highestValueInBucket(value));
+        }
+    }
+
+    @Test
+    void testEmptyHistogram() {
+        var histogram = new LatencyHistogram();
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.errors());
+        assertEquals(0, histogram.sumNanos());
+        assertEquals(0, histogram.valueAtQuantile(0.99));
+    }
+
+    @Test
+    void testValueAtQuantile() {
+        var histogram = new LatencyHistogram();
+        for (int millis = 1; millis <= 100; ++millis) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(millis), millis > 95);
+        }
+
+        assertEquals(100, histogram.count());
+        assertEquals(5, histogram.errors());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(5050), histogram.sumNanos());
+        var median = histogram.valueAtQuantile(0.5);
+        assertThat(median).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+        assertThat((double) median).isCloseTo(TimeUnit.MILLISECONDS.toNanos(50), within(TimeUnit.MILLISECONDS.toNanos(50) * 0.125));
+        var p99 = histogram.valueAtQuantile(0.99);
+        assertThat(p99).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(99));
+        assertThat((double) p99).isCloseTo(TimeUnit.MILLISECONDS.toNanos(99), within(TimeUnit.MILLISECONDS.toNanos(99) * 0.125));
+    }
+
+    @Test
+    void testValuesOutsideOfTheRangeAreClamped() {
+        var histogram = new LatencyHistogram();
+        histogram.record(-1, false);
+        histogram.record(Long.MAX_VALUE, false);
+
+        assertEquals(0, histogram.valueAtQuantile(0.5));
+        assertEquals(MAX_NANOS, histogram.valueAtQuantile(1.0));
+        assertEquals(MAX_NANOS, histogram.sumNanos());
+    }
+
+    @Test
+    void testConcurrentRecording() throws Exception {
+        var histogram = new LatencyHistogram();
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int task = 0; task < 100; ++task) {
+                executor.submit(() -> {
+                    for (int i = 0; i < 1000; ++i) {
+                        histogram.record(i, false);
+                    }
+                });
+            }
+        }
+
+        assertEquals(100000, histogram.count());
+        assertEquals(100 * (999 * 1000 / 2), histogram.sumNanos());
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.backend;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import no.priv.bang.ratatoskr.services.beans.LocaleBean;
+
+class LocalizationCacheTest {
+    private static final Locale NB_NO = Locale.forLanguageTag("nb-NO");
+    private static final List<Locale> LOCALES = List.of(NB_NO, Locale.UK);
+
+    @Test
+    void testTexts() {
+        var cache = new LocalizationCache("i18n.Texts", NB_NO, LOCALES);
+        assertEquals(NB_NO, cache.defaultLocale());
+        assertThat(cache.availableLocales()).containsExactly(LocaleBean.with().locale(NB_NO).build(), LocaleBean.with().locale(Locale.UK).build());
+        assertThat(cache.texts(NB_NO)).containsEntry("hi", "Hei");
+        assertThat(cache.texts(Locale.UK)).containsEntry("hi", "Hi");
+        assertNull(cache.texts(Locale.GERMANY));
+        assertNull(cache.texts((Locale) null));
+        assertThrows(UnsupportedOperationException.class, () -> cache.texts(NB_NO).put("hi", "Hallo"));
+    }
+
+    @Test
+    void testTextsForCode() {
+        var cache = new LocalizationCache("i18n.Texts", NB_NO, LOCALES);
+        assertSame(cache.texts(NB_NO), cache.textsForCode("nb_NO"));
+        assertSame(cache.texts(NB_NO), cache.textsForCode("nb-NO"));
+        assertSame(cache.texts(NB_NO), cache.textsForCode(""));
+        assertSame(cache.texts(NB_NO), cache.textsForCode(null));
+        assertSame(cache.texts(Locale.UK), cache.textsForCode("en_GB"));
+        assertNull(cache.textsForCode("de_DE"));
+    }
+
+    @Test
+    void testDefaultLocaleThatIsNotAvailable() {
+        var cache = new LocalizationCache("i18n.Texts", Locale.forLanguageTag("en-GB"), List.of(NB_NO));
+        assertThat(cache.availableLocales()).containsExactly(LocaleBean.with().locale(NB_NO).build());
+        assertThat(cache.textsForCode(null)).containsEntry("hi", "Hi");
+        assertNotNull(cache.body(Locale.UK));
+    }
+
+    @Test
+    void testBody() throws Exception {
+        var cache = new LocalizationCache("i18n.Texts", NB_NO, LOCALES);
+        var mapper = new ObjectMapper();
+        var body = cache.body(NB_NO);
+        assertThat(body.etag()).hasSize(2 * LocalizationCache.ETAG_BYTES);
+        var texts = mapper.readValue(body.json(), new TypeReference<Map<String, String>>() {});
+        assertEquals(cache.texts(NB_NO), texts);
+        try (var gunzip = new GZIPInputStream(new ByteArrayInputStream(body.gzipped()))) {
+            assertArrayEquals(body.json(), gunzip.readAllBytes());
+        }
+
+        assertNotEquals(body.etag(), cache.body(Locale.UK).etag());
+        assertNull(cache.body(Locale.GERMANY));
+        assertNull(cache.body(null));
+    }
+
+    @Test
+    void testSameTextsGetSameEtag() {
+        var body1 = LocalizationCache.serialize(Map.of("date", "Dato", "hi", "Hei"));
+        var body2 = LocalizationCache.serialize(Map.of("hi", "Hei", "date", "Dato"));
+        assertEquals(body1.etag(), body2.etag());
+        var body3 = LocalizationCache.serialize(Map.of("date", "Dato", "hi", "Hallo"));
+        assertNotEquals(body1.etag(), body3.etag());
+    }
+
+}
@@ -0,0 +1,487 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.backend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.sun.net.httpserver.HttpServer;
+
+import no.priv.bang.osgi.service.mocks.logservice.MockLogService;
+import no.priv.bang.ratatoskr.services.MediaTooLargeException;
+import no.priv.bang.ratatoskr.services.RatatoskrException;
+import no.priv.bang.ratatoskr.services.beans.StoredMedia;
+
+class MediaStoreProviderTest {
+    private static final String HELLO_HASH = "2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824";
+
+    @TempDir
+    Path directory;
+
+    private HttpServer server;
+    private String baseUri;
+    private final Map<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void startStubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        baseUri = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void stopStubServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void testStoreAndFind() throws Exception {
+        var store = createStore(Map.of());
+
+        var stored = store.store(content("hello"), "text/plain");
+
+        assertEquals(HELLO_HASH, stored.hash());
+        assertEquals("text/plain", stored.mediaType());
+        assertEquals(5, stored.size());
+        assertNull(stored.remoteUrl());
+        assertThat(store.find(HELLO_HASH)).hasValue(stored);
+        assertEquals("hello", Files.readString(store.path(stored)));
+        assertEquals(directory.resolve("2c").resolve(HELLO_HASH), store.path(stored));
+        store.deactivate();
+    }
+
+    @Test
+    void testStoringSameContentTwiceKeepsOneCopy() throws Exception {
+        var store = createStore(Map.of());
+
+        var first = store.store(content("hello"), "text/plain");
+        var second = store.store(content("hello"), "application/octet-stream");
+
+        assertEquals(first, second);
+        assertEquals(5, store.totalBytes());
+        try (var files = Files.list(directory.resolve("2c"))) {
+            assertThat(files.map(file -> file.getFileName().toString())).containsExactlyInAnyOrder(HELLO_HASH, HELLO_HASH + ".properties");
+        }
+        try (var files = Files.list(directory.resolve(MediaStoreProvider.TEMPORARY_DIRECTORY))) {
+            assertThat(files).isEmpty();
+        }
+        store.deactivate();
+    }
+
+    @Test
+    void testStoreLeavesContentStreamOpen() {
+        var store = createStore(Map.of());
+        var closed = new AtomicInteger();
+        var content = new ByteArrayInputStream("hello".getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public void close() {
+                closed.incrementAndGet();
+            }
+        };
+
+        store.store(content, "text/plain");
+
+        assertEquals(0, closed.get());
+        store.deactivate();
+    }
+
+    @Test
+    void testStoreWhenReadFails() {
+        var store = createStore(Map.of());
+        var content = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("Connection reset");
+            }
+        };
+
+        var e = assertThrows(RatatoskrException.class, () -> store.store(content, "text/plain"));
+        assertThat(e.getMessage()).startsWith("Unable to store media");
+        assertEquals(0, store.totalBytes());
+        store.deactivate();
+    }
+
+    @Test
+    void testFindWithUnknownOrInvalidHash() {
+        var store = createStore(Map.of());
+
+        assertThat(store.find(HELLO_HASH)).isEmpty();
+        assertThat(store.find("../../etc/passwd")).isEmpty();
+        assertThat(store.find(null)).isEmpty();
+        store.deactivate();
+    }
+
+    @Test
+    void testDelete() {
+        var store = createStore(Map.of());
+        var stored = store.store(content("hello"), "text/plain");
+
+        assertTrue(store.delete(HELLO_HASH));
+
+        assertFalse(store.delete(HELLO_HASH));
+        assertFalse(store.delete("not a hash"));
+        assertThat(store.find(HELLO_HASH)).isEmpty();
+        assertFalse(Files.exists(store.path(stored)));
+        assertEquals(0, store.totalBytes());
+        store.deactivate();
+    }
+
+    @Test
+    void testDeleteAlsoDeletesFilesNextToContent() throws Exception {
+        var store = createStore(Map.of());
+        var stored = store.store(content("hello"), "text/plain");
+        var sidecar = Files.writeString(store.path(stored).resolveSibling(stored.hash() + ".previews.properties"), "width=1");
+
+        store.delete(stored.hash());
+
+        assertFalse(Files.exists(sidecar));
+        store.deactivate();
+    }
+
+    @Test
+    void testStoreDerived() {
+        serve("/media/original.txt", "text/plain", "original");
+        var store = createStore(Map.of());
+        var uploaded = store.store(content("hello"), "text/plain");
+        var fetched = join(store.fetchRemote(baseUri + "/media/original.txt")).orElseThrow();
+
+        var derivedFromUploaded = store.storeDerived(content("small hello"), "text/plain", uploaded);
+        var derivedFromFetched = store.storeDerived(content("small original"), "text/plain", fetched);
+
+        assertNull(derivedFromUploaded.remoteUrl());
+        assertEquals(fetched.remoteUrl(), derivedFromFetched.remoteUrl());
+        store.deactivate();
+
+        var reopened = createStore(Map.of());
+        assertThat(reopened.find(derivedFromFetched.hash())).hasValue(derivedFromFetched);
+        assertThat(join(reopened.fetchRemote(baseUri + "/media/original.txt"))).hasValue(fetched);
+        assertEquals(1, requestCount("/media/original.txt"));
+        reopened.deactivate();
+    }
+
+    @Test
+    void testIndexIsReadOnActivation() {
+        var store = createStore(Map.of());
+        var stored = store.store(content("hello"), "text/plain");
+        serve("/media/world.png", "image/png", "world");
+        var fetched = join(store.fetchRemote(baseUri + "/media/world.png")).orElseThrow();
+        store.deactivate();
+
+        var reopened = createStore(Map.of());
+
+        assertThat(reopened.find(stored.hash())).hasValue(stored);
+        assertThat(reopened.find(fetched.hash())).hasValue(fetched);
+        assertThat(join(reopened.fetchRemote(baseUri + "/media/world.png"))).hasValue(fetched);
+        assertEquals(1, requestCount("/media/world.png"));
+        assertEquals(10, reopened.totalBytes());
+        reopened.deactivate();
+    }
+
+    @Test
+    void testActivateWhenDirectoryCantBeCreated() throws Exception {
+        var file = Files.writeString(directory.resolve("file"), "not a directory");
+        var store = new MediaStoreProvider();
+        store.setLogservice(new MockLogService());
+        Map<String, Object> config = Map.of("directory", file.toString());
+
+        var e = assertThrows(RatatoskrException.class, () -> store.activate(config));
+        assertThat(e.getMessage()).startsWith("Unable to open media store");
+    }
+
+    @Test
+    void testFetchRemote() throws Exception {
+        serve("/media/hello.txt", "text/plain;charset=utf-8", "hello");
+        var store = createStore(Map.of());
+
+        var fetched = join(store.fetchRemote(baseUri + "/media/hello.txt")).orElseThrow();
+        var fetchedAgain = join(store.fetchRemote(baseUri + "/media/hello.txt")).orElseThrow();
+
+        assertEquals(HELLO_HASH, fetched.hash());
+        assertEquals("text/plain;charset=utf-8", fetched.mediaType());
+        assertEquals(baseUri + "/media/hello.txt", fetched.remoteUrl());
+        assertEquals(fetched, fetchedAgain);
+        assertEquals("hello", Files.readString(store.path(fetched)));
+        assertEquals(1, requestCount("/media/hello.txt"));
+        store.deactivate();
+    }
+
+    @Test
+    void testFetchRemoteNotFound() {
+        server.createContext("/media/gone.png", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        var logservice = new MockLogService();
+        var store = createStore(Map.of(), logservice);
+
+        assertThat(join(store.fetchRemote(baseUri + "/media/gone.png"))).isEmpty();
+        assertThat(logservice.getLogmessages()).hasSize(1);
+        store.deactivate();
+    }
+
+    @Test
+    void testFetchRemoteWithUnsupportedUrl() {
+        var logservice = new MockLogService();
+        var store = createStore(Map.of(), logservice);
+
+        assertThat(join(store.fetchRemote("ftp://example.com/media/hello.txt"))).isEmpty();
+        assertThat(join(store.fetchRemote(null))).isEmpty();
+        assertThat(logservice.getLogmessages()).hasSize(1);
+        store.deactivate();
+    }
+
+    @Test
+    void testFetchRemoteFromPrivateAddress() {
+        serve("/media/hello.txt", "text/plain", "hello");
+        var logservice = new MockLogService();
+        var store = createStore(Map.of("allowPrivateAddresses", "false"), logservice);
+
+        assertThat(join(store.fetchRemote(baseUri + "/media/hello.txt"))).isEmpty();
+        assertThat(join(store.fetchRemote("http://127.0.0.1:" + server.getAddress().getPort() + "/media/hello.txt"))).isEmpty();
+
+        assertEquals(0, requestCount("/media/hello.txt"));
+        assertThat(logservice.getLogmessages()).hasSize(2);
+        store.deactivate();
+    }
+
+    @Test
+    void testFetchRemoteFollowsRedirects() {
+        serve("/media/hello.txt", "text/plain", "hello");
+        redirect("/media/moved", "/media/hello.txt");
+        redirect("/media/loop", baseUri + "/media/loop");
+        redirect("/media/elsewhere", "ftp://example.com/media/hello.txt");
+        var store = createStore(Map.of());
+
+        assertEquals(HELLO_HASH, join(store.fetchRemote(baseUri + "/media/moved")).orElseThrow().hash());
+        assertThat(join(store.fetchRemote(baseUri + "/media/loop"))).isEmpty();
+        assertThat(join(store.fetchRemote(baseUri + "/media/elsewhere"))).isEmpty();
+
+        assertEquals(1, requestCount("/media/hello.txt"));
+        assertEquals(RemoteObjectFetcherProvider.MAX_REDIRECTS + 1, requestCount("/media/loop"));
+        store.deactivate();
+    }
+
+    @Test
+    void testFetchRemoteLargerThanMaxRemoteBytes() throws Exception {
+        serve("/media/large.bin", "application/octet-stream", "0123456789");
+        server.createContext("/media/chunked.bin", exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            try (var body = exchange.getResponseBody()) {
+                body.write("0123456789".getBytes(StandardCharsets.UTF_8));
+            }
+        });
+        var store = createStore(Map.of("maxRemoteBytes", "5"));
+
+        assertThat(join(store.fetchRemote(baseUri + "/media/large.bin"))).isEmpty();
+        assertThat(join(store.fetchRemote(baseUri + "/media/chunked.bin"))).isEmpty();
+        assertEquals(0, store.totalBytes());
+        try (var files = Files.list(directory.resolve(MediaStoreProvider.TEMPORARY_DIRECTORY))) {
+            assertThat(files).isEmpty();
+        }
+        store.deactivate();
+    }
+
+    @Test
+    void testLeastRecentlyUsedRemoteMediaIsEvictedOverQuota() {
+        serve("/media/a", "text/plain", "aaaaa");
+        serve("/media/b", "text/plain", "bbbbb");
+        serve("/media/c", "text/plain", "ccccc");
+        var store = createStore(Map.of("quotaBytes", 15L));
+        var uploaded = store.store(content("uuuuu"), "text/plain");
+        var a = join(store.fetchRemote(baseUri + "/media/a")).orElseThrow();
+        var b = join(store.fetchRemote(baseUri + "/media/b")).orElseThrow();
+        store.find(a.hash());
+
+        var c = join(store.fetchRemote(baseUri + "/media/c")).orElseThrow();
+
+        assertThat(store.find(uploaded.hash())).isPresent();
+        assertThat(store.find(a.hash())).isPresent();
+        assertThat(store.find(b.hash())).isEmpty();
+        assertThat(store.find(c.hash())).isPresent();
+        assertFalse(Files.exists(store.path(b)));
+        assertEquals(15, store.totalBytes());
+
+        join(store.fetchRemote(baseUri + "/media/b"));
+        assertEquals(2, requestCount("/media/b"));
+        store.deactivate();
+    }
+
+    @Test
+    void testUploadedMediaIsNeverEvicted() {
+        serve("/media/a", "text/plain", "aaaaa");
+        var store = createStore(Map.of("quotaBytes", "5"));
+        var fetched = join(store.fetchRemote(baseUri + "/media/a")).orElseThrow();
+
+        var uploaded = store.store(content("aaaaa"), "text/plain");
+        var another = store.store(content("bbbbb"), "text/plain");
+
+        assertEquals(fetched.hash(), uploaded.hash());
+        assertNull(uploaded.remoteUrl());
+        assertThat(store.find(uploaded.hash())).hasValue(uploaded);
+        assertThat(store.find(another.hash())).hasValue(another);
+        assertEquals(10, store.totalBytes());
+        store.deactivate();
+    }
+
+    @Test
+    void testUploadLargerThanMaxUploadBytes() throws Exception {
+        var store = createStore(Map.of("maxUploadBytes", 4L));
+
+        var e = assertThrows(MediaTooLargeException.class, () -> store.store(content("hello"), "text/plain"));
+        assertThat(e.getMessage()).isEqualTo("Not storing media larger than 4 bytes");
+        assertThat(store.find(HELLO_HASH)).isEmpty();
+        assertEquals(0, store.totalBytes());
+        assertEquals(0, store.uploadedBytes());
+        try (var files = Files.list(directory.resolve(MediaStoreProvider.TEMPORARY_DIRECTORY))) {
+            assertThat(files).isEmpty();
+        }
+        store.deactivate();
+    }
+
+    @Test
+    void testUploadsAreCountedAgainstTheUploadQuota() {
+        serve("/media/c", "text/plain", "ccccc");
+        var store = createStore(Map.of("uploadQuotaBytes", "10"));
+        var a = store.store(content("aaaaa"), "text/plain");
+        var fetched = join(store.fetchRemote(baseUri + "/media/c")).orElseThrow();
+        store.store(content("bbbbb"), "text/plain");
+        assertEquals(10, store.uploadedBytes());
+        assertEquals(15, store.totalBytes());
+
+        var e = assertThrows(MediaTooLargeException.class, () -> store.store(content("ccccc"), "text/plain"));
+        assertThat(e.getMessage()).contains("quota of 10 bytes");
+        assertThat(store.find(fetched.hash()).orElseThrow().remoteUrl()).isNotNull();
+        assertThrows(MediaTooLargeException.class, () -> store.store(content("ddddd"), "text/plain"));
+
+        store.delete(a.hash());
+        assertEquals(5, store.uploadedBytes());
+        var uploaded = store.store(content("ccccc"), "text/plain");
+        assertNull(uploaded.remoteUrl());
+        assertEquals(10, store.uploadedBytes());
+        assertEquals(10, store.totalBytes());
+        store.deactivate();
+    }
+
+    @Test
+    void testUploadedBytesAreCountedOnActivation() {
+        serve("/media/a", "text/plain", "aaaaa");
+        var store = createStore(Map.of());
+        store.store(content("hello"), "text/plain");
+        join(store.fetchRemote(baseUri + "/media/a")).orElseThrow();
+        store.deactivate();
+
+        var reopened = createStore(Map.of());
+
+        assertEquals(5, reopened.uploadedBytes());
+        assertEquals(10, reopened.totalBytes());
+        reopened.deactivate();
+    }
+
+    @Test
+    void testConcurrentStoresOfTheSameContentKeepOneCopy() throws Exception {
+        var store = createStore(Map.of());
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var stores = new ArrayList<Future<StoredMedia>>();
+            for (int i = 0; i < 16; ++i) {
+                stores.add(executor.submit(() -> store.store(content("hello"), "text/plain")));
+            }
+
+            for (var stored : stores) {
+                assertEquals(HELLO_HASH, stored.get().hash());
+            }
+        }
+
+        assertEquals(5, store.totalBytes());
+        assertEquals(5, store.uploadedBytes());
+        assertEquals("hello", Files.readString(store.path(store.find(HELLO_HASH).orElseThrow())));
+        store.deactivate();
+    }
+
+    private MediaStoreProvider createStore(Map<String, Object> config) {
+        return createStore(config, new MockLogService());
+    }
+
+    /**
+     * The stub server listens on localhost, so private addresses are allowed
+     * unless the test says otherwise.
+     */
+    private MediaStoreProvider createStore(Map<String, Object> config, MockLogService logservice) {
+        var store = new MediaStoreProvider();
+        store.setLogservice(logservice);
+        var configWithDirectory = new ConcurrentHashMap<String, Object>(config);
+        configWithDirectory.put("directory", directory.toString());
+        configWithDirectory.putIfAbsent("allowPrivateAddresses", true);
+        store.activate(configWithDirectory);
+        return store;
+    }
+
+    private void serve(String path, String contentType, String body) {
+        server.createContext(path, exchange -> {
+            requestCounts.computeIfAbsent(path, p -> new AtomicInteger()).incrementAndGet();
+            var bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", contentType);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (var responseBody = exchange.getResponseBody()) {
+                responseBody.write(bytes);
+            }
+        });
+    }
+
+    private void redirect(String path, String location) {
+        server.createContext(path, exchange -> {
+            requestCounts.computeIfAbsent(path, p -> new AtomicInteger()).incrementAndGet();
+            exchange.getResponseHeaders().add("Location", location);
+            exchange.sendResponseHeaders(302, -1);
+            exchange.close();
+        });
+    }
+
+    private int requestCount(String path) {
+        var count = requestCounts.get(path);
+        return count != null ? count.get() : 0;
+    }
+
+    private static InputStream content(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Optional<StoredMedia> join(CompletionStage<Optional<StoredMedia>> fetch) {
+        return fetch.toCompletableFuture().join();
+    }
+
+}
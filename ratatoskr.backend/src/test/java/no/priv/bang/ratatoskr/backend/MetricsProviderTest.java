@@ -0,0 +1,148 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.backend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.StringWriter;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import no.priv.bang.ratatoskr.services.Metrics;
+
+class MetricsProviderTest {
+
+    @Test
+    void testWritePrometheusText() throws Exception {
+        var metrics = new MetricsProvider();
+        metrics.record(Metrics.SERVICE_CALLS, TimeUnit.MILLISECONDS.toNanos(2), false, "method", "getAccounts");
+        metrics.record(Metrics.SERVICE_CALLS, TimeUnit.MILLISECONDS.toNanos(4), true, "method", "getAccounts");
+        metrics.record(Metrics.SERVICE_CALLS, TimeUnit.MILLISECONDS.toNanos(1), false, "method", "getCounter");
+
+        var text = prometheusText(metrics);
+
+        assertThat(text)
+            .contains("# HELP ratatoskr_service_call_seconds Duration of calls to the RatatoskrService\n")
+            .contains("# TYPE ratatoskr_service_call_seconds summary\n")
+            .contains("ratatoskr_service_call_seconds{method=\"getAccounts\",quantile=\"0.5\"} ")
+            .contains("ratatoskr_service_call_seconds{method=\"getAccounts\",quantile=\"0.999\"} ")
+            .contains("ratatoskr_service_call_seconds_sum{method=\"getAccounts\"} 0.006\n")
+            .contains("ratatoskr_service_call_seconds_count{method=\"getAccounts\"} 2\n")
+            .contains("ratatoskr_service_call_seconds_count{method=\"getCounter\"} 1\n")
+            .contains("# TYPE ratatoskr_service_call_errors_total counter\n")
+            .contains("ratatoskr_service_call_errors_total{method=\"getAccounts\"} 1\n")
+            .contains("ratatoskr_service_call_errors_total{method=\"getCounter\"} 0\n");
+        assertThat(text.indexOf("method=\"getAccounts\"")).isLessThan(text.indexOf("method=\"getCounter\""));
+    }
+
+    @Test
+    void testWritePrometheusTextWithoutLabels() throws Exception {
+        var metrics = new MetricsProvider();
+        metrics.record("custom_seconds", 1000, false);
+
+        var text = prometheusText(metrics);
+
+        assertThat(text)
+            .contains("# HELP custom_seconds custom_seconds\n")
+            .contains("custom_seconds{quantile=\"0.5\"} ")
+            .contains("custom_seconds_count 1\n")
+            .contains("custom_errors_total 0\n");
+    }
+
+    @Test
+    void testWritePrometheusTextWhenNothingIsRecorded() throws Exception {
+        var metrics = new MetricsProvider();
+
+        assertEquals("", prometheusText(metrics));
+    }
+
+    @Test
+    void testLabelValuesAreEscaped() throws Exception {
+        var metrics = new MetricsProvider();
+        metrics.record(Metrics.JDBC_STATEMENTS, 1000, false, "statement", "select \"id\"\nfrom actors where name like '%\\%'");
+        metrics.record(Metrics.JDBC_STATEMENTS, 1000, false, "statement", null);
+
+        var text = prometheusText(metrics);
+
+        assertThat(text)
+            .contains("ratatoskr_jdbc_statement_seconds_count{statement=\"select \\\"id\\\"\\nfrom actors where name like '%\\\\%'\"} 1\n")
+            .contains("ratatoskr_jdbc_statement_seconds_count{statement=\"\"} 1\n");
+    }
+
+    @Test
+    void testWriteRegisteredValues() throws Exception {
+        var metrics = new MetricsProvider();
+        var hits = new AtomicLong(3);
+        metrics.register("cache_hits_total", Metrics.COUNTER, "Number of cache hits", hits::get, "cache", "a");
+        metrics.register("cache_hits_total", Metrics.COUNTER, "Number of cache hits", () -> 5, "cache", "b");
+        metrics.register("cache_entries", Metrics.GAUGE, "Number of cache entries", () -> 2);
+        hits.incrementAndGet();
+
+        var text = prometheusText(metrics);
+
+        assertThat(text)
+            .contains("# HELP cache_hits_total Number of cache hits\n")
+            .contains("# TYPE cache_hits_total counter\n")
+            .contains("cache_hits_total{cache=\"a\"} 4\n")
+            .contains("cache_hits_total{cache=\"b\"} 5\n")
+            .contains("# TYPE cache_entries gauge\n")
+            .contains("cache_entries 2\n");
+
+        metrics.unregister("cache_hits_total", "cache", "a");
+        metrics.unregister("cache_entries");
+        assertThat(prometheusText(metrics))
+            .doesNotContain("cache=\"a\"")
+            .doesNotContain("cache_entries")
+            .contains("cache_hits_total{cache=\"b\"} 5\n");
+    }
+
+    @Test
+    void testErrorsName() {
+        assertEquals("ratatoskr_http_request_errors_total", MetricsProvider.errorsName(Metrics.HTTP_REQUESTS));
+        assertEquals("requests_errors_total", MetricsProvider.errorsName("requests"));
+    }
+
+    @Test
+    void testConcurrentRecording() throws Exception {
+        var metrics = new MetricsProvider();
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int task = 0; task < 100; ++task) {
+                var method = "method" + (task % 4);
+                executor.submit(() -> {
+                    for (int i = 0; i < 100; ++i) {
+                        metrics.record(Metrics.SERVICE_CALLS, i, false, "method", method);
+                    }
+                });
+            }
+        }
+
+        var text = prometheusText(metrics);
+        for (int i = 0; i < 4; ++i) {
+            assertThat(text).contains("ratatoskr_service_call_seconds_count{method=\"method" + i + "\"} 2500\n");
+        }
+    }
+
+    private String prometheusText(Metrics metrics) throws Exception {
+        var writer = new StringWriter();
+        metrics.writePrometheusText(writer);
+        return writer.toString();
+    }
+
+}
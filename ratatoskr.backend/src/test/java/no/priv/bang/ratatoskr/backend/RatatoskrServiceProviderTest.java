@@ -15,20 +15,30 @@
  */
 package no.priv.bang.ratatoskr.backend;
 
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Locale;
+import java.util.MissingResourceException;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
 
 import javax.sql.DataSource;
 
+import static org.mockito.AdditionalAnswers.delegatesTo;
 import static org.mockito.Mockito.*;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
@@ -38,17 +48,26 @@ import org.junit.jupiter.api.Test;
 import org.ops4j.pax.jdbc.derby.impl.DerbyDataSourceFactory;
 import org.osgi.service.jdbc.DataSourceFactory;
 
+import no.priv.bang.ratatoskr.asvocabulary.ActivityStreamObjectType;
 import no.priv.bang.ratatoskr.asvocabulary.Article;
 import no.priv.bang.ratatoskr.asvocabulary.Group;
+import no.priv.bang.ratatoskr.asvocabulary.Hashtag;
 import no.priv.bang.ratatoskr.asvocabulary.Link;
 import no.priv.bang.ratatoskr.asvocabulary.LinkOrObjectList;
 import no.priv.bang.ratatoskr.db.liquibase.test.RatatoskrTestDbLiquibaseRunner;
+import no.priv.bang.ratatoskr.services.AccountChangeListener;
+import no.priv.bang.ratatoskr.services.ActorChangeListener;
 import no.priv.bang.ratatoskr.services.RatatoskrException;
 import no.priv.bang.ratatoskr.services.activitypub.Like;
 import no.priv.bang.ratatoskr.services.activitypub.Person;
 import no.priv.bang.ratatoskr.services.activitypub.Status;
+import no.priv.bang.ratatoskr.services.beans.AccountChange;
+import no.priv.bang.ratatoskr.services.beans.ActorCounts;
+import no.priv.bang.ratatoskr.services.beans.ArticleCounts;
 import no.priv.bang.ratatoskr.services.beans.CounterIncrementStepBean;
+import no.priv.bang.ratatoskr.services.beans.CustomEmoji;
 import no.priv.bang.ratatoskr.services.beans.LocaleBean;
+import no.priv.bang.ratatoskr.services.beans.ResourceVersion;
 import no.priv.bang.jdbc.sqldumper.ResultSetSqlDumper;
 import no.priv.bang.osgi.service.mocks.logservice.MockLogService;
 import no.priv.bang.osgiservice.users.Role;
@@ -164,6 +183,82 @@ class RatatoskrServiceProviderTest {
         assertThat(logservice.getLogmessages()).isNotEmpty();
     }
 
+    @Test
+    void testLazilyCreateAccountForAccountKnownAtStartup() throws Exception {
+        var accountsDatasource = createDatabase("ratatoskrknownaccounts");
+        var useradmin = mock(UserManagementService.class);
+        var provider = new RatatoskrServiceProvider();
+        provider.setLogservice(new MockLogService());
+        provider.setDatasource(accountsDatasource);
+        provider.setUseradmin(useradmin);
+        provider.activate(Collections.singletonMap("defaultlocale", "nb_NO"));
+        assertTrue(provider.lazilyCreateAccount("jod"));
+
+        // A provider started after the account was created doesn't look for it on login
+        var spiedDatasource = mock(DataSource.class, delegatesTo(accountsDatasource));
+        var restartedProvider = new RatatoskrServiceProvider();
+        restartedProvider.setLogservice(new MockLogService());
+        restartedProvider.setDatasource(spiedDatasource);
+        restartedProvider.setUseradmin(useradmin);
+        restartedProvider.activate(Collections.singletonMap("defaultlocale", "nb_NO"));
+        clearInvocations(spiedDatasource);
+        assertFalse(restartedProvider.lazilyCreateAccount("jod"));
+        verify(spiedDatasource, never()).getConnection();
+    }
+
+    @Test
+    void testLazilyCreateAccountForAccountCreatedAfterStartup() throws Exception {
+        var accountsDatasource = createDatabase("ratatoskrcreatedaccounts");
+        var useradmin = mock(UserManagementService.class);
+        var logservice = new MockLogService();
+        var provider = new RatatoskrServiceProvider();
+        provider.setLogservice(logservice);
+        provider.setDatasource(accountsDatasource);
+        provider.setUseradmin(useradmin);
+        provider.activate(Collections.singletonMap("defaultlocale", "nb_NO"));
+        var otherProvider = new RatatoskrServiceProvider();
+        otherProvider.setLogservice(logservice);
+        otherProvider.setDatasource(accountsDatasource);
+        otherProvider.setUseradmin(useradmin);
+        otherProvider.activate(Collections.singletonMap("defaultlocale", "nb_NO"));
+
+        // The account is created by a different provider after startup
+        assertTrue(otherProvider.lazilyCreateAccount("kad"));
+        assertFalse(provider.lazilyCreateAccount("kad"));
+        assertThat(logservice.getLogmessages()).isEmpty();
+        assertThat(provider.getAccounts()).hasSize(1);
+        assertThat(provider.getCounter("kad")).isPresent();
+    }
+
+    @Test
+    void testLazilyCreateAccountIsRolledBackOnFailure() throws Exception {
+        var accountsDatasource = createDatabase("ratatoskrfailedaccounts");
+        var useradmin = mock(UserManagementService.class);
+        var logservice = new MockLogService();
+        var provider = new RatatoskrServiceProvider();
+        provider.setLogservice(logservice);
+        provider.setDatasource(accountsDatasource);
+        provider.setUseradmin(useradmin);
+        provider.activate(Collections.singletonMap("defaultlocale", "nb_NO"));
+
+        // Fail the last insert of the account creation
+        var connection = mock(Connection.class, delegatesTo(accountsDatasource.getConnection()));
+        doThrow(SQLException.class).when(connection).prepareStatement("insert into counters (account_id) values (?)");
+        var failingDatasource = mock(DataSource.class);
+        when(failingDatasource.getConnection()).thenReturn(connection);
+        provider.setDatasource(failingDatasource);
+        assertFalse(provider.lazilyCreateAccount("lad"));
+        verify(connection).rollback();
+        verify(connection, never()).commit();
+        assertThat(logservice.getLogmessages()).isNotEmpty();
+
+        // Nothing of the failed account was left behind
+        provider.setDatasource(accountsDatasource);
+        assertThat(provider.getAccounts()).isEmpty();
+        assertTrue(provider.lazilyCreateAccount("lad"));
+        assertThat(provider.getCounterIncrementStep("lad")).isPresent();
+    }
+
     @Test
     void testThatRolesAreAddedIfMissing() {
         var logservice = new MockLogService();
@@ -236,6 +331,67 @@ class RatatoskrServiceProviderTest {
         assertThat(actor).hasValue(person);
     }
 
+    @Test
+    void testAddActorNotifiesActorChangeListeners() {
+        var logservice = new MockLogService();
+        var useradmin = mock(UserManagementService.class);
+        var provider = new RatatoskrServiceProvider();
+        provider.setLogservice(logservice);
+        provider.setDatasource(datasource);
+        provider.setUseradmin(useradmin);
+        var listener = mock(ActorChangeListener.class);
+        var failingListener = mock(ActorChangeListener.class);
+        doThrow(RuntimeException.class).when(failingListener).actorChanged(any());
+        var removedListener = mock(ActorChangeListener.class);
+        provider.addActorChangeListener(failingListener);
+        provider.addActorChangeListener(listener);
+        provider.addActorChangeListener(removedListener);
+        provider.removeActorChangeListener(removedListener);
+        provider.activate(Collections.singletonMap("defaultlocale", "nb_NO"));
+
+        var person = Person.with()
+            .id("https://mariem.example.com")
+            .preferredUsername("mariem")
+            .name("Marie Martin")
+            .build();
+
+        var actor = provider.addPerson(person);
+        assertThat(actor).hasValue(person);
+        verify(listener).actorChanged(person);
+        verify(removedListener, never()).actorChanged(any());
+        assertThat(logservice.getLogmessages()).hasSize(1);
+    }
+
+    @Test
+    void testCounterChangesNotifyAccountChangeListeners() {
+        var logservice = new MockLogService();
+        var useradmin = mock(UserManagementService.class);
+        var provider = new RatatoskrServiceProvider();
+        provider.setLogservice(logservice);
+        provider.setDatasource(datasource);
+        provider.setUseradmin(useradmin);
+        var listener = mock(AccountChangeListener.class);
+        var failingListener = mock(AccountChangeListener.class);
+        doThrow(RuntimeException.class).when(failingListener).accountChanged(any());
+        var removedListener = mock(AccountChangeListener.class);
+        provider.addAccountChangeListener(failingListener);
+        provider.addAccountChangeListener(listener);
+        provider.addAccountChangeListener(removedListener);
+        provider.removeAccountChangeListener(removedListener);
+        provider.activate(Collections.singletonMap("defaultlocale", "nb_NO"));
+        provider.lazilyCreateAccount("countlistener");
+        verifyNoInteractions(listener);
+
+        var incrementStep = provider.updateCounterIncrementStep(CounterIncrementStepBean.with().username("countlistener").counterIncrementStep(2).build()).orElseThrow();
+        verify(listener).accountChanged(AccountChange.with().username("countlistener").type(AccountChange.COUNTER_INCREMENT_STEP).data(incrementStep).build());
+        var incremented = provider.incrementCounter("countlistener").orElseThrow();
+        verify(listener).accountChanged(AccountChange.with().username("countlistener").type(AccountChange.COUNTER).data(incremented).build());
+        var decremented = provider.decrementCounter("countlistener").orElseThrow();
+        verify(listener).accountChanged(AccountChange.with().username("countlistener").type(AccountChange.COUNTER).data(decremented).build());
+        verify(removedListener, never()).accountChanged(any());
+        assertThat(logservice.getLogmessages()).hasSize(3);
+    }
+
     @Test
     void testAddActorWithSqlExceptionThrown() throws Exception {
         var logservice = new MockLogService();
@@ -442,6 +598,23 @@ class RatatoskrServiceProviderTest {
         assertThrows(RatatoskrException.class, () -> provider.addArticle(article));
     }
 
+    @Test
+    void testAddArticleIsRolledBackWhenIndexingHashtagsFails() {
+        var provider = createProvider(datasource);
+
+        var sally = provider.findPersonWithUsername("sally").get();
+        var tooLongHashtag = "#" + "x".repeat(200);
+        var article = Article.with()
+            .id("https://sally.example.com/posts/rolledback")
+            .attributedTo(Link.with().href(sally.id()).build())
+            .tag(new LinkOrObjectList(List.of(hashtag("#rolledback"), hashtag(tooLongHashtag))))
+            .build();
+
+        assertThrows(RatatoskrException.class, () -> provider.addArticle(article));
+        assertThat(provider.findArticle(article.id())).isEmpty();
+        assertThat(provider.findTagTimeline("rolledback", null, 20).totalItems()).isZero();
+    }
+
     @Test
     void testFindArticleWithNameNotFound() {
         var logservice = new MockLogService();
@@ -472,6 +645,302 @@ class RatatoskrServiceProviderTest {
         assertThrows(RatatoskrException.class, () -> provider.findArticle("Doesn't matter"));
     }
 
+    @Test
+    void testAddArticlesWithHashtagsAndPageThroughTagTimeline() {
+        var logservice = new MockLogService();
+        var useradmin = mock(UserManagementService.class);
+        var provider = new RatatoskrServiceProvider();
+        provider.setLogservice(logservice);
+        provider.setDatasource(datasource);
+        provider.setUseradmin(useradmin);
+        provider.activate(Collections.singletonMap("defaultlocale", "nb_NO"));
+
+        var sally = provider.findPersonWithUsername("sally").get();
+        var published = ZonedDateTime.of(2026, 1, 1, 12, 0, 0, 0, ZoneId.of("UTC"));
+        for (int i = 0; i < 5; ++i) {
+            var tags = new LinkOrObjectList(List.of(hashtag("#Caturday"), hashtag("#tagtimeline")));
+            provider.addArticle(Article.with()
+                .id("https://sally.example.com/posts/tagged" + i)
+                .name("Cat picture " + i)
+                .attributedTo(Link.with().href(sally.id()).build())
+                .published(published.plusMinutes(i))
+                .tag(tags)
+                .build());
+        }
+
+        var firstPage = provider.findTagTimeline("#CATURDAY", null, 2);
+        assertThat(firstPage.hashtag()).isEqualTo("caturday");
+        assertThat(firstPage.totalItems()).isEqualTo(5);
+        assertThat(firstPage.orderedItems()).extracting(Article::id)
+            .containsExactly("https://sally.example.com/posts/tagged4", "https://sally.example.com/posts/tagged3");
+        assertThat(firstPage.next()).isNotNull();
+
+        var secondPage = provider.findTagTimeline("caturday", firstPage.next(), 2);
+        assertThat(secondPage.orderedItems()).extracting(Article::id)
+            .containsExactly("https://sally.example.com/posts/tagged2", "https://sally.example.com/posts/tagged1");
+
+        var lastPage = provider.findTagTimeline("caturday", secondPage.next(), 2);
+        assertThat(lastPage.orderedItems()).extracting(Article::id)
+            .containsExactly("https://sally.example.com/posts/tagged0");
+        assertThat(lastPage.next()).isNull();
+
+        var otherTag = provider.findTagTimeline("tagtimeline", null, 10);
+        assertThat(otherTag.totalItems()).isEqualTo(5);
+        assertThat(otherTag.orderedItems()).hasSize(5);
+    }
+
+    @Test
+    void testPageThroughTagTimelineWithArticlesPublishedInTheSameMillisecond() {
+        var logservice = new MockLogService();
+        var useradmin = mock(UserManagementService.class);
+        var provider = new RatatoskrServiceProvider();
+        provider.setLogservice(logservice);
+        provider.setDatasource(datasource);
+        provider.setUseradmin(useradmin);
+        provider.activate(Collections.singletonMap("defaultlocale", "nb_NO"));
+
+        var sally = provider.findPersonWithUsername("sally").get();
+        var published = ZonedDateTime.of(2026, 2, 1, 12, 0, 0, 0, ZoneId.of("UTC"));
+        for (int i = 0; i < 3; ++i) {
+            provider.addArticle(Article.with()
+                .id("https://sally.example.com/posts/samemillisecond" + i)
+                .name("Same millisecond " + i)
+                .attributedTo(Link.with().href(sally.id()).build())
+                .published(published.plusNanos(1000L * (i + 1)))
+                .tag(new LinkOrObjectList(List.of(hashtag("#samemillisecond"))))
+                .build());
+        }
+
+        var ids = new ArrayList<String>();
+        var page = provider.findTagTimeline("samemillisecond", null, 1);
+        ids.addAll(page.orderedItems().stream().map(Article::id).toList());
+        while (page.next() != null) {
+            page = provider.findTagTimeline("samemillisecond", page.next(), 1);
+            ids.addAll(page.orderedItems().stream().map(Article::id).toList());
+        }
+
+        assertThat(ids).containsExactly(
+            "https://sally.example.com/posts/samemillisecond2",
+            "https://sally.example.com/posts/samemillisecond1",
+            "https://sally.example.com/posts/samemillisecond0");
+    }
+
+    @Test
+    void testFindTagTimelineWithUnknownHashtag() {
+        var logservice = new MockLogService();
+        var useradmin = mock(UserManagementService.class);
+        var provider = new RatatoskrServiceProvider();
+        provider.setLogservice(logservice);
+        provider.setDatasource(datasource);
+        provider.setUseradmin(useradmin);
+        provider.activate(Collections.singletonMap("defaultlocale", "nb_NO"));
+
+        var timeline = provider.findTagTimeline("nosuchtag", null, 20);
+        assertThat(timeline.totalItems()).isZero();
+        assertThat(timeline.orderedItems()).isEmpty();
+        assertThat(timeline.next()).isNull();
+    }
+
+    @Test
+    void testFindTagTimelineWithMalformedCursor() {
+        var logservice = new MockLogService();
+        var useradmin = mock(UserManagementService.class);
+        var provider = new RatatoskrServiceProvider();
+        provider.setLogservice(logservice);
+        provider.setDatasource(datasource);
+        provider.setUseradmin(useradmin);
+        provider.activate(Collections.singletonMap("defaultlocale", "nb_NO"));
+
+        assertThrows(RatatoskrException.class, () -> provider.findTagTimeline("caturday", "notacursor", 20));
+    }
+
+    @Test
+    void testFindTagTimelineWithSqlExceptionThrown() throws Exception {
+        var logservice = new MockLogService();
+        var useradmin = mock(UserManagementService.class);
+        var provider = new RatatoskrServiceProvider();
+        var mockDatasource = mock(DataSource.class);
+        when(mockDatasource.getConnection()).thenThrow(SQLException.class);
+        provider.setLogservice(logservice);
+        provider.setDatasource(mockDatasource);
+        provider.setUseradmin(useradmin);
+        provider.activate(Collections.singletonMap("defaultlocale", "nb_NO"));
+
+        assertThrows(RatatoskrException.class, () -> provider.findTagTimeline("caturday", null, 20));
+    }
+
+    @Test
+    void testAddRepliesAndFindThread() {
+        var provider = createProvider(datasource);
+
+        var sally = provider.findPersonWithUsername("sally").get();
+        var published = ZonedDateTime.of(2026, 2, 1, 12, 0, 0, 0, ZoneId.of("UTC"));
+        provider.addArticle(threadArticle(sally, "root", null, published));
+        provider.addArticle(threadArticle(sally, "reply1", "root", published.plusMinutes(1)));
+        provider.addArticle(threadArticle(sally, "reply2", "root", published.plusMinutes(2)));
+        provider.addArticle(threadArticle(sally, "reply1a", "reply1", published.plusMinutes(3)));
+        provider.addArticle(threadArticle(sally, "reply1a1", "reply1a", published.plusMinutes(4)));
+
+        var thread = provider.findThread(threadArticleId("reply1a")).get();
+        assertThat(thread.ancestors()).extracting(Article::id)
+            .containsExactly(threadArticleId("root"), threadArticleId("reply1"));
+        assertEquals(threadArticleId("reply1a"), thread.article().id());
+        assertEquals(threadArticleId("reply1"), ((Link) thread.article().inReplyTo()).href());
+        assertThat(thread.descendants()).extracting(Article::id)
+            .containsExactly(threadArticleId("reply1a1"));
+
+        var wholeThread = provider.findThread(threadArticleId("root")).get();
+        assertThat(wholeThread.ancestors()).isEmpty();
+        assertThat(wholeThread.article().inReplyTo()).isNull();
+        assertThat(wholeThread.descendants()).extracting(Article::id)
+            .containsExactly(threadArticleId("reply1"), threadArticleId("reply2"), threadArticleId("reply1a"), threadArticleId("reply1a1"));
+    }
+
+    @Test
+    void testRepliesAddedBeforeTheArticleTheyReplyToAreAddedToTheThread() {
+        var provider = createProvider(datasource);
+
+        var sally = provider.findPersonWithUsername("sally").get();
+        var published = ZonedDateTime.of(2026, 2, 2, 12, 0, 0, 0, ZoneId.of("UTC"));
+        provider.addArticle(threadArticle(sally, "late-reply1a", "late-reply1", published.plusMinutes(2)));
+        provider.addArticle(threadArticle(sally, "late-reply1", "late-root", published.plusMinutes(1)));
+        assertThat(provider.findThread(threadArticleId("late-reply1a")).get().ancestors()).extracting(Article::id)
+            .containsExactly(threadArticleId("late-reply1"));
+
+        provider.addArticle(threadArticle(sally, "late-root", null, published));
+
+        var thread = provider.findThread(threadArticleId("late-reply1a")).get();
+        assertThat(thread.ancestors()).extracting(Article::id)
+            .containsExactly(threadArticleId("late-root"), threadArticleId("late-reply1"));
+        assertThat(provider.findThread(threadArticleId("late-root")).get().descendants()).extracting(Article::id)
+            .containsExactly(threadArticleId("late-reply1"), threadArticleId("late-reply1a"));
+    }
+
+    @Test
+    void testRepliesToEachOtherDontBreakTheThreadIndex() {
+        var provider = createProvider(datasource);
+
+        var sally = provider.findPersonWithUsername("sally").get();
+        var published = ZonedDateTime.of(2026, 2, 3, 12, 0, 0, 0, ZoneId.of("UTC"));
+        provider.addArticle(threadArticle(sally, "cycle1", "cycle2", published));
+        provider.addArticle(threadArticle(sally, "cycle2", "cycle1", published.plusMinutes(1)));
+        provider.addArticle(threadArticle(sally, "cycle3", "cycle3", published.plusMinutes(2)));
+
+        assertThat(provider.findThread(threadArticleId("cycle2")).get().ancestors()).extracting(Article::id)
+            .containsExactly(threadArticleId("cycle1"));
+        assertThat(provider.findThread(threadArticleId("cycle3")).get().ancestors()).isEmpty();
+    }
+
+    @Test
+    void testFindThreadUsesASingleQuery() throws Exception {
+        var sally = createProvider(datasource).findPersonWithUsername("sally").get();
+        var published = ZonedDateTime.of(2026, 2, 4, 12, 0, 0, 0, ZoneId.of("UTC"));
+        var writer = createProvider(datasource);
+        String parent = null;
+        for (int i = 0; i < 200; ++i) {
+            writer.addArticle(threadArticle(sally, "long" + i, parent, published.plusSeconds(i)));
+            parent = "long" + i;
+        }
+
+        var connection = mock(Connection.class, delegatesTo(datasource.getConnection()));
+        var countingDatasource = mock(DataSource.class);
+        when(countingDatasource.getConnection()).thenReturn(connection);
+        var provider = createProvider(countingDatasource);
+
+        var thread = provider.findThread(threadArticleId("long100")).get();
+        assertThat(thread.ancestors()).hasSize(100);
+        assertEquals(threadArticleId("long0"), thread.ancestors().get(0).id());
+        assertThat(thread.descendants()).hasSize(99);
+        verify(countingDatasource, times(1)).getConnection();
+        verify(connection, times(1)).prepareStatement(anyString());
+    }
+
+    @Test
+    void testFindThreadWithArticleNotFound() {
+        var provider = createProvider(datasource);
+
+        assertThat(provider.findThread("https://sally.example.com/posts/nosuchpost")).isEmpty();
+    }
+
+    @Test
+    void testFindThreadWithSqlExceptionThrown() throws Exception {
+        var mockDatasource = mock(DataSource.class);
+        when(mockDatasource.getConnection()).thenThrow(SQLException.class);
+        var provider = createProvider(mockDatasource);
+
+        assertThrows(RatatoskrException.class, () -> provider.findThread("Doesn't matter"));
+    }
+
+    @Test
+    void testPageThroughReplies() {
+        var provider = createProvider(datasource);
+
+        var sally = provider.findPersonWithUsername("sally").get();
+        var published = ZonedDateTime.of(2026, 2, 5, 12, 0, 0, 0, ZoneId.of("UTC"));
+        provider.addArticle(threadArticle(sally, "paged", null, published));
+        for (int i = 0; i < 5; ++i) {
+            provider.addArticle(threadArticle(sally, "paged-reply" + i, "paged", published.plusMinutes(i + 1L)));
+        }
+        provider.addArticle(threadArticle(sally, "paged-reply0-reply", "paged-reply0", published.plusMinutes(10)));
+
+        var firstPage = provider.findReplies(threadArticleId("paged"), null, 2);
+        assertEquals(threadArticleId("paged"), firstPage.partOf());
+        assertEquals(5, firstPage.totalItems());
+        assertThat(firstPage.orderedItems()).extracting(Article::id)
+            .containsExactly(threadArticleId("paged-reply0"), threadArticleId("paged-reply1"));
+        assertThat(firstPage.next()).isNotNull();
+
+        var secondPage = provider.findReplies(threadArticleId("paged"), firstPage.next(), 2);
+        assertThat(secondPage.orderedItems()).extracting(Article::id)
+            .containsExactly(threadArticleId("paged-reply2"), threadArticleId("paged-reply3"));
+
+        var lastPage = provider.findReplies(threadArticleId("paged"), secondPage.next(), 2);
+        assertThat(lastPage.orderedItems()).extracting(Article::id)
+            .containsExactly(threadArticleId("paged-reply4"));
+        assertThat(lastPage.next()).isNull();
+    }
+
+    @Test
+    void testFindRepliesWithArticleNotFound() {
+        var provider = createProvider(datasource);
+
+        var replies = provider.findReplies("https://sally.example.com/posts/nosuchpost", null, 20);
+        assertThat(replies.totalItems()).isZero();
+        assertThat(replies.orderedItems()).isEmpty();
+        assertThat(replies.next()).isNull();
+    }
+
+    @Test
+    void testFindRepliesWithMalformedCursor() {
+        var provider = createProvider(datasource);
+
+        assertThrows(RatatoskrException.class, () -> provider.findReplies(threadArticleId("paged"), "notacursor", 20));
+    }
+
+    @Test
+    void testFindRepliesWithSqlExceptionThrown() throws Exception {
+        var mockDatasource = mock(DataSource.class);
+        when(mockDatasource.getConnection()).thenThrow(SQLException.class);
+        var provider = createProvider(mockDatasource);
+
+        assertThrows(RatatoskrException.class, () -> provider.findReplies("Doesn't matter", null, 20));
+    }
+
+    @Test
+    void testFindHashtagNames() {
+        var ratatoskr = new RatatoskrServiceProvider();
+
+        var tags = new LinkOrObjectList(List.of(
+            hashtag("#Caturday"),
+            hashtag("caturday"),
+            hashtag("#"),
+            Link.with().href("https://example.com").build(),
+            new LinkOrObjectList(List.of(hashtag("#ｆｕｌｌｗｉｄｔｈ")))));
+        assertThat(ratatoskr.findHashtagNames(tags, new LinkedHashSet<>())).containsExactly("caturday", "fullwidth");
+        assertThat(ratatoskr.findHashtagNames(null, new LinkedHashSet<>())).isEmpty();
+        assertThat(ratatoskr.normalizeHashtag(null)).isEmpty();
+    }
+
     @Test
     void testAddFollower() {
         var logservice = new MockLogService();
@@ -490,6 +959,98 @@ class RatatoskrServiceProviderTest {
         assertThat(updatedfollowers).isNotEmpty().contains(sally);
     }
 
+    @Test
+    void testFindVersions() {
+        var logservice = new MockLogService();
+        var useradmin = mock(UserManagementService.class);
+        var provider = new RatatoskrServiceProvider();
+        provider.setLogservice(logservice);
+        provider.setDatasource(datasource);
+        provider.setUseradmin(useradmin);
+        provider.activate(Collections.singletonMap("defaultlocale", "nb_NO"));
+
+        var versioned = provider.addPerson(Person.with().id("http://localhost:8181/ratatoskr/as/actor/versioned").preferredUsername("versioned").build()).get();
+        var follower = provider.addPerson(Person.with().id("https://follower.example.com").preferredUsername("follower").build()).get();
+        assertThat(provider.findActorVersion(versioned.preferredUsername())).get().extracting(ResourceVersion::lastModified).isNotNull();
+        assertThat(provider.findActorVersion("nosuchactor")).isEmpty();
+        var emptyFollowers = provider.findFollowersVersion(versioned.preferredUsername());
+        assertThat(emptyFollowers.count()).isZero();
+        assertThat(emptyFollowers.lastModified()).isNull();
+
+        provider.addFollowerToUsername(versioned.preferredUsername(), follower.id());
+        var followers = provider.findFollowersVersion(versioned.preferredUsername());
+        assertThat(followers.count()).isEqualTo(1);
+        assertThat(followers.lastModified()).isNotNull();
+        assertThat(followers).isNotEqualTo(emptyFollowers);
+
+        provider.addFollowedToUsername(versioned.preferredUsername(), follower.id());
+        var following = provider.findFollowingVersion(versioned.preferredUsername());
+        assertThat(following.count()).isEqualTo(1);
+        assertThat(following.lastModified()).isNotNull();
+        var emptyLiked = provider.findLikedVersion(versioned.preferredUsername());
+        assertThat(emptyLiked.count()).isZero();
+        assertThat(emptyLiked.lastModified()).isNull();
+        assertThat(provider.findFollowersVersion("nosuchactor")).isEqualTo(ResourceVersion.with().build());
+    }
+
+    @Test
+    void testForEachFollowerWithUsername() {
+        var logservice = new MockLogService();
+        var useradmin = mock(UserManagementService.class);
+        var provider = new RatatoskrServiceProvider();
+        provider.setLogservice(logservice);
+        provider.setDatasource(datasource);
+        provider.setUseradmin(useradmin);
+        provider.activate(Collections.singletonMap("defaultlocale", "nb_NO"));
+
+        var popular = provider.addPerson(Person.with().id("http://localhost:8181/ratatoskr/as/actor/popular").preferredUsername("popular").build()).get();
+        var followerCount = RatatoskrServiceProvider.STREAMING_FETCH_SIZE + 5;
+        for (int i = 0; i < followerCount; ++i) {
+            var fan = provider.addPerson(Person.with().id("https://fan" + i + ".example.com").preferredUsername("fan" + i).build()).get();
+            provider.addFollowerToUsername(popular.preferredUsername(), fan.id());
+        }
+
+        var followers = new ArrayList<Person>();
+        var count = provider.forEachFollowerWithUsername(popular.preferredUsername(), followers::add);
+
+        assertThat(count).isEqualTo(followerCount);
+        assertThat(followers).hasSize(followerCount).containsExactlyInAnyOrderElementsOf(provider.findFollowersWithUsername(popular.preferredUsername()));
+        assertThat(provider.forEachFollowerWithUsername("nosuchactor", followers::add)).isZero();
+    }
+
+    @Test
+    void testForEachFollowerWithUsernameWithSQLExceptionThrown() throws Exception {
+        var logservice = new MockLogService();
+        var useradmin = mock(UserManagementService.class);
+        var provider = new RatatoskrServiceProvider();
+        var mockDatasource = mock(DataSource.class);
+        when(mockDatasource.getConnection()).thenThrow(SQLException.class);
+        provider.setLogservice(logservice);
+        provider.setDatasource(mockDatasource);
+        provider.setUseradmin(useradmin);
+        provider.activate(Collections.singletonMap("defaultlocale", "nb_NO"));
+
+        assertThrows(RatatoskrException.class, () -> provider.forEachFollowerWithUsername("johnd", f -> {}));
+    }
+
+    @Test
+    void testFindVersionsWithSQLExceptionThrown() throws Exception {
+        var logservice = new MockLogService();
+        var useradmin = mock(UserManagementService.class);
+        var provider = new RatatoskrServiceProvider();
+        var mockDatasource = mock(DataSource.class);
+        when(mockDatasource.getConnection()).thenThrow(SQLException.class);
+        provider.setLogservice(logservice);
+        provider.setDatasource(mockDatasource);
+        provider.setUseradmin(useradmin);
+        provider.activate(Collections.singletonMap("defaultlocale", "nb_NO"));
+
+        assertThrows(RatatoskrException.class, () -> provider.findActorVersion("johnd"));
+        assertThrows(RatatoskrException.class, () -> provider.findFollowersVersion("johnd"));
+        assertThrows(RatatoskrException.class, () -> provider.findFollowingVersion("johnd"));
+        assertThrows(RatatoskrException.class, () -> provider.findLikedVersion("johnd"));
+    }
+
     @Test
     void testAddFollowerWithSQLExceptionThrown() throws Exception {
         var logservice = new MockLogService();
@@ -509,6 +1070,26 @@ class RatatoskrServiceProviderTest {
         assertThrows(RatatoskrException.class, () -> provider.addFollowerToUsername(username, sallyId));
     }
 
+    @Test
+    void testAddFollowerIsRolledBackWhenCountingFails() throws Exception {
+        var followersDatasource = createDatabase("ratatoskrfailedfollower");
+        var provider = createProvider(followersDatasource);
+        var sallyId = provider.findPersonWithUsername("sally").get().id();
+        var connection = mock(Connection.class, delegatesTo(followersDatasource.getConnection()));
+        doThrow(SQLException.class).when(connection).prepareStatement(RatatoskrServiceProvider.INCREMENT_FOLLOWERS_COUNT);
+        var failingDatasource = mock(DataSource.class);
+        when(failingDatasource.getConnection()).thenReturn(connection);
+        provider.setDatasource(failingDatasource);
+
+        assertThrows(RatatoskrException.class, () -> provider.addFollowerToUsername("johnd", sallyId));
+        verify(connection).rollback();
+        verify(connection, never()).commit();
+
+        // The follower wasn't added without counting it
+        provider.setDatasource(followersDatasource);
+        assertThat(provider.findFollowersWithUsername("johnd")).isEmpty();
+    }
+
     @Test
     void testFindFollowersWithSQLExceptionThrown() throws Exception {
         var logservice = new MockLogService();
@@ -576,6 +1157,206 @@ class RatatoskrServiceProviderTest {
         assertThrows(RatatoskrException.class, () -> provider.findFollowingWithUsername(username));
     }
 
+    @Test
+    void testCountsAreMaintainedWithTheRowsCounted() {
+        var provider = createProvider(datasource);
+
+        var counted = provider.addPerson(Person.with().id("http://localhost:8181/ratatoskr/as/actor/counted").preferredUsername("counted").build()).get();
+        assertThat(provider.findActorCounts(counted.preferredUsername())).contains(ActorCounts.with().build());
+        var sally = provider.findPersonWithUsername("sally").get();
+        provider.addFollowerToUsername(counted.preferredUsername(), sally.id());
+        provider.addFollowedToUsername(counted.preferredUsername(), sally.id());
+        var published = ZonedDateTime.of(2026, 3, 1, 12, 0, 0, 0, ZoneId.of("UTC"));
+        var article = provider.addArticle(threadArticle(sally, "counted", null, published)).get();
+        provider.addArticle(threadArticle(sally, "counted-reply", "counted", published.plusMinutes(1)));
+        provider.userLikeArticle(counted.preferredUsername(), article, Group.with().build(), "http://localhost:8181/ratatoskr/");
+
+        assertThat(provider.findActorCounts(counted.preferredUsername())).contains(ActorCounts.with().followers(1).following(1).liked(1).build());
+        assertThat(provider.findArticleCounts(article.id())).contains(ArticleCounts.with().likes(1).replies(1).build());
+        assertThat(provider.findActorCounts("nosuchactor")).isEmpty();
+        assertThat(provider.findArticleCounts(threadArticleId("nosucharticle"))).isEmpty();
+    }
+
+    @Test
+    void testRepliesAddedBeforeTheArticleTheyReplyToAreCounted() {
+        var provider = createProvider(datasource);
+
+        var sally = provider.findPersonWithUsername("sally").get();
+        var published = ZonedDateTime.of(2026, 3, 2, 12, 0, 0, 0, ZoneId.of("UTC"));
+        provider.addArticle(threadArticle(sally, "counted-early-reply", "counted-late", published.plusMinutes(1)));
+        var article = provider.addArticle(threadArticle(sally, "counted-late", null, published)).get();
+
+        assertThat(provider.findArticleCounts(article.id())).get().extracting(ArticleCounts::replies).isEqualTo(1);
+    }
+
+    @Test
+    void testConcurrentlyAddedRowsAreCounted() throws Exception {
+        var provider = createProvider(datasource);
+
+        var popular = provider.addPerson(Person.with().id("http://localhost:8181/ratatoskr/as/actor/concurrent").preferredUsername("concurrent").build()).get();
+        var sally = provider.findPersonWithUsername("sally").get();
+        var article = provider.addArticle(threadArticle(sally, "concurrently-liked", null, ZonedDateTime.now())).get();
+        var threads = 8;
+        var rowsPerThread = 10;
+        var tasks = new ArrayList<Callable<Void>>();
+        for (int thread = 0; thread < threads; ++thread) {
+            var fans = new ArrayList<Person>();
+            for (int row = 0; row < rowsPerThread; ++row) {
+                var username = "concurrentfan" + thread + "-" + row;
+                fans.add(provider.addPerson(Person.with().id("https://" + username + ".example.com").preferredUsername(username).build()).get());
+            }
+            tasks.add(() -> {
+                for (var fan : fans) {
+                    provider.addFollowerToUsername(popular.preferredUsername(), fan.id());
+                    provider.addFollowedToUsername(popular.preferredUsername(), fan.id());
+                    provider.addLikeToUsername(fan.preferredUsername(), Like.with()
+                        .id(fan.id() + "/likes/1")
+                        .authoredBy(Person.with().build())
+                        .inReplyTo(Status.with().id(article.id()).build())
+                        .build());
+                }
+                return null;
+            });
+        }
+
+        try (var executor = Executors.newFixedThreadPool(threads)) {
+            for (var result : executor.invokeAll(tasks)) {
+                result.get();
+            }
+        }
+
+        var rows = threads * rowsPerThread;
+        var counts = provider.findActorCounts(popular.preferredUsername()).get();
+        assertThat(counts.followers()).isEqualTo(rows).isEqualTo(provider.findFollowersVersion(popular.preferredUsername()).count());
+        assertThat(counts.following()).isEqualTo(rows).isEqualTo(provider.findFollowingVersion(popular.preferredUsername()).count());
+        assertThat(provider.findArticleCounts(article.id())).get().extracting(ArticleCounts::likes).isEqualTo(rows);
+        assertThat(provider.findActorCounts("concurrentfan0-0")).get().extracting(ActorCounts::liked).isEqualTo(1);
+    }
+
+    @Test
+    void testReconcileCorrectsDriftedCounts() throws Exception {
+        var provider = createProvider(datasource);
+
+        var drifting = provider.addPerson(Person.with().id("http://localhost:8181/ratatoskr/as/actor/drifting").preferredUsername("drifting").build()).get();
+        var sally = provider.findPersonWithUsername("sally").get();
+        provider.addFollowerToUsername(drifting.preferredUsername(), sally.id());
+        try (var connection = datasource.getConnection()) {
+            try (var statement = connection.prepareStatement("update actor_counts set followers_count=42, liked_count=7 where actor=(select actor_id from actors where preferred_username=?)")) {
+                statement.setString(1, drifting.preferredUsername());
+                statement.executeUpdate();
+            }
+            try (var statement = connection.prepareStatement("delete from actor_counts where actor=(select actor_id from actors where preferred_username=?)")) {
+                statement.setString(1, "sally");
+                statement.executeUpdate();
+            }
+        }
+
+        assertThat(provider.reconcileCounts()).isGreaterThanOrEqualTo(2);
+        assertThat(provider.findActorCounts(drifting.preferredUsername())).contains(ActorCounts.with().followers(1).build());
+        assertThat(provider.findActorCounts("sally")).isPresent();
+        assertThat(provider.reconcileCounts()).isZero();
+    }
+
+    @Test
+    void testCountsWithSQLExceptionThrown() throws Exception {
+        var mockDatasource = mock(DataSource.class);
+        when(mockDatasource.getConnection()).thenThrow(SQLException.class);
+        var provider = createProvider(mockDatasource);
+
+        assertThrows(RatatoskrException.class, () -> provider.findActorCounts("johnd"));
+        assertThrows(RatatoskrException.class, () -> provider.findArticleCounts("Doesn't matter"));
+        assertThrows(RatatoskrException.class, () -> provider.reconcileCounts());
+    }
+
+    @Test
+    void testSaveListAndDeleteCustomEmojis() {
+        var provider = createProvider(datasource);
+        var blobcat = CustomEmoji.with()
+            .domain("emojis.example.com")
+            .shortcode("blobcat")
+            .url("https://emojis.example.com/blobcat.png")
+            .mediaType("image/png")
+            .build();
+        var replacedBlobcat = CustomEmoji.with(blobcat)
+            .url("https://emojis.example.com/blobcat.webp")
+            .mediaType("image/webp")
+            .build();
+        var localBlobcat = CustomEmoji.with(blobcat).domain("").build();
+
+        provider.saveCustomEmoji(blobcat);
+        provider.saveCustomEmoji(localBlobcat);
+        assertThat(provider.listCustomEmojis()).contains(blobcat, localBlobcat);
+
+        assertEquals(replacedBlobcat, provider.saveCustomEmoji(replacedBlobcat));
+        assertThat(provider.listCustomEmojis()).contains(replacedBlobcat, localBlobcat).doesNotContain(blobcat);
+
+        assertTrue(provider.deleteCustomEmoji(blobcat.domain(), blobcat.shortcode()));
+        assertFalse(provider.deleteCustomEmoji(blobcat.domain(), blobcat.shortcode()));
+        assertThat(provider.listCustomEmojis()).contains(localBlobcat).doesNotContain(replacedBlobcat);
+        provider.deleteCustomEmoji(localBlobcat.domain(), localBlobcat.shortcode());
+    }
+
+    @Test
+    void testCustomEmojisWithSQLExceptionThrown() throws Exception {
+        var mockDatasource = mock(DataSource.class);
+        when(mockDatasource.getConnection()).thenThrow(SQLException.class);
+        var provider = createProvider(mockDatasource);
+        var emoji = CustomEmoji.with().domain("").shortcode("blobcat").url("http://localhost/blobcat.png").build();
+
+        assertThrows(RatatoskrException.class, () -> provider.listCustomEmojis());
+        assertThrows(RatatoskrException.class, () -> provider.saveCustomEmoji(emoji));
+        assertThrows(RatatoskrException.class, () -> provider.deleteCustomEmoji("", "blobcat"));
+    }
+
+    @Test
+    void testAddReceivedActivity() {
+        var provider = createProvider(datasource);
+        var activityId = "https://mastodon.example.com/users/jod/statuses/1/activity";
+
+        assertFalse(provider.hasReceivedActivity(activityId));
+        assertTrue(provider.addReceivedActivity(activityId));
+        assertTrue(provider.hasReceivedActivity(activityId));
+        assertFalse(provider.addReceivedActivity(activityId));
+    }
+
+    @Test
+    void testListAndDeleteReceivedActivities() throws Exception {
+        var provider = createProvider(datasource);
+        var old = "https://mastodon.example.com/users/jod/statuses/2/activity";
+        var recent = "https://mastodon.example.com/users/jod/statuses/3/activity";
+        provider.addReceivedActivity(old);
+        provider.addReceivedActivity(recent);
+        try (var connection = datasource.getConnection()) {
+            try (var statement = connection.prepareStatement("update received_activities set received=? where activity_id=?")) {
+                statement.setTimestamp(1, Timestamp.from(Instant.now().minus(Duration.ofDays(2))));
+                statement.setString(2, old);
+                statement.executeUpdate();
+            }
+        }
+
+        var dayAgo = Instant.now().minus(Duration.ofDays(1));
+        assertThat(provider.listReceivedActivitiesSince(dayAgo)).contains(recent).doesNotContain(old);
+        assertThat(provider.listReceivedActivitiesSince(dayAgo.minus(Duration.ofDays(2)))).contains(recent, old);
+
+        assertEquals(1, provider.deleteReceivedActivitiesBefore(dayAgo));
+        assertFalse(provider.hasReceivedActivity(old));
+        assertTrue(provider.hasReceivedActivity(recent));
+        assertEquals(0, provider.deleteReceivedActivitiesBefore(dayAgo));
+    }
+
+    @Test
+    void testReceivedActivitiesWithSQLExceptionThrown() throws Exception {
+        var mockDatasource = mock(DataSource.class);
+        when(mockDatasource.getConnection()).thenThrow(SQLException.class);
+        var provider = createProvider(mockDatasource);
+
+        assertThrows(RatatoskrException.class, () -> provider.hasReceivedActivity("https://mastodon.example.com/activities/1"));
+        assertThrows(RatatoskrException.class, () -> provider.addReceivedActivity("https://mastodon.example.com/activities/1"));
+        var now = Instant.now();
+        assertThrows(RatatoskrException.class, () -> provider.listReceivedActivitiesSince(now));
+        assertThrows(RatatoskrException.class, () -> provider.deleteReceivedActivitiesBefore(now));
+    }
+
     @Test
     void testFindLikedWithUsernameWithDbError() throws Exception {
         var logservice = new MockLogService();
@@ -624,8 +1405,35 @@ class RatatoskrServiceProviderTest {
         System.err.print("after: " + sqldumper.prettyPrintSqlQuery(datasource, "select * from likes"));
         assertThat(updatedLike)
             .isNotEmpty()
-            .usingRecursiveFieldByFieldElementComparatorIgnoringFields("id")
+            .usingRecursiveFieldByFieldElementComparatorIgnoringFields("id", "authoredBy", "inReplyTo")
             .contains(like);
+        var hydratedLike = updatedLike.stream().filter(l -> docId.equals(l.inReplyTo().id())).findFirst().get();
+        assertEquals("John Doe", hydratedLike.authoredBy().name());
+        assertEquals("What a Crazy Day I Had", hydratedLike.inReplyTo().name());
+    }
+
+    @Test
+    void testFindLikedWithUsernameLoadsActorsAndArticlesInBatches() throws Exception {
+        var provider = createProvider(datasource);
+        var liker = provider.addPerson(Person.with().id("http://localhost:8181/ratatoskr/as/actor/liker").preferredUsername("liker").name("Liker").build()).get();
+        var sally = provider.findPersonWithUsername("sally").get();
+        var published = ZonedDateTime.of(2026, 3, 3, 12, 0, 0, 0, ZoneId.of("UTC"));
+        var likeCount = 5;
+        for (int i = 0; i < likeCount; ++i) {
+            var article = provider.addArticle(threadArticle(sally, "batched" + i, null, published.plusMinutes(i))).get();
+            provider.userLikeArticle(liker.preferredUsername(), article, Group.with().build(), "http://localhost:8181/ratatoskr/");
+        }
+
+        var connection = mock(Connection.class, delegatesTo(datasource.getConnection()));
+        var countingDatasource = mock(DataSource.class);
+        when(countingDatasource.getConnection()).thenReturn(connection);
+        var likes = createProvider(countingDatasource).findLikedWithUsername(liker.preferredUsername());
+
+        assertThat(likes).hasSize(likeCount);
+        assertThat(likes).extracting(l -> l.authoredBy().name()).containsOnly("Liker");
+        assertThat(likes).extracting(l -> l.inReplyTo().name()).containsExactlyInAnyOrder("batched0", "batched1", "batched2", "batched3", "batched4");
+        // One query for the likes, one for the actors and one for the articles
+        verify(connection, times(3)).prepareStatement(anyString());
     }
 
     @Test
@@ -948,6 +1756,40 @@ class RatatoskrServiceProviderTest {
         assertEquals("Hei", text4);
     }
 
+    @Test
+    void testDisplayTextWithUnknownKey() {
+        var ratatoskr = new RatatoskrServiceProvider();
+        var useradmin = mock(UserManagementService.class);
+        ratatoskr.setUseradmin(useradmin);
+        ratatoskr.activate(Collections.singletonMap("defaultlocale", "nb_NO"));
+        assertThrows(MissingResourceException.class, () -> ratatoskr.displayText("nosuchkey", "nb_NO"));
+    }
+
+    @Test
+    void testDisplayTextsBody() {
+        var ratatoskr = new RatatoskrServiceProvider();
+        var useradmin = mock(UserManagementService.class);
+        ratatoskr.setUseradmin(useradmin);
+        ratatoskr.activate(Collections.singletonMap("defaultlocale", "nb_NO"));
+        var body = ratatoskr.displayTextsBody(NB_NO);
+        assertThat(body).isPresent();
+        assertThat(new String(body.get().json(), StandardCharsets.UTF_8)).contains("\"hi\":\"Hei\"");
+        assertThat(ratatoskr.displayTextsBody(Locale.GERMANY)).isEmpty();
+    }
+
+    @Test
+    void testModifiedConfigReloadsDisplayTexts() {
+        var ratatoskr = new RatatoskrServiceProvider();
+        var useradmin = mock(UserManagementService.class);
+        ratatoskr.setUseradmin(useradmin);
+        ratatoskr.activate(Collections.singletonMap("defaultlocale", "nb_NO"));
+        assertEquals("Hei", ratatoskr.displayText("hi", null));
+
+        ratatoskr.modified(Collections.singletonMap("defaultlocale", "en_GB"));
+        assertEquals(Locale.UK, ratatoskr.defaultLocale());
+        assertEquals("Hi", ratatoskr.displayText("hi", null));
+    }
+
     @Test
     void testZonedDateTimeOrNull() throws Exception {
         var ratatoskr = new RatatoskrServiceProvider();
@@ -988,4 +1830,42 @@ class RatatoskrServiceProviderTest {
         assertThat(ratatoskr.findName(new LinkOrObjectList(Collections.emptyList()))).isNull();
     }
 
+    private RatatoskrServiceProvider createProvider(DataSource datasource) {
+        var provider = new RatatoskrServiceProvider();
+        provider.setLogservice(new MockLogService());
+        provider.setDatasource(datasource);
+        provider.setUseradmin(mock(UserManagementService.class));
+        provider.activate(Collections.singletonMap("defaultlocale", "nb_NO"));
+        return provider;
+    }
+
+    private Article threadArticle(Person author, String name, String inReplyTo, ZonedDateTime published) {
+        return Article.with()
+            .id(threadArticleId(name))
+            .name(name)
+            .attributedTo(Link.with().href(author.id()).build())
+            .inReplyTo(inReplyTo != null ? Link.with().href(threadArticleId(inReplyTo)).build() : null)
+            .published(published)
+            .build();
+    }
+
+    private String threadArticleId(String name) {
+        return "https://sally.example.com/posts/" + name;
+    }
+
+    private Hashtag hashtag(String name) {
+        return new Hashtag(null, ActivityStreamObjectType.Hashtag, null, null, null, name, null, 0, 0, null);
+    }
+
+    private static DataSource createDatabase(String name) throws Exception {
+        var derbyDataSourceFactory = new DerbyDataSourceFactory();
+        var properties = new Properties();
+        properties.setProperty(DataSourceFactory.JDBC_URL, "jdbc:derby:memory:" + name + ";create=true");
+        var accountsDatasource = derbyDataSourceFactory.createDataSource(properties);
+        var runner = new RatatoskrTestDbLiquibaseRunner();
+        runner.activate();
+        runner.prepare(accountsDatasource);
+        return accountsDatasource;
+    }
+
 }
@@ -0,0 +1,548 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.backend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import no.priv.bang.osgi.service.mocks.logservice.MockLogService;
+import no.priv.bang.ratatoskr.asvocabulary.ActivityStreamObject;
+import no.priv.bang.ratatoskr.asvocabulary.Article;
+import no.priv.bang.ratatoskr.asvocabulary.Create;
+import no.priv.bang.ratatoskr.asvocabulary.Link;
+import no.priv.bang.ratatoskr.asvocabulary.LinkOrObject;
+import no.priv.bang.ratatoskr.asvocabulary.Note;
+
+class RemoteObjectFetcherProviderTest {
+
+    private HttpServer server;
+    private String baseUri;
+    private final Map<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void startStubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        baseUri = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void stopStubServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void testFetchParsesObject() {
+        serveNote("/notes/1", "max-age=60");
+        var fetcher = createFetcher(Map.of());
+
+        var fetched = join(fetcher.fetch(baseUri + "/notes/1"));
+
+        assertThat(fetched).isPresent();
+        assertThat(fetched.get()).isInstanceOf(Note.class);
+        assertEquals(baseUri + "/notes/1", ((ActivityStreamObject) fetched.get()).id());
+        fetcher.deactivate();
+    }
+
+    @Test
+    void testFetchSanitizesContent() {
+        server.createContext("/notes/1", exchange -> respond(exchange, 200, null, String.format(
+            "{\"type\": \"Create\", \"object\": {\"type\": \"Note\", \"id\": \"%s/notes/1\", \"content\": \"<p onclick=\\\"alert(1)\\\">Hi<script>alert(2)</script></p>\", \"contentMap\": {\"en\": \"<p>Hi<img src=x onerror=alert(3)></p>\"}}}",
+            baseUri)));
+        var fetcher = createFetcher(Map.of());
+
+        var fetched = join(fetcher.fetch(baseUri + "/notes/1"));
+
+        var note = (Note) ((Create) fetched.get()).object();
+        assertEquals("<p>Hi</p>", note.content());
+        assertThat(note.contentMap()).containsEntry("en", "<p>Hi</p>");
+        fetcher.deactivate();
+    }
+
+    @Test
+    void testFetchSendsActivityStreamsAcceptHeader() {
+        var accept = new ArrayList<String>();
+        server.createContext("/notes/1", exchange -> {
+            accept.add(exchange.getRequestHeaders().getFirst("Accept"));
+            respond(exchange, 200, null, note("/notes/1"));
+        });
+        var fetcher = createFetcher(Map.of());
+
+        join(fetcher.fetch(baseUri + "/notes/1"));
+
+        assertThat(accept).containsExactly(RemoteObjectFetcherProvider.ACCEPT);
+        fetcher.deactivate();
+    }
+
+    @Test
+    void testFetchedObjectIsCachedForMaxAge() {
+        serveNote("/notes/1", "public, max-age=60");
+        var fetcher = createFetcher(Map.of());
+
+        var first = join(fetcher.fetch(baseUri + "/notes/1"));
+        var second = join(fetcher.fetch(baseUri + "/notes/1"));
+
+        assertSame(first.get(), second.get());
+        assertEquals(1, requestCount("/notes/1"));
+        fetcher.deactivate();
+    }
+
+    @Test
+    void testNoStoreIsNotCached() {
+        serveNote("/notes/1", "no-store");
+        serveNote("/notes/2", "max-age=0");
+        var fetcher = createFetcher(Map.of());
+
+        join(fetcher.fetch(baseUri + "/notes/1"));
+        join(fetcher.fetch(baseUri + "/notes/1"));
+        join(fetcher.fetch(baseUri + "/notes/2"));
+        join(fetcher.fetch(baseUri + "/notes/2"));
+
+        assertEquals(2, requestCount("/notes/1"));
+        assertEquals(2, requestCount("/notes/2"));
+        fetcher.deactivate();
+    }
+
+    @Test
+    void testConcurrentFetchesOfSameIriAreCoalesced() throws Exception {
+        var release = new CountDownLatch(1);
+        server.createContext("/notes/popular", exchange -> {
+            count("/notes/popular");
+            await(release);
+            respond(exchange, 200, "max-age=60", note("/notes/popular"));
+        });
+        var fetcher = createFetcher(Map.of());
+
+        var fetches = new ArrayList<CompletionStage<Optional<LinkOrObject>>>();
+        for (int i = 0; i < 100; ++i) {
+            fetches.add(fetcher.fetch(baseUri + "/notes/popular"));
+        }
+        release.countDown();
+
+        for (var fetch : fetches) {
+            assertThat(join(fetch).orElse(null)).isInstanceOf(Note.class);
+        }
+        assertEquals(1, requestCount("/notes/popular"));
+        fetcher.deactivate();
+    }
+
+    @Test
+    void testGoneObjectsAreCachedNegatively() {
+        server.createContext("/notes/missing", exchange -> {
+            count("/notes/missing");
+            respond(exchange, 404, null, "");
+        });
+        server.createContext("/notes/deleted", exchange -> {
+            count("/notes/deleted");
+            respond(exchange, 410, null, "");
+        });
+        var fetcher = createFetcher(Map.of());
+
+        assertThat(join(fetcher.fetch(baseUri + "/notes/missing"))).isEmpty();
+        assertThat(join(fetcher.fetch(baseUri + "/notes/missing"))).isEmpty();
+        assertThat(join(fetcher.fetch(baseUri + "/notes/deleted"))).isEmpty();
+        assertThat(join(fetcher.fetch(baseUri + "/notes/deleted"))).isEmpty();
+
+        assertEquals(1, requestCount("/notes/missing"));
+        assertEquals(1, requestCount("/notes/deleted"));
+        fetcher.deactivate();
+    }
+
+    @Test
+    void testServerErrorsAreNotCached() {
+        server.createContext("/notes/failing", exchange -> {
+            count("/notes/failing");
+            respond(exchange, 500, null, "");
+        });
+        var fetcher = createFetcher(Map.of());
+
+        assertThat(join(fetcher.fetch(baseUri + "/notes/failing"))).isEmpty();
+        assertThat(join(fetcher.fetch(baseUri + "/notes/failing"))).isEmpty();
+
+        assertEquals(2, requestCount("/notes/failing"));
+        fetcher.deactivate();
+    }
+
+    @Test
+    void testUnparsableBodyGivesEmptyValue() {
+        server.createContext("/notes/garbled", exchange -> respond(exchange, 200, null, "{\"type\": "));
+        var fetcher = createFetcher(Map.of());
+
+        assertThat(join(fetcher.fetch(baseUri + "/notes/garbled"))).isEmpty();
+        fetcher.deactivate();
+    }
+
+    @Test
+    void testTimeoutsAreCachedNegatively() {
+        var release = new CountDownLatch(1);
+        server.createContext("/notes/slow", exchange -> {
+            count("/notes/slow");
+            await(release);
+            respond(exchange, 200, null, note("/notes/slow"));
+        });
+        var fetcher = createFetcher(Map.of("timeoutMillis", "200"));
+
+        assertThat(join(fetcher.fetch(baseUri + "/notes/slow"))).isEmpty();
+        assertThat(join(fetcher.fetch(baseUri + "/notes/slow"))).isEmpty();
+
+        release.countDown();
+        assertEquals(1, requestCount("/notes/slow"));
+        fetcher.deactivate();
+    }
+
+    @Test
+    void testConcurrentRequestsPerHostAreLimited() {
+        var concurrent = new AtomicInteger();
+        var maxConcurrent = new AtomicInteger();
+        server.createContext("/notes", exchange -> {
+            maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            sleep(50);
+            concurrent.decrementAndGet();
+            respond(exchange, 200, null, note(exchange.getRequestURI().getPath()));
+        });
+        var fetcher = createFetcher(Map.of("maxRequestsPerHost", 2));
+
+        var fetches = new ArrayList<CompletionStage<Optional<LinkOrObject>>>();
+        for (int i = 0; i < 10; ++i) {
+            fetches.add(fetcher.fetch(baseUri + "/notes/" + i));
+        }
+
+        for (var fetch : fetches) {
+            assertThat(join(fetch)).isPresent();
+        }
+        assertThat(maxConcurrent.get()).isBetween(1, 2);
+        fetcher.deactivate();
+    }
+
+    @Test
+    void testCacheIsBounded() {
+        serveNote("/notes/1", "max-age=60");
+        serveNote("/notes/2", "max-age=60");
+        serveNote("/notes/3", "max-age=60");
+        var fetcher = createFetcher(Map.of("maxEntries", 2));
+
+        join(fetcher.fetch(baseUri + "/notes/1"));
+        join(fetcher.fetch(baseUri + "/notes/2"));
+        join(fetcher.fetch(baseUri + "/notes/1"));
+        join(fetcher.fetch(baseUri + "/notes/3"));
+        join(fetcher.fetch(baseUri + "/notes/1"));
+        join(fetcher.fetch(baseUri + "/notes/2"));
+
+        assertEquals(1, requestCount("/notes/1"));
+        assertEquals(2, requestCount("/notes/2"));
+        assertEquals(1, requestCount("/notes/3"));
+        fetcher.deactivate();
+    }
+
+    @Test
+    void testHostPermitsAreRemovedWhenIdle() {
+        serveNote("/notes/1", "max-age=60");
+        serveNote("/notes/2", "max-age=60");
+        var fetcher = createFetcher(Map.of());
+
+        join(fetcher.fetch(baseUri + "/notes/1"));
+        join(fetcher.fetch(baseUri + "/notes/2"));
+
+        assertThat(fetcher.hostPermits).isEmpty();
+        fetcher.deactivate();
+    }
+
+    @Test
+    void testLargeBodiesAreDropped() {
+        var padding = "x".repeat(200);
+        server.createContext("/notes/large", exchange -> {
+            count("/notes/large");
+            respond(exchange, 200, null, String.format("{\"type\": \"Note\", \"content\": \"%s\"}", padding));
+        });
+        server.createContext("/notes/chunked", exchange -> {
+            count("/notes/chunked");
+            exchange.sendResponseHeaders(200, 0);
+            try (var responseBody = exchange.getResponseBody()) {
+                responseBody.write(String.format("{\"type\": \"Note\", \"content\": \"%s\"}", padding).getBytes(StandardCharsets.UTF_8));
+            }
+        });
+        serveNote("/notes/1", "max-age=60");
+        var fetcher = createFetcher(Map.of("maxBodyBytes", "150"));
+
+        assertThat(join(fetcher.fetch(baseUri + "/notes/large"))).isEmpty();
+        assertThat(join(fetcher.fetch(baseUri + "/notes/large"))).isEmpty();
+        assertThat(join(fetcher.fetch(baseUri + "/notes/chunked"))).isEmpty();
+        assertThat(join(fetcher.fetch(baseUri + "/notes/1"))).isPresent();
+
+        assertEquals(1, requestCount("/notes/large"));
+        assertEquals(1, requestCount("/notes/chunked"));
+        fetcher.deactivate();
+    }
+
+    @Test
+    void testPrivateAddressesAreNotFetched() {
+        serveNote("/notes/1", "max-age=60");
+        var fetcher = createFetcher(Map.of("allowPrivateAddresses", false));
+
+        assertThat(join(fetcher.fetch(baseUri + "/notes/1"))).isEmpty();
+        assertThat(join(fetcher.fetch("http://127.0.0.1:" + server.getAddress().getPort() + "/notes/1"))).isEmpty();
+
+        assertEquals(0, requestCount("/notes/1"));
+        fetcher.deactivate();
+    }
+
+    @Test
+    void testRedirectsAreFollowed() {
+        serveNote("/notes/1", "max-age=60");
+        server.createContext("/notes/moved", exchange -> {
+            exchange.getResponseHeaders().add("Location", "/notes/1");
+            exchange.sendResponseHeaders(301, -1);
+            exchange.close();
+        });
+        server.createContext("/notes/loop", exchange -> {
+            count("/notes/loop");
+            exchange.getResponseHeaders().add("Location", baseUri + "/notes/loop");
+            exchange.sendResponseHeaders(302, -1);
+            exchange.close();
+        });
+        server.createContext("/notes/elsewhere", exchange -> {
+            exchange.getResponseHeaders().add("Location", "ftp://example.com/notes/1");
+            exchange.sendResponseHeaders(302, -1);
+            exchange.close();
+        });
+        var fetcher = createFetcher(Map.of());
+
+        assertThat(join(fetcher.fetch(baseUri + "/notes/moved"))).isPresent();
+        assertThat(join(fetcher.fetch(baseUri + "/notes/loop"))).isEmpty();
+        assertThat(join(fetcher.fetch(baseUri + "/notes/elsewhere"))).isEmpty();
+
+        assertEquals(1, requestCount("/notes/1"));
+        assertEquals(RemoteObjectFetcherProvider.MAX_REDIRECTS + 1, requestCount("/notes/loop"));
+        fetcher.deactivate();
+    }
+
+    @Test
+    void testIsPublicAddress() throws Exception {
+        assertTrue(RemoteObjectFetcherProvider.isPublicAddress(InetAddress.getByName("93.184.216.34")));
+        assertTrue(RemoteObjectFetcherProvider.isPublicAddress(InetAddress.getByName("2606:2800:220:1:248:1893:25c8:1946")));
+        assertTrue(RemoteObjectFetcherProvider.isPublicAddress(InetAddress.getByName("100.128.0.1")));
+        assertFalse(RemoteObjectFetcherProvider.isPublicAddress(InetAddress.getByName("127.0.0.1")));
+        assertFalse(RemoteObjectFetcherProvider.isPublicAddress(InetAddress.getByName("::1")));
+        assertFalse(RemoteObjectFetcherProvider.isPublicAddress(InetAddress.getByName("0.0.0.0")));
+        assertFalse(RemoteObjectFetcherProvider.isPublicAddress(InetAddress.getByName("0.1.2.3")));
+        assertFalse(RemoteObjectFetcherProvider.isPublicAddress(InetAddress.getByName("10.1.2.3")));
+        assertFalse(RemoteObjectFetcherProvider.isPublicAddress(InetAddress.getByName("172.16.0.1")));
+        assertFalse(RemoteObjectFetcherProvider.isPublicAddress(InetAddress.getByName("192.168.1.1")));
+        assertFalse(RemoteObjectFetcherProvider.isPublicAddress(InetAddress.getByName("169.254.169.254")));
+        assertFalse(RemoteObjectFetcherProvider.isPublicAddress(InetAddress.getByName("100.64.0.1")));
+        assertFalse(RemoteObjectFetcherProvider.isPublicAddress(InetAddress.getByName("224.0.0.1")));
+        assertFalse(RemoteObjectFetcherProvider.isPublicAddress(InetAddress.getByName("fe80::1")));
+        assertFalse(RemoteObjectFetcherProvider.isPublicAddress(InetAddress.getByName("fd00::1")));
+        assertFalse(RemoteObjectFetcherProvider.isPublicAddress(InetAddress.getByName("::ffff:10.0.0.1")));
+    }
+
+    @Test
+    void testUnsupportedIrisAreNotFetched() {
+        var fetcher = createFetcher(Map.of());
+
+        assertThat(join(fetcher.fetch(null))).isEmpty();
+        assertThat(join(fetcher.fetch("acct:sally@example.com"))).isEmpty();
+        assertThat(join(fetcher.fetch("not an iri"))).isEmpty();
+        fetcher.deactivate();
+    }
+
+    @Test
+    void testDereferenceLink() {
+        serveNote("/notes/1", "max-age=60");
+        var fetcher = createFetcher(Map.of());
+        var link = Link.with().href(baseUri + "/notes/1").build();
+        var missing = Link.with().href(baseUri + "/notes/missing").build();
+        var object = Article.with().id(baseUri + "/articles/1").build();
+
+        assertThat(fetcher.dereference(link).toCompletableFuture().join()).isInstanceOf(Note.class);
+        assertSame(missing, fetcher.dereference(missing).toCompletableFuture().join());
+        assertSame(object, fetcher.dereference(object).toCompletableFuture().join());
+        assertEquals(1, requestCount("/notes/1"));
+        fetcher.deactivate();
+    }
+
+    @Test
+    void testFetchAfterDeactivateGivesEmptyValue() {
+        var fetcher = createFetcher(Map.of());
+        fetcher.deactivate();
+
+        assertThat(join(fetcher.fetch(baseUri + "/notes/1"))).isEmpty();
+    }
+
+    @Test
+    void testFindActorIdWithWebFinger() {
+        var host = "localhost:" + server.getAddress().getPort();
+        var resources = new ArrayList<String>();
+        server.createContext("/.well-known/webfinger", exchange -> {
+            count("/.well-known/webfinger");
+            resources.add(exchange.getRequestURI().getQuery());
+            var body = String.format("{\"subject\": \"acct:jod@%s\", \"links\": [{\"rel\": \"http://webfinger.net/rel/profile-page\", \"type\": \"text/html\", \"href\": \"%s/@jod\"}, {\"rel\": \"self\", \"type\": \"application/activity+json\", \"href\": \"%s/users/jod\"}]}", host, baseUri, baseUri);
+            respond(exchange, 200, "max-age=60", body);
+        });
+        var fetcher = createFetcher(Map.of());
+        fetcher.webFingerScheme = "http";
+
+        var first = fetcher.findActorId("jod@" + host);
+        var second = fetcher.findActorId("jod@" + host);
+
+        assertThat(first.toCompletableFuture().join()).hasValue(baseUri + "/users/jod");
+        assertThat(second.toCompletableFuture().join()).hasValue(baseUri + "/users/jod");
+        assertThat(fetcher.findActorId("jod@" + host).toCompletableFuture().join()).hasValue(baseUri + "/users/jod");
+        assertEquals(1, requestCount("/.well-known/webfinger"));
+        assertThat(resources).containsExactly("resource=acct:jod@" + host);
+        fetcher.deactivate();
+    }
+
+    @Test
+    void testFindActorIdOfUnknownAccount() {
+        var host = "localhost:" + server.getAddress().getPort();
+        server.createContext("/.well-known/webfinger", exchange -> {
+            count("/.well-known/webfinger");
+            var body = exchange.getRequestURI().getQuery().contains("noself") ? "{\"links\": [{\"rel\": \"self\", \"type\": \"text/html\", \"href\": \"http://localhost/\"}]}" : "";
+            respond(exchange, body.isEmpty() ? 404 : 200, null, body);
+        });
+        var fetcher = createFetcher(Map.of());
+        fetcher.webFingerScheme = "http";
+
+        assertThat(fetcher.findActorId("nobody@" + host).toCompletableFuture().join()).isEmpty();
+        assertThat(fetcher.findActorId("nobody@" + host).toCompletableFuture().join()).isEmpty();
+        assertThat(fetcher.findActorId("noself@" + host).toCompletableFuture().join()).isEmpty();
+        assertEquals(2, requestCount("/.well-known/webfinger"));
+        fetcher.deactivate();
+    }
+
+    @Test
+    void testFindActorIdOfInvalidAccount() {
+        var fetcher = createFetcher(Map.of());
+
+        assertThat(fetcher.findActorId(null).toCompletableFuture().join()).isEmpty();
+        assertThat(fetcher.findActorId("jod").toCompletableFuture().join()).isEmpty();
+        assertThat(fetcher.findActorId("@example.com").toCompletableFuture().join()).isEmpty();
+        assertThat(fetcher.findActorId("jod@").toCompletableFuture().join()).isEmpty();
+        assertThat(fetcher.findActorId("jod@example.com/path").toCompletableFuture().join()).isEmpty();
+        fetcher.deactivate();
+    }
+
+    @Test
+    void testAccountHost() {
+        assertEquals("example.com", RemoteObjectFetcherProvider.accountHost("jod@example.com"));
+        assertEquals("localhost:8181", RemoteObjectFetcherProvider.accountHost("jod@localhost:8181"));
+        assertNull(RemoteObjectFetcherProvider.accountHost("jod@jod@example.com"));
+        assertNull(RemoteObjectFetcherProvider.accountHost(null));
+    }
+
+    @Test
+    void testTtlFromCacheControl() {
+        assertEquals(TimeUnit.SECONDS.toNanos(RemoteObjectFetcherProvider.DEFAULT_TTL_SECONDS), RemoteObjectFetcherProvider.ttlNanos(null));
+        assertEquals(TimeUnit.SECONDS.toNanos(RemoteObjectFetcherProvider.DEFAULT_TTL_SECONDS), RemoteObjectFetcherProvider.ttlNanos("public"));
+        assertEquals(TimeUnit.SECONDS.toNanos(120), RemoteObjectFetcherProvider.ttlNanos("public, max-age=120"));
+        assertEquals(TimeUnit.SECONDS.toNanos(RemoteObjectFetcherProvider.MAX_TTL_SECONDS), RemoteObjectFetcherProvider.ttlNanos("max-age=31536000"));
+        assertEquals(0, RemoteObjectFetcherProvider.ttlNanos("max-age=120, no-store"));
+        assertEquals(0, RemoteObjectFetcherProvider.ttlNanos("no-cache"));
+        assertEquals(0, RemoteObjectFetcherProvider.ttlNanos("max-age=soon"));
+    }
+
+    /**
+     * The stub server listens on localhost, so private addresses are allowed
+     * unless the test says otherwise.
+     */
+    private RemoteObjectFetcherProvider createFetcher(Map<String, Object> config) {
+        var fetcherConfig = new HashMap<String, Object>(Map.of("allowPrivateAddresses", true));
+        fetcherConfig.putAll(config);
+        var fetcher = new RemoteObjectFetcherProvider();
+        fetcher.setLogservice(new MockLogService());
+        fetcher.setHtmlSanitizer(new HtmlSanitizerProvider());
+        fetcher.activate(fetcherConfig);
+        return fetcher;
+    }
+
+    private void serveNote(String path, String cacheControl) {
+        server.createContext(path, exchange -> {
+            count(path);
+            respond(exchange, 200, cacheControl, note(path));
+        });
+    }
+
+    private String note(String path) {
+        return String.format("{\"@context\": \"https://www.w3.org/ns/activitystreams\", \"type\": \"Note\", \"id\": \"%s%s\", \"content\": \"Hello\"}", baseUri, path);
+    }
+
+    private void respond(HttpExchange exchange, int status, String cacheControl, String body) throws IOException {
+        var bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/activity+json");
+        if (cacheControl != null) {
+            exchange.getResponseHeaders().add("Cache-Control", cacheControl);
+        }
+
+        exchange.sendResponseHeaders(status, bytes.length > 0 ? bytes.length : -1);
+        try (var responseBody = exchange.getResponseBody()) {
+            responseBody.write(bytes);
+        }
+    }
+
+    private void count(String path) {
+        requestCounts.computeIfAbsent(path, p -> new AtomicInteger()).incrementAndGet();
+    }
+
+    private int requestCount(String path) {
+        var count = requestCounts.get(path);
+        return count != null ? count.get() : 0;
+    }
+
+    private static Optional<LinkOrObject> join(CompletionStage<Optional<LinkOrObject>> fetch) {
+        return fetch.toCompletableFuture().join();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
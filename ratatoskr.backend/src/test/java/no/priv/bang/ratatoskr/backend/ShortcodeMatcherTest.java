@@ -0,0 +1,103 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.backend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class ShortcodeMatcherTest {
+
+    @Test
+    void testFindShortcodes() {
+        var matcher = new ShortcodeMatcher(List.of("blobcat", "blobcat_happy", "ablobcat", "catjam"));
+
+        var found = matcher.find("I :blobcat_happy: and :catjam: to :blobcat: music :catjam:");
+
+        assertEquals(List.of("blobcat_happy", "catjam", "blobcat"), found);
+        assertEquals(4, matcher.size());
+    }
+
+    @Test
+    void testFindAdjacentShortcodes() {
+        var matcher = new ShortcodeMatcher(List.of("blobcat", "catjam"));
+
+        assertEquals(List.of("blobcat", "catjam"), matcher.find(":blobcat::catjam:"));
+        assertEquals(List.of("blobcat", "catjam"), matcher.find(":blobcat: :catjam:"));
+    }
+
+    @Test
+    void testFindAfterPartialMatches() {
+        var matcher = new ShortcodeMatcher(List.of("blobcat", "blob", "lobster"));
+
+        assertEquals(List.of("lobster"), matcher.find(":blob :lobster:"));
+        assertEquals(List.of("blob"), matcher.find(":blobca :blob:"));
+        assertEquals(List.of("blobcat"), matcher.find("::blobcat:"));
+    }
+
+    @Test
+    void testShortcodesGluedToWordsArentFound() {
+        var matcher = new ShortcodeMatcher(List.of("blobcat"));
+
+        assertThat(matcher.find("a:blobcat:")).isEmpty();
+        assertThat(matcher.find(":blobcat:b")).isEmpty();
+        assertEquals(List.of("blobcat"), matcher.find("<p>:blobcat:</p>"));
+        assertEquals(List.of("blobcat"), matcher.find(":blobcat:"));
+    }
+
+    @Test
+    void testUnknownShortcodesArentFound() {
+        var matcher = new ShortcodeMatcher(List.of("blobcat"));
+
+        assertThat(matcher.find("just :catjam: and :blob: and blobcat")).isEmpty();
+    }
+
+    @Test
+    void testFindInSeveralTexts() {
+        var matcher = new ShortcodeMatcher(List.of("blobcat", "catjam"));
+        var found = new LinkedHashSet<String>();
+
+        matcher.find(":catjam:", found);
+        matcher.find(null, found);
+        matcher.find(":blobcat: :catjam:", found);
+
+        assertThat(found).containsExactly("catjam", "blobcat");
+    }
+
+    @Test
+    void testEmptyMatcher() {
+        var matcher = new ShortcodeMatcher(List.of());
+
+        assertThat(matcher.find(":blobcat:")).isEmpty();
+        assertEquals(0, matcher.size());
+    }
+
+    @Test
+    void testManyShortcodes() {
+        var shortcodes = IntStream.range(0, 5000).mapToObj(i -> "emoji" + i).toList();
+        var matcher = new ShortcodeMatcher(shortcodes);
+
+        var found = matcher.find(":emoji4999: :emoji42: :emoji5000: :emoji0:");
+
+        assertEquals(List.of("emoji4999", "emoji42", "emoji0"), found);
+    }
+
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.backend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import no.priv.bang.osgi.service.mocks.logservice.MockLogService;
+import no.priv.bang.ratatoskr.services.beans.StatementStatistic;
+
+class StatementStatisticsProviderTest {
+
+    @Test
+    void testTopStatements() {
+        var statistics = createProvider(new MockLogService(), Collections.emptyMap());
+        statistics.executed("select * from actors where id=?", 100, 0, false);
+        statistics.fetched("select * from actors where id=?", 1);
+        statistics.executed("select * from actors where id=?", 300, 0, false);
+        statistics.fetched("select * from actors where id=?", 1);
+        statistics.executed("update counters set counter=? where account_id=?", 1000, 1, false);
+        statistics.executed("insert into likes (actor, article) values (?, ?)", 50, 0, true);
+
+        var top = statistics.topStatements(2);
+
+        assertThat(top).extracting(StatementStatistic::statement).containsExactly(
+            "update counters set counter=? where account_id=?",
+            "select * from actors where id=?");
+        var select = top.get(1);
+        assertEquals(2, select.executions());
+        assertEquals(0, select.errors());
+        assertEquals(400, select.totalNanos());
+        assertEquals(300, select.maxNanos());
+        assertEquals(2, select.rows());
+        var insert = statistics.topStatements(10).get(2);
+        assertEquals(1, insert.errors());
+        assertThat(statistics.topStatements(-1)).isEmpty();
+    }
+
+    @Test
+    void testReset() {
+        var statistics = createProvider(new MockLogService(), Collections.emptyMap());
+        statistics.executed("select * from actors where id=?", 100, 0, false);
+
+        statistics.reset();
+
+        assertThat(statistics.topStatements(10)).isEmpty();
+    }
+
+    @Test
+    void testSlowStatementsAreLogged() {
+        var logservice = new MockLogService();
+        var statistics = createProvider(logservice, Map.of("slowQueryThresholdMillis", "10"));
+
+        statistics.executed("select * from actors where id=?", TimeUnit.MILLISECONDS.toNanos(9), 0, false);
+        assertThat(logservice.getLogmessages()).isEmpty();
+        statistics.executed("select * from actors where id=?", TimeUnit.MILLISECONDS.toNanos(10), 0, false);
+        assertThat(logservice.getLogmessages()).hasSize(1);
+    }
+
+    @Test
+    void testDefaultSlowQueryThreshold() {
+        var logservice = new MockLogService();
+        var statistics = createProvider(logservice, Map.of("slowQueryThresholdMillis", "not a number"));
+
+        statistics.executed("select * from actors where id=?", TimeUnit.MILLISECONDS.toNanos(StatementStatisticsProvider.DEFAULT_SLOW_QUERY_THRESHOLD_MILLIS - 1), 0, false);
+        assertThat(logservice.getLogmessages()).isEmpty();
+        statistics.executed("select * from actors where id=?", TimeUnit.MILLISECONDS.toNanos(StatementStatisticsProvider.DEFAULT_SLOW_QUERY_THRESHOLD_MILLIS), 0, false);
+        assertThat(logservice.getLogmessages()).hasSize(1);
+    }
+
+    @Test
+    void testModifiedSlowQueryThresholdKeepsTheStatistics() {
+        var logservice = new MockLogService();
+        var statistics = createProvider(logservice, Map.of("slowQueryThresholdMillis", "10"));
+        statistics.executed("select * from actors where id=?", TimeUnit.MILLISECONDS.toNanos(5), 0, false);
+        assertThat(logservice.getLogmessages()).isEmpty();
+
+        statistics.modified(Map.of("slowQueryThresholdMillis", "5"));
+
+        statistics.executed("select * from actors where id=?", TimeUnit.MILLISECONDS.toNanos(5), 0, false);
+        assertThat(logservice.getLogmessages()).hasSize(1);
+        assertEquals(2, statistics.topStatements(1).get(0).executions());
+    }
+
+    @Test
+    void testStatementsBeyondTheMaximumAreCountedTogether() {
+        var statistics = createProvider(new MockLogService(), Map.of("slowQueryThresholdMillis", 60000));
+        for (int i = 0; i < StatementStatisticsProvider.MAX_STATEMENTS + 10; ++i) {
+            statistics.executed("select * from table" + i, 1, 0, false);
+        }
+        statistics.executed(null, 1, 0, false);
+
+        var all = statistics.topStatements(Integer.MAX_VALUE);
+
+        assertThat(all).hasSize(StatementStatisticsProvider.MAX_STATEMENTS + 1);
+        var other = all.stream().filter(s -> StatementStatisticsProvider.OTHER_STATEMENTS.equals(s.statement())).findFirst().orElseThrow();
+        assertEquals(11, other.executions());
+    }
+
+    @Test
+    void testConcurrentExecutions() {
+        var statistics = createProvider(new MockLogService(), Collections.emptyMap());
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int task = 0; task < 100; ++task) {
+                var nanos = task;
+                executor.submit(() -> {
+                    for (int i = 0; i < 100; ++i) {
+                        statistics.executed("select * from actors where id=?", nanos, 1, false);
+                    }
+                });
+            }
+        }
+
+        var statistic = statistics.topStatements(1).get(0);
+        assertEquals(10000, statistic.executions());
+        assertEquals(10000, statistic.rows());
+        assertEquals(99, statistic.maxNanos());
+        assertEquals(100 * (99 * 100 / 2), statistic.totalNanos());
+    }
+
+    private StatementStatisticsProvider createProvider(MockLogService logservice, Map<String, Object> config) {
+        var statistics = new StatementStatisticsProvider();
+        statistics.setLogservice(logservice);
+        statistics.activate(config);
+        return statistics;
+    }
+
+}
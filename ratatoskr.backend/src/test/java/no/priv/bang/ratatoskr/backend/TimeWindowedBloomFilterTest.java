@@ -0,0 +1,87 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.backend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class TimeWindowedBloomFilterTest {
+    private static final long WINDOW = 1000;
+
+    @Test
+    void testAddedKeysAreFound() {
+        var filter = new TimeWindowedBloomFilter(1000, 0.01, WINDOW, 0);
+        IntStream.range(0, 1000).forEach(i -> filter.add(activityId(i), 0));
+
+        assertTrue(IntStream.range(0, 1000).allMatch(i -> filter.mightContain(activityId(i), 1)));
+    }
+
+    @Test
+    void testFalsePositiveRate() {
+        var filter = new TimeWindowedBloomFilter(10000, 0.01, WINDOW, 0);
+        IntStream.range(0, 10000).forEach(i -> filter.add(activityId(i), 0));
+
+        var falsePositives = IntStream.range(10000, 20000).filter(i -> filter.mightContain(activityId(i), 1)).count();
+
+        assertThat(falsePositives).isLessThan(200);
+    }
+
+    @Test
+    void testKeysAreForgottenAfterTwoWindows() {
+        var filter = new TimeWindowedBloomFilter(1000, 0.01, WINDOW, 0);
+        var activityId = activityId(1);
+        filter.add(activityId, 10);
+
+        assertTrue(filter.mightContain(activityId, WINDOW - 1));
+        assertTrue(filter.mightContain(activityId, WINDOW));
+        assertTrue(filter.mightContain(activityId, 2 * WINDOW - 1));
+        assertFalse(filter.mightContain(activityId, 2 * WINDOW));
+    }
+
+    @Test
+    void testKeysAreForgottenAfterBeingIdle() {
+        var filter = new TimeWindowedBloomFilter(1000, 0.01, WINDOW, 0);
+        var activityId = activityId(1);
+        filter.add(activityId, WINDOW - 1);
+
+        assertFalse(filter.mightContain(activityId, 5 * WINDOW));
+    }
+
+    @Test
+    void testSizing() {
+        var filter = new TimeWindowedBloomFilter(100000, 0.01, WINDOW, 0);
+        assertEquals(958506, filter.bitCount());
+        assertEquals(7, filter.hashCount());
+
+        var tiny = new TimeWindowedBloomFilter(0, 0.01, WINDOW, 0);
+        assertEquals(Long.SIZE, tiny.bitCount());
+    }
+
+    @Test
+    void testHashOfSimilarKeys() {
+        assertNotEquals(TimeWindowedBloomFilter.hash(activityId(1)), TimeWindowedBloomFilter.hash(activityId(2)));
+        assertEquals(TimeWindowedBloomFilter.hash(activityId(1)), TimeWindowedBloomFilter.hash(activityId(1)));
+    }
+
+    private static String activityId(int i) {
+        return "https://mastodon.example.com/users/jod/statuses/" + (116664898678882313L + i) + "/activity";
+    }
+
+}
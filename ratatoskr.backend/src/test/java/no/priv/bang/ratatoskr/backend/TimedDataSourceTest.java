@@ -0,0 +1,213 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.backend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+
+import no.priv.bang.ratatoskr.services.Metrics;
+import no.priv.bang.ratatoskr.services.StatementStatistics;
+
+class TimedDataSourceTest {
+
+    @Test
+    void testPreparedStatementExecutionsAreRecorded() throws Exception {
+        var sql = "select count from counters where account_id=?";
+        var results = mock(ResultSet.class);
+        var statement = mock(PreparedStatement.class);
+        when(statement.executeQuery()).thenReturn(results);
+        var connection = mock(Connection.class);
+        when(connection.prepareStatement(sql)).thenReturn(statement);
+        var datasource = mock(DataSource.class);
+        when(datasource.getConnection()).thenReturn(connection);
+        var metrics = mock(Metrics.class);
+        var timed = new TimedDataSource(datasource, metrics, null);
+
+        try (var timedConnection = timed.getConnection()) {
+            try (var timedStatement = timedConnection.prepareStatement(sql)) {
+                timedStatement.setInt(1, 1);
+                assertSame(results, timedStatement.executeQuery());
+            }
+        }
+
+        verify(statement).setInt(1, 1);
+        verify(statement).close();
+        verify(connection).close();
+        verify(metrics).record(eq(Metrics.JDBC_STATEMENTS), anyLong(), eq(false), eq("statement"), eq(sql));
+        verifyNoMoreInteractions(metrics);
+    }
+
+    @Test
+    void testFailedExecutionsAreRecordedAndRethrown() throws Exception {
+        var sql = "insert into counters (account_id, counter) values (?, ?)";
+        var statement = mock(PreparedStatement.class);
+        when(statement.executeUpdate()).thenThrow(new SQLException("Duplicate key"));
+        var connection = mock(Connection.class);
+        when(connection.prepareStatement(sql)).thenReturn(statement);
+        var datasource = mock(DataSource.class);
+        when(datasource.getConnection("user", "secret")).thenReturn(connection);
+        var metrics = mock(Metrics.class);
+        var timed = new TimedDataSource(datasource, metrics, null);
+
+        var timedStatement = timed.getConnection("user", "secret").prepareStatement(sql);
+        var e = assertThrows(SQLException.class, timedStatement::executeUpdate);
+
+        assertEquals("Duplicate key", e.getMessage());
+        verify(metrics).record(eq(Metrics.JDBC_STATEMENTS), anyLong(), eq(true), eq("statement"), eq(sql));
+    }
+
+    @Test
+    void testPlainStatementsAreLabeledWithTheExecutedSql() throws Exception {
+        var statement = mock(Statement.class);
+        var connection = mock(Connection.class);
+        when(connection.createStatement()).thenReturn(statement);
+        var datasource = mock(DataSource.class);
+        when(datasource.getConnection()).thenReturn(connection);
+        var metrics = mock(Metrics.class);
+        var timed = new TimedDataSource(datasource, metrics, null);
+
+        var timedStatement = timed.getConnection().createStatement();
+        timedStatement.execute("delete from counters");
+        timedStatement.addBatch("delete from actors");
+        timedStatement.executeBatch();
+
+        verify(statement).addBatch("delete from actors");
+        verify(metrics).record(eq(Metrics.JDBC_STATEMENTS), anyLong(), eq(false), eq("statement"), eq("delete from counters"));
+        verify(metrics).record(eq(Metrics.JDBC_STATEMENTS), anyLong(), eq(false), eq("statement"), eq("batch"));
+    }
+
+    @Test
+    void testRowsAreRecordedInStatementStatistics() throws Exception {
+        var query = "select id from actors where id in (?, ?, ?)";
+        var update = "update counters set counter=? where account_id=?";
+        var results = mock(ResultSet.class);
+        when(results.next()).thenReturn(true, true, false);
+        var queryStatement = mock(PreparedStatement.class);
+        when(queryStatement.executeQuery()).thenReturn(results);
+        var updateStatement = mock(PreparedStatement.class);
+        when(updateStatement.executeUpdate()).thenReturn(3);
+        var connection = mock(Connection.class);
+        when(connection.prepareStatement(query)).thenReturn(queryStatement);
+        when(connection.prepareStatement(update)).thenReturn(updateStatement);
+        var datasource = mock(DataSource.class);
+        when(datasource.getConnection()).thenReturn(connection);
+        var statistics = mock(StatementStatistics.class);
+        var timed = new TimedDataSource(datasource, null, statistics);
+
+        try (var timedConnection = timed.getConnection()) {
+            try (var timedQuery = timedConnection.prepareStatement(query)) {
+                try (var timedResults = timedQuery.executeQuery()) {
+                    while (timedResults.next()) {
+                        // Read all rows
+                    }
+                }
+            }
+
+            try (var timedUpdate = timedConnection.prepareStatement(update)) {
+                assertEquals(3, timedUpdate.executeUpdate());
+            }
+        }
+
+        var normalizedQuery = "select id from actors where id in (?, ...)";
+        verify(statistics).executed(eq(normalizedQuery), anyLong(), eq(0L), eq(false));
+        verify(statistics).fetched(normalizedQuery, 2);
+        verify(statistics).executed(eq(update), anyLong(), eq(3L), eq(false));
+        verifyNoMoreInteractions(statistics);
+    }
+
+    @Test
+    void testRowsOfAResultSetClosedBeforeTheEndAreRecordedOnce() throws Exception {
+        var results = mock(ResultSet.class);
+        when(results.next()).thenReturn(true);
+        var statement = mock(Statement.class);
+        when(statement.execute(anyString())).thenReturn(true);
+        when(statement.getResultSet()).thenReturn(results);
+        var connection = mock(Connection.class);
+        when(connection.createStatement()).thenReturn(statement);
+        var datasource = mock(DataSource.class);
+        when(datasource.getConnection()).thenReturn(connection);
+        var statistics = mock(StatementStatistics.class);
+        var timed = new TimedDataSource(datasource, null, statistics);
+
+        var timedStatement = timed.getConnection().createStatement();
+        timedStatement.execute("select id from actors where preferred_username='jod'");
+        var timedResults = timedStatement.getResultSet();
+        timedResults.next();
+        timedResults.close();
+        timedResults.close();
+
+        var normalized = "select id from actors where preferred_username=?";
+        verify(statistics).executed(eq(normalized), anyLong(), eq(0L), eq(false));
+        verify(statistics, times(1)).fetched(normalized, 1);
+    }
+
+    @Test
+    void testNormalizeSql() {
+        assertNull(TimedDataSource.normalizeSql(null));
+        assertEquals(
+            "select * from articles where published > ? and name=? and depth=? and id in (?, ...)",
+            TimedDataSource.normalizeSql("select *\n  from articles\twhere published > 1.5 and name='it''s' and depth=1 and id in (?,?)"));
+        assertEquals(
+            "select id from actors where id in (?, ...)",
+            TimedDataSource.normalizeSql("select id from actors where id IN ('a', 'b', 'c')"));
+        assertEquals(
+            "insert into article_counts (article, likes_count) values (?, ?)",
+            TimedDataSource.normalizeSql("insert into article_counts (article, likes_count) values (?, ?)"));
+        assertEquals("select t1.id from table2 t1", TimedDataSource.normalizeSql("select t1.id from table2 t1"));
+    }
+
+    @Test
+    void testNormalizedStatementsAreCached() {
+        var timed = new TimedDataSource(mock(DataSource.class), null, null);
+        var sql = "select id from actors where id=?";
+
+        var normalized = timed.normalize(sql);
+
+        assertSame(normalized, timed.normalize(sql));
+    }
+
+    @Test
+    void testDataSourceMethodsAreDelegated() throws Exception {
+        var writer = new PrintWriter(System.out);
+        var datasource = mock(DataSource.class);
+        when(datasource.getLogWriter()).thenReturn(writer);
+        when(datasource.getLoginTimeout()).thenReturn(30);
+        var timed = new TimedDataSource(datasource, mock(Metrics.class), null);
+
+        timed.setLogWriter(writer);
+        timed.setLoginTimeout(30);
+
+        assertSame(writer, timed.getLogWriter());
+        assertEquals(30, timed.getLoginTimeout());
+        verify(datasource).setLogWriter(writer);
+        verify(datasource).setLoginTimeout(30);
+        assertTrue(timed.isWrapperFor(DataSource.class));
+        assertThat(timed.unwrap(DataSource.class)).isSameAs(datasource);
+    }
+
+}
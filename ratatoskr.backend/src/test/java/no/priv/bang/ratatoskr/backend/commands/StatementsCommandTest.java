@@ -0,0 +1,78 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.backend.commands;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import no.priv.bang.ratatoskr.services.StatementStatistics;
+import no.priv.bang.ratatoskr.services.beans.StatementStatistic;
+
+class StatementsCommandTest {
+
+    @Test
+    void testListStatements() {
+        var statistics = mock(StatementStatistics.class);
+        var statistic = StatementStatistic.with()
+            .statement("select * from actors where id=?")
+            .executions(4)
+            .errors(1)
+            .totalNanos(10_000_000)
+            .maxNanos(4_000_000)
+            .rows(3)
+            .build();
+        when(statistics.topStatements(5)).thenReturn(List.of(statistic));
+        var command = new StatementsCommand();
+        command.statistics = statistics;
+        command.count = 5;
+        var output = new ByteArrayOutputStream();
+        command.out = new PrintStream(output, true, StandardCharsets.UTF_8);
+
+        command.execute();
+
+        var lines = output.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(lines).hasSize(2);
+        assertThat(lines.get(0)).contains("Total ms").endsWith("Statement");
+        assertThat(lines.get(1))
+            .contains("10.000")
+            .contains("2.500")
+            .contains("4.000")
+            .endsWith("select * from actors where id=?");
+        verify(statistics, never()).reset();
+    }
+
+    @Test
+    void testListAndReset() {
+        var statistics = mock(StatementStatistics.class);
+        var command = new StatementsCommand();
+        command.statistics = statistics;
+        command.reset = true;
+        command.out = new PrintStream(new ByteArrayOutputStream(), true, StandardCharsets.UTF_8);
+
+        command.execute();
+
+        verify(statistics).topStatements(StatementsCommand.DEFAULT_COUNT);
+        verify(statistics).reset();
+    }
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.benchmarks;
+
+import static org.mockito.Mockito.*;
+
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Properties;
+
+import javax.sql.DataSource;
+
+import org.ops4j.pax.jdbc.derby.impl.DerbyDataSourceFactory;
+import org.osgi.service.jdbc.DataSourceFactory;
+
+import no.priv.bang.osgi.service.mocks.logservice.MockLogService;
+import no.priv.bang.osgiservice.users.UserManagementService;
+import no.priv.bang.ratatoskr.asvocabulary.Article;
+import no.priv.bang.ratatoskr.asvocabulary.Link;
+import no.priv.bang.ratatoskr.backend.RatatoskrServiceProvider;
+import no.priv.bang.ratatoskr.db.liquibase.RatatoskrLiquibase;
+import no.priv.bang.ratatoskr.services.activitypub.Like;
+import no.priv.bang.ratatoskr.services.activitypub.Person;
+import no.priv.bang.ratatoskr.services.activitypub.Status;
+
+/**
+ * An in memory derby database with the schema of {@link RatatoskrLiquibase},
+ * filled with generated data with a given number of actors:
+ * <ul>
+ * <li>one article by each actor, and one like by each actor</li>
+ * <li>each actor followed by the next actor, and {@link #FOLLOWED_USERNAME}
+ *     followed by a tenth of all actors</li>
+ * <li>a ratatoskr account, with a counter, for the first {@link #MAX_ACCOUNTS} actors</li>
+ * </ul>
+ */
+public class BenchmarkDatabase {
+    static final String LOCAL_WEB_CONTEXT = "http://localhost:8181/ratatoskr/";
+    static final String FOLLOWED_USERNAME = username(0);
+    static final int MAX_ACCOUNTS = 100;
+
+    private final int actors;
+    private final DataSource datasource;
+
+    private BenchmarkDatabase(int actors, DataSource datasource) {
+        this.actors = actors;
+        this.datasource = datasource;
+    }
+
+    /**
+     * Create the schema of a new database, and fill it with generated data.
+     */
+    public static BenchmarkDatabase create(String name, int actors) throws Exception {
+        var datasource = createDataSource(name);
+        var liquibase = new RatatoskrLiquibase();
+        try (var connection = datasource.getConnection()) {
+            liquibase.createInitialSchema(connection);
+        }
+
+        try (var connection = datasource.getConnection()) {
+            liquibase.updateSchema(connection);
+        }
+
+        var database = new BenchmarkDatabase(actors, datasource);
+        database.fill(database.provider());
+        return database;
+    }
+
+    /**
+     * An empty in memory derby database.
+     */
+    static DataSource createDataSource(String name) throws SQLException {
+        var derbyDataSourceFactory = new DerbyDataSourceFactory();
+        var properties = new Properties();
+        properties.setProperty(DataSourceFactory.JDBC_URL, "jdbc:derby:memory:" + name + ";create=true");
+        return derbyDataSourceFactory.createDataSource(properties);
+    }
+
+    /**
+     * A newly activated provider, using the database.
+     */
+    public RatatoskrServiceProvider provider() {
+        var provider = new RatatoskrServiceProvider();
+        provider.setLogservice(new MockLogService());
+        provider.setDatasource(datasource);
+        provider.setUseradmin(mock(UserManagementService.class));
+        provider.activate(Map.of("defaultlocale", "nb_NO"));
+        return provider;
+    }
+
+    public int actors() {
+        return actors;
+    }
+
+    public int accounts() {
+        return Math.min(actors, MAX_ACCOUNTS);
+    }
+
+    static String username(int index) {
+        return "user" + index;
+    }
+
+    static String actorId(int index) {
+        return LOCAL_WEB_CONTEXT + "as/actor/" + username(index);
+    }
+
+    static String articleId(int index) {
+        return "https://" + username(index) + ".example.com/posts/" + index;
+    }
+
+    private void fill(RatatoskrServiceProvider ratatoskr) {
+        for (int i = 0; i < actors; ++i) {
+            ratatoskr.addPerson(Person.with()
+                .id(actorId(i))
+                .preferredUsername(username(i))
+                .name("User " + i)
+                .summary("Generated user number " + i)
+                .build());
+        }
+
+        for (int i = 0; i < actors; ++i) {
+            ratatoskr.addArticle(Article.with()
+                .id(articleId(i))
+                .name("Post number " + i)
+                .content("<p>Generated post number " + i + "</p>")
+                .attributedTo(Link.with().href(actorId(i)).build())
+                .build());
+        }
+
+        for (int i = 1; i < actors; ++i) {
+            ratatoskr.addFollowerToUsername(username(i), actorId((i + 1) % actors));
+        }
+
+        for (int i = 1; i <= Math.max(1, actors / 10); ++i) {
+            ratatoskr.addFollowerToUsername(FOLLOWED_USERNAME, actorId(i % actors));
+        }
+
+        for (int i = 0; i < actors; ++i) {
+            ratatoskr.addLikeToUsername(username(i), Like.with()
+                .authoredBy(Person.with().id(actorId(i)).build())
+                .inReplyTo(Status.with().id(articleId((i * 7) % actors)).build())
+                .build());
+        }
+
+        for (int i = 0; i < accounts(); ++i) {
+            ratatoskr.lazilyCreateAccount(username(i));
+        }
+    }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import no.priv.bang.ratatoskr.backend.HtmlSanitizerProvider;
+
+/**
+ * Sanitizing the content of incoming posts: the contents of the Mastodon
+ * examples of the asvocabulary tests, one long post made from all of them,
+ * and content full of markup that has to be removed.
+ *
+ * Run with e.g.
+ * <pre>
+ * mvn package -Pbenchmarks
+ * java -jar ratatoskr.benchmarks/target/benchmarks.jar HtmlSanitizerBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class HtmlSanitizerBenchmark {
+    static final String[] MASTODON_CONTENT = {
+        "<p>Hello Fediverse! :blob_wave: #introduction</p>",
+        "<p><span class=\"h-card\" translate=\"no\"><a href=\"https://activitypub.academy/@braussia_vrottariul\" class=\"u-url mention\">@<span>braussia_vrottariul</span></a></span> Nice picture</p>",
+        "<p><span class=\"h-card\" translate=\"no\"><a href=\"https://activitypub.academy/@braussia_vrottariul\" class=\"u-url mention\">@<span>braussia_vrottariul</span></a></span> Interesting picture</p>",
+        "<p>Comment without mention</p>",
+        "<p>Test post with image</p><p><a href=\"https://activitypub.academy/tags/stovnert%C3%A5rnet\" class=\"mention hashtag\" rel=\"tag\">#<span>stovnertårnet</span></a></p>",
+        "<p>Dette er en enkel tut på norsk.</p>",
+    };
+    static final String LONG_POST = String.join("", MASTODON_CONTENT).repeat(20);
+    static final String HOSTILE_CONTENT = ("<div class=\"post\" style=\"color: red\"><h1 onclick=\"alert(1)\">Title</h1>"
+        + "<script>alert('<p>')</script><img src=\"x\" onerror=\"alert(2)\"><a href=\"jav&#x09;ascript&colon;alert(3)\">link</a>"
+        + "<!-- comment --><p>1 < 2 && 3 > 2<b><i>unclosed</div>").repeat(10);
+
+    private final HtmlSanitizerProvider sanitizer = new HtmlSanitizerProvider();
+
+    @Benchmark
+    public void mastodonContent(Blackhole blackhole) {
+        for (var content : MASTODON_CONTENT) {
+            blackhole.consume(sanitizer.sanitize(content));
+        }
+    }
+
+    @Benchmark
+    public String longPost() {
+        return sanitizer.sanitize(LONG_POST);
+    }
+
+    @Benchmark
+    public String hostileContent() {
+        return sanitizer.sanitize(HOSTILE_CONTENT);
+    }
+
+}
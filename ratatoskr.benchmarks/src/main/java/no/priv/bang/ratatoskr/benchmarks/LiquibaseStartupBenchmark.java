@@ -0,0 +1,93 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import no.priv.bang.ratatoskr.db.liquibase.RatatoskrLiquibase;
+
+/**
+ * The schema work done when the database bundle starts against a database
+ * that is already up to date: with the stored changelog fingerprints
+ * matching, and with the fingerprints removed so that the full liquibase
+ * update runs, as it did on every start before the fingerprints.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class LiquibaseStartupBenchmark {
+
+    private DataSource datasource;
+    private final RatatoskrLiquibase liquibase = new RatatoskrLiquibase();
+
+    @Setup(Level.Trial)
+    public void createDatabase() throws Exception {
+        datasource = BenchmarkDatabase.createDataSource("ratatoskrliquibasestartup");
+        startup();
+    }
+
+    @Benchmark
+    public void startupWithMatchingFingerprints() throws Exception {
+        startup();
+    }
+
+    @Benchmark
+    public void startupWithFullLiquibaseUpdate(ForgottenFingerprints forgotten) throws Exception {
+        startup();
+    }
+
+    private void startup() throws Exception {
+        try (var connection = datasource.getConnection()) {
+            liquibase.createInitialSchema(connection);
+        }
+
+        try (var connection = datasource.getConnection()) {
+            liquibase.updateSchema(connection);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ForgottenFingerprints {
+
+        @Setup(Level.Invocation)
+        public void forgetFingerprints(LiquibaseStartupBenchmark benchmark) throws Exception {
+            try (var connection = benchmark.datasource.getConnection()) {
+                try (var statement = connection.createStatement()) {
+                    statement.executeUpdate("delete from " + RatatoskrLiquibase.FINGERPRINTS_TABLE);
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.benchmarks;
+
+import static no.priv.bang.ratatoskr.benchmarks.BenchmarkDatabase.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import no.priv.bang.ratatoskr.asvocabulary.Article;
+import no.priv.bang.ratatoskr.asvocabulary.Group;
+import no.priv.bang.ratatoskr.backend.RatatoskrServiceProvider;
+import no.priv.bang.ratatoskr.services.activitypub.Like;
+import no.priv.bang.ratatoskr.services.activitypub.Person;
+import no.priv.bang.ratatoskr.services.beans.CounterBean;
+
+/**
+ * The hot {@link RatatoskrServiceProvider} methods against an embedded
+ * derby database, at several numbers of actors, run from one thread and
+ * from {@link #THREADS} threads sharing the database.
+ *
+ * Run with e.g.
+ * <pre>
+ * mvn package -Pbenchmarks
+ * java -jar ratatoskr.benchmarks/target/benchmarks.jar -p actors=1000 -rf json
+ * </pre>
+ *
+ * The likes made by the userLikeArticle benchmarks stay in the database,
+ * so later iterations read larger liked collections.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RatatoskrServiceProviderBenchmark {
+    static final int THREADS = 8;
+
+    @Param({ "100", "1000", "10000" })
+    int actors;
+
+    private BenchmarkDatabase database;
+    private RatatoskrServiceProvider ratatoskr;
+    private final Group audience = Group.with().build();
+    private final AtomicLong newAccounts = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void createDatabase() throws Exception {
+        database = BenchmarkDatabase.create("ratatoskrbenchmark" + actors, actors);
+        ratatoskr = database.provider();
+    }
+
+    @Benchmark
+    public Optional<Person> findPersonWithUsername() {
+        return ratatoskr.findPersonWithUsername(anyActor());
+    }
+
+    @Benchmark
+    @Threads(THREADS)
+    public Optional<Person> findPersonWithUsernameThreaded() {
+        return findPersonWithUsername();
+    }
+
+    @Benchmark
+    public List<Person> findFollowersWithUsername() {
+        return ratatoskr.findFollowersWithUsername(FOLLOWED_USERNAME);
+    }
+
+    @Benchmark
+    @Threads(THREADS)
+    public List<Person> findFollowersWithUsernameThreaded() {
+        return findFollowersWithUsername();
+    }
+
+    @Benchmark
+    public List<Like> userLikeArticle() {
+        var article = Article.with().id(articleId(ThreadLocalRandom.current().nextInt(database.actors()))).build();
+        return ratatoskr.userLikeArticle(anyAccount(), article, audience, LOCAL_WEB_CONTEXT);
+    }
+
+    @Benchmark
+    @Threads(THREADS)
+    public List<Like> userLikeArticleThreaded() {
+        return userLikeArticle();
+    }
+
+    @Benchmark
+    public Optional<CounterBean> incrementCounter() {
+        return ratatoskr.incrementCounter(anyAccount());
+    }
+
+    @Benchmark
+    @Threads(THREADS)
+    public Optional<CounterBean> incrementCounterThreaded() {
+        return incrementCounter();
+    }
+
+    @Benchmark
+    public boolean lazilyCreateExistingAccount() {
+        return ratatoskr.lazilyCreateAccount(anyAccount());
+    }
+
+    @Benchmark
+    @Threads(THREADS)
+    public boolean lazilyCreateExistingAccountThreaded() {
+        return lazilyCreateExistingAccount();
+    }
+
+    @Benchmark
+    public boolean lazilyCreateNewAccount() {
+        return ratatoskr.lazilyCreateAccount("newuser" + newAccounts.incrementAndGet());
+    }
+
+    @Benchmark
+    @Threads(THREADS)
+    public boolean lazilyCreateNewAccountThreaded() {
+        return lazilyCreateNewAccount();
+    }
+
+    private String anyActor() {
+        return username(ThreadLocalRandom.current().nextInt(database.actors()));
+    }
+
+    private String anyAccount() {
+        return username(ThreadLocalRandom.current().nextInt(database.accounts()));
+    }
+
+}
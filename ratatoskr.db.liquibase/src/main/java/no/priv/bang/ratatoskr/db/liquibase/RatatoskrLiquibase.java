@@ -1,5 +1,5 @@
 /*
- * Copyright 2023-2024 Steinar Bang
+ * Copyright 2023-2026 Steinar Bang
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,8 +19,19 @@ import static liquibase.command.core.UpdateCommandStep.CHANGELOG_FILE_ARG;
 import static liquibase.command.core.helpers.DatabaseChangelogCommandStep.CHANGELOG_PARAMETERS;
 import static liquibase.command.core.helpers.DbUrlConnectionArgumentsCommandStep.DATABASE_ARG;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
 
 import liquibase.Scope;
 import liquibase.Scope.ScopedRunner;
@@ -31,7 +42,20 @@ import liquibase.database.jvm.JdbcConnection;
 import liquibase.exception.LiquibaseException;
 import liquibase.resource.ClassLoaderResourceAccessor;
 
+/**
+ * Create and update the ratatoskr schema with liquibase.
+ *
+ * Running a liquibase update parses the changelogs, computes the checksums
+ * of the changesets and takes the changelog lock, even when there is nothing
+ * to do.  To make restarts fast, a fingerprint of each changelog applied,
+ * a SHA-256 hash of the changelog and the files it refers to, is stored in
+ * {@link #FINGERPRINTS_TABLE} after a successful update, and liquibase is
+ * skipped when the fingerprint of the bundled changelog matches the stored
+ * one.  The fingerprints table itself is created by the initial changelog.
+ */
 public class RatatoskrLiquibase {
+    public static final String FINGERPRINTS_TABLE = "ratatoskr_liquibase_fingerprints";
+    private static final Pattern FILE_REFERENCE = Pattern.compile("\\bfile=\"([^\"]+)\"");
 
     public void createInitialSchema(Connection connection) throws LiquibaseException {
         applyLiquibaseChangelist(connection, "ratatoskr-db-changelog/db-changelog-1.0.0.xml");
@@ -42,6 +66,15 @@ public class RatatoskrLiquibase {
     }
 
     public void applyLiquibaseChangelist(Connection connection, String changelistClasspathResource, ClassLoader classLoader) throws LiquibaseException {
+        var fingerprint = fingerprint(changelistClasspathResource, classLoader);
+        if (fingerprint != null && fingerprint.equals(storedFingerprint(connection, changelistClasspathResource))) {
+            return;
+        }
+
+        runLiquibaseUpdate(connection, changelistClasspathResource, classLoader, fingerprint);
+    }
+
+    private void runLiquibaseUpdate(Connection connection, String changelistClasspathResource, ClassLoader classLoader, String fingerprint) throws LiquibaseException {
         try (var database = DatabaseFactory.getInstance().findCorrectDatabaseImplementation(new JdbcConnection(connection))) {
             Map<String, Object> scopeObjects = Map.of(
                 Scope.Attr.database.name(), database,
@@ -52,6 +85,10 @@ public class RatatoskrLiquibase {
                         .addArgumentValue(CHANGELOG_FILE_ARG, changelistClasspathResource)
                         .addArgumentValue(CHANGELOG_PARAMETERS, new ChangeLogParameters(database))
                         .execute());
+            // Closing the liquibase database closes the connection, so the fingerprint is stored before that
+            if (fingerprint != null) {
+                storeFingerprint(connection, changelistClasspathResource, fingerprint);
+            }
         } catch (LiquibaseException e) {
             throw e;
         } catch (Exception e) {
@@ -64,5 +101,133 @@ public class RatatoskrLiquibase {
         applyLiquibaseChangelist(connection, changelistClasspathResource, getClass().getClassLoader());
     }
 
+    /**
+     * A SHA-256 hash of a changelog and of the files it includes or loads,
+     * recursively, or null if any of these files can't be found on the
+     * classpath.  A changelog without a fingerprint is always treated as
+     * changed, and left to liquibase to resolve.
+     */
+    String fingerprint(String changelistClasspathResource, ClassLoader classLoader) throws LiquibaseException {
+        var digest = sha256();
+        if (!addToFingerprint(digest, changelistClasspathResource, classLoader, new HashSet<>())) {
+            return null;
+        }
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private boolean addToFingerprint(MessageDigest digest, String resource, ClassLoader classLoader, Set<String> visited) throws LiquibaseException {
+        if (!visited.add(resource)) {
+            return true;
+        }
+
+        digest.update(resource.getBytes(StandardCharsets.UTF_8));
+        try (var stream = classLoader.getResourceAsStream(resource)) {
+            if (stream == null) {
+                return false;
+            }
+
+            var content = stream.readAllBytes();
+            digest.update(content);
+            if (resource.endsWith(".xml")) {
+                var references = FILE_REFERENCE.matcher(new String(content, StandardCharsets.UTF_8));
+                while (references.find()) {
+                    if (!addToFingerprint(digest, references.group(1), classLoader, visited)) {
+                        return false;
+                    }
+                }
+            }
+
+            return true;
+        } catch (IOException e) {
+            throw new LiquibaseException("Failed to read liquibase changelog " + resource, e);
+        }
+    }
+
+    String storedFingerprint(Connection connection, String changelistClasspathResource) {
+        try {
+            if (!fingerprintsTableExists(connection)) {
+                return null;
+            }
+
+            try (var statement = connection.prepareStatement("select fingerprint from " + FINGERPRINTS_TABLE + " where changelog=?")) {
+                statement.setString(1, changelistClasspathResource);
+                try (var results = statement.executeQuery()) {
+                    return results.next() ? results.getString(1) : null;
+                }
+            }
+        } catch (SQLException e) {
+            // Without a readable fingerprint, liquibase decides what to do
+            return null;
+        }
+    }
+
+    /**
+     * Failing to store the fingerprint, e.g. when two instances store the
+     * same fingerprint concurrently or when the changelog creating the
+     * fingerprints table hasn't been applied yet, doesn't fail the update,
+     * it only means that liquibase will be run on the next start.
+     */
+    void storeFingerprint(Connection connection, String changelistClasspathResource, String fingerprint) {
+        try {
+            if (!fingerprintsTableExists(connection)) {
+                return;
+            }
+
+            try (var statement = connection.prepareStatement("delete from " + FINGERPRINTS_TABLE + " where changelog=?")) {
+                statement.setString(1, changelistClasspathResource);
+                statement.executeUpdate();
+            }
+
+            try (var statement = connection.prepareStatement("insert into " + FINGERPRINTS_TABLE + " (changelog, fingerprint) values (?, ?)")) {
+                statement.setString(1, changelistClasspathResource);
+                statement.setString(2, fingerprint);
+                statement.executeUpdate();
+            }
+
+            if (!connection.getAutoCommit()) {
+                connection.commit();
+            }
+        } catch (SQLException e) {
+            rollback(connection);
+        }
+    }
+
+    private void rollback(Connection connection) {
+        try {
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+            }
+        } catch (SQLException e) {
+            // Nothing more to do, the connection is unusable
+        }
+    }
+
+    /**
+     * Look for the table in the database metadata rather than failing a
+     * select, since a failed statement would abort an open PostgreSQL
+     * transaction.  Derby stores unquoted names in upper case and
+     * PostgreSQL in lower case.
+     */
+    private boolean fingerprintsTableExists(Connection connection) throws SQLException {
+        var metadata = connection.getMetaData();
+        for (var name : List.of(FINGERPRINTS_TABLE, FINGERPRINTS_TABLE.toUpperCase(Locale.ROOT))) {
+            try (var tables = metadata.getTables(null, null, name, new String[] { "TABLE" })) {
+                if (tables.next()) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private static MessageDigest sha256() throws LiquibaseException {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new LiquibaseException(e);
+        }
+    }
 
 }
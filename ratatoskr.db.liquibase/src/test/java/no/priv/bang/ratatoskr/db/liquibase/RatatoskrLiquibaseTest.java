@@ -1,5 +1,5 @@
 /*
- * Copyright 2023-2025 Steinar Bang
+ * Copyright 2023-2026 Steinar Bang
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,6 +18,7 @@ package no.priv.bang.ratatoskr.db.liquibase;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.db.api.Assertions.assertThat;
+import static org.mockito.AdditionalAnswers.delegatesTo;
 import static org.mockito.Mockito.*;
 
 import java.sql.Connection;
@@ -184,6 +185,108 @@ class RatatoskrLiquibaseTest {
         }
     }
 
+    @Test
+    void testLiquibaseIsSkippedWhenTheFingerprintMatches() throws Exception {
+        var ratatoskrLiquibase = new RatatoskrLiquibase();
+        var datasource = createDataSource("ratatoskrfingerprint");
+        ratatoskrLiquibase.createInitialSchema(datasource.getConnection());
+        ratatoskrLiquibase.updateSchema(datasource.getConnection());
+
+        try (var realConnection = datasource.getConnection()) {
+            var connection = mock(Connection.class, delegatesTo(realConnection));
+            ratatoskrLiquibase.createInitialSchema(connection);
+            ratatoskrLiquibase.updateSchema(connection);
+
+            // Only the lookups of the fingerprints
+            verify(connection, times(2)).prepareStatement(anyString());
+            verify(connection, never()).createStatement();
+            verify(connection, never()).setAutoCommit(anyBoolean());
+            verify(connection, never()).close();
+        }
+    }
+
+    @Test
+    void testLiquibaseIsRunWhenTheFingerprintDiffers() throws Exception {
+        var ratatoskrLiquibase = new RatatoskrLiquibase();
+        var datasource = createDataSource("ratatoskrfingerprintchanged");
+        ratatoskrLiquibase.createInitialSchema(datasource.getConnection());
+        var changelog = "ratatoskr-db-changelog/db-changelog-1.0.0.xml";
+        var fingerprint = ratatoskrLiquibase.fingerprint(changelog, getClass().getClassLoader());
+        try (var connection = datasource.getConnection()) {
+            assertEquals(fingerprint, ratatoskrLiquibase.storedFingerprint(connection, changelog));
+            try (var statement = connection.prepareStatement("update " + RatatoskrLiquibase.FINGERPRINTS_TABLE + " set fingerprint=? where changelog=?")) {
+                statement.setString(1, "an older changelog");
+                statement.setString(2, changelog);
+                statement.executeUpdate();
+            }
+        }
+
+        try (var realConnection = datasource.getConnection()) {
+            var connection = spy(realConnection);
+            doNothing().when(connection).setAutoCommit(anyBoolean());
+            ratatoskrLiquibase.createInitialSchema(connection);
+            verify(connection).close();
+        }
+
+        try (var connection = datasource.getConnection()) {
+            assertEquals(fingerprint, ratatoskrLiquibase.storedFingerprint(connection, changelog));
+        }
+    }
+
+    @Test
+    void testFingerprint() throws Exception {
+        var ratatoskrLiquibase = new RatatoskrLiquibase();
+        var classLoader = getClass().getClassLoader();
+
+        var initial = ratatoskrLiquibase.fingerprint("ratatoskr-db-changelog/db-changelog-1.0.0.xml", classLoader);
+        var update = ratatoskrLiquibase.fingerprint("ratatoskr-db-changelog/db-changelog-1.0.1.xml", classLoader);
+
+        assertThat(initial).hasSize(64).isEqualTo(ratatoskrLiquibase.fingerprint("ratatoskr-db-changelog/db-changelog-1.0.0.xml", classLoader));
+        assertThat(update).hasSize(64).isNotEqualTo(initial);
+    }
+
+    @Test
+    void testNoFingerprintWhenAFileCantBeFound() throws Exception {
+        var ratatoskrLiquibase = new RatatoskrLiquibase();
+        var classLoader = getClass().getClassLoader();
+
+        assertNull(ratatoskrLiquibase.fingerprint("ratatoskr-db-changelog/no-such-changelog.xml", classLoader));
+        assertNull(ratatoskrLiquibase.fingerprint("test-changelog/unresolvable-include.xml", classLoader));
+    }
+
+    @Test
+    void testFingerprintIsNotStoredBeforeTheFingerprintsTableExists() throws Exception {
+        var ratatoskrLiquibase = new RatatoskrLiquibase();
+        var changelog = "ratatoskr-db-changelog/db-changelog-1.0.0.xml";
+        try (var connection = createConnection("ratatoskrnofingerprints")) {
+            ratatoskrLiquibase.storeFingerprint(connection, changelog, "abcd");
+
+            assertNull(ratatoskrLiquibase.storedFingerprint(connection, changelog));
+        }
+    }
+
+    @Test
+    void testStoredFingerprintWhenDatabaseFails() throws Exception {
+        var ratatoskrLiquibase = new RatatoskrLiquibase();
+        var connection = mock(Connection.class);
+        when(connection.getMetaData()).thenThrow(SQLException.class);
+
+        assertNull(ratatoskrLiquibase.storedFingerprint(connection, "ratatoskr-db-changelog/db-changelog-1.0.0.xml"));
+        assertDoesNotThrow(() -> ratatoskrLiquibase.storeFingerprint(connection, "ratatoskr-db-changelog/db-changelog-1.0.0.xml", "abcd"));
+    }
+
+    @Test
+    void testStoreFingerprintRollsBackOnFailure() throws Exception {
+        var ratatoskrLiquibase = new RatatoskrLiquibase();
+        var connection = mock(Connection.class);
+        when(connection.getMetaData()).thenThrow(SQLException.class);
+        when(connection.getAutoCommit()).thenReturn(false);
+
+        ratatoskrLiquibase.storeFingerprint(connection, "ratatoskr-db-changelog/db-changelog-1.0.0.xml", "abcd");
+
+        verify(connection).rollback();
+    }
+
     private void addAccounts(DataSource datasource) throws Exception {
         try(var connection = datasource.getConnection()) {
             addAccount(connection, "admin");
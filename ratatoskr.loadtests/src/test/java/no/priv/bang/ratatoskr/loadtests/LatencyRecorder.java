@@ -0,0 +1,77 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.loadtests;
+
+import java.util.Arrays;
+
+/**
+ * The latencies of the requests of one client, kept in full so that the
+ * percentiles of the report are exact.
+ *
+ * A recorder is only written by its own client, and only read after the
+ * client has finished.
+ */
+class LatencyRecorder {
+
+    private long[] latencies = new long[1024];
+    private int size;
+
+    void record(long nanos) {
+        if (size == latencies.length) {
+            latencies = Arrays.copyOf(latencies, size * 2);
+        }
+
+        latencies[size++] = nanos;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * All of the latencies of a set of recorders, sorted from lowest to
+     * highest.
+     */
+    static long[] merged(Iterable<LatencyRecorder> recorders) {
+        var total = 0;
+        for (var recorder : recorders) {
+            total += recorder.size;
+        }
+
+        var merged = new long[total];
+        var position = 0;
+        for (var recorder : recorders) {
+            System.arraycopy(recorder.latencies, 0, merged, position, recorder.size);
+            position += recorder.size;
+        }
+
+        Arrays.sort(merged);
+        return merged;
+    }
+
+    /**
+     * The nearest rank percentile of sorted latencies.
+     */
+    static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+
+        var rank = (int) Math.ceil(quantile * sorted.length);
+        return sorted[Math.clamp(rank - 1, 0, sorted.length - 1)];
+    }
+
+}
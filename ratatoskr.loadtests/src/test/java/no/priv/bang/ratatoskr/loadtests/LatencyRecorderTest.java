@@ -0,0 +1,51 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.loadtests;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class LatencyRecorderTest {
+
+    @Test
+    public void testMergedAndPercentiles() {
+        var first = new LatencyRecorder();
+        var second = new LatencyRecorder();
+        for (int i = 1000; i > 0; --i) {
+            (i % 2 == 0 ? first : second).record(i);
+        }
+
+        var merged = LatencyRecorder.merged(List.of(first, second));
+
+        assertEquals(1000, merged.length);
+        assertEquals(1, merged[0]);
+        assertEquals(1000, merged[999]);
+        assertEquals(500, LatencyRecorder.percentile(merged, 0.5));
+        assertEquals(990, LatencyRecorder.percentile(merged, 0.99));
+        assertEquals(999, LatencyRecorder.percentile(merged, 0.999));
+        assertEquals(1, LatencyRecorder.percentile(merged, 0.0));
+    }
+
+    @Test
+    public void testPercentileOfNothing() {
+        assertEquals(0, LatencyRecorder.percentile(new long[0], 0.99));
+        assertEquals(0, LatencyRecorder.merged(List.of(new LatencyRecorder())).length);
+    }
+
+}
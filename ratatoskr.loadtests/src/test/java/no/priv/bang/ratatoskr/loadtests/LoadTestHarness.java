@@ -0,0 +1,116 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.loadtests;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Run a {@link Scenario} with a number of concurrent clients, each on its
+ * own virtual thread with its own {@link HttpClient} and cookies, and
+ * each sending its next request as soon as the previous one has been
+ * answered.  Clients of a scenario with a login log in first, and a
+ * client whose login fails counts as one error and sends nothing.
+ *
+ * A warmup run, whose latencies are thrown away, precedes the measured
+ * run, to let the JIT compiler and the connection pools settle.
+ */
+public class LoadTestHarness {
+
+    private final int clients;
+    private final Duration warmup;
+    private final Duration duration;
+
+    public LoadTestHarness(int clients, Duration warmup, Duration duration) {
+        this.clients = clients;
+        this.warmup = warmup;
+        this.duration = duration;
+    }
+
+    public ScenarioResult run(Scenario scenario) {
+        if (!warmup.isZero()) {
+            runClients(scenario, warmup);
+        }
+
+        return runClients(scenario, duration);
+    }
+
+    private ScenarioResult runClients(Scenario scenario, Duration runDuration) {
+        var recorders = new ArrayList<LatencyRecorder>(clients);
+        var errors = new LongAdder();
+        var start = System.nanoTime();
+        var deadline = start + runDuration.toNanos();
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; ++i) {
+                var recorder = new LatencyRecorder();
+                recorders.add(recorder);
+                executor.submit(() -> runClient(scenario, recorder, errors, deadline));
+            }
+        }
+
+        var seconds = (System.nanoTime() - start) / 1e9;
+        return ScenarioResult.of(scenario.name(), clients, errors.sum(), seconds, LatencyRecorder.merged(recorders));
+    }
+
+    private void runClient(Scenario scenario, LatencyRecorder recorder, LongAdder errors, long deadline) {
+        try (var client = HttpClient.newBuilder().cookieHandler(new CookieManager()).connectTimeout(Scenario.TIMEOUT).build()) {
+            if (!login(client, scenario.login())) {
+                errors.increment();
+                return;
+            }
+
+            for (long iteration = 0; System.nanoTime() < deadline; ++iteration) {
+                var request = scenario.request().apply(iteration);
+                var start = System.nanoTime();
+                try {
+                    var response = client.send(request, BodyHandlers.ofString());
+                    if (!scenario.success().test(response)) {
+                        errors.increment();
+                    }
+                } catch (IOException e) {
+                    errors.increment();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+
+                recorder.record(System.nanoTime() - start);
+            }
+        }
+    }
+
+    static boolean login(HttpClient client, Scenario login) {
+        if (login == null) {
+            return true;
+        }
+
+        try {
+            return login.success().test(client.send(login.request().apply(0), BodyHandlers.ofString()));
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+}
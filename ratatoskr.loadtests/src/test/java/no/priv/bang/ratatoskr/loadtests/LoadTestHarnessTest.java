@@ -0,0 +1,158 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.loadtests;
+
+import static org.junit.Assert.*;
+
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+public class LoadTestHarnessTest {
+
+    private HttpServer server;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger logins = new AtomicInteger();
+
+    @Before
+    public void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/ok", exchange -> {
+            requests.incrementAndGet();
+            var body = "{\"success\":true}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (var output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        });
+        server.createContext("/login", exchange -> {
+            logins.incrementAndGet();
+            exchange.getResponseHeaders().add("Set-Cookie", "JSESSIONID=loggedin; Path=/");
+            var body = "{\"success\":true}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (var output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        });
+        server.createContext("/private", exchange -> {
+            var cookie = exchange.getRequestHeaders().getFirst("Cookie");
+            exchange.sendResponseHeaders(cookie != null && cookie.contains("JSESSIONID=loggedin") ? 200 : 302, -1);
+            exchange.close();
+        });
+        server.createContext("/fail", exchange -> {
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testRun() {
+        var harness = new LoadTestHarness(4, Duration.ofMillis(50), Duration.ofMillis(200));
+
+        var result = harness.run(Scenario.get("ok", uri("/ok")));
+
+        assertEquals("ok", result.name());
+        assertEquals(4, result.clients());
+        assertTrue(result.requests() > 0);
+        assertTrue(requests.get() > result.requests());
+        assertEquals(0, result.errors());
+        assertTrue(result.throughput() > 0);
+        assertTrue(result.p50() <= result.p99());
+        assertTrue(result.p99() <= result.p999());
+        assertTrue(result.p999() <= result.max());
+    }
+
+    @Test
+    public void testFailedRequestsAreCounted() {
+        var harness = new LoadTestHarness(2, Duration.ZERO, Duration.ofMillis(100));
+
+        var result = harness.run(Scenario.alternatingGets("alternating", uri("/ok"), uri("/fail")));
+
+        assertTrue(result.errors() > 0);
+        assertTrue(result.errors() < result.requests());
+    }
+
+    @Test
+    public void testPostJsonWithSuccessCheck() {
+        var harness = new LoadTestHarness(1, Duration.ZERO, Duration.ofMillis(100));
+
+        var succeeding = harness.run(Scenario.postJson("login", uri("/ok"), "{}", response -> response.body().contains("\"success\":true")));
+        var failing = harness.run(Scenario.postJson("login", uri("/ok"), "{}", response -> response.body().contains("\"success\":false")));
+
+        assertEquals(0, succeeding.errors());
+        assertEquals(failing.requests(), failing.errors());
+    }
+
+    @Test
+    public void testEachClientLogsInBeforeItsRequests() {
+        var harness = new LoadTestHarness(3, Duration.ZERO, Duration.ofMillis(100));
+        var login = Scenario.postJson("login", uri("/login"), "{}", response -> response.body().contains("\"success\":true"));
+
+        var anonymous = harness.run(Scenario.get("private", uri("/private")));
+        var loggedIn = harness.run(Scenario.get("private", uri("/private")).loggedInWith(login));
+
+        assertEquals(anonymous.requests(), anonymous.errors());
+        assertEquals(0, loggedIn.errors());
+        assertTrue(loggedIn.requests() > 0);
+        assertEquals(3, logins.get());
+    }
+
+    @Test
+    public void testFailedLoginIsCountedAndSendsNoRequests() {
+        var harness = new LoadTestHarness(2, Duration.ZERO, Duration.ofMillis(100));
+        var login = Scenario.postJson("login", uri("/fail"), "{}", Scenario::isSuccessful);
+
+        var result = harness.run(Scenario.get("ok", uri("/ok")).loggedInWith(login));
+
+        assertEquals(2, result.errors());
+        assertEquals(0, requests.get());
+    }
+
+    @Test
+    public void testConnectionFailuresAreCounted() throws Exception {
+        var harness = new LoadTestHarness(1, Duration.ZERO, Duration.ofMillis(100));
+        int port;
+        try (var unused = new ServerSocket(0)) {
+            port = unused.getLocalPort();
+        }
+
+        var result = harness.run(Scenario.get("down", URI.create("http://localhost:" + port + "/ok")));
+
+        assertEquals(result.requests(), result.errors());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + server.getAddress().getPort() + path);
+    }
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.loadtests;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Write the results of a load test run as a JSON file, labeled e.g. with
+ * the commit tested, so that the runs of different commits can be
+ * compared.
+ */
+public class LoadTestReport {
+
+    private LoadTestReport() {}
+
+    public static void write(Path file, String label, Instant timestamp, List<ScenarioResult> results) throws IOException {
+        var parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        Files.writeString(file, toJson(label, timestamp, results), StandardCharsets.UTF_8);
+    }
+
+    static String toJson(String label, Instant timestamp, List<ScenarioResult> results) {
+        var json = new StringBuilder()
+            .append("{\n")
+            .append("  \"label\": \"").append(escape(label)).append("\",\n")
+            .append("  \"timestamp\": \"").append(timestamp).append("\",\n")
+            .append("  \"javaVersion\": \"").append(escape(System.getProperty("java.version"))).append("\",\n")
+            .append("  \"availableProcessors\": ").append(Runtime.getRuntime().availableProcessors()).append(",\n")
+            .append("  \"scenarios\": [");
+        for (int i = 0; i < results.size(); ++i) {
+            json.append(i > 0 ? ",\n    " : "\n    ").append(results.get(i).toJson());
+        }
+
+        return json.append(results.isEmpty() ? "]\n" : "\n  ]\n").append("}\n").toString();
+    }
+
+    static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+
+        var escaped = new StringBuilder(value.length());
+        for (var c : value.toCharArray()) {
+            switch (c) {
+                case '"' -> escaped.append("\\\"");
+                case '\\' -> escaped.append("\\\\");
+                case '\n' -> escaped.append("\\n");
+                case '\r' -> escaped.append("\\r");
+                case '\t' -> escaped.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        escaped.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        escaped.append(c);
+                    }
+                }
+            }
+        }
+
+        return escaped.toString();
+    }
+
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.loadtests;
+
+import static org.junit.Assert.*;
+
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LoadTestReportTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testWrite() throws Exception {
+        var result = ScenarioResult.of("actor fetch", 10, 1, 2.0, new long[] { 1_000_000, 2_000_000, 3_000_000, 4_000_000 });
+        var file = folder.getRoot().toPath().resolve("reports/loadtest.json");
+
+        LoadTestReport.write(file, "abc1234", Instant.parse("2026-10-19T10:15:30Z"), List.of(result));
+
+        var json = Files.readString(file);
+        assertTrue(json.contains("\"label\": \"abc1234\""));
+        assertTrue(json.contains("\"timestamp\": \"2026-10-19T10:15:30Z\""));
+        assertTrue(json.contains("{\"name\":\"actor fetch\",\"clients\":10,\"requests\":4,\"errors\":1,\"seconds\":2.000,\"throughput\":2.0,\"p50Millis\":2.000,\"p99Millis\":4.000,\"p999Millis\":4.000,\"maxMillis\":4.000}"));
+    }
+
+    @Test
+    public void testNoResults() {
+        var json = LoadTestReport.toJson(null, Instant.EPOCH, List.of());
+
+        assertTrue(json.contains("\"label\": \"\""));
+        assertTrue(json.contains("\"scenarios\": []"));
+    }
+
+    @Test
+    public void testEscape() {
+        assertEquals("a \\\"quoted\\\" \\\\ line\\n\\u0001", LoadTestReport.escape("a \"quoted\" \\ line\n\u0001"));
+    }
+
+}
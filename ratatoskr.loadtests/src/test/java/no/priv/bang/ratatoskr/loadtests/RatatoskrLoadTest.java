@@ -0,0 +1,193 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.loadtests;
+
+import static org.junit.Assert.*;
+import static org.ops4j.pax.exam.CoreOptions.*;
+import static org.ops4j.pax.exam.karaf.options.KarafDistributionOption.*;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpClient.Redirect;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.apache.karaf.itests.KarafTestSupport;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.ops4j.pax.exam.Configuration;
+import org.ops4j.pax.exam.Option;
+import org.ops4j.pax.exam.junit.PaxExam;
+import org.ops4j.pax.exam.spi.reactors.ExamReactorStrategy;
+import org.ops4j.pax.exam.spi.reactors.PerClass;
+
+import no.priv.bang.ratatoskr.asvocabulary.Article;
+import no.priv.bang.ratatoskr.asvocabulary.Link;
+import no.priv.bang.ratatoskr.services.RatatoskrService;
+import no.priv.bang.ratatoskr.services.activitypub.Like;
+import no.priv.bang.ratatoskr.services.activitypub.Person;
+import no.priv.bang.ratatoskr.services.activitypub.Status;
+
+/**
+ * Boot the ratatoskr-with-derby feature, fill the database with an actor
+ * with followers and likes, and run each scenario against the "as" and
+ * "api" servlets.
+ *
+ * The run is configured with system properties given to maven, e.g.
+ * <pre>
+ * mvn verify -Ploadtests -Dloadtest.clients=200 -Dloadtest.durationSeconds=60 -Dloadtest.label=$(git rev-parse --short HEAD)
+ * </pre>
+ */
+@RunWith(PaxExam.class)
+@ExamReactorStrategy(PerClass.class)
+public class RatatoskrLoadTest extends KarafTestSupport {
+    static final String USERNAME = "jad";
+    static final String PASSWORD = "1ad";
+    static final int FOLLOWERS = 200;
+    static final int LIKES = 50;
+
+    @Configuration
+    @Override
+    public Option[] config() {
+        final var ratatoskrFeatureRepo = maven()
+            .groupId("no.priv.bang.ratatoskr")
+            .artifactId("karaf")
+            .versionAsInProject()
+            .type("xml")
+            .classifier("features");
+        var report = Path.of(System.getProperty("loadtest.report", "target/loadtest-report.json")).toAbsolutePath().toString();
+        var options = new Option[] {
+            features(ratatoskrFeatureRepo),
+            editConfigurationFilePut("etc/org.ops4j.pax.web.cfg", "org.osgi.service.http.port", httpPort()),
+            systemProperty("loadtest.httpPort").value(httpPort()),
+            systemProperty("loadtest.clients").value(System.getProperty("loadtest.clients", "50")),
+            systemProperty("loadtest.warmupSeconds").value(System.getProperty("loadtest.warmupSeconds", "5")),
+            systemProperty("loadtest.durationSeconds").value(System.getProperty("loadtest.durationSeconds", "20")),
+            systemProperty("loadtest.label").value(System.getProperty("loadtest.label", "")),
+            systemProperty("loadtest.report").value(report),
+        };
+        return Stream.of(super.config(), options).flatMap(Stream::of).toArray(Option[]::new);
+    }
+
+    @Test
+    public void testLoad() throws Exception {
+        installAndAssertFeature("ratatoskr-with-derby");
+        var base = URI.create("http://localhost:" + httpPort() + "/ratatoskr/");
+        fillDatabase(getOsgiService(RatatoskrService.class), base);
+        awaitStatus(base.resolve("as/actor/" + USERNAME), 200, login(base));
+
+        var harness = new LoadTestHarness(
+            Integer.getInteger("loadtest.clients", 50),
+            Duration.ofSeconds(Integer.getInteger("loadtest.warmupSeconds", 5)),
+            Duration.ofSeconds(Integer.getInteger("loadtest.durationSeconds", 20)));
+        var results = scenarios(base).stream().map(harness::run).toList();
+        LoadTestReport.write(Path.of(System.getProperty("loadtest.report")), System.getProperty("loadtest.label", ""), Instant.now(), results);
+
+        for (var result : results) {
+            assertTrue("No requests completed in " + result.name(), result.requests() > 0);
+            assertTrue("Too many failed requests in " + result.name(), result.errors() * 100 <= result.requests());
+        }
+    }
+
+    /**
+     * The /as paths and the counter require a logged in ratatoskruser, so
+     * every client of those scenarios logs in first.
+     */
+    static List<Scenario> scenarios(URI base) {
+        var login = login(base);
+        return List.of(
+            Scenario.get("actor fetch", base.resolve("as/actor/" + USERNAME)).loggedInWith(login),
+            Scenario.alternatingGets("followers", base.resolve("as/followers/" + USERNAME), base.resolve("as/followers/" + USERNAME + "?stream=true")).loggedInWith(login),
+            Scenario.get("liked", base.resolve("as/liked/" + USERNAME)).loggedInWith(login),
+            Scenario.get("counter increments", base.resolve("api/counter/" + USERNAME + "/increment")).loggedInWith(login),
+            login);
+    }
+
+    static Scenario login(URI base) {
+        var credentials = String.format(
+            "{\"username\":\"%s\",\"password\":\"%s\"}",
+            USERNAME,
+            Base64.getEncoder().encodeToString(PASSWORD.getBytes(StandardCharsets.UTF_8)));
+        return Scenario.postJson("login", base.resolve("api/login"), credentials, response -> Scenario.isSuccessful(response) && response.body().contains("\"success\":true"));
+    }
+
+    private void fillDatabase(RatatoskrService ratatoskr, URI base) {
+        var actor = base.resolve("as/actor/" + USERNAME).toString();
+        ratatoskr.addPerson(Person.with()
+            .id(actor)
+            .preferredUsername(USERNAME)
+            .name("Jane Doe")
+            .inbox(base.resolve("as/inbox/" + USERNAME).toString())
+            .following(base.resolve("as/following/" + USERNAME).toString())
+            .followers(base.resolve("as/followers/" + USERNAME).toString())
+            .liked(base.resolve("as/liked/" + USERNAME).toString())
+            .build());
+        for (int i = 0; i < FOLLOWERS; ++i) {
+            var follower = "https://follower" + i + ".example.com";
+            ratatoskr.addPerson(Person.with().id(follower).preferredUsername("follower" + i).name("Follower " + i).build());
+            ratatoskr.addFollowerToUsername(USERNAME, follower);
+        }
+
+        for (int i = 0; i < LIKES; ++i) {
+            var article = "https://follower" + i + ".example.com/posts/" + i;
+            ratatoskr.addArticle(Article.with()
+                .id(article)
+                .name("Post number " + i)
+                .content("<p>Something worth liking</p>")
+                .attributedTo(Link.with().href("https://follower" + i + ".example.com").build())
+                .build());
+            ratatoskr.addLikeToUsername(USERNAME, Like.with()
+                .authoredBy(Person.with().id(actor).build())
+                .inReplyTo(Status.with().id(article).build())
+                .build());
+        }
+
+        ratatoskr.lazilyCreateAccount(USERNAME);
+    }
+
+    private void awaitStatus(URI uri, int status, Scenario login) throws Exception {
+        try (var client = HttpClient.newBuilder().cookieHandler(new CookieManager()).followRedirects(Redirect.NEVER).build()) {
+            var request = HttpRequest.newBuilder(uri).GET().build();
+            for (int attempt = 0; attempt < 60; ++attempt) {
+                try {
+                    if (LoadTestHarness.login(client, login) && client.send(request, BodyHandlers.discarding()).statusCode() == status) {
+                        return;
+                    }
+                } catch (IOException e) {
+                    // Not listening yet
+                }
+
+                Thread.sleep(1000);
+            }
+        }
+
+        fail("Timed out waiting for " + uri);
+    }
+
+    private static String httpPort() {
+        return System.getProperty("loadtest.httpPort", "9181");
+    }
+
+}
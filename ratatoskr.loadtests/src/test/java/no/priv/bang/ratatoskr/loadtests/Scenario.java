@@ -0,0 +1,88 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.loadtests;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.function.LongFunction;
+import java.util.function.Predicate;
+
+/**
+ * A named sequence of HTTP requests, repeated by each client of a load
+ * test for as long as the test runs.
+ *
+ * @param name the name of the scenario in the report
+ * @param request creates the request for an iteration of a client
+ * @param success decides if a response counts as a success
+ * @param login done once by each client before its first request, with
+ *   the cookies kept for the requests that follow, or null
+ */
+public record Scenario(String name, LongFunction<HttpRequest> request, Predicate<HttpResponse<String>> success, Scenario login) {
+
+    static final String JSON = "application/json";
+    static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    public Scenario(String name, LongFunction<HttpRequest> request, Predicate<HttpResponse<String>> success) {
+        this(name, request, success, null);
+    }
+
+    /**
+     * The same scenario, with each client logging in with the first request
+     * of the login scenario before it starts.  The login isn't measured.
+     */
+    public Scenario loggedInWith(Scenario login) {
+        return new Scenario(name, request, success, login);
+    }
+
+    /**
+     * A scenario doing the same GET request on every iteration, succeeding
+     * on 2xx and 304 responses.
+     */
+    public static Scenario get(String name, URI uri) {
+        return new Scenario(name, iteration -> getRequest(uri), Scenario::isSuccessful);
+    }
+
+    /**
+     * A scenario alternating between GET requests to a list of URIs.
+     */
+    public static Scenario alternatingGets(String name, URI... uris) {
+        return new Scenario(name, iteration -> getRequest(uris[(int) (iteration % uris.length)]), Scenario::isSuccessful);
+    }
+
+    /**
+     * A scenario doing the same JSON POST on every iteration.
+     */
+    public static Scenario postJson(String name, URI uri, String body, Predicate<HttpResponse<String>> success) {
+        return new Scenario(name, iteration -> HttpRequest.newBuilder(uri)
+            .timeout(TIMEOUT)
+            .header("Content-Type", JSON)
+            .header("Accept", JSON)
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .build(), success);
+    }
+
+    static boolean isSuccessful(HttpResponse<String> response) {
+        var status = response.statusCode();
+        return (status >= 200 && status < 300) || status == 304;
+    }
+
+    private static HttpRequest getRequest(URI uri) {
+        return HttpRequest.newBuilder(uri).timeout(TIMEOUT).header("Accept", JSON).GET().build();
+    }
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.loadtests;
+
+import java.util.Locale;
+
+/**
+ * The outcome of running one {@link Scenario}, with the latencies in
+ * milliseconds.
+ */
+public record ScenarioResult(String name, int clients, long requests, long errors, double seconds, double p50, double p99, double p999, double max) {
+
+    public double throughput() {
+        return seconds > 0 ? requests / seconds : 0;
+    }
+
+    static ScenarioResult of(String name, int clients, long errors, double seconds, long[] sortedLatencies) {
+        return new ScenarioResult(
+            name,
+            clients,
+            sortedLatencies.length,
+            errors,
+            seconds,
+            millis(LatencyRecorder.percentile(sortedLatencies, 0.5)),
+            millis(LatencyRecorder.percentile(sortedLatencies, 0.99)),
+            millis(LatencyRecorder.percentile(sortedLatencies, 0.999)),
+            millis(sortedLatencies.length > 0 ? sortedLatencies[sortedLatencies.length - 1] : 0));
+    }
+
+    String toJson() {
+        return String.format(
+            Locale.ROOT,
+            "{\"name\":\"%s\",\"clients\":%d,\"requests\":%d,\"errors\":%d,\"seconds\":%.3f,\"throughput\":%.1f,\"p50Millis\":%.3f,\"p99Millis\":%.3f,\"p999Millis\":%.3f,\"maxMillis\":%.3f}",
+            LoadTestReport.escape(name),
+            clients,
+            requests,
+            errors,
+            seconds,
+            throughput(),
+            p50,
+            p99,
+            p999,
+            max);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.services;
+
+import no.priv.bang.ratatoskr.services.beans.AccountChange;
+
+/**
+ * OSGi whiteboard service notified by the {@link RatatoskrService} when
+ * the data of an account is changed.
+ *
+ * Used to push the changes to the browsers of the user of the account.
+ * Listeners are called on the thread making the change, and must not
+ * block.
+ */
+public interface AccountChangeListener {
+
+    void accountChanged(AccountChange change);
+
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.services;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
+
+import no.priv.bang.ratatoskr.asvocabulary.ActivityStreamObject;
+import no.priv.bang.ratatoskr.asvocabulary.Article;
+import no.priv.bang.ratatoskr.asvocabulary.Group;
+import no.priv.bang.ratatoskr.services.activitypub.ArticleThread;
+import no.priv.bang.ratatoskr.services.activitypub.Like;
+import no.priv.bang.ratatoskr.services.activitypub.Person;
+import no.priv.bang.ratatoskr.services.activitypub.Replies;
+import no.priv.bang.ratatoskr.services.activitypub.TagTimeline;
+import no.priv.bang.ratatoskr.services.beans.Account;
+import no.priv.bang.ratatoskr.services.beans.ActorCounts;
+import no.priv.bang.ratatoskr.services.beans.ArticleCounts;
+import no.priv.bang.ratatoskr.services.beans.CounterBean;
+import no.priv.bang.ratatoskr.services.beans.CounterIncrementStepBean;
+import no.priv.bang.ratatoskr.services.beans.ResourceVersion;
+
+/**
+ * Non-blocking variant of the database backed methods of {@link RatatoskrService}.
+ *
+ * The returned stages complete on a thread belonging to the implementation,
+ * so that callers, e.g. servlet request threads, are not held while waiting
+ * for the database.  Failures are reported by completing the stage exceptionally.
+ */
+public interface AsyncRatatoskrService {
+
+    CompletionStage<List<Account>> getAccounts();
+
+    CompletionStage<Optional<Person>> addPerson(Person person);
+
+    CompletionStage<Optional<Person>> findPerson(String id);
+
+    CompletionStage<Optional<Person>> findPersonWithUsername(String username);
+
+    CompletionStage<Optional<ResourceVersion>> findActorVersion(String username);
+
+    CompletionStage<Optional<Group>> addGroup(Group group);
+
+    CompletionStage<Optional<Article>> addArticle(Article article);
+
+    CompletionStage<Optional<Article>> findArticle(String id);
+
+    CompletionStage<TagTimeline> findTagTimeline(String hashtag, String olderThan, int limit);
+
+    CompletionStage<Optional<ArticleThread>> findThread(String id);
+
+    CompletionStage<Replies> findReplies(String id, String after, int limit);
+
+    CompletionStage<List<Person>> findFollowersWithUsername(String username);
+
+    /**
+     * The consumer is called on the thread completing the stage, before
+     * the stage completes.
+     */
+    CompletionStage<Integer> forEachFollowerWithUsername(String username, Consumer<Person> follower);
+
+    CompletionStage<List<Person>> addFollowerToUsername(String username, String id);
+
+    CompletionStage<ResourceVersion> findFollowersVersion(String username);
+
+    CompletionStage<List<Person>> findFollowingWithUsername(String username);
+
+    CompletionStage<List<Person>> addFollowedToUsername(String username, String id);
+
+    CompletionStage<ResourceVersion> findFollowingVersion(String username);
+
+    CompletionStage<List<Like>> findLikedWithUsername(String username);
+
+    CompletionStage<List<Like>> addLikeToUsername(String username, Like like);
+
+    CompletionStage<ResourceVersion> findLikedVersion(String username);
+
+    CompletionStage<Optional<ActorCounts>> findActorCounts(String username);
+
+    CompletionStage<Optional<ArticleCounts>> findArticleCounts(String id);
+
+    CompletionStage<List<Like>> userLikeArticle(String username, Article article, Group audience, String localWebContext);
+
+    CompletionStage<List<ActivityStreamObject>> listInbox(Person actor);
+
+    CompletionStage<List<ActivityStreamObject>> postToInbox(Person actor, ActivityStreamObject message);
+
+    CompletionStage<List<ActivityStreamObject>> listOutbox(Person actor);
+
+    CompletionStage<List<ActivityStreamObject>> postToOutbox(Person actor, ActivityStreamObject message);
+
+    CompletionStage<Optional<CounterIncrementStepBean>> getCounterIncrementStep(String username);
+
+    CompletionStage<Optional<CounterIncrementStepBean>> updateCounterIncrementStep(CounterIncrementStepBean updatedIncrementStep);
+
+    CompletionStage<Optional<CounterBean>> getCounter(String username);
+
+    CompletionStage<Optional<CounterBean>> incrementCounter(String username);
+
+    CompletionStage<Optional<CounterBean>> decrementCounter(String username);
+
+    CompletionStage<Boolean> lazilyCreateAccount(String username);
+
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.services;
+
+import java.util.concurrent.CompletionStage;
+
+import no.priv.bang.ratatoskr.services.beans.TaggedContent;
+
+/**
+ * Finds the <code>@user@host</code> mentions and <code>#hashtag</code>s of
+ * the content of posts written by local users.
+ */
+public interface ContentTagger {
+
+    /**
+     * Scan content for mentions and hashtags, and look up the actors of all
+     * of the accounts mentioned at the same time.
+     *
+     * Mentions written as <code>@user</code>, or with the host of this
+     * server, are of local users.  Text inside HTML links isn't scanned.
+     *
+     * @param content plain text or HTML
+     * @param localWebContext the URL of the ratatoskr web context, e.g.
+     *        "https://example.com/ratatoskr", used for the hrefs of hashtags
+     *        and for recognizing mentions of local users
+     * @return a stage completing with the mentions and hashtags found.  The
+     *         stage never completes exceptionally
+     */
+    CompletionStage<TaggedContent> tag(String content, String localWebContext);
+
+}
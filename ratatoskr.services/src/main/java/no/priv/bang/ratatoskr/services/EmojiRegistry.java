@@ -0,0 +1,75 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.services;
+
+import java.util.List;
+import java.util.Optional;
+
+import no.priv.bang.ratatoskr.services.activitypub.Emoji;
+import no.priv.bang.ratatoskr.services.beans.CustomEmoji;
+
+/**
+ * The custom emojis of this server and of the servers federated with,
+ * keyed by domain and shortcode.
+ *
+ * The shortcodes of each domain are compiled into a matcher finding all
+ * of them in a text in a single pass, whatever the number of emojis.
+ */
+public interface EmojiRegistry {
+
+    /**
+     * The domain of the custom emojis of this server.
+     */
+    static final String LOCAL_DOMAIN = "";
+
+    /**
+     * Add a custom emoji, or replace the emoji with the same domain and
+     * shortcode.
+     *
+     * @param emoji the emoji to add
+     * @return the emoji as stored
+     * @throws RatatoskrException if the shortcode isn't two or more letters, digits
+     *         and underscores, or if the emoji couldn't be stored
+     */
+    CustomEmoji register(CustomEmoji emoji);
+
+    /**
+     * Remove a custom emoji.
+     *
+     * @return true if the emoji was found and removed
+     */
+    boolean remove(String domain, String shortcode);
+
+    Optional<CustomEmoji> find(String domain, String shortcode);
+
+    /**
+     * The custom emojis of a domain, sorted by shortcode.
+     */
+    List<CustomEmoji> listEmojis(String domain);
+
+    /**
+     * Find the shortcodes of the custom emojis of a domain, written as
+     * <code>:shortcode:</code>, in texts, e.g. the <code>content</code>,
+     * <code>name</code> and <code>summary</code> of an object.
+     *
+     * @param domain the domain the texts were written on
+     * @param texts the texts to look in, null texts are skipped
+     * @return the tags of the emojis found, in the order they were first used,
+     *         with each emoji only once
+     */
+    List<Emoji> emojisIn(String domain, String... texts);
+
+}
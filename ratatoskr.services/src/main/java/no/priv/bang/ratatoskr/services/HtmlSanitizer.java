@@ -0,0 +1,39 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.services;
+
+/**
+ * Cleans up the HTML of the <code>content</code> and <code>contentMap</code>
+ * of objects received from other servers before they are stored or shown.
+ */
+public interface HtmlSanitizer {
+
+    /**
+     * Keep only the allowed elements and attributes of HTML.
+     *
+     * The content of <code>script</code>, <code>style</code> and similar
+     * elements is removed, while the text of other elements that aren't
+     * allowed is kept.  Links to anything but the allowed URL schemes lose
+     * their href, links are made to open in a new window and get
+     * <code>rel="nofollow noopener noreferrer"</code>, and elements left
+     * open are closed.  Sanitizing the result again gives the same result.
+     *
+     * @param html the HTML to sanitize, may be null
+     * @return the sanitized HTML, or null if the argument is null
+     */
+    String sanitize(String html);
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.services;
+
+import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+
+import no.priv.bang.ratatoskr.services.activitypub.Image;
+import no.priv.bang.ratatoskr.services.beans.ImagePreviews;
+import no.priv.bang.ratatoskr.services.beans.StoredMedia;
+
+/**
+ * Makes preview and icon sized versions, and a blurhash, of the images in
+ * the {@link MediaStore}, in the background, so that timelines can show
+ * small images, and a blurred placeholder while they load, instead of the
+ * full size originals.
+ */
+public interface ImagePreviewGenerator {
+
+    /**
+     * Make the previews of an image, unless they have been made already.
+     * Calls for an image that is already being worked on get the result
+     * of the ongoing work.
+     *
+     * @param media stored media
+     * @return a stage completing with the previews, or with an empty value
+     *         if the media isn't an image that can be read, or if there is
+     *         too much work queued already.  The stage never completes
+     *         exceptionally
+     */
+    CompletionStage<Optional<ImagePreviews>> generate(StoredMedia media);
+
+    /**
+     * The previews of an image, if they have been made.
+     */
+    Optional<ImagePreviews> find(StoredMedia media);
+
+    /**
+     * An {@link Image} for stored media, with the previews and the blurhash
+     * if they have been made.
+     *
+     * @param media stored media
+     * @param mediaUrl the URL the content of the media store is served from,
+     *        ending with a slash, e.g. "https://example.com/ratatoskr/media/"
+     */
+    default Image image(StoredMedia media, String mediaUrl) {
+        var image = Image.with()
+            .mediaType(media.mediaType())
+            .url(mediaUrl + media.hash());
+        find(media).ifPresent(previews -> image
+            .width(previews.width())
+            .height(previews.height())
+            .blurHash(previews.blurHash())
+            .preview(Image.with()
+                .mediaType(previews.preview().mediaType())
+                .url(mediaUrl + previews.preview().hash())
+                .width(previews.previewWidth())
+                .height(previews.previewHeight())
+                .build())
+            .icon(Image.with()
+                .mediaType(previews.icon().mediaType())
+                .url(mediaUrl + previews.icon().hash())
+                .width(previews.iconWidth())
+                .height(previews.iconHeight())
+                .build()));
+        return image.build();
+    }
+
+}
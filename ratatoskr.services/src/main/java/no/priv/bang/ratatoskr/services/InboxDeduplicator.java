@@ -0,0 +1,60 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.services;
+
+import java.util.Optional;
+
+/**
+ * Rejects repeated deliveries of the same activity to the inboxes, which
+ * happen all the time: delivery retries, deliveries to both the shared
+ * inbox and a personal inbox, and the same activity forwarded by relays.
+ *
+ * An inbox finds the id of a delivered activity with
+ * {@link #activityId(byte[])} and asks {@link #isDuplicate(String)} before
+ * verifying the HTTP signature and parsing the activity, and answers a
+ * duplicate with 202 Accepted at once.  Once a delivery has been verified
+ * and accepted, the inbox records it with {@link #received(String)}.
+ * Activities are only recorded there, so that a delivery with a forged
+ * signature can't make the real activity look like a duplicate.
+ */
+public interface InboxDeduplicator {
+
+    /**
+     * Find the id of an activity in the raw body of a delivery, without
+     * parsing anything but the top level of the JSON object, and stopping
+     * at the first <code>id</code>.
+     *
+     * @param body the JSON body of a delivery
+     * @return the id, or an empty value if the body isn't a JSON object
+     *         with a string <code>id</code>
+     */
+    Optional<String> activityId(byte[] body);
+
+    /**
+     * True if the activity has been received before.  Activities received
+     * recently are recognized without asking the database.
+     */
+    boolean isDuplicate(String activityId);
+
+    /**
+     * Record an activity as received.
+     *
+     * @return false if the activity had already been received, e.g. by a
+     *         concurrent delivery of the same activity
+     */
+    boolean received(String activityId);
+
+}
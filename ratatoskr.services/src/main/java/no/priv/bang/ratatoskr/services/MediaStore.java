@@ -0,0 +1,98 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.services;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+
+import no.priv.bang.ratatoskr.services.beans.StoredMedia;
+
+/**
+ * The attachments of ratatoskr, i.e. the content of <code>Document</code>,
+ * <code>Image</code>, <code>Audio</code> and <code>Video</code> objects,
+ * kept in files on local disk named by the SHA-256 of their content.
+ *
+ * Storing content that is already stored doesn't store a second copy.
+ * Uploaded media is kept until it is deleted.  Media fetched from other
+ * servers is evicted, least recently used first, when the store grows
+ * beyond its quota.
+ */
+public interface MediaStore {
+
+    /**
+     * Store uploaded content.
+     *
+     * @param content the content to store, read to the end but not closed
+     * @param mediaType the media type of the content
+     * @return the stored media
+     * @throws MediaTooLargeException if the content is larger than an upload
+     *         may be, or would take the uploaded media beyond its quota
+     * @throws RatatoskrException if the content couldn't be stored
+     */
+    StoredMedia store(InputStream content, String mediaType);
+
+    /**
+     * Store content made from stored media, e.g. a thumbnail of an image.
+     * The derived content is evicted like the media it is made from, i.e.
+     * it is kept if the original was uploaded, and may be evicted if the
+     * original was fetched from another server.
+     *
+     * @param content the content to store, read to the end but not closed
+     * @param mediaType the media type of the content
+     * @param original the media the content is made from
+     * @return the stored media
+     * @throws RatatoskrException if the content couldn't be stored
+     */
+    StoredMedia storeDerived(InputStream content, String mediaType, StoredMedia original);
+
+    /**
+     * Fetch media from another server into the store, or find it if it has
+     * already been fetched.
+     *
+     * @param url an http or https URL
+     * @return a stage completing with the stored media, or with an empty
+     *         value if the media couldn't be fetched.  The stage never
+     *         completes exceptionally
+     */
+    CompletionStage<Optional<StoredMedia>> fetchRemote(String url);
+
+    /**
+     * Find stored media by the hash of its content, marking it as recently
+     * used.
+     *
+     * @param hash the hex encoded SHA-256 of the content
+     * @return the stored media, or an empty value if nothing is stored with that hash
+     */
+    Optional<StoredMedia> find(String hash);
+
+    /**
+     * The file holding the content of stored media.  The file must only be read.
+     *
+     * Files next to it, named by the hash followed by a dot, e.g. results
+     * computed from the content, are deleted with the content.
+     */
+    Path path(StoredMedia media);
+
+    /**
+     * Delete stored media.
+     *
+     * @return true if there was media with that hash to delete
+     */
+    boolean delete(String hash);
+
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.services;
+
+/**
+ * Thrown by the {@link MediaStore} when content to be stored is larger than
+ * the store accepts, or when storing it would take the uploaded media beyond
+ * its quota.
+ */
+public class MediaTooLargeException extends RatatoskrException {
+    private static final long serialVersionUID = 4581936204755193162L;
+
+    /**
+     * {@inheritDoc}
+     */
+    public MediaTooLargeException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.services;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.function.LongSupplier;
+
+/**
+ * Latency and error counts of the hot paths of ratatoskr: the calls to the
+ * {@link RatatoskrService}, the JDBC statements and the HTTP requests,
+ * and values owned by other components, e.g. the response body cache.
+ *
+ * Recording is lock free, so that it can be done on every call.
+ */
+public interface Metrics {
+
+    static final String SERVICE_CALLS = "ratatoskr_service_call_seconds";
+    static final String JDBC_STATEMENTS = "ratatoskr_jdbc_statement_seconds";
+    static final String HTTP_REQUESTS = "ratatoskr_http_request_seconds";
+    static final String COUNTER = "counter";
+    static final String GAUGE = "gauge";
+
+    /**
+     * Record the duration of one call.
+     *
+     * @param name the name of the metric, e.g. {@link #SERVICE_CALLS}
+     * @param nanos the duration of the call in nanoseconds
+     * @param failed true if the call failed
+     * @param labels label names and label values, alternating
+     */
+    void record(String name, long nanos, boolean failed, String... labels);
+
+    /**
+     * Expose a value that is owned by someone else, e.g. the hit count or the
+     * size of a cache.  The value is read when the metrics are written.
+     * Registering the same name and labels again replaces the earlier value.
+     *
+     * @param name the name of the metric
+     * @param type {@link #COUNTER} or {@link #GAUGE}
+     * @param help the description of the metric
+     * @param value read the current value
+     * @param labels label names and label values, alternating
+     */
+    void register(String name, String type, String help, LongSupplier value, String... labels);
+
+    /**
+     * Stop exposing a value registered with {@link #register(String, String, String, LongSupplier, String...)}.
+     */
+    void unregister(String name, String... labels);
+
+    /**
+     * Write all metrics in the Prometheus text exposition format.
+     */
+    void writePrometheusText(Writer writer) throws IOException;
+
+}
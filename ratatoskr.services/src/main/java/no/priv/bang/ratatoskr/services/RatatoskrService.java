@@ -1,5 +1,5 @@
 /*
- * Copyright 2023-2025 Steinar Bang
+ * Copyright 2023-2026 Steinar Bang
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,20 +15,30 @@
  */
 package no.priv.bang.ratatoskr.services;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import no.priv.bang.ratatoskr.asvocabulary.ActivityStreamObject;
 import no.priv.bang.ratatoskr.asvocabulary.Article;
 import no.priv.bang.ratatoskr.asvocabulary.Group;
+import no.priv.bang.ratatoskr.services.activitypub.ArticleThread;
 import no.priv.bang.ratatoskr.services.activitypub.Like;
 import no.priv.bang.ratatoskr.services.activitypub.Person;
+import no.priv.bang.ratatoskr.services.activitypub.Replies;
+import no.priv.bang.ratatoskr.services.activitypub.TagTimeline;
 import no.priv.bang.ratatoskr.services.beans.Account;
+import no.priv.bang.ratatoskr.services.beans.ActorCounts;
+import no.priv.bang.ratatoskr.services.beans.ArticleCounts;
 import no.priv.bang.ratatoskr.services.beans.CounterBean;
 import no.priv.bang.ratatoskr.services.beans.CounterIncrementStepBean;
+import no.priv.bang.ratatoskr.services.beans.CustomEmoji;
+import no.priv.bang.ratatoskr.services.beans.DisplayTextsBody;
 import no.priv.bang.ratatoskr.services.beans.LocaleBean;
+import no.priv.bang.ratatoskr.services.beans.ResourceVersion;
 
 public interface RatatoskrService {
 
@@ -40,24 +50,105 @@ public interface RatatoskrService {
 
     public Optional<Person> findPersonWithUsername(String username);
 
+    Optional<ResourceVersion> findActorVersion(String username);
+
     Optional<Group> addGroup(Group group);
 
     Optional<Article> addArticle(Article article);
 
     Optional<Article> findArticle(String id);
 
+    TagTimeline findTagTimeline(String hashtag, String olderThan, int limit);
+
+    /**
+     * Find the ancestors and all of the descendants of an article with a
+     * single query on the thread index.
+     */
+    Optional<ArticleThread> findThread(String id);
+
+    Replies findReplies(String id, String after, int limit);
+
     List<Person> findFollowersWithUsername(String username);
 
+    /**
+     * Pass the followers of a user to a consumer one at a time, as they are
+     * read from the database, without collecting them in a list.
+     *
+     * @return the number of followers passed to the consumer
+     */
+    int forEachFollowerWithUsername(String username, Consumer<Person> follower);
+
     List<Person> addFollowerToUsername(String username, String id);
 
+    ResourceVersion findFollowersVersion(String username);
+
     List<Person> findFollowingWithUsername(String username);
 
     List<Person> addFollowedToUsername(String username, String id);
 
+    ResourceVersion findFollowingVersion(String username);
+
     List<Like> findLikedWithUsername(String username);
 
     List<Like> addLikeToUsername(String username, Like like);
 
+    ResourceVersion findLikedVersion(String username);
+
+    /**
+     * Read the sizes of the collections of an actor from the counts table,
+     * without counting the rows of the collections.
+     */
+    Optional<ActorCounts> findActorCounts(String username);
+
+    Optional<ArticleCounts> findArticleCounts(String id);
+
+    /**
+     * Recount the collections and correct the counts that have drifted from
+     * the rows they count.
+     *
+     * @return the number of counts rows added or corrected
+     */
+    int reconcileCounts();
+
+    /**
+     * All custom emojis, of all domains, read by the {@link EmojiRegistry}
+     * when it starts.
+     */
+    List<CustomEmoji> listCustomEmojis();
+
+    /**
+     * Add a custom emoji, or replace the URL and media type of the emoji
+     * with the same domain and shortcode.
+     */
+    CustomEmoji saveCustomEmoji(CustomEmoji emoji);
+
+    boolean deleteCustomEmoji(String domain, String shortcode);
+
+    /**
+     * True if an activity with the id has been recorded as received.
+     */
+    boolean hasReceivedActivity(String activityId);
+
+    /**
+     * Record an activity as received.
+     *
+     * @return false if the activity had already been recorded
+     */
+    boolean addReceivedActivity(String activityId);
+
+    /**
+     * The ids of the activities recorded as received at or after a time,
+     * used to fill the filter of the {@link InboxDeduplicator} on startup.
+     */
+    List<String> listReceivedActivitiesSince(Instant since);
+
+    /**
+     * Forget the activities recorded as received before a time.
+     *
+     * @return the number of activities forgotten
+     */
+    int deleteReceivedActivitiesBefore(Instant before);
+
     List<Like> userLikeArticle(String username, Article article, Group audience, String localWebContext);
 
     List<ActivityStreamObject> listInbox(Person actor);
@@ -84,6 +175,13 @@ public interface RatatoskrService {
 
     public Map<String, String> displayTexts(Locale locale);
 
+    /**
+     * The display texts of one of the {@link #availableLocales()} or of the
+     * {@link #defaultLocale()}, serialized once and kept ready to be sent,
+     * or empty for any other locale.
+     */
+    public Optional<DisplayTextsBody> displayTextsBody(Locale locale);
+
     public String displayText(String key, String locale);
 
     public boolean lazilyCreateAccount(String username);
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.services;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import no.priv.bang.ratatoskr.asvocabulary.Link;
+import no.priv.bang.ratatoskr.asvocabulary.LinkOrObject;
+
+/**
+ * Dereferences the IRIs of ActivityStreams objects living on other servers,
+ * e.g. the bare links often found in <code>attributedTo</code>,
+ * <code>inReplyTo</code>, <code>actor</code> and <code>object</code>.
+ *
+ * Fetched objects are cached, and concurrent fetches of the same IRI, or
+ * lookups of the same account, are answered by a single outbound request.
+ */
+public interface RemoteObjectFetcher {
+
+    /**
+     * Fetch and parse the object identified by an IRI.
+     *
+     * @param iri an http or https IRI of an ActivityStreams object
+     * @return a stage completing with the parsed object, or with an empty
+     *         value if the object doesn't exist or couldn't be fetched.
+     *         The stage never completes exceptionally
+     */
+    CompletionStage<Optional<LinkOrObject>> fetch(String iri);
+
+    /**
+     * Find the IRI of the actor of an account on another server with
+     * WebFinger.  The answers are cached with the fetched objects.
+     *
+     * @param account an account written as <code>user@host</code>
+     * @return a stage completing with the IRI of the actor, or with an empty
+     *         value if the account doesn't exist or couldn't be looked up.
+     *         The stage never completes exceptionally
+     */
+    CompletionStage<Optional<String>> findActorId(String account);
+
+    /**
+     * Replace a {@link Link} with the object it refers to.
+     *
+     * @param value a link or an object
+     * @return a stage completing with the object referred to if the value is a link,
+     *         and with the value itself if it isn't a link or if the object couldn't be fetched
+     */
+    default CompletionStage<LinkOrObject> dereference(LinkOrObject value) {
+        if (value instanceof Link link && link.href() != null) {
+            return fetch(link.href()).thenApply(fetched -> fetched.orElse(value));
+        }
+
+        return CompletableFuture.completedFuture(value);
+    }
+
+}
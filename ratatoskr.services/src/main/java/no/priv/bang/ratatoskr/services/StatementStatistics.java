@@ -0,0 +1,54 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.services;
+
+import java.util.List;
+
+import no.priv.bang.ratatoskr.services.beans.StatementStatistic;
+
+/**
+ * Execution counts, times and rows of the SQL statements run against the
+ * ratatoskr database, by normalized statement text, for finding the
+ * statements worth optimizing.
+ */
+public interface StatementStatistics {
+
+    /**
+     * Record one execution of a statement.
+     *
+     * @param statement the normalized SQL of the statement
+     * @param nanos the duration of the execution in nanoseconds
+     * @param rows the number of rows updated by the execution
+     * @param failed true if the execution failed
+     */
+    void executed(String statement, long nanos, long rows, boolean failed);
+
+    /**
+     * Record the rows read from the result of a query.
+     */
+    void fetched(String statement, long rows);
+
+    /**
+     * The statements with the highest total execution time, highest first.
+     */
+    List<StatementStatistic> topStatements(int count);
+
+    /**
+     * Forget all of the recorded statements.
+     */
+    void reset();
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.services.activitypub;
+
+import java.util.List;
+
+import no.priv.bang.ratatoskr.asvocabulary.Article;
+
+/**
+ * An article with the articles it is a reply to and all of the replies to it.
+ *
+ * The ancestors are ordered from the root of the thread down to the article
+ * directly replied to.  The descendants are ordered oldest first, and each
+ * of them has an inReplyTo that can be used to arrange them into a tree.
+ */
+public record ArticleThread(
+    List<Article> ancestors,
+    Article article,
+    List<Article> descendants)
+{
+
+    public static Builder with() {
+        return new Builder();
+    }
+
+    public static class Builder {
+
+        private List<Article> ancestors = List.of();
+        private Article article;
+        private List<Article> descendants = List.of();
+
+        public ArticleThread build() {
+            return new ArticleThread(
+                ancestors,
+                article,
+                descendants);
+        }
+
+        public Builder ancestors(List<Article> ancestors) {
+            this.ancestors = ancestors;
+            return this;
+        }
+
+        public Builder article(Article article) {
+            this.article = article;
+            return this;
+        }
+
+        public Builder descendants(List<Article> descendants) {
+            this.descendants = descendants;
+            return this;
+        }
+
+    }
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2025 Steinar Bang
+ * Copyright 2025-2026 Steinar Bang
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,29 +17,56 @@ package no.priv.bang.ratatoskr.services.activitypub;
 
 import no.priv.bang.ratatoskr.asvocabulary.ActivityStreamObjectType;
 
+/**
+ * An image attachment.  The preview and the icon are smaller versions of
+ * the image, to be shown in timelines and lists instead of the full image.
+ */
 public record Image(
     ActivityStreamObjectType type,
     String mediaType,
     String url,
-    String blurHash) implements Document
+    String blurHash,
+    int width,
+    int height,
+    Image preview,
+    Image icon) implements Document
 {
 
     public static Builder with() {
         return new Builder();
     }
 
+    public static Builder with(Image image) {
+        return new Builder()
+            .mediaType(image.mediaType())
+            .url(image.url())
+            .blurHash(image.blurHash())
+            .width(image.width())
+            .height(image.height())
+            .preview(image.preview())
+            .icon(image.icon());
+    }
+
     public static class Builder {
 
         private String mediaType;
         private String url;
         private String blurHash;
+        private int width;
+        private int height;
+        private Image preview;
+        private Image icon;
 
         public Image build() {
             return new Image(
                 ActivityStreamObjectType.Image,
                 mediaType,
                 url,
-                blurHash);
+                blurHash,
+                width,
+                height,
+                preview,
+                icon);
         }
 
         public Builder mediaType(String mediaType) {
@@ -57,6 +84,26 @@ public record Image(
             return this;
         }
 
+        public Builder width(int width) {
+            this.width = width;
+            return this;
+        }
+
+        public Builder height(int height) {
+            this.height = height;
+            return this;
+        }
+
+        public Builder preview(Image preview) {
+            this.preview = preview;
+            return this;
+        }
+
+        public Builder icon(Image icon) {
+            this.icon = icon;
+            return this;
+        }
+
     }
 
 }
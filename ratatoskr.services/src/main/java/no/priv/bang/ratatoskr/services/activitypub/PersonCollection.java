@@ -17,6 +17,14 @@ package no.priv.bang.ratatoskr.services.activitypub;
 
 import java.util.List;
 
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * The items come before current, first and last, so that a collection
+ * written one item at a time, where the last item is only known at the
+ * end, serializes the same way as a collection held in memory.
+ */
+@JsonPropertyOrder({ "id", "totalItems", "orderedItems", "current", "first", "last" })
 public record PersonCollection(
     String id,
     int totalItems,
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.services.activitypub;
+
+import java.util.List;
+
+import no.priv.bang.ratatoskr.asvocabulary.Article;
+
+/**
+ * One page of the articles tagged with a hashtag, newest first.
+ *
+ * The next field is an opaque keyset cursor pointing past the last item
+ * of the page, or null if this is the last page.
+ */
+public record TagTimeline(
+    String id,
+    String hashtag,
+    int totalItems,
+    String next,
+    List<Article> orderedItems)
+{
+
+    public static Builder with() {
+        return new Builder();
+    }
+
+    public static Builder with(TagTimeline timeline) {
+        return new Builder()
+            .id(timeline.id())
+            .hashtag(timeline.hashtag())
+            .totalItems(timeline.totalItems())
+            .next(timeline.next())
+            .orderedItems(timeline.orderedItems());
+    }
+
+    public static class Builder {
+
+        private String id;
+        private String hashtag;
+        private int totalItems;
+        private String next;
+        private List<Article> orderedItems = List.of();
+
+        public TagTimeline build() {
+            return new TagTimeline(
+                id,
+                hashtag,
+                totalItems,
+                next,
+                orderedItems);
+        }
+
+        public Builder id(String id) {
+            this.id = id;
+            return this;
+        }
+
+        public Builder hashtag(String hashtag) {
+            this.hashtag = hashtag;
+            return this;
+        }
+
+        public Builder totalItems(int totalItems) {
+            this.totalItems = totalItems;
+            return this;
+        }
+
+        public Builder next(String next) {
+            this.next = next;
+            return this;
+        }
+
+        public Builder orderedItems(List<Article> orderedItems) {
+            this.orderedItems = orderedItems;
+            return this;
+        }
+
+    }
+
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.services.beans;
+
+/**
+ * A change to the data of an account: the username of the account, what
+ * was changed, and the data after the change.
+ */
+public record AccountChange(String username, String type, Object data) {
+
+    public static final String COUNTER = "counter";
+    public static final String COUNTER_INCREMENT_STEP = "counterincrementstep";
+
+    public static Builder with() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private String username;
+        private String type;
+        private Object data;
+
+        private Builder() {}
+
+        public AccountChange build() {
+            return new AccountChange(username, type, data);
+        }
+
+        public Builder username(String username) {
+            this.username = username;
+            return this;
+        }
+
+        public Builder type(String type) {
+            this.type = type;
+            return this;
+        }
+
+        public Builder data(Object data) {
+            this.data = data;
+            return this;
+        }
+
+    }
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.services.beans;
+
+/**
+ * The sizes of the followers, following and liked collections of an actor.
+ */
+public record ActorCounts(int followers, int following, int liked) {
+
+    public static Builder with() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private int followers;
+        private int following;
+        private int liked;
+
+        private Builder() {}
+
+        public ActorCounts build() {
+            return new ActorCounts(followers, following, liked);
+        }
+
+        public Builder followers(int followers) {
+            this.followers = followers;
+            return this;
+        }
+
+        public Builder following(int following) {
+            this.following = following;
+            return this;
+        }
+
+        public Builder liked(int liked) {
+            this.liked = liked;
+            return this;
+        }
+
+    }
+
+}
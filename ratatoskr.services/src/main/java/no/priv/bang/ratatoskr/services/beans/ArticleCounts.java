@@ -0,0 +1,55 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.services.beans;
+
+/**
+ * The sizes of the likes, shares and replies collections of an article.
+ */
+public record ArticleCounts(int likes, int shares, int replies) {
+
+    public static Builder with() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private int likes;
+        private int shares;
+        private int replies;
+
+        private Builder() {}
+
+        public ArticleCounts build() {
+            return new ArticleCounts(likes, shares, replies);
+        }
+
+        public Builder likes(int likes) {
+            this.likes = likes;
+            return this;
+        }
+
+        public Builder shares(int shares) {
+            this.shares = shares;
+            return this;
+        }
+
+        public Builder replies(int replies) {
+            this.replies = replies;
+            return this;
+        }
+
+    }
+
+}
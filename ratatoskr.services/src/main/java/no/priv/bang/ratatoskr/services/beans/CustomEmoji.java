@@ -0,0 +1,88 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.services.beans;
+
+import no.priv.bang.ratatoskr.services.activitypub.Emoji;
+import no.priv.bang.ratatoskr.services.activitypub.Image;
+
+/**
+ * A custom emoji: the domain of the server it belongs to, the empty string
+ * for the emojis of this server, the shortcode it is written with in texts,
+ * without the colons, and the URL and media type of the image.
+ */
+public record CustomEmoji(String domain, String shortcode, String url, String mediaType) {
+
+    /**
+     * The tag of the emoji, as found in the <code>tag</code> list of an
+     * object using it.
+     */
+    public Emoji tag() {
+        return Emoji.with()
+            .name(":" + shortcode + ":")
+            .icon(Image.with()
+                .mediaType(mediaType)
+                .url(url)
+                .build())
+            .build();
+    }
+
+    public static Builder with() {
+        return new Builder();
+    }
+
+    public static Builder with(CustomEmoji emoji) {
+        return new Builder()
+            .domain(emoji.domain())
+            .shortcode(emoji.shortcode())
+            .url(emoji.url())
+            .mediaType(emoji.mediaType());
+    }
+
+    public static class Builder {
+        private String domain;
+        private String shortcode;
+        private String url;
+        private String mediaType;
+
+        private Builder() {}
+
+        public CustomEmoji build() {
+            return new CustomEmoji(domain, shortcode, url, mediaType);
+        }
+
+        public Builder domain(String domain) {
+            this.domain = domain;
+            return this;
+        }
+
+        public Builder shortcode(String shortcode) {
+            this.shortcode = shortcode;
+            return this;
+        }
+
+        public Builder url(String url) {
+            this.url = url;
+            return this;
+        }
+
+        public Builder mediaType(String mediaType) {
+            this.mediaType = mediaType;
+            return this;
+        }
+
+    }
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.services.beans;
+
+/**
+ * The display texts of a locale serialized as a JSON object, both as
+ * plain JSON and gzip compressed, with an ETag computed from the content.
+ */
+public record DisplayTextsBody(String etag, byte[] json, byte[] gzipped) {
+
+    public static Builder with() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private String etag;
+        private byte[] json;
+        private byte[] gzipped;
+
+        private Builder() {}
+
+        public DisplayTextsBody build() {
+            return new DisplayTextsBody(etag, json, gzipped);
+        }
+
+        public Builder etag(String etag) {
+            this.etag = etag;
+            return this;
+        }
+
+        public Builder json(byte[] json) {
+            this.json = json;
+            return this;
+        }
+
+        public Builder gzipped(byte[] gzipped) {
+            this.gzipped = gzipped;
+            return this;
+        }
+
+    }
+
+}
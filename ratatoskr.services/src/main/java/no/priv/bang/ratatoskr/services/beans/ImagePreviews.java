@@ -0,0 +1,93 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.services.beans;
+
+/**
+ * What has been computed from an image in the media store: the size of
+ * the image, its blurhash, and the hashes of the stored preview and icon
+ * sized versions of the image.
+ */
+public record ImagePreviews(int width, int height, String blurHash, StoredMedia preview, int previewWidth, int previewHeight, StoredMedia icon, int iconWidth, int iconHeight) {
+
+    public static Builder with() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private int width;
+        private int height;
+        private String blurHash;
+        private StoredMedia preview;
+        private int previewWidth;
+        private int previewHeight;
+        private StoredMedia icon;
+        private int iconWidth;
+        private int iconHeight;
+
+        private Builder() {}
+
+        public ImagePreviews build() {
+            return new ImagePreviews(width, height, blurHash, preview, previewWidth, previewHeight, icon, iconWidth, iconHeight);
+        }
+
+        public Builder width(int width) {
+            this.width = width;
+            return this;
+        }
+
+        public Builder height(int height) {
+            this.height = height;
+            return this;
+        }
+
+        public Builder blurHash(String blurHash) {
+            this.blurHash = blurHash;
+            return this;
+        }
+
+        public Builder preview(StoredMedia preview) {
+            this.preview = preview;
+            return this;
+        }
+
+        public Builder previewWidth(int previewWidth) {
+            this.previewWidth = previewWidth;
+            return this;
+        }
+
+        public Builder previewHeight(int previewHeight) {
+            this.previewHeight = previewHeight;
+            return this;
+        }
+
+        public Builder icon(StoredMedia icon) {
+            this.icon = icon;
+            return this;
+        }
+
+        public Builder iconWidth(int iconWidth) {
+            this.iconWidth = iconWidth;
+            return this;
+        }
+
+        public Builder iconHeight(int iconHeight) {
+            this.iconHeight = iconHeight;
+            return this;
+        }
+
+    }
+
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.services.beans;
+
+import java.time.ZonedDateTime;
+
+/**
+ * What the representation of a resource depends on, in a form that is cheap to
+ * look up: the number of items and the time of the most recent change.
+ */
+public record ResourceVersion(int count, ZonedDateTime lastModified) {
+
+    public static Builder with() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private int count;
+        private ZonedDateTime lastModified;
+
+        private Builder() {}
+
+        public ResourceVersion build() {
+            return new ResourceVersion(count, lastModified);
+        }
+
+        public Builder count(int count) {
+            this.count = count;
+            return this;
+        }
+
+        public Builder lastModified(ZonedDateTime lastModified) {
+            this.lastModified = lastModified;
+            return this;
+        }
+
+    }
+
+}
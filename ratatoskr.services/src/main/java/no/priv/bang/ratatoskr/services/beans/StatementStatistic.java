@@ -0,0 +1,73 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.services.beans;
+
+/**
+ * The recorded executions of one normalized SQL statement.
+ */
+public record StatementStatistic(String statement, long executions, long errors, long totalNanos, long maxNanos, long rows) {
+
+    public static Builder with() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private String statement;
+        private long executions;
+        private long errors;
+        private long totalNanos;
+        private long maxNanos;
+        private long rows;
+
+        private Builder() {}
+
+        public StatementStatistic build() {
+            return new StatementStatistic(statement, executions, errors, totalNanos, maxNanos, rows);
+        }
+
+        public Builder statement(String statement) {
+            this.statement = statement;
+            return this;
+        }
+
+        public Builder executions(long executions) {
+            this.executions = executions;
+            return this;
+        }
+
+        public Builder errors(long errors) {
+            this.errors = errors;
+            return this;
+        }
+
+        public Builder totalNanos(long totalNanos) {
+            this.totalNanos = totalNanos;
+            return this;
+        }
+
+        public Builder maxNanos(long maxNanos) {
+            this.maxNanos = maxNanos;
+            return this;
+        }
+
+        public Builder rows(long rows) {
+            this.rows = rows;
+            return this;
+        }
+
+    }
+
+}
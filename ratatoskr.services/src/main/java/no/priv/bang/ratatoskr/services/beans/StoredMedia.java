@@ -0,0 +1,71 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.services.beans;
+
+/**
+ * A file in the media store: the hex encoded SHA-256 of the content, which
+ * is also the name of the file, the media type and size of the content,
+ * and the URL it was fetched from, which is null for uploaded media.
+ */
+public record StoredMedia(String hash, String mediaType, long size, String remoteUrl) {
+
+    public static Builder with() {
+        return new Builder();
+    }
+
+    public static Builder with(StoredMedia media) {
+        return new Builder()
+            .hash(media.hash())
+            .mediaType(media.mediaType())
+            .size(media.size())
+            .remoteUrl(media.remoteUrl());
+    }
+
+    public static class Builder {
+        private String hash;
+        private String mediaType;
+        private long size;
+        private String remoteUrl;
+
+        private Builder() {}
+
+        public StoredMedia build() {
+            return new StoredMedia(hash, mediaType, size, remoteUrl);
+        }
+
+        public Builder hash(String hash) {
+            this.hash = hash;
+            return this;
+        }
+
+        public Builder mediaType(String mediaType) {
+            this.mediaType = mediaType;
+            return this;
+        }
+
+        public Builder size(long size) {
+            this.size = size;
+            return this;
+        }
+
+        public Builder remoteUrl(String remoteUrl) {
+            this.remoteUrl = remoteUrl;
+            return this;
+        }
+
+    }
+
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.services.beans;
+
+import no.priv.bang.ratatoskr.services.activitypub.Tag;
+
+/**
+ * A mention or hashtag found in content: the tag, and the offsets of the
+ * text it was written as, from the start offset up to, but not including,
+ * the end offset, for replacing the text with a link.
+ */
+public record TagSpan(int start, int end, Tag tag) {
+
+    public static Builder with() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private int start;
+        private int end;
+        private Tag tag;
+
+        private Builder() {}
+
+        public TagSpan build() {
+            return new TagSpan(start, end, tag);
+        }
+
+        public Builder start(int start) {
+            this.start = start;
+            return this;
+        }
+
+        public Builder end(int end) {
+            this.end = end;
+            return this;
+        }
+
+        public Builder tag(Tag tag) {
+            this.tag = tag;
+            return this;
+        }
+
+    }
+
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.services.beans;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import no.priv.bang.ratatoskr.services.activitypub.Tag;
+
+/**
+ * The mentions and hashtags of content, in the order they are written, and
+ * the IRIs of the mentioned actors, for addressing the content to them.
+ *
+ * Mentions of accounts that couldn't be found have no span.
+ */
+public record TaggedContent(List<TagSpan> spans, List<String> mentioned) {
+
+    /**
+     * The tags of the content, with each tag only once.
+     */
+    public List<Tag> tags() {
+        var tags = new LinkedHashSet<Tag>();
+        for (var span : spans) {
+            tags.add(span.tag());
+        }
+
+        return new ArrayList<>(tags);
+    }
+
+    public static Builder with() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private List<TagSpan> spans = List.of();
+        private List<String> mentioned = List.of();
+
+        private Builder() {}
+
+        public TaggedContent build() {
+            return new TaggedContent(spans, mentioned);
+        }
+
+        public Builder spans(List<TagSpan> spans) {
+            this.spans = spans;
+            return this;
+        }
+
+        public Builder mentioned(List<String> mentioned) {
+            this.mentioned = mentioned;
+            return this;
+        }
+
+    }
+
+}
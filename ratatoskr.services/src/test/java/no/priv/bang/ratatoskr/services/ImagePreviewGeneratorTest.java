@@ -0,0 +1,78 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.services;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+import no.priv.bang.ratatoskr.services.beans.ImagePreviews;
+import no.priv.bang.ratatoskr.services.beans.StoredMedia;
+
+class ImagePreviewGeneratorTest {
+    private static final String MEDIA_URL = "https://example.com/ratatoskr/media/";
+    private static final StoredMedia ORIGINAL = StoredMedia.with().hash("aaaa").mediaType("image/png").size(100000).build();
+    private static final StoredMedia PREVIEW = StoredMedia.with().hash("bbbb").mediaType("image/jpeg").size(10000).build();
+    private static final StoredMedia ICON = StoredMedia.with().hash("cccc").mediaType("image/jpeg").size(1000).build();
+
+    @Test
+    void testImageWithoutPreviews() {
+        var generator = mock(ImagePreviewGenerator.class, CALLS_REAL_METHODS);
+        doReturn(Optional.empty()).when(generator).find(any());
+
+        var image = generator.image(ORIGINAL, MEDIA_URL);
+
+        assertThat(image.url()).isEqualTo(MEDIA_URL + "aaaa");
+        assertThat(image.mediaType()).isEqualTo("image/png");
+        assertThat(image.blurHash()).isNull();
+        assertThat(image.preview()).isNull();
+        assertThat(image.icon()).isNull();
+    }
+
+    @Test
+    void testImageWithPreviews() {
+        var previews = ImagePreviews.with()
+            .width(1600)
+            .height(1200)
+            .blurHash("LEHV6nWB2yk8pyo0adR*.7kCMdnj")
+            .preview(PREVIEW)
+            .previewWidth(640)
+            .previewHeight(480)
+            .icon(ICON)
+            .iconWidth(128)
+            .iconHeight(96)
+            .build();
+        var generator = mock(ImagePreviewGenerator.class, CALLS_REAL_METHODS);
+        doReturn(Optional.of(previews)).when(generator).find(ORIGINAL);
+
+        var image = generator.image(ORIGINAL, MEDIA_URL);
+
+        assertThat(image.width()).isEqualTo(1600);
+        assertThat(image.height()).isEqualTo(1200);
+        assertThat(image.blurHash()).isEqualTo("LEHV6nWB2yk8pyo0adR*.7kCMdnj");
+        assertThat(image.preview().url()).isEqualTo(MEDIA_URL + "bbbb");
+        assertThat(image.preview().mediaType()).isEqualTo("image/jpeg");
+        assertThat(image.preview().width()).isEqualTo(640);
+        assertThat(image.preview().height()).isEqualTo(480);
+        assertThat(image.icon().url()).isEqualTo(MEDIA_URL + "cccc");
+        assertThat(image.icon().width()).isEqualTo(128);
+        assertThat(image.icon().height()).isEqualTo(96);
+    }
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2023-2024 Steinar Bang
+ * Copyright 2023-2026 Steinar Bang
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -51,6 +51,8 @@ class RatatoskrServiceTest {
         var locale = Locale.UK;
         var texts = service.displayTexts(locale);
         assertThat(texts).isEmpty();
+        var body = service.displayTextsBody(locale);
+        assertThat(body).isEmpty();
         var key = "loggedout";
         var text = service.displayText(key, locale.toString());
         assertNull(text);
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.services.activitypub;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import no.priv.bang.ratatoskr.asvocabulary.Article;
+
+class ArticleThreadTest {
+
+    @Test
+    void testCreateArticleThreadWithBuilder() {
+        var root = Article.with().id("https://sally.example.com/posts/1").build();
+        var article = Article.with().id("https://sally.example.com/posts/2").build();
+        var reply = Article.with().id("https://sally.example.com/posts/3").build();
+
+        var thread = ArticleThread.with()
+            .ancestors(List.of(root))
+            .article(article)
+            .descendants(List.of(reply))
+            .build();
+
+        assertThat(thread.ancestors()).containsExactly(root);
+        assertThat(thread.article()).isEqualTo(article);
+        assertThat(thread.descendants()).containsExactly(reply);
+    }
+
+    @Test
+    void testCreateEmptyArticleThreadWithBuilder() {
+        var thread = ArticleThread.with().build();
+
+        assertThat(thread.ancestors()).isEmpty();
+        assertThat(thread.article()).isNull();
+        assertThat(thread.descendants()).isEmpty();
+    }
+
+}
@@ -40,4 +40,28 @@ class ImageTest {
         assertThat(image.url()).isEqualTo(url);
         assertThat(image.blurHash()).isEqualTo(blurHash);
     }
+
+    @Test
+    void testCreateImageWithPreviewAndIcon() {
+        var preview = Image.with().mediaType("image/jpeg").url("https://example.com/media/preview").width(640).height(480).build();
+        var icon = Image.with().mediaType("image/jpeg").url("https://example.com/media/icon").width(128).height(96).build();
+
+        var image = Image.with()
+            .mediaType("image/png")
+            .url("https://example.com/files/cats.png")
+            .width(1600)
+            .height(1200)
+            .preview(preview)
+            .icon(icon)
+            .build();
+        assertThat(image.width()).isEqualTo(1600);
+        assertThat(image.height()).isEqualTo(1200);
+        assertThat(image.preview()).isEqualTo(preview);
+        assertThat(image.icon()).isEqualTo(icon);
+
+        var copy = Image.with(image).blurHash("LEHV6nWB2yk8pyo0adR*.7kCMdnj").build();
+        assertThat(copy.url()).isEqualTo(image.url());
+        assertThat(copy.preview()).isEqualTo(preview);
+        assertThat(copy.blurHash()).isEqualTo("LEHV6nWB2yk8pyo0adR*.7kCMdnj");
+    }
 }
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.services.activitypub;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import no.priv.bang.ratatoskr.asvocabulary.Article;
+
+class RepliesTest {
+
+    @Test
+    void testCreateRepliesWithBuilder() {
+        var id = "http://localhost:8181/ratatoskr/as/replies?object=https%3A%2F%2Fsally.example.com%2Fposts%2F1";
+        var partOf = "https://sally.example.com/posts/1";
+        var next = "1767225600000-42";
+        var reply1 = Article.with().id("https://sally.example.com/posts/2").build();
+        var reply2 = Article.with().id("https://sally.example.com/posts/3").build();
+        var orderedItems = List.of(reply1, reply2);
+
+        var replies = Replies.with()
+            .id(id)
+            .partOf(partOf)
+            .totalItems(7)
+            .next(next)
+            .orderedItems(orderedItems)
+            .build();
+
+        assertThat(replies.id()).isEqualTo(id);
+        assertThat(replies.partOf()).isEqualTo(partOf);
+        assertThat(replies.totalItems()).isEqualTo(7);
+        assertThat(replies.next()).isEqualTo(next);
+        assertThat(replies.orderedItems()).isEqualTo(orderedItems);
+    }
+
+    @Test
+    void testCopyRepliesWithBuilder() {
+        var replies = Replies.with()
+            .partOf("https://sally.example.com/posts/1")
+            .totalItems(1)
+            .next("1767225600000-42")
+            .build();
+
+        var copy = Replies.with(replies).id("http://localhost:8181/ratatoskr/as/replies").build();
+
+        assertThat(copy.id()).isEqualTo("http://localhost:8181/ratatoskr/as/replies");
+        assertThat(copy.partOf()).isEqualTo(replies.partOf());
+        assertThat(copy.totalItems()).isEqualTo(replies.totalItems());
+        assertThat(copy.next()).isEqualTo(replies.next());
+        assertThat(copy.orderedItems()).isEmpty();
+    }
+
+}
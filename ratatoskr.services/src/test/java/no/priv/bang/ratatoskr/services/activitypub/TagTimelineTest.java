@@ -0,0 +1,69 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.services.activitypub;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import no.priv.bang.ratatoskr.asvocabulary.Article;
+
+class TagTimelineTest {
+
+    @Test
+    void testCreateTagTimelineWithBuilder() {
+        var id = "http://localhost:8181/ratatoskr/as/tags/cats";
+        var hashtag = "cats";
+        var next = "1767225600000-42";
+        var article1 = Article.with().id("https://sally.example.com/posts/2").build();
+        var article2 = Article.with().id("https://sally.example.com/posts/1").build();
+        var orderedItems = List.of(article1, article2);
+
+        var timeline = TagTimeline.with()
+            .id(id)
+            .hashtag(hashtag)
+            .totalItems(7)
+            .next(next)
+            .orderedItems(orderedItems)
+            .build();
+
+        assertThat(timeline.id()).isEqualTo(id);
+        assertThat(timeline.hashtag()).isEqualTo(hashtag);
+        assertThat(timeline.totalItems()).isEqualTo(7);
+        assertThat(timeline.next()).isEqualTo(next);
+        assertThat(timeline.orderedItems()).isEqualTo(orderedItems);
+    }
+
+    @Test
+    void testCopyTagTimelineWithBuilder() {
+        var timeline = TagTimeline.with()
+            .hashtag("cats")
+            .totalItems(1)
+            .next("1767225600000-42")
+            .build();
+
+        var copy = TagTimeline.with(timeline).id("http://localhost:8181/ratatoskr/as/tags/cats").build();
+
+        assertThat(copy.id()).isEqualTo("http://localhost:8181/ratatoskr/as/tags/cats");
+        assertThat(copy.hashtag()).isEqualTo(timeline.hashtag());
+        assertThat(copy.totalItems()).isEqualTo(timeline.totalItems());
+        assertThat(copy.next()).isEqualTo(timeline.next());
+        assertThat(copy.orderedItems()).isEmpty();
+    }
+
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.services.beans;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class AccountChangeTest {
+
+    @Test
+    void testCreate() {
+        var username = "jad";
+        var counter = CounterBean.with().counter(3).build();
+        var bean = AccountChange.with()
+            .username(username)
+            .type(AccountChange.COUNTER)
+            .data(counter)
+            .build();
+        assertNotNull(bean);
+        assertEquals(username, bean.username());
+        assertEquals(AccountChange.COUNTER, bean.type());
+        assertEquals(counter, bean.data());
+    }
+
+}
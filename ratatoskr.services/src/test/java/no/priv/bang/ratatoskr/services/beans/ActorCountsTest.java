@@ -0,0 +1,37 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.services.beans;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class ActorCountsTest {
+
+    @Test
+    void testCreate() {
+        var bean = ActorCounts.with()
+            .followers(3)
+            .following(2)
+            .liked(1)
+            .build();
+        assertNotNull(bean);
+        assertEquals(3, bean.followers());
+        assertEquals(2, bean.following());
+        assertEquals(1, bean.liked());
+    }
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.services.beans;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import no.priv.bang.ratatoskr.asvocabulary.ActivityStreamObjectType;
+
+class CustomEmojiTest {
+
+    @Test
+    void testCreate() {
+        var bean = CustomEmoji.with()
+            .domain("mastodon.example.com")
+            .shortcode("blobcat")
+            .url("https://mastodon.example.com/emoji/blobcat.png")
+            .mediaType("image/png")
+            .build();
+        assertNotNull(bean);
+        assertEquals("mastodon.example.com", bean.domain());
+        assertEquals("blobcat", bean.shortcode());
+        assertEquals("https://mastodon.example.com/emoji/blobcat.png", bean.url());
+        assertEquals("image/png", bean.mediaType());
+    }
+
+    @Test
+    void testCopy() {
+        var bean = CustomEmoji.with()
+            .domain("mastodon.example.com")
+            .shortcode("blobcat")
+            .url("https://mastodon.example.com/emoji/blobcat.png")
+            .mediaType("image/png")
+            .build();
+
+        var copy = CustomEmoji.with(bean).build();
+
+        assertEquals(bean, copy);
+        assertNotSame(bean, copy);
+    }
+
+    @Test
+    void testTag() {
+        var bean = CustomEmoji.with()
+            .domain("")
+            .shortcode("blobcat")
+            .url("https://ratatoskr.example.com/ratatoskr/media/1234")
+            .mediaType("image/png")
+            .build();
+
+        var tag = bean.tag();
+
+        assertEquals(ActivityStreamObjectType.Emoji, tag.type());
+        assertEquals(":blobcat:", tag.name());
+        assertEquals(ActivityStreamObjectType.Image, tag.icon().type());
+        assertEquals("https://ratatoskr.example.com/ratatoskr/media/1234", tag.icon().url());
+        assertEquals("image/png", tag.icon().mediaType());
+    }
+
+}
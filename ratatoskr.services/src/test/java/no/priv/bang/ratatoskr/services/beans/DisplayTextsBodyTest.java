@@ -0,0 +1,42 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.services.beans;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+class DisplayTextsBodyTest {
+
+    @Test
+    void testCreate() {
+        var etag = "0123456789abcdef";
+        var json = "{\"date\":\"Dato\"}".getBytes(StandardCharsets.UTF_8);
+        var gzipped = new byte[] { 31, -117 };
+        var bean = DisplayTextsBody.with()
+            .etag(etag)
+            .json(json)
+            .gzipped(gzipped)
+            .build();
+        assertNotNull(bean);
+        assertEquals(etag, bean.etag());
+        assertArrayEquals(json, bean.json());
+        assertArrayEquals(gzipped, bean.gzipped());
+    }
+
+}
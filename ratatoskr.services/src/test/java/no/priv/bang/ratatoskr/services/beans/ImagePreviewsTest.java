@@ -0,0 +1,50 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.services.beans;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class ImagePreviewsTest {
+
+    @Test
+    void testCreate() {
+        var preview = StoredMedia.with().hash("bbbb").mediaType("image/jpeg").size(10000).build();
+        var icon = StoredMedia.with().hash("cccc").mediaType("image/jpeg").size(1000).build();
+        var bean = ImagePreviews.with()
+            .width(1600)
+            .height(1200)
+            .blurHash("LEHV6nWB2yk8pyo0adR*.7kCMdnj")
+            .preview(preview)
+            .previewWidth(640)
+            .previewHeight(480)
+            .icon(icon)
+            .iconWidth(128)
+            .iconHeight(96)
+            .build();
+        assertEquals(1600, bean.width());
+        assertEquals(1200, bean.height());
+        assertEquals("LEHV6nWB2yk8pyo0adR*.7kCMdnj", bean.blurHash());
+        assertEquals(preview, bean.preview());
+        assertEquals(640, bean.previewWidth());
+        assertEquals(480, bean.previewHeight());
+        assertEquals(icon, bean.icon());
+        assertEquals(128, bean.iconWidth());
+        assertEquals(96, bean.iconHeight());
+    }
+
+}
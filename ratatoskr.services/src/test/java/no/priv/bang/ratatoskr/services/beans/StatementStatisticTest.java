@@ -0,0 +1,44 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.services.beans;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class StatementStatisticTest {
+
+    @Test
+    void testCreate() {
+        var statement = "select * from actors where id=?";
+        var bean = StatementStatistic.with()
+            .statement(statement)
+            .executions(4)
+            .errors(1)
+            .totalNanos(4000)
+            .maxNanos(2000)
+            .rows(3)
+            .build();
+        assertNotNull(bean);
+        assertEquals(statement, bean.statement());
+        assertEquals(4, bean.executions());
+        assertEquals(1, bean.errors());
+        assertEquals(4000, bean.totalNanos());
+        assertEquals(2000, bean.maxNanos());
+        assertEquals(3, bean.rows());
+    }
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.services.beans;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class StoredMediaTest {
+
+    @Test
+    void testCreate() {
+        var hash = "2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824";
+        var mediaType = "image/png";
+        var size = 5L;
+        var remoteUrl = "https://example.com/media/hello.png";
+        var bean = StoredMedia.with()
+            .hash(hash)
+            .mediaType(mediaType)
+            .size(size)
+            .remoteUrl(remoteUrl)
+            .build();
+        assertEquals(hash, bean.hash());
+        assertEquals(mediaType, bean.mediaType());
+        assertEquals(size, bean.size());
+        assertEquals(remoteUrl, bean.remoteUrl());
+    }
+
+    @Test
+    void testCopy() {
+        var bean = StoredMedia.with()
+            .hash("2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824")
+            .mediaType("image/png")
+            .size(5)
+            .remoteUrl("https://example.com/media/hello.png")
+            .build();
+        var uploaded = StoredMedia.with(bean).remoteUrl(null).build();
+        assertEquals(bean.hash(), uploaded.hash());
+        assertEquals(bean.size(), uploaded.size());
+        assertNull(uploaded.remoteUrl());
+    }
+
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.services.beans;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import no.priv.bang.ratatoskr.services.activitypub.Hashtag;
+
+class TagSpanTest {
+
+    @Test
+    void testCreate() {
+        var hashtag = Hashtag.with().name("#ratatoskr").href("http://localhost:8181/ratatoskr/as/tags/ratatoskr").build();
+        var bean = TagSpan.with()
+            .start(6)
+            .end(16)
+            .tag(hashtag)
+            .build();
+        assertNotNull(bean);
+        assertEquals(6, bean.start());
+        assertEquals(16, bean.end());
+        assertEquals(hashtag, bean.tag());
+    }
+
+}
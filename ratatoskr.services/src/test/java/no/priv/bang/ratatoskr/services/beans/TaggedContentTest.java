@@ -0,0 +1,56 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.services.beans;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import no.priv.bang.ratatoskr.services.activitypub.Hashtag;
+import no.priv.bang.ratatoskr.services.activitypub.Mention;
+
+class TaggedContentTest {
+
+    @Test
+    void testCreate() {
+        var mention = Mention.with().name("@jod@example.com").href("https://example.com/users/jod").build();
+        var hashtag = Hashtag.with().name("#ratatoskr").href("http://localhost:8181/ratatoskr/as/tags/ratatoskr").build();
+        var spans = List.of(
+            TagSpan.with().start(0).end(16).tag(mention).build(),
+            TagSpan.with().start(17).end(27).tag(hashtag).build(),
+            TagSpan.with().start(28).end(44).tag(mention).build());
+        var bean = TaggedContent.with()
+            .spans(spans)
+            .mentioned(List.of("https://example.com/users/jod"))
+            .build();
+        assertNotNull(bean);
+        assertEquals(spans, bean.spans());
+        assertThat(bean.mentioned()).containsExactly("https://example.com/users/jod");
+        assertThat(bean.tags()).containsExactly(mention, hashtag);
+    }
+
+    @Test
+    void testCreateEmpty() {
+        var bean = TaggedContent.with().build();
+        assertThat(bean.spans()).isEmpty();
+        assertThat(bean.mentioned()).isEmpty();
+        assertThat(bean.tags()).isEmpty();
+    }
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2023-2024 Steinar Bang
+ * Copyright 2023-2026 Steinar Bang
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,23 +20,38 @@ import static org.osgi.service.http.whiteboard.HttpWhiteboardConstants.*;
 import javax.servlet.Servlet;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.http.whiteboard.propertytypes.HttpWhiteboardContextSelect;
+import org.osgi.service.http.whiteboard.propertytypes.HttpWhiteboardServletAsyncSupported;
 import org.osgi.service.http.whiteboard.propertytypes.HttpWhiteboardServletName;
 import org.osgi.service.http.whiteboard.propertytypes.HttpWhiteboardServletPattern;
 import org.osgi.service.log.LogService;
 
 import no.priv.bang.osgiservice.users.UserManagementService;
+import no.priv.bang.ratatoskr.services.AccountChangeListener;
+import no.priv.bang.ratatoskr.services.AsyncRatatoskrService;
+import no.priv.bang.ratatoskr.services.ImagePreviewGenerator;
+import no.priv.bang.ratatoskr.services.MediaStore;
+import no.priv.bang.ratatoskr.services.Metrics;
 import no.priv.bang.ratatoskr.services.RatatoskrService;
+import no.priv.bang.ratatoskr.services.beans.AccountChange;
+import no.priv.bang.ratatoskr.web.api.resources.EventStreams;
 import no.priv.bang.servlet.jersey.JerseyServlet;
 
 
-@Component(service=Servlet.class, immediate=true)
+@Component(service={Servlet.class, AccountChangeListener.class}, immediate=true)
 @HttpWhiteboardContextSelect("(" + HTTP_WHITEBOARD_CONTEXT_NAME + "=ratatoskr)")
 @HttpWhiteboardServletName("ratatoskrapi")
 @HttpWhiteboardServletPattern("/api/*")
-public class RatatoskrWebApi extends JerseyServlet {
+@HttpWhiteboardServletAsyncSupported
+public class RatatoskrWebApi extends JerseyServlet implements AccountChangeListener {
     private static final long serialVersionUID = 3391345571152153990L; // NOSONAR
+    private final transient EventStreams eventStreams = new EventStreams(); // NOSONAR
+
+    public RatatoskrWebApi() {
+        addInjectedOsgiService(EventStreams.class, eventStreams);
+    }
 
     @Override
     @Reference
@@ -49,13 +64,43 @@ public class RatatoskrWebApi extends JerseyServlet {
         addInjectedOsgiService(RatatoskrService.class, ratatoskr);
     }
 
+    @Reference
+    public void setAsyncRatatoskrService(AsyncRatatoskrService ratatoskr) {
+        addInjectedOsgiService(AsyncRatatoskrService.class, ratatoskr);
+    }
+
     @Reference
     public void setUseradmin(UserManagementService useradmin) {
         addInjectedOsgiService(UserManagementService.class, useradmin);
     }
 
+    @Reference
+    public void setMetrics(Metrics metrics) {
+        addInjectedOsgiService(Metrics.class, metrics);
+    }
+
+    @Reference
+    public void setMediaStore(MediaStore mediaStore) {
+        addInjectedOsgiService(MediaStore.class, mediaStore);
+    }
+
+    @Reference
+    public void setImagePreviewGenerator(ImagePreviewGenerator imagePreviews) {
+        addInjectedOsgiService(ImagePreviewGenerator.class, imagePreviews);
+    }
+
     @Activate
     public void activate() {
         // This method is called after all injections have been satisfied
     }
+
+    @Deactivate
+    public void deactivate() {
+        eventStreams.closeAll();
+    }
+
+    @Override
+    public void accountChanged(AccountChange change) {
+        eventStreams.publish(change);
+    }
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2023 Steinar Bang
+ * Copyright 2023-2026 Steinar Bang
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,28 +15,27 @@
  */
 package no.priv.bang.ratatoskr.web.api.resources;
 
-import java.util.List;
-
 import javax.inject.Inject;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.MediaType;
 
-import no.priv.bang.ratatoskr.services.RatatoskrService;
-import no.priv.bang.ratatoskr.services.beans.Account;
+import no.priv.bang.ratatoskr.services.AsyncRatatoskrService;
 
 @Path("")
 @Produces(MediaType.APPLICATION_JSON)
-public class AccountsResource {
+public class AccountsResource extends ResourceBase {
 
     @Inject
-    public RatatoskrService ratatoskr;
+    public AsyncRatatoskrService ratatoskr;
 
     @GET
     @Path("accounts")
-    public List<Account> getAccounts() {
-        return ratatoskr.getAccounts();
+    public void getAccounts(@Suspended AsyncResponse asyncResponse) {
+        resume(asyncResponse, ratatoskr.getAccounts());
     }
 
 }
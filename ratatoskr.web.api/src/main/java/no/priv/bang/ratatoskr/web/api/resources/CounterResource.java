@@ -1,5 +1,5 @@
 /*
- * Copyright 2023-2024 Steinar Bang
+ * Copyright 2023-2026 Steinar Bang
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -24,63 +24,64 @@ import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.MediaType;
 
 import org.apache.shiro.authz.annotation.RequiresRoles;
 import org.apache.shiro.authz.annotation.RequiresUser;
 
-import no.priv.bang.ratatoskr.services.RatatoskrService;
-import no.priv.bang.ratatoskr.services.beans.CounterBean;
+import no.priv.bang.ratatoskr.services.AsyncRatatoskrService;
 import no.priv.bang.ratatoskr.services.beans.CounterIncrementStepBean;
 
 @Path("counter")
 @Produces(MediaType.APPLICATION_JSON)
 @RequiresUser
 @RequiresRoles("ratatoskruser")
-public class CounterResource {
+public class CounterResource extends ResourceBase {
 
     @Inject
-    RatatoskrService ratatoskr;
+    AsyncRatatoskrService ratatoskr;
 
     @GET
     @Path("incrementstep/{username}")
-    public CounterIncrementStepBean getCounterIncrementStep(@PathParam("username") String username) {
-        return ratatoskr
+    public void getCounterIncrementStep(@Suspended AsyncResponse asyncResponse, @PathParam("username") String username) {
+        resume(asyncResponse, ratatoskr
             .getCounterIncrementStep(username)
-            .orElseThrow(NotFoundException::new);
+            .thenApply(result -> result.orElseThrow(NotFoundException::new)));
     }
 
     @POST
     @Path("incrementstep")
     @Consumes(MediaType.APPLICATION_JSON)
-    public CounterIncrementStepBean updateCounterIncrementStep(CounterIncrementStepBean updateIncrementStep) {
-        return ratatoskr
+    public void updateCounterIncrementStep(@Suspended AsyncResponse asyncResponse, CounterIncrementStepBean updateIncrementStep) {
+        resume(asyncResponse, ratatoskr
             .updateCounterIncrementStep(updateIncrementStep)
-            .orElseThrow(InternalServerErrorException::new);
+            .thenApply(result -> result.orElseThrow(InternalServerErrorException::new)));
     }
 
     @GET
     @Path("{username}")
-    public CounterBean getCounter(@PathParam("username") String username) {
-        return ratatoskr
+    public void getCounter(@Suspended AsyncResponse asyncResponse, @PathParam("username") String username) {
+        resume(asyncResponse, ratatoskr
             .getCounter(username)
-            .orElseThrow(NotFoundException::new);
+            .thenApply(result -> result.orElseThrow(NotFoundException::new)));
     }
 
     @GET
     @Path("{username}/increment")
-    public CounterBean incrementCounter(@PathParam("username") String username) {
-        return ratatoskr
+    public void incrementCounter(@Suspended AsyncResponse asyncResponse, @PathParam("username") String username) {
+        resume(asyncResponse, ratatoskr
             .incrementCounter(username)
-            .orElseThrow(InternalServerErrorException::new);
+            .thenApply(result -> result.orElseThrow(InternalServerErrorException::new)));
     }
 
     @GET
     @Path("{username}/decrement")
-    public CounterBean decrementCounter(@PathParam("username") String username) {
-        return ratatoskr
+    public void decrementCounter(@Suspended AsyncResponse asyncResponse, @PathParam("username") String username) {
+        resume(asyncResponse, ratatoskr
             .decrementCounter(username)
-            .orElseThrow(InternalServerErrorException::new);
+            .thenApply(result -> result.orElseThrow(InternalServerErrorException::new)));
     }
 
 }
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.web.api.resources;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import no.priv.bang.ratatoskr.services.beans.AccountChange;
+
+/**
+ * The changes waiting to be written to one server-sent events connection.
+ *
+ * The buffer is bounded: when a slow client lets it fill up, the oldest
+ * change is dropped to make room for the newest, and the number of dropped
+ * changes is counted, so that the writer can tell the client to refetch.
+ */
+public class EventStream implements AutoCloseable {
+    static final int DEFAULT_CAPACITY = 64;
+
+    private final EventStreams owner;
+    private final String username;
+    private final int capacity;
+    private final ArrayDeque<AccountChange> changes;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private int dropped;
+    private boolean closed;
+
+    EventStream(EventStreams owner, String username, int capacity) {
+        this.owner = owner;
+        this.username = username;
+        this.capacity = capacity;
+        this.changes = new ArrayDeque<>(capacity);
+    }
+
+    public String username() {
+        return username;
+    }
+
+    /**
+     * Add a change to the buffer, dropping the oldest change if the buffer
+     * is full.  Never blocks for longer than it takes to get the lock.
+     */
+    public void offer(AccountChange change) {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+
+            if (changes.size() == capacity) {
+                changes.pollFirst();
+                ++dropped;
+            }
+
+            changes.addLast(change);
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wait for the next change.
+     *
+     * @return the oldest change in the buffer, or null if the timeout ran
+     *         out, or the stream was closed, before a change arrived
+     */
+    public AccountChange poll(long timeout, TimeUnit unit) throws InterruptedException {
+        var nanos = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (changes.isEmpty() && !closed) {
+                if (nanos <= 0) {
+                    return null;
+                }
+
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+
+            return changes.pollFirst();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The number of changes dropped since the last call, reset to 0 by the call.
+     */
+    public int dropped() {
+        lock.lock();
+        try {
+            var count = dropped;
+            dropped = 0;
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isClosed() {
+        lock.lock();
+        try {
+            return closed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stop receiving changes, and wake up a writer waiting in {@link #poll(long, TimeUnit)}.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            changes.clear();
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        owner.remove(this);
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.web.api.resources;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import no.priv.bang.ratatoskr.services.beans.AccountChange;
+
+/**
+ * The open server-sent events connections, by username, fed with the
+ * changes published by the {@link no.priv.bang.ratatoskr.services.RatatoskrService}.
+ *
+ * Publishing only appends to the bounded buffer of each of the streams
+ * of the user, so it never blocks the thread making the change.
+ */
+public class EventStreams {
+    static final int MAX_STREAMS_PER_USER = 16;
+
+    private final Map<String, Set<EventStream>> streams = new ConcurrentHashMap<>();
+    private final int capacity;
+
+    public EventStreams() {
+        this(EventStream.DEFAULT_CAPACITY);
+    }
+
+    EventStreams(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Open a new stream for a user.
+     *
+     * @return the new stream, or null if the user already has {@link #MAX_STREAMS_PER_USER} streams open
+     */
+    public EventStream open(String username) {
+        var stream = new EventStream(this, username, capacity);
+        var opened = new boolean[1];
+        streams.compute(username, (name, userStreams) -> {
+            var updated = userStreams != null ? userStreams : ConcurrentHashMap.<EventStream>newKeySet();
+            if (updated.size() < MAX_STREAMS_PER_USER) {
+                opened[0] = updated.add(stream);
+            }
+
+            return updated;
+        });
+
+        return opened[0] ? stream : null;
+    }
+
+    void remove(EventStream stream) {
+        streams.computeIfPresent(stream.username(), (name, userStreams) -> {
+            userStreams.remove(stream);
+            return userStreams.isEmpty() ? null : userStreams;
+        });
+    }
+
+    public void publish(AccountChange change) {
+        var userStreams = streams.get(change.username());
+        if (userStreams != null) {
+            userStreams.forEach(stream -> stream.offer(change));
+        }
+    }
+
+    /**
+     * The number of open streams.
+     */
+    public int size() {
+        return streams.values().stream().mapToInt(Set::size).sum();
+    }
+
+    /**
+     * Close all open streams, ending the connections they are written to.
+     */
+    public void closeAll() {
+        var allStreams = new ArrayList<EventStream>();
+        streams.values().forEach(allStreams::addAll);
+        allStreams.forEach(EventStream::close);
+    }
+
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.web.api.resources;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.CompletionCallback;
+import javax.ws.rs.container.ConnectionCallback;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.apache.shiro.SecurityUtils;
+import org.apache.shiro.authz.annotation.RequiresRoles;
+import org.apache.shiro.authz.annotation.RequiresUser;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import no.priv.bang.ratatoskr.services.beans.AccountChange;
+
+/**
+ * A server-sent events stream of the changes to the account of the logged
+ * in user, replacing polling of the counter resources.
+ *
+ * Each connection is written by a virtual thread that waits on the
+ * bounded buffer of its {@link EventStream}, so idle connections hold
+ * neither a servlet thread nor a platform thread.  A comment line is
+ * written every {@link #HEARTBEAT_SECONDS} to keep proxies from closing
+ * idle connections, and to find out when the client has gone away.
+ *
+ * The stream is also closed when the response completes, when the
+ * container reports the client as disconnected, and when the response
+ * can't be resumed, e.g. after a timeout, so that a stream that is never
+ * written doesn't count against {@link EventStreams#MAX_STREAMS_PER_USER}.
+ */
+@Path("events")
+@RequiresUser
+@RequiresRoles("ratatoskruser")
+public class EventsResource extends ResourceBase {
+    static final String TEXT_EVENT_STREAM = "text/event-stream";
+    static final String OVERFLOW = "overflow";
+    static final long HEARTBEAT_SECONDS = 25;
+    static final long RETRY_MILLIS = 5000;
+    static final ObjectMapper mapper = new ObjectMapperContextResolver().getContext(ObjectMapper.class);
+
+    @Inject
+    EventStreams eventStreams;
+
+    @GET
+    @Produces(TEXT_EVENT_STREAM)
+    public void events(@Suspended AsyncResponse asyncResponse) {
+        var username = (String) SecurityUtils.getSubject().getPrincipal();
+        var stream = eventStreams.open(username);
+        if (stream == null) {
+            asyncResponse.resume(response(429, "Too many open event streams for user " + username));
+            return;
+        }
+
+        asyncResponse.register(
+            (CompletionCallback) throwable -> stream.close(),
+            (ConnectionCallback) disconnected -> stream.close());
+        Thread.ofVirtual().name("ratatoskr-events-" + username).start(() -> {
+            var resumed = asyncResponse.resume(Response
+                .ok((StreamingOutput) output -> writeEvents(stream, output), TEXT_EVENT_STREAM)
+                .header("Cache-Control", "no-cache")
+                .header("X-Accel-Buffering", "no")
+                .build());
+            if (!resumed) {
+                stream.close();
+            }
+        });
+    }
+
+    /**
+     * Write changes to the client until the stream is closed or the client
+     * goes away.  A client that has fallen so far behind that changes were
+     * dropped gets an "overflow" event telling it to refetch everything.
+     */
+    void writeEvents(EventStream stream, OutputStream output) {
+        try (stream) {
+            write(output, "retry: " + RETRY_MILLIS + "\n\n");
+            while (!stream.isClosed()) {
+                var change = stream.poll(HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+                if (stream.dropped() > 0) {
+                    write(output, event(OVERFLOW, "{}"));
+                }
+
+                if (change != null) {
+                    write(output, event(change.type(), mapper.writeValueAsString(change.data())));
+                } else if (!stream.isClosed()) {
+                    write(output, ": heartbeat\n\n");
+                }
+            }
+        } catch (IOException e) {
+            // The client has gone away, and the stream is closed
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static String event(String type, String json) {
+        return "event: " + type + "\ndata: " + json + "\n\n";
+    }
+
+    private void write(OutputStream output, String text) throws IOException {
+        output.write(text.getBytes(StandardCharsets.UTF_8));
+        output.flush();
+    }
+
+}
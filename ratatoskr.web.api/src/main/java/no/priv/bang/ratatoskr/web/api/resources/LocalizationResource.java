@@ -1,5 +1,5 @@
 /*
- * Copyright 2023-2024 Steinar Bang
+ * Copyright 2023-2026 Steinar Bang
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,7 +17,6 @@ package no.priv.bang.ratatoskr.web.api.resources;
 
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 import java.util.MissingResourceException;
 
 import javax.inject.Inject;
@@ -26,13 +25,20 @@ import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
 
 import org.osgi.service.log.LogService;
 import org.osgi.service.log.Logger;
 
 import no.priv.bang.ratatoskr.services.RatatoskrService;
 import no.priv.bang.ratatoskr.services.beans.LocaleBean;
+import no.priv.bang.ratatoskr.web.common.ResourceSupport;
 
 @Path("")
 public class LocalizationResource extends ResourceBase {
@@ -61,12 +67,38 @@ public class LocalizationResource extends ResourceBase {
         return ratatoskr.availableLocales();
     }
 
+    /**
+     * The display texts of the available locales are sent as they were
+     * serialized when the texts were loaded, gzip compressed if the client
+     * accepts it, and with an ETag so that a frontend that already has the
+     * texts gets a 304 Not Modified.  The gzipped body is a different
+     * representation, so it gets its own ETag, and the ETag sent is the one
+     * the preconditions are evaluated against.
+     */
     @GET
     @Path("displaytexts")
     @Produces(MediaType.APPLICATION_JSON)
-    public Map<String, String> displayTexts(@QueryParam("locale")String locale) {
+    public Response displayTexts(@Context Request request, @QueryParam("locale")String locale) {
         try {
-            return ratatoskr.displayTexts(Locale.forLanguageTag(locale.replace('_', '-')));
+            var active = Locale.forLanguageTag(locale.replace('_', '-'));
+            var body = ratatoskr.displayTextsBody(active);
+            if (body.isEmpty()) {
+                return Response.ok(ratatoskr.displayTexts(active)).build();
+            }
+
+            var gzip = acceptsGzip();
+            var etag = new EntityTag(gzip ? body.get().etag() + ResourceSupport.GZIP_ETAG_SUFFIX : body.get().etag());
+            var notModified = request != null ? request.evaluatePreconditions(etag) : null;
+            var response = notModified != null ? notModified : Response.ok(gzip ? body.get().gzipped() : body.get().json(), MediaType.APPLICATION_JSON);
+            if (notModified == null && gzip) {
+                response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+            }
+
+            return response
+                .tag(etag)
+                .cacheControl(revalidate())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .build();
         } catch (MissingResourceException e) {
             var message = String.format("Unknown locale '%s' used when fetching GUI texts", locale);
             logger.error(message);
@@ -74,4 +106,14 @@ public class LocalizationResource extends ResourceBase {
         }
     }
 
+    /**
+     * The texts may be kept by the browser, but must be revalidated with
+     * the ETag before each use, since they change when ratatoskr is upgraded.
+     */
+    CacheControl revalidate() {
+        var cacheControl = new CacheControl();
+        cacheControl.setNoCache(true);
+        return cacheControl;
+    }
+
 }
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.web.api.resources;
+
+import java.io.InputStream;
+import java.net.URI;
+
+import javax.inject.Inject;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriInfo;
+
+import org.apache.shiro.authz.annotation.RequiresRoles;
+import org.apache.shiro.authz.annotation.RequiresUser;
+
+import no.priv.bang.ratatoskr.services.ImagePreviewGenerator;
+import no.priv.bang.ratatoskr.services.MediaStore;
+import no.priv.bang.ratatoskr.services.MediaTooLargeException;
+import no.priv.bang.ratatoskr.services.activitypub.Image;
+import no.priv.bang.ratatoskr.services.beans.StoredMedia;
+
+/**
+ * Upload of attachments to the {@link MediaStore}.  The uploaded content
+ * is served by the media servlet, at the location returned.
+ *
+ * Previews of uploaded images are made in the background, and show up in
+ * the {@link Image} of the upload when they are done.
+ */
+@Path("media")
+@Produces(MediaType.APPLICATION_JSON)
+@RequiresUser
+@RequiresRoles("ratatoskruser")
+public class MediaResource extends ResourceBase {
+
+    @Inject
+    MediaStore mediaStore;
+
+    @Inject
+    ImagePreviewGenerator imagePreviews;
+
+    @Context
+    UriInfo uriInfo;
+
+    @POST
+    @Consumes(MediaType.WILDCARD)
+    public Response upload(InputStream content) {
+        var mediaType = httpHeaders != null ? httpHeaders.getMediaType() : null;
+        StoredMedia stored;
+        try {
+            stored = mediaStore.store(content, mediaType != null ? mediaType.toString() : MediaType.APPLICATION_OCTET_STREAM);
+        } catch (MediaTooLargeException e) {
+            return response(413, e.getMessage());
+        }
+
+        imagePreviews.generate(stored);
+        return Response
+            .created(URI.create("../media/" + stored.hash()))
+            .entity(stored)
+            .build();
+    }
+
+    @GET
+    @Path("{hash}/image")
+    public Image image(@PathParam("hash") String hash) {
+        var media = mediaStore.find(hash).orElseThrow(NotFoundException::new);
+        return imagePreviews.image(media, uriInfo.getBaseUri().resolve("../media/").toString());
+    }
+
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.web.api.resources;
+
+import static no.priv.bang.ratatoskr.services.RatatoskrConstants.*;
+
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
+import javax.inject.Inject;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.apache.shiro.authz.annotation.RequiresRoles;
+import org.apache.shiro.authz.annotation.RequiresUser;
+
+import no.priv.bang.ratatoskr.services.Metrics;
+
+/**
+ * Serve the latency metrics to a Prometheus scraper.  Only administrators
+ * are allowed to read them.
+ */
+@Path("metrics")
+@RequiresUser
+@RequiresRoles(RATATOSKRADMIN_ROLE)
+public class MetricsResource {
+    static final String PROMETHEUS_TEXT = "text/plain; version=0.0.4; charset=utf-8";
+
+    @Inject
+    Metrics metrics;
+
+    @GET
+    @Produces(PROMETHEUS_TEXT)
+    public StreamingOutput getMetrics() {
+        return output -> metrics.writePrometheusText(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+    }
+
+}
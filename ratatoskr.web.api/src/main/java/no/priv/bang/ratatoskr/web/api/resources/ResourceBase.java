@@ -1,5 +1,5 @@
 /*
- * Copyright 2023 Steinar Bang
+ * Copyright 2023-2026 Steinar Bang
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,10 +15,21 @@
  */
 package no.priv.bang.ratatoskr.web.api.resources;
 
+import java.util.concurrent.CompletionStage;
+
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
+import no.priv.bang.ratatoskr.web.common.ResourceSupport;
+
 public class ResourceBase {
+    static final long TIMEOUT_SECONDS = 30;
+
+    @Context
+    public HttpHeaders httpHeaders;
 
     public ResourceBase() {
         super();
@@ -32,4 +43,20 @@ public class ResourceBase {
             .build();
     }
 
+    /**
+     * Resume a suspended request with the result when it completes, or with
+     * the exception if the result completes exceptionally.
+     *
+     * The servlet thread is released as soon as the resource method returns.
+     * If the result isn't ready within {@link #TIMEOUT_SECONDS} the request is
+     * answered with 503 Service Unavailable.
+     */
+    protected void resume(AsyncResponse asyncResponse, CompletionStage<?> result) {
+        ResourceSupport.resume(asyncResponse, result, TIMEOUT_SECONDS, () -> response(503, "Timed out waiting for the database"));
+    }
+
+    boolean acceptsGzip() {
+        return ResourceSupport.acceptsGzip(httpHeaders);
+    }
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2023-2024 Steinar Bang
+ * Copyright 2023-2026 Steinar Bang
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,9 +17,14 @@ package no.priv.bang.ratatoskr.web.api;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalAnswers.delegatesTo;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.Collections;
@@ -29,8 +34,18 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.MissingResourceException;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.AsyncContext;
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.core.MediaType;
 
 import org.glassfish.jersey.server.ServerProperties;
@@ -43,11 +58,16 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mockrunner.mock.web.MockHttpServletRequest;
 import com.mockrunner.mock.web.MockHttpServletResponse;
 import com.mockrunner.mock.web.MockHttpSession;
+import no.priv.bang.ratatoskr.backend.AsyncRatatoskrServiceProvider;
+import no.priv.bang.ratatoskr.backend.MetricsProvider;
+import no.priv.bang.ratatoskr.services.Metrics;
 import no.priv.bang.ratatoskr.services.RatatoskrService;
 import no.priv.bang.ratatoskr.services.beans.Account;
+import no.priv.bang.ratatoskr.services.beans.AccountChange;
 import no.priv.bang.ratatoskr.services.beans.CounterBean;
 import no.priv.bang.ratatoskr.services.beans.CounterIncrementStepBean;
 import no.priv.bang.ratatoskr.services.beans.Credentials;
+import no.priv.bang.ratatoskr.services.beans.DisplayTextsBody;
 import no.priv.bang.ratatoskr.services.beans.LocaleBean;
 import no.priv.bang.ratatoskr.services.beans.Loginresult;
 import no.priv.bang.ratatoskr.web.api.resources.ErrorMessage;
@@ -77,7 +97,7 @@ class RatatoskrWebApiTest extends ShiroTestBase {
         request.setBodyContent(postBody);
         var response = new MockHttpServletResponse();
 
-        servlet.service(request, response);
+        service(servlet, request, response);
         assertEquals(200, response.getStatus());
         var bean = mapper.readValue(response.getOutputStreamBinaryContent(), Loginresult.class);
         assertThat(bean.success()).isTrue();
@@ -98,7 +118,7 @@ class RatatoskrWebApiTest extends ShiroTestBase {
         request.setBodyContent(postBody);
         var response = new MockHttpServletResponse();
 
-        servlet.service(request, response);
+        service(servlet, request, response);
         assertEquals(200, response.getStatus());
         var bean = mapper.readValue(response.getOutputStreamBinaryContent(), Loginresult.class);
         assertThat(bean.success()).isFalse();
@@ -116,7 +136,7 @@ class RatatoskrWebApiTest extends ShiroTestBase {
         var response = new MockHttpServletResponse();
 
         loginUser(request, response, "jd", "johnnyBoi");
-        servlet.service(request, response);
+        service(servlet, request, response);
         assertEquals(200, response.getStatus());
         var accounts = mapper.readValue(response.getOutputStreamBinaryContent(), new TypeReference<List<Account>>() {});
         assertThat(accounts).isNotEmpty();
@@ -135,7 +155,7 @@ class RatatoskrWebApiTest extends ShiroTestBase {
         var response = new MockHttpServletResponse();
 
         loginUser(request, response, "jad", "1ad");
-        servlet.service(request, response);
+        service(servlet, request, response);
         assertEquals(200, response.getStatus());
         var bean = mapper.readValue(response.getOutputStreamBinaryContent(), CounterIncrementStepBean.class);
         assertEquals(incrementStepValue, bean.counterIncrementStep());
@@ -151,7 +171,7 @@ class RatatoskrWebApiTest extends ShiroTestBase {
         var response = new MockHttpServletResponse();
 
         loginUser(request, response, "jad", "1ad");
-        servlet.service(request, response);
+        service(servlet, request, response);
         assertEquals(404, response.getStatus());
     }
 
@@ -174,7 +194,7 @@ class RatatoskrWebApiTest extends ShiroTestBase {
         var response = new MockHttpServletResponse();
 
         loginUser(request, response, "jad", "1ad");
-        servlet.service(request, response);
+        service(servlet, request, response);
         assertEquals(200, response.getStatus());
         var bean = mapper.readValue(response.getOutputStreamBinaryContent(), CounterIncrementStepBean.class);
         assertEquals(incrementStepValue, bean.counterIncrementStep());
@@ -196,7 +216,7 @@ class RatatoskrWebApiTest extends ShiroTestBase {
         var response = new MockHttpServletResponse();
 
         loginUser(request, response, "jad", "1ad");
-        servlet.service(request, response);
+        service(servlet, request, response);
         assertEquals(500, response.getStatus());
     }
 
@@ -213,7 +233,7 @@ class RatatoskrWebApiTest extends ShiroTestBase {
         var response = new MockHttpServletResponse();
 
         loginUser(request, response, "jad", "1ad");
-        servlet.service(request, response);
+        service(servlet, request, response);
         assertEquals(200, response.getStatus());
         var bean = mapper.readValue(response.getOutputStreamBinaryContent(), CounterBean.class);
         assertEquals(counterValue, bean.counter());
@@ -229,7 +249,7 @@ class RatatoskrWebApiTest extends ShiroTestBase {
         var response = new MockHttpServletResponse();
 
         loginUser(request, response, "jad", "1ad");
-        servlet.service(request, response);
+        service(servlet, request, response);
         assertEquals(404, response.getStatus());
     }
 
@@ -246,7 +266,7 @@ class RatatoskrWebApiTest extends ShiroTestBase {
         var response = new MockHttpServletResponse();
 
         loginUser(request, response, "jad", "1ad");
-        servlet.service(request, response);
+        service(servlet, request, response);
         assertEquals(200, response.getStatus());
         var bean = mapper.readValue(response.getOutputStreamBinaryContent(), CounterBean.class);
         assertEquals(counterValue, bean.counter());
@@ -265,7 +285,7 @@ class RatatoskrWebApiTest extends ShiroTestBase {
         var response = new MockHttpServletResponse();
 
         createSubjectAndBindItToThread();
-        servlet.service(request, response);
+        service(servlet, request, response);
         assertEquals(401, response.getStatus());
     }
 
@@ -282,7 +302,7 @@ class RatatoskrWebApiTest extends ShiroTestBase {
         var response = new MockHttpServletResponse();
 
         loginUser(request, response, "jd", "johnnyBoi");
-        servlet.service(request, response);
+        service(servlet, request, response);
         assertEquals(403, response.getStatus());
     }
 
@@ -296,7 +316,7 @@ class RatatoskrWebApiTest extends ShiroTestBase {
         var response = new MockHttpServletResponse();
 
         loginUser(request, response, "jad", "1ad");
-        servlet.service(request, response);
+        service(servlet, request, response);
         assertEquals(500, response.getStatus());
     }
 
@@ -313,7 +333,7 @@ class RatatoskrWebApiTest extends ShiroTestBase {
         var response = new MockHttpServletResponse();
 
         loginUser(request, response, "jad", "1ad");
-        servlet.service(request, response);
+        service(servlet, request, response);
         assertEquals(200, response.getStatus());
         var bean = mapper.readValue(response.getOutputStreamBinaryContent(), CounterBean.class);
         assertEquals(counterValue, bean.counter());
@@ -329,7 +349,7 @@ class RatatoskrWebApiTest extends ShiroTestBase {
         var response = new MockHttpServletResponse();
 
         loginUser(request, response, "jad", "1ad");
-        servlet.service(request, response);
+        service(servlet, request, response);
         assertEquals(500, response.getStatus());
     }
 
@@ -348,7 +368,7 @@ class RatatoskrWebApiTest extends ShiroTestBase {
         var response = new MockHttpServletResponse();
 
         // Run the method under test
-        servlet.service(request, response);
+        service(servlet, request, response);
 
         // Check the response
         assertEquals(200, response.getStatus());
@@ -371,7 +391,7 @@ class RatatoskrWebApiTest extends ShiroTestBase {
         var response = new MockHttpServletResponse();
 
         // Run the method under test
-        servlet.service(request, response);
+        service(servlet, request, response);
 
         // Check the response
         assertEquals(200, response.getStatus());
@@ -398,7 +418,7 @@ class RatatoskrWebApiTest extends ShiroTestBase {
         var response = new MockHttpServletResponse();
 
         // Run the method under test
-        servlet.service(request, response);
+        service(servlet, request, response);
 
         // Check the response
         assertEquals(200, response.getStatus());
@@ -425,7 +445,7 @@ class RatatoskrWebApiTest extends ShiroTestBase {
         var response = new MockHttpServletResponse();
 
         // Run the method under test
-        servlet.service(request, response);
+        service(servlet, request, response);
 
         // Check the response
         assertEquals(500, response.getStatus());
@@ -435,6 +455,160 @@ class RatatoskrWebApiTest extends ShiroTestBase {
         assertThat(errorMessage.getMessage()).startsWith("Unknown locale");
     }
 
+    @Test
+    void testDisplayTextsWithIfNoneMatch() throws Exception {
+        // Set up REST API servlet with mocked services
+        var ratatoskr = mock(RatatoskrService.class);
+        when(ratatoskr.displayTextsBody(NB_NO)).thenReturn(Optional.of(displayTextsBody("{\"date\":\"Dato\"}")));
+        var logservice = new MockLogService();
+
+        var useradmin = mock(UserManagementService.class);
+        var servlet = simulateDSComponentActivationAndWebWhiteboardConfiguration(ratatoskr , useradmin, logservice);
+
+        // Fetch the texts and check the response
+        var request = buildGetUrl("/displaytexts");
+        request.setQueryString("locale=nb_NO");
+        var response = new MockHttpServletResponse();
+        service(servlet, request, response);
+        assertEquals(200, response.getStatus());
+        var etag = response.getHeader("ETag");
+        assertThat(etag).contains("0123456789abcdef");
+        assertThat(response.getHeader("Cache-Control")).contains("no-cache");
+        var displayTexts = mapper.readValue(response.getOutputStreamBinaryContent(), new TypeReference<Map<String, String>>() {});
+        assertThat(displayTexts).containsEntry("date", "Dato");
+
+        // Fetch the texts again with the ETag
+        var conditionalRequest = buildGetUrl("/displaytexts");
+        conditionalRequest.setQueryString("locale=nb_NO");
+        conditionalRequest.addHeader("If-None-Match", etag);
+        var notModifiedResponse = new MockHttpServletResponse();
+        service(servlet, conditionalRequest, notModifiedResponse);
+        assertEquals(304, notModifiedResponse.getStatus());
+        assertThat(notModifiedResponse.getOutputStreamBinaryContent()).isEmpty();
+        verify(ratatoskr, never()).displayTexts(any());
+    }
+
+    @Test
+    void testDisplayTextsGzipped() throws Exception {
+        // Set up REST API servlet with mocked services
+        var ratatoskr = mock(RatatoskrService.class);
+        when(ratatoskr.displayTextsBody(NB_NO)).thenReturn(Optional.of(displayTextsBody("{\"date\":\"Dato\"}")));
+        var logservice = new MockLogService();
+
+        var useradmin = mock(UserManagementService.class);
+        var servlet = simulateDSComponentActivationAndWebWhiteboardConfiguration(ratatoskr , useradmin, logservice);
+
+        // Create the request and response
+        var request = buildGetUrl("/displaytexts");
+        request.setQueryString("locale=nb_NO");
+        request.addHeader("Accept-Encoding", "gzip, deflate");
+        var response = new MockHttpServletResponse();
+
+        // Run the method under test
+        service(servlet, request, response);
+
+        // Check the response
+        assertEquals(200, response.getStatus());
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        try (var gunzip = new GZIPInputStream(new ByteArrayInputStream(response.getOutputStreamBinaryContent()))) {
+            var displayTexts = mapper.readValue(gunzip, new TypeReference<Map<String, String>>() {});
+            assertThat(displayTexts).containsEntry("date", "Dato");
+        }
+    }
+
+    @Test
+    void testGetMetrics() throws Exception {
+        var logservice = new MockLogService();
+        var ratatoskr = mock(RatatoskrService.class);
+        var optionalIncrementStep = Optional.of(CounterIncrementStepBean.with().counterIncrementStep(1).build());
+        when(ratatoskr.getCounterIncrementStep(anyString())).thenReturn(optionalIncrementStep);
+        var useradmin = mock(UserManagementService.class);
+        var metrics = new MetricsProvider();
+        var servlet = simulateDSComponentActivationAndWebWhiteboardConfiguration(ratatoskr , useradmin, logservice, metrics);
+        var incrementStepRequest = buildGetUrl("/counter/incrementstep/jad");
+        var incrementStepResponse = new MockHttpServletResponse();
+        loginUser(incrementStepRequest, incrementStepResponse, "jad", "1ad");
+        service(servlet, incrementStepRequest, incrementStepResponse);
+        assertEquals(200, incrementStepResponse.getStatus());
+
+        var request = buildGetUrl("/metrics");
+        var response = new MockHttpServletResponse();
+        loginUser(request, response, "admin", "admin");
+        service(servlet, request, response);
+
+        assertEquals(200, response.getStatus());
+        assertThat(response.getContentType()).startsWith("text/plain");
+        var body = response.getOutputStreamContent();
+        assertThat(body)
+            .contains("ratatoskr_service_call_seconds_count{method=\"getCounterIncrementStep\"} 1")
+            .contains("ratatoskr_http_request_seconds_count{servlet=\"api\",method=\"GET\",template=\"/counter/incrementstep/{username}\"} 1");
+    }
+
+    @Test
+    void testGetMetricsWhenNotAdministrator() throws Exception {
+        var logservice = new MockLogService();
+        var ratatoskr = mock(RatatoskrService.class);
+        var useradmin = mock(UserManagementService.class);
+        var servlet = simulateDSComponentActivationAndWebWhiteboardConfiguration(ratatoskr , useradmin, logservice);
+        var request = buildGetUrl("/metrics");
+        var response = new MockHttpServletResponse();
+
+        loginUser(request, response, "jad", "1ad");
+        service(servlet, request, response);
+
+        assertEquals(403, response.getStatus());
+    }
+
+    @Test
+    void testAccountChangedWithoutOpenEventStreams() throws Exception {
+        var logservice = new MockLogService();
+        var ratatoskr = mock(RatatoskrService.class);
+        var useradmin = mock(UserManagementService.class);
+        var servlet = simulateDSComponentActivationAndWebWhiteboardConfiguration(ratatoskr , useradmin, logservice);
+        var change = AccountChange.with().username("jad").type(AccountChange.COUNTER).data(CounterBean.with().counter(1).build()).build();
+
+        assertDoesNotThrow(() -> servlet.accountChanged(change));
+        assertDoesNotThrow(servlet::deactivate);
+    }
+
+    /**
+     * MockHttpServletRequest doesn't implement the servlet 3 async methods, so
+     * the request is wrapped in a mock that delegates to it and adds just enough
+     * async support for Jersey to suspend the request.  The method returns
+     * when the suspended request has been resumed and the response is complete.
+     */
+    private void service(HttpServlet servlet, MockHttpServletRequest request, HttpServletResponse response) throws Exception {
+        var completed = new CountDownLatch(1);
+        var asyncContext = mock(AsyncContext.class);
+        doAnswer(invocation -> {
+            completed.countDown();
+            return null;
+        }).when(asyncContext).complete();
+        var asyncStarted = new AtomicBoolean();
+        var asyncRequest = mock(HttpServletRequest.class, withSettings().defaultAnswer(delegatesTo(request)));
+        doReturn(true).when(asyncRequest).isAsyncSupported();
+        doAnswer(invocation -> asyncStarted.get()).when(asyncRequest).isAsyncStarted();
+        doReturn(asyncContext).when(asyncRequest).getAsyncContext();
+        doAnswer(invocation -> {
+            asyncStarted.set(true);
+            return asyncContext;
+        }).when(asyncRequest).startAsync(any(), any());
+        servlet.service(asyncRequest, response);
+        if (asyncStarted.get()) {
+            assertTrue(completed.await(10, TimeUnit.SECONDS), "Timed out waiting for the async response to complete");
+        }
+    }
+
+    private DisplayTextsBody displayTextsBody(String json) throws IOException {
+        var raw = json.getBytes(StandardCharsets.UTF_8);
+        var compressed = new ByteArrayOutputStream();
+        try (var gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(raw);
+        }
+
+        return DisplayTextsBody.with().etag("0123456789abcdef").json(raw).gzipped(compressed.toByteArray()).build();
+    }
+
     private MockHttpServletRequest buildGetUrl(String resource) {
         var request = buildRequest(resource);
         request.setMethod("GET");
@@ -463,9 +637,19 @@ class RatatoskrWebApiTest extends ShiroTestBase {
     }
 
     private RatatoskrWebApi simulateDSComponentActivationAndWebWhiteboardConfiguration(RatatoskrService ratatoskr, UserManagementService useradmin, LogService logservice) throws Exception {
+        return simulateDSComponentActivationAndWebWhiteboardConfiguration(ratatoskr, useradmin, logservice, new MetricsProvider());
+    }
+
+    private RatatoskrWebApi simulateDSComponentActivationAndWebWhiteboardConfiguration(RatatoskrService ratatoskr, UserManagementService useradmin, LogService logservice, Metrics metrics) throws Exception {
         var servlet = new RatatoskrWebApi();
         servlet.setLogService(logservice);
         servlet.setRatatoskrService(ratatoskr);
+        servlet.setMetrics(metrics);
+        var asyncRatatoskr = new AsyncRatatoskrServiceProvider();
+        asyncRatatoskr.setRatatoskrService(ratatoskr);
+        asyncRatatoskr.setMetrics(metrics);
+        asyncRatatoskr.activate();
+        servlet.setAsyncRatatoskrService(asyncRatatoskr);
         servlet.setUseradmin(useradmin);
         servlet.activate();
         var config = createServletConfigWithApplicationAndPackagenameForJerseyResources();
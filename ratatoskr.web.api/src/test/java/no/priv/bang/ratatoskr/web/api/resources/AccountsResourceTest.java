@@ -1,5 +1,5 @@
 /*
- * Copyright 2023-2024 Steinar Bang
+ * Copyright 2023-2026 Steinar Bang
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,14 +15,24 @@
  */
 package no.priv.bang.ratatoskr.web.api.resources;
 
+import static no.priv.bang.ratatoskr.web.api.resources.AsyncResponses.*;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.TimeoutHandler;
+import javax.ws.rs.core.Response;
+
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
-import no.priv.bang.ratatoskr.services.RatatoskrService;
+import no.priv.bang.ratatoskr.services.AsyncRatatoskrService;
 import no.priv.bang.ratatoskr.services.beans.Account;
 
 class AccountsResourceTest {
@@ -30,13 +40,33 @@ class AccountsResourceTest {
     @Test
     void testGetAccounts() {
         var resource = new AccountsResource();
-        var ratatoskr = mock(RatatoskrService.class);
+        var ratatoskr = mock(AsyncRatatoskrService.class);
         var account = Account.with().accountId(123).build();
-        when(ratatoskr.getAccounts()).thenReturn(Collections.singletonList(account));
+        when(ratatoskr.getAccounts()).thenReturn(CompletableFuture.completedFuture(Collections.singletonList(account)));
         resource.ratatoskr = ratatoskr;
-        var accounts = resource.getAccounts();
+        var asyncResponse = mock(AsyncResponse.class);
+        resource.getAccounts(asyncResponse);
+        var accounts = (List<?>) resumedWith(asyncResponse);
         assertNotNull(accounts);
         assertThat(accounts).isNotEmpty();
     }
 
+    @Test
+    void testGetAccountsTimesOut() {
+        var resource = new AccountsResource();
+        var ratatoskr = mock(AsyncRatatoskrService.class);
+        when(ratatoskr.getAccounts()).thenReturn(new CompletableFuture<>());
+        resource.ratatoskr = ratatoskr;
+        var asyncResponse = mock(AsyncResponse.class);
+        resource.getAccounts(asyncResponse);
+        verify(asyncResponse).setTimeout(ResourceBase.TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        var timeoutHandler = ArgumentCaptor.forClass(TimeoutHandler.class);
+        verify(asyncResponse).setTimeoutHandler(timeoutHandler.capture());
+
+        timeoutHandler.getValue().handleTimeout(asyncResponse);
+        var response = (Response) resumedWith(asyncResponse);
+        assertEquals(503, response.getStatus());
+        assertEquals(503, ((ErrorMessage) response.getEntity()).getStatus());
+    }
+
 }
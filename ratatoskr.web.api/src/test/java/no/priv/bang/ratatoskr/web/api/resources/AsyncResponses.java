@@ -0,0 +1,48 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.web.api.resources;
+
+import static org.mockito.Mockito.verify;
+
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.Response;
+
+import org.mockito.ArgumentCaptor;
+
+/**
+ * Find what a resource method resumed a mocked {@link AsyncResponse} with.
+ */
+class AsyncResponses {
+
+    private AsyncResponses() {}
+
+    static Object resumedWith(AsyncResponse asyncResponse) {
+        var resumed = ArgumentCaptor.forClass(Object.class);
+        verify(asyncResponse).resume(resumed.capture());
+        return resumed.getValue();
+    }
+
+    static Response resumedWithResponse(AsyncResponse asyncResponse) {
+        return (Response) resumedWith(asyncResponse);
+    }
+
+    static Throwable resumedWithException(AsyncResponse asyncResponse) {
+        var resumed = ArgumentCaptor.forClass(Throwable.class);
+        verify(asyncResponse).resume(resumed.capture());
+        return resumed.getValue();
+    }
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2023-2024 Steinar Bang
+ * Copyright 2023-2026 Steinar Bang
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,17 +15,22 @@
  */
 package no.priv.bang.ratatoskr.web.api.resources;
 
+import static no.priv.bang.ratatoskr.web.api.resources.AsyncResponses.*;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
+import javax.ws.rs.InternalServerErrorException;
 import javax.ws.rs.NotFoundException;
+import javax.ws.rs.container.AsyncResponse;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
-import no.priv.bang.ratatoskr.services.RatatoskrService;
+import no.priv.bang.ratatoskr.services.AsyncRatatoskrService;
 import no.priv.bang.ratatoskr.services.beans.CounterBean;
 import no.priv.bang.ratatoskr.services.beans.CounterIncrementStepBean;
 import no.priv.bang.ratatoskr.web.api.ShiroTestBase;
@@ -40,32 +45,37 @@ class CounterResourceTest extends ShiroTestBase {
     @Test
     void testGetCounterIncrementStep() {
         var incrementStepValue = 1;
-        var ratatoskr = mock(RatatoskrService.class);
+        var ratatoskr = mock(AsyncRatatoskrService.class);
         var optionalIncrementStep = Optional.of(CounterIncrementStepBean.with().counterIncrementStep(incrementStepValue).build());
-        when(ratatoskr.getCounterIncrementStep(anyString())).thenReturn(optionalIncrementStep);
+        when(ratatoskr.getCounterIncrementStep(anyString())).thenReturn(CompletableFuture.completedFuture(optionalIncrementStep));
         var resource = new CounterResource();
         resource.ratatoskr = ratatoskr;
         var username = "jad";
-        var bean = resource.getCounterIncrementStep(username);
+        var asyncResponse = mock(AsyncResponse.class);
+        resource.getCounterIncrementStep(asyncResponse, username);
+        var bean = (CounterIncrementStepBean) resumedWith(asyncResponse);
         assertNotNull(bean);
         assertEquals(incrementStepValue, bean.counterIncrementStep());
     }
 
     @Test
     void testGetCounterIncrementStepWhenNotFound() {
-        var ratatoskr = mock(RatatoskrService.class);
+        var ratatoskr = mock(AsyncRatatoskrService.class);
+        when(ratatoskr.getCounterIncrementStep(anyString())).thenReturn(CompletableFuture.completedFuture(Optional.empty()));
         var resource = new CounterResource();
         resource.ratatoskr = ratatoskr;
         var username = "jad";
-        assertThrows(NotFoundException.class, () -> resource.getCounterIncrementStep(username));
+        var asyncResponse = mock(AsyncResponse.class);
+        resource.getCounterIncrementStep(asyncResponse, username);
+        assertThat(resumedWithException(asyncResponse)).isInstanceOf(NotFoundException.class);
     }
 
     @Test
     void testPostCounterIncrementStep() {
         var incrementStepValue = 2;
-        var ratatoskr = mock(RatatoskrService.class);
+        var ratatoskr = mock(AsyncRatatoskrService.class);
         var optionalIncrementStep = Optional.of(CounterIncrementStepBean.with().counterIncrementStep(incrementStepValue).build());
-        when(ratatoskr.updateCounterIncrementStep(any())).thenReturn(optionalIncrementStep);
+        when(ratatoskr.updateCounterIncrementStep(any())).thenReturn(CompletableFuture.completedFuture(optionalIncrementStep));
         var resource = new CounterResource();
         resource.ratatoskr = ratatoskr;
         var username = "jad";
@@ -73,7 +83,9 @@ class CounterResourceTest extends ShiroTestBase {
             .username(username)
             .counterIncrementStep(incrementStepValue)
             .build();
-        var bean = resource.updateCounterIncrementStep(updateIncrementStep);
+        var asyncResponse = mock(AsyncResponse.class);
+        resource.updateCounterIncrementStep(asyncResponse, updateIncrementStep);
+        var bean = (CounterIncrementStepBean) resumedWith(asyncResponse);
         assertNotNull(bean);
         assertEquals(incrementStepValue, bean.counterIncrementStep());
     }
@@ -81,36 +93,43 @@ class CounterResourceTest extends ShiroTestBase {
     @Test
     void testGetCounter() {
         var counterValue = 3;
-        var ratatoskr = mock(RatatoskrService.class);
+        var ratatoskr = mock(AsyncRatatoskrService.class);
         var counter = Optional.of(CounterBean.with().counter(counterValue).build());
-        when(ratatoskr.getCounter(anyString())).thenReturn(counter);
+        when(ratatoskr.getCounter(anyString())).thenReturn(CompletableFuture.completedFuture(counter));
         var resource = new CounterResource();
         resource.ratatoskr = ratatoskr;
         var username = "jad";
-        var bean = resource.getCounter(username);
+        var asyncResponse = mock(AsyncResponse.class);
+        resource.getCounter(asyncResponse, username);
+        var bean = (CounterBean) resumedWith(asyncResponse);
         assertNotNull(bean);
         assertEquals(counterValue, bean.counter());
     }
 
     @Test
     void testGetCounterWhenNotFound() {
-        var ratatoskr = mock(RatatoskrService.class);
+        var ratatoskr = mock(AsyncRatatoskrService.class);
+        when(ratatoskr.getCounter(anyString())).thenReturn(CompletableFuture.completedFuture(Optional.empty()));
         var resource = new CounterResource();
         resource.ratatoskr = ratatoskr;
         var username = "jad";
-        assertThrows(NotFoundException.class, () -> resource.getCounter(username));
+        var asyncResponse = mock(AsyncResponse.class);
+        resource.getCounter(asyncResponse, username);
+        assertThat(resumedWithException(asyncResponse)).isInstanceOf(NotFoundException.class);
     }
 
     @Test
     void testIncrementCounter() {
         var counterValue = 3;
-        var ratatoskr = mock(RatatoskrService.class);
+        var ratatoskr = mock(AsyncRatatoskrService.class);
         var counter = Optional.of(CounterBean.with().counter(counterValue).build());
-        when(ratatoskr.incrementCounter(anyString())).thenReturn(counter);
+        when(ratatoskr.incrementCounter(anyString())).thenReturn(CompletableFuture.completedFuture(counter));
         var resource = new CounterResource();
         resource.ratatoskr = ratatoskr;
         var username = "jad";
-        var bean = resource.incrementCounter(username);
+        var asyncResponse = mock(AsyncResponse.class);
+        resource.incrementCounter(asyncResponse, username);
+        var bean = (CounterBean) resumedWith(asyncResponse);
         assertNotNull(bean);
         assertEquals(counterValue, bean.counter());
     }
@@ -118,15 +137,28 @@ class CounterResourceTest extends ShiroTestBase {
     @Test
     void testDecrementCounter() {
         var counterValue = 3;
-        var ratatoskr = mock(RatatoskrService.class);
+        var ratatoskr = mock(AsyncRatatoskrService.class);
         var counter = Optional.of(CounterBean.with().counter(counterValue).build());
-        when(ratatoskr.decrementCounter(anyString())).thenReturn(counter);
+        when(ratatoskr.decrementCounter(anyString())).thenReturn(CompletableFuture.completedFuture(counter));
         var resource = new CounterResource();
         resource.ratatoskr = ratatoskr;
         var username = "jad";
-        var bean = resource.decrementCounter(username);
+        var asyncResponse = mock(AsyncResponse.class);
+        resource.decrementCounter(asyncResponse, username);
+        var bean = (CounterBean) resumedWith(asyncResponse);
         assertNotNull(bean);
         assertEquals(counterValue, bean.counter());
     }
 
+    @Test
+    void testIncrementCounterWhenFailing() {
+        var ratatoskr = mock(AsyncRatatoskrService.class);
+        when(ratatoskr.incrementCounter(anyString())).thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+        var resource = new CounterResource();
+        resource.ratatoskr = ratatoskr;
+        var asyncResponse = mock(AsyncResponse.class);
+        resource.incrementCounter(asyncResponse, "jad");
+        assertThat(resumedWithException(asyncResponse)).isInstanceOf(InternalServerErrorException.class);
+    }
+
 }
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.web.api.resources;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import no.priv.bang.ratatoskr.services.beans.AccountChange;
+
+class EventStreamsTest {
+
+    @Test
+    void testPublishToTheStreamsOfTheUser() throws Exception {
+        var streams = new EventStreams();
+        var first = streams.open("jad");
+        var second = streams.open("jad");
+        var other = streams.open("jd");
+        assertThat(streams.size()).isEqualTo(3);
+
+        var change = AccountChange.with().username("jad").type(AccountChange.COUNTER).data(1).build();
+        streams.publish(change);
+        streams.publish(AccountChange.with().username("nobody").type(AccountChange.COUNTER).data(2).build());
+        assertThat(first.poll(1, TimeUnit.SECONDS)).isEqualTo(change);
+        assertThat(second.poll(1, TimeUnit.SECONDS)).isEqualTo(change);
+        assertThat(other.poll(0, TimeUnit.SECONDS)).isNull();
+    }
+
+    @Test
+    void testDropOldestWhenFull() throws Exception {
+        var streams = new EventStreams(2);
+        var stream = streams.open("jad");
+        for (int i = 0; i < 5; ++i) {
+            streams.publish(AccountChange.with().username("jad").type(AccountChange.COUNTER).data(i).build());
+        }
+
+        assertThat(stream.dropped()).isEqualTo(3);
+        assertThat(stream.dropped()).isZero();
+        assertThat(stream.poll(0, TimeUnit.SECONDS).data()).isEqualTo(3);
+        assertThat(stream.poll(0, TimeUnit.SECONDS).data()).isEqualTo(4);
+        assertThat(stream.poll(10, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    void testCloseWakesUpWaitingPoll() throws Exception {
+        var streams = new EventStreams();
+        var stream = streams.open("jad");
+        var closer = Thread.ofVirtual().start(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            stream.close();
+        });
+
+        assertThat(stream.poll(10, TimeUnit.SECONDS)).isNull();
+        closer.join();
+        assertThat(stream.isClosed()).isTrue();
+        assertThat(streams.size()).isZero();
+
+        stream.offer(AccountChange.with().username("jad").build());
+        assertThat(stream.poll(0, TimeUnit.SECONDS)).isNull();
+    }
+
+    @Test
+    void testMaxStreamsPerUser() {
+        var streams = new EventStreams();
+        for (int i = 0; i < EventStreams.MAX_STREAMS_PER_USER; ++i) {
+            assertThat(streams.open("jad")).isNotNull();
+        }
+
+        assertThat(streams.open("jad")).isNull();
+        assertThat(streams.open("jd")).isNotNull();
+        assertThat(streams.size()).isEqualTo(EventStreams.MAX_STREAMS_PER_USER + 1);
+
+        streams.closeAll();
+        assertThat(streams.size()).isZero();
+        assertThat(streams.open("jad")).isNotNull();
+    }
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.web.api.resources;
+
+import static no.priv.bang.ratatoskr.web.api.resources.AsyncResponses.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.CompletionCallback;
+import javax.ws.rs.container.ConnectionCallback;
+import javax.ws.rs.core.Response;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import no.priv.bang.ratatoskr.services.beans.AccountChange;
+import no.priv.bang.ratatoskr.services.beans.CounterBean;
+import no.priv.bang.ratatoskr.web.api.ShiroTestBase;
+
+class EventsResourceTest extends ShiroTestBase {
+
+    @BeforeEach
+    void loginUser() {
+        loginUser("jad", "1ad");
+    }
+
+    @Test
+    void testEvents() throws Exception {
+        var resource = new EventsResource();
+        resource.eventStreams = new EventStreams();
+        var asyncResponse = mock(AsyncResponse.class);
+        when(asyncResponse.resume(any(Response.class))).thenReturn(true);
+        resource.events(asyncResponse);
+
+        var resumed = ArgumentCaptor.forClass(Response.class);
+        verify(asyncResponse, timeout(2000)).resume(resumed.capture());
+        var response = resumed.getValue();
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getHeaderString("Cache-Control")).isEqualTo("no-cache");
+        assertThat(resource.eventStreams.size()).isEqualTo(1);
+    }
+
+    @Test
+    void testEventStreamIsClosedWhenTheResponseCantBeResumed() {
+        var resource = new EventsResource();
+        resource.eventStreams = spy(new EventStreams());
+        var asyncResponse = mock(AsyncResponse.class);
+        when(asyncResponse.resume(any(Response.class))).thenReturn(false);
+        resource.events(asyncResponse);
+
+        verify(resource.eventStreams, timeout(2000)).remove(any());
+        assertThat(resource.eventStreams.size()).isZero();
+    }
+
+    @Test
+    void testEventStreamIsClosedByTheCallbacks() {
+        var resource = new EventsResource();
+        resource.eventStreams = new EventStreams();
+        var asyncResponse = mock(AsyncResponse.class);
+        when(asyncResponse.resume(any(Response.class))).thenReturn(true);
+        resource.events(asyncResponse);
+        verify(asyncResponse, timeout(2000)).resume(any(Response.class));
+        assertThat(resource.eventStreams.size()).isEqualTo(1);
+
+        var callback = ArgumentCaptor.forClass(Object.class);
+        var otherCallback = ArgumentCaptor.forClass(Object.class);
+        verify(asyncResponse).register(callback.capture(), otherCallback.capture());
+        ((CompletionCallback) callback.getValue()).onComplete(null);
+        assertThat(resource.eventStreams.size()).isZero();
+
+        var anotherResponse = mock(AsyncResponse.class);
+        when(anotherResponse.resume(any(Response.class))).thenReturn(true);
+        resource.events(anotherResponse);
+        verify(anotherResponse, timeout(2000)).resume(any(Response.class));
+        assertThat(resource.eventStreams.size()).isEqualTo(1);
+        verify(anotherResponse).register(callback.capture(), otherCallback.capture());
+        ((ConnectionCallback) otherCallback.getValue()).onDisconnect(anotherResponse);
+        assertThat(resource.eventStreams.size()).isZero();
+    }
+
+    @Test
+    void testEventsWithTooManyStreams() {
+        var resource = new EventsResource();
+        resource.eventStreams = new EventStreams();
+        for (int i = 0; i < EventStreams.MAX_STREAMS_PER_USER; ++i) {
+            resource.eventStreams.open("jad");
+        }
+
+        var asyncResponse = mock(AsyncResponse.class);
+        resource.events(asyncResponse);
+        assertThat(resumedWithResponse(asyncResponse).getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    void testWriteEvents() {
+        var resource = new EventsResource();
+        var streams = new EventStreams(1);
+        var stream = streams.open("jad");
+        streams.publish(AccountChange.with().username("jad").type(AccountChange.COUNTER).data(CounterBean.with().counter(1).build()).build());
+        streams.publish(AccountChange.with().username("jad").type(AccountChange.COUNTER).data(CounterBean.with().counter(2).build()).build());
+        var output = new ByteArrayOutputStream() {
+            @Override
+            public void flush() {
+                if (size() > 0 && toString(StandardCharsets.UTF_8).contains("counter\":2")) {
+                    stream.close();
+                }
+            }
+        };
+
+        resource.writeEvents(stream, output);
+        assertThat(output.toString(StandardCharsets.UTF_8))
+            .startsWith("retry: 5000\n\n")
+            .contains("event: overflow\ndata: {}\n\n")
+            .contains("event: counter\ndata: {\"counter\":2}\n\n")
+            .doesNotContain("\"counter\":1");
+        assertThat(streams.size()).isZero();
+    }
+
+    @Test
+    void testWriteEventsWhenClientHasGoneAway() {
+        var resource = new EventsResource();
+        var streams = new EventStreams();
+        var stream = streams.open("jad");
+        var output = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        resource.writeEvents(stream, output);
+        assertThat(stream.isClosed()).isTrue();
+        assertThat(streams.size()).isZero();
+    }
+
+    @Test
+    void testEvent() {
+        assertThat(EventsResource.event("counterincrementstep", "{\"counterIncrementStep\":2}"))
+            .isEqualTo("event: counterincrementstep\ndata: {\"counterIncrementStep\":2}\n\n");
+    }
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2023-2024 Steinar Bang
+ * Copyright 2023-2026 Steinar Bang
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,17 +18,25 @@ package no.priv.bang.ratatoskr.web.api.resources;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.MissingResourceException;
+import java.util.Optional;
+
 import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 import org.junit.jupiter.api.Test;
 import no.priv.bang.osgi.service.mocks.logservice.MockLogService;
 import no.priv.bang.ratatoskr.services.RatatoskrService;
+import no.priv.bang.ratatoskr.services.beans.DisplayTextsBody;
 import no.priv.bang.ratatoskr.services.beans.LocaleBean;
 
 class LocalizationResourceTest {
@@ -64,8 +72,78 @@ class LocalizationResourceTest {
         when(ratatoskr.displayTexts(any())).thenReturn(texts);
         var resource = new LocalizationResource();
         resource.ratatoskr = ratatoskr;
-        var displayTexts = resource.displayTexts(ratatoskr.defaultLocale().toString());
-        assertThat(displayTexts).isNotEmpty();
+        var response = resource.displayTexts(null, ratatoskr.defaultLocale().toString());
+        assertEquals(200, response.getStatus());
+        assertThat(response.getEntity()).isEqualTo(texts);
+    }
+
+    @Test
+    void testDisplayTextsBody() {
+        var ratatoskr = mock(RatatoskrService.class);
+        var json = "{\"date\":\"Dato\"}".getBytes(StandardCharsets.UTF_8);
+        var gzipped = new byte[] { 31, -117 };
+        var body = DisplayTextsBody.with().etag("0123456789abcdef").json(json).gzipped(gzipped).build();
+        when(ratatoskr.displayTextsBody(NB_NO)).thenReturn(Optional.of(body));
+        var request = mock(Request.class);
+        var resource = new LocalizationResource();
+        resource.ratatoskr = ratatoskr;
+        var response = resource.displayTexts(request, "nb_NO");
+        assertEquals(200, response.getStatus());
+        assertEquals(json, response.getEntity());
+        assertEquals(new EntityTag("0123456789abcdef"), response.getEntityTag());
+        assertThat(response.getHeaderString(HttpHeaders.CONTENT_ENCODING)).isNull();
+        verify(ratatoskr, never()).displayTexts(any());
+
+        var httpHeaders = mock(HttpHeaders.class);
+        when(httpHeaders.getHeaderString(HttpHeaders.ACCEPT_ENCODING)).thenReturn("gzip;q=1.0, identity;q=0.5");
+        resource.httpHeaders = httpHeaders;
+        var gzippedResponse = resource.displayTexts(request, "nb_NO");
+        assertEquals(gzipped, gzippedResponse.getEntity());
+        assertEquals("gzip", gzippedResponse.getHeaderString(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(new EntityTag("0123456789abcdef-gz"), gzippedResponse.getEntityTag());
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, gzippedResponse.getHeaderString(HttpHeaders.VARY));
+
+        when(httpHeaders.getHeaderString(HttpHeaders.ACCEPT_ENCODING)).thenReturn("gzip;q=0");
+        var refusedGzipResponse = resource.displayTexts(request, "nb_NO");
+        assertEquals(json, refusedGzipResponse.getEntity());
+        assertEquals(new EntityTag("0123456789abcdef"), refusedGzipResponse.getEntityTag());
+    }
+
+    @Test
+    void testDisplayTextsBodyNotModified() {
+        var ratatoskr = mock(RatatoskrService.class);
+        var body = DisplayTextsBody.with().etag("0123456789abcdef").json(new byte[0]).gzipped(new byte[0]).build();
+        when(ratatoskr.displayTextsBody(NB_NO)).thenReturn(Optional.of(body));
+        var request = mock(Request.class);
+        when(request.evaluatePreconditions(any(EntityTag.class))).thenReturn(Response.notModified());
+        var resource = new LocalizationResource();
+        resource.ratatoskr = ratatoskr;
+        var response = resource.displayTexts(request, "nb_NO");
+        assertEquals(304, response.getStatus());
+        assertNull(response.getEntity());
+        assertEquals(new EntityTag("0123456789abcdef"), response.getEntityTag());
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getHeaderString(HttpHeaders.VARY));
+        verify(request).evaluatePreconditions(new EntityTag("0123456789abcdef"));
+    }
+
+    @Test
+    void testGzippedDisplayTextsBodyNotModified() {
+        var ratatoskr = mock(RatatoskrService.class);
+        var body = DisplayTextsBody.with().etag("0123456789abcdef").json(new byte[0]).gzipped(new byte[0]).build();
+        when(ratatoskr.displayTextsBody(NB_NO)).thenReturn(Optional.of(body));
+        var gzipTag = new EntityTag("0123456789abcdef-gz");
+        var request = mock(Request.class);
+        when(request.evaluatePreconditions(gzipTag)).thenReturn(Response.notModified());
+        var httpHeaders = mock(HttpHeaders.class);
+        when(httpHeaders.getHeaderString(HttpHeaders.ACCEPT_ENCODING)).thenReturn("gzip");
+        var resource = new LocalizationResource();
+        resource.ratatoskr = ratatoskr;
+        resource.httpHeaders = httpHeaders;
+        var response = resource.displayTexts(request, "nb_NO");
+        assertEquals(304, response.getStatus());
+        assertEquals(gzipTag, response.getEntityTag());
+        assertNull(response.getHeaderString(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getHeaderString(HttpHeaders.VARY));
     }
 
     @Test
@@ -76,7 +154,7 @@ class LocalizationResourceTest {
         var logservice = new MockLogService();
         resource.setLogservice(logservice);
         resource.ratatoskr = ratatoskr;
-        assertThrows(WebApplicationException.class, () -> resource.displayTexts("en_UK"));
+        assertThrows(WebApplicationException.class, () -> resource.displayTexts(null, "en_UK"));
     }
 
 }
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.web.api.resources;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.UriInfo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import no.priv.bang.ratatoskr.services.ImagePreviewGenerator;
+import no.priv.bang.ratatoskr.services.MediaStore;
+import no.priv.bang.ratatoskr.services.MediaTooLargeException;
+import no.priv.bang.ratatoskr.services.activitypub.Image;
+import no.priv.bang.ratatoskr.services.beans.StoredMedia;
+import no.priv.bang.ratatoskr.web.api.ShiroTestBase;
+
+class MediaResourceTest extends ShiroTestBase {
+    private static final StoredMedia HELLO = StoredMedia.with()
+        .hash("2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824")
+        .mediaType("image/png")
+        .size(5)
+        .build();
+
+    @BeforeEach
+    void loginUser() {
+        loginUser("jad", "1ad");
+    }
+
+    @Test
+    void testUpload() {
+        var mediaStore = mock(MediaStore.class);
+        when(mediaStore.store(any(), eq("image/png"))).thenReturn(HELLO);
+        var httpHeaders = mock(HttpHeaders.class);
+        when(httpHeaders.getMediaType()).thenReturn(new MediaType("image", "png"));
+        var imagePreviews = mock(ImagePreviewGenerator.class);
+        when(imagePreviews.generate(any())).thenReturn(CompletableFuture.completedStage(Optional.empty()));
+        var resource = new MediaResource();
+        resource.mediaStore = mediaStore;
+        resource.imagePreviews = imagePreviews;
+        resource.httpHeaders = httpHeaders;
+        var content = new ByteArrayInputStream("hello".getBytes(StandardCharsets.UTF_8));
+
+        var response = resource.upload(content);
+
+        assertEquals(201, response.getStatus());
+        assertEquals(URI.create("../media/" + HELLO.hash()), response.getLocation());
+        assertEquals(HELLO, response.getEntity());
+        verify(mediaStore).store(content, "image/png");
+        verify(imagePreviews).generate(HELLO);
+    }
+
+    @Test
+    void testUploadWithoutContentType() {
+        var mediaStore = mock(MediaStore.class);
+        when(mediaStore.store(any(), anyString())).thenReturn(HELLO);
+        var resource = new MediaResource();
+        resource.mediaStore = mediaStore;
+        resource.imagePreviews = mock(ImagePreviewGenerator.class);
+
+        var response = resource.upload(new ByteArrayInputStream(new byte[0]));
+
+        assertEquals(201, response.getStatus());
+        verify(mediaStore).store(any(), eq(MediaType.APPLICATION_OCTET_STREAM));
+    }
+
+    @Test
+    void testUploadTooLarge() {
+        var mediaStore = mock(MediaStore.class);
+        when(mediaStore.store(any(), anyString())).thenThrow(new MediaTooLargeException("Not storing media larger than 5 bytes"));
+        var imagePreviews = mock(ImagePreviewGenerator.class);
+        var resource = new MediaResource();
+        resource.mediaStore = mediaStore;
+        resource.imagePreviews = imagePreviews;
+
+        var response = resource.upload(new ByteArrayInputStream("hello, world".getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(413, response.getStatus());
+        assertEquals("Not storing media larger than 5 bytes", ((ErrorMessage) response.getEntity()).getMessage());
+        verifyNoInteractions(imagePreviews);
+    }
+
+    @Test
+    void testImage() {
+        var mediaStore = mock(MediaStore.class);
+        when(mediaStore.find(HELLO.hash())).thenReturn(Optional.of(HELLO));
+        var imagePreviews = mock(ImagePreviewGenerator.class);
+        var image = Image.with().url("http://localhost:8181/ratatoskr/media/" + HELLO.hash()).build();
+        when(imagePreviews.image(HELLO, "http://localhost:8181/ratatoskr/media/")).thenReturn(image);
+        var uriInfo = mock(UriInfo.class);
+        when(uriInfo.getBaseUri()).thenReturn(URI.create("http://localhost:8181/ratatoskr/api/"));
+        var resource = new MediaResource();
+        resource.mediaStore = mediaStore;
+        resource.imagePreviews = imagePreviews;
+        resource.uriInfo = uriInfo;
+
+        assertEquals(image, resource.image(HELLO.hash()));
+    }
+
+    @Test
+    void testImageNotFound() {
+        var mediaStore = mock(MediaStore.class);
+        when(mediaStore.find(anyString())).thenReturn(Optional.empty());
+        var resource = new MediaResource();
+        resource.mediaStore = mediaStore;
+        resource.imagePreviews = mock(ImagePreviewGenerator.class);
+
+        assertThrows(NotFoundException.class, () -> resource.image("0000"));
+    }
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2023-2024 Steinar Bang
+ * Copyright 2023-2026 Steinar Bang
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,14 +20,18 @@ import static org.osgi.service.http.whiteboard.HttpWhiteboardConstants.*;
 import javax.servlet.Servlet;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.http.whiteboard.propertytypes.HttpWhiteboardContextSelect;
+import org.osgi.service.http.whiteboard.propertytypes.HttpWhiteboardServletAsyncSupported;
 import org.osgi.service.http.whiteboard.propertytypes.HttpWhiteboardServletName;
 import org.osgi.service.http.whiteboard.propertytypes.HttpWhiteboardServletPattern;
 import org.osgi.service.log.LogService;
 
 import no.priv.bang.osgiservice.users.UserManagementService;
-import no.priv.bang.ratatoskr.services.RatatoskrService;
+import no.priv.bang.ratatoskr.services.AsyncRatatoskrService;
+import no.priv.bang.ratatoskr.services.Metrics;
+import no.priv.bang.ratatoskr.web.as.resources.ObjectMapperContextResolver;
 import no.priv.bang.servlet.jersey.JerseyServlet;
 
 
@@ -35,8 +39,15 @@ import no.priv.bang.servlet.jersey.JerseyServlet;
 @HttpWhiteboardContextSelect("(" + HTTP_WHITEBOARD_CONTEXT_NAME + "=ratatoskr)")
 @HttpWhiteboardServletName("ratatoskras")
 @HttpWhiteboardServletPattern("/as/*")
+@HttpWhiteboardServletAsyncSupported
 public class RatatoskrActivityStreamsResourceServlet extends JerseyServlet {
     private static final long serialVersionUID = 3391345571152153990L; // NOSONAR
+    private transient Metrics metrics; // NOSONAR
+    private final transient ResponseBodyCache responseBodyCache = new ResponseBodyCache(new ObjectMapperContextResolver().getContext(Object.class)); // NOSONAR
+
+    public RatatoskrActivityStreamsResourceServlet() {
+        addInjectedOsgiService(ResponseBodyCache.class, responseBodyCache);
+    }
 
     @Override
     @Reference
@@ -45,8 +56,8 @@ public class RatatoskrActivityStreamsResourceServlet extends JerseyServlet {
     }
 
     @Reference
-    public void setRatatoskrService(RatatoskrService ratatoskr) {
-        addInjectedOsgiService(RatatoskrService.class, ratatoskr);
+    public void setAsyncRatatoskrService(AsyncRatatoskrService ratatoskr) {
+        addInjectedOsgiService(AsyncRatatoskrService.class, ratatoskr);
     }
 
     @Reference
@@ -54,8 +65,19 @@ public class RatatoskrActivityStreamsResourceServlet extends JerseyServlet {
         addInjectedOsgiService(UserManagementService.class, useradmin);
     }
 
+    @Reference
+    public void setMetrics(Metrics metrics) {
+        this.metrics = metrics;
+        addInjectedOsgiService(Metrics.class, metrics);
+    }
+
     @Activate
     public void activate() {
-        // This method is called after all injections have been satisfied
+        responseBodyCache.registerMetrics(metrics);
+    }
+
+    @Deactivate
+    public void deactivate() {
+        responseBodyCache.unregisterMetrics(metrics);
     }
 }
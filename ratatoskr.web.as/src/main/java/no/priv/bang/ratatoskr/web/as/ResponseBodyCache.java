@@ -0,0 +1,167 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.web.as;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import no.priv.bang.ratatoskr.services.Metrics;
+import no.priv.bang.ratatoskr.services.RatatoskrException;
+
+/**
+ * Size bounded LRU cache of serialized response bodies, both as plain JSON and
+ * gzip compressed.
+ *
+ * Entries are keyed on the request URI and only used when the ETag of the
+ * cached body matches the ETag of the current version of the resource,
+ * so a changed resource is serialized again on the first request after
+ * the change.
+ */
+public class ResponseBodyCache {
+    public static final long DEFAULT_MAX_BYTES = 16L * 1024 * 1024;
+    static final String HITS = "ratatoskr_response_body_cache_hits_total";
+    static final String MISSES = "ratatoskr_response_body_cache_misses_total";
+    static final String EVICTIONS = "ratatoskr_response_body_cache_evictions_total";
+    static final String ENTRIES = "ratatoskr_response_body_cache_entries";
+    static final String BYTES = "ratatoskr_response_body_cache_bytes";
+
+    private final ObjectMapper mapper;
+    private final long maxBytes;
+    private final LinkedHashMap<String, CachedBody> bodies = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ResponseBodyCache(ObjectMapper mapper) {
+        this(mapper, DEFAULT_MAX_BYTES);
+    }
+
+    public ResponseBodyCache(ObjectMapper mapper, long maxBytes) {
+        this.mapper = mapper;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Return the cached body of the URI if its ETag matches, otherwise fetch
+     * the entity, serialize it and cache it.
+     */
+    public CompletionStage<CachedBody> getAsync(String uri, String etag, Supplier<? extends CompletionStage<?>> entity) {
+        var cached = findAndCount(uri, etag);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        return entity.get().thenApply(e -> serializeAndStore(uri, etag, e));
+    }
+
+    /**
+     * Expose the statistics of this cache through the metrics, which are
+     * served to administrators under /api/metrics.
+     */
+    public void registerMetrics(Metrics metrics) {
+        metrics.register(HITS, Metrics.COUNTER, "Number of response bodies found in the cache", hits::sum);
+        metrics.register(MISSES, Metrics.COUNTER, "Number of response bodies not found in the cache", misses::sum);
+        metrics.register(EVICTIONS, Metrics.COUNTER, "Number of response bodies evicted to keep the cache below its size", evictions::sum);
+        metrics.register(ENTRIES, Metrics.GAUGE, "Number of response bodies in the cache", () -> statistics().entries());
+        metrics.register(BYTES, Metrics.GAUGE, "Size of the response bodies in the cache", () -> statistics().bytes());
+    }
+
+    public void unregisterMetrics(Metrics metrics) {
+        for (var name : List.of(HITS, MISSES, EVICTIONS, ENTRIES, BYTES)) {
+            metrics.unregister(name);
+        }
+    }
+
+    public ResponseBodyCacheStatistics statistics() {
+        synchronized (bodies) {
+            return new ResponseBodyCacheStatistics(hits.sum(), misses.sum(), evictions.sum(), bodies.size(), bytes);
+        }
+    }
+
+    private CachedBody findAndCount(String uri, String etag) {
+        var cached = find(uri, etag);
+        if (cached != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+
+        return cached;
+    }
+
+    private CachedBody serializeAndStore(String uri, String etag, Object entity) {
+        var body = serialize(etag, entity);
+        store(uri, body);
+        return body;
+    }
+
+    private CachedBody find(String uri, String etag) {
+        synchronized (bodies) {
+            var cached = bodies.get(uri);
+            return cached != null && cached.etag().equals(etag) ? cached : null;
+        }
+    }
+
+    private void store(String uri, CachedBody body) {
+        if (body.size() > maxBytes) {
+            return;
+        }
+
+        synchronized (bodies) {
+            var replaced = bodies.put(uri, body);
+            bytes += body.size() - (replaced != null ? replaced.size() : 0);
+            var eldest = bodies.entrySet().iterator();
+            while (bytes > maxBytes && eldest.hasNext()) {
+                bytes -= eldest.next().getValue().size();
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    private CachedBody serialize(String etag, Object entity) {
+        try {
+            var raw = mapper.writeValueAsBytes(entity);
+            var compressed = new ByteArrayOutputStream(raw.length / 2 + 32);
+            try (var gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(raw);
+            }
+
+            return new CachedBody(etag, raw, compressed.toByteArray());
+        } catch (IOException e) {
+            throw new RatatoskrException("Unable to serialize response body", e);
+        }
+    }
+
+    public record CachedBody(String etag, byte[] raw, byte[] gzipped) {
+
+        long size() {
+            return (long) raw.length + gzipped.length;
+        }
+
+    }
+
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.web.as.media;
+
+/**
+ * The first and last byte, both inclusive, of the single range asked for
+ * by the <code>Range</code> header of a request (RFC 9110 section 14).
+ */
+record ByteRange(long first, long last) {
+
+    static final ByteRange UNSATISFIABLE = new ByteRange(-1, -1);
+
+    long length() {
+        return last - first + 1;
+    }
+
+    String contentRange(long size) {
+        return "bytes " + first + "-" + last + "/" + size;
+    }
+
+    /**
+     * Parse a <code>Range</code> header for content of a given size.
+     *
+     * @return the range, {@link #UNSATISFIABLE} if no byte of the content is
+     *         in the range, or null if the whole content should be sent,
+     *         i.e. if there is no header, if the header can't be parsed, or
+     *         if it asks for more than one range
+     */
+    static ByteRange parse(String range, long size) {
+        if (range == null || !range.startsWith("bytes=") || range.indexOf(',') >= 0) {
+            return null;
+        }
+
+        var spec = range.substring("bytes=".length()).trim();
+        var dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+
+        try {
+            var firstText = spec.substring(0, dash).trim();
+            var lastText = spec.substring(dash + 1).trim();
+            if (firstText.isEmpty()) {
+                var suffixLength = Long.parseLong(lastText);
+                if (suffixLength <= 0 || size == 0) {
+                    return UNSATISFIABLE;
+                }
+
+                return new ByteRange(Math.max(0, size - suffixLength), size - 1);
+            }
+
+            var first = Long.parseLong(firstText);
+            var last = lastText.isEmpty() ? size - 1 : Long.parseLong(lastText);
+            if (first < 0 || last < first) {
+                return null;
+            }
+
+            if (first >= size) {
+                return UNSATISFIABLE;
+            }
+
+            return new ByteRange(first, Math.min(last, size - 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.web.as.media;
+
+import static org.osgi.service.http.whiteboard.HttpWhiteboardConstants.*;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+import javax.servlet.Servlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.http.whiteboard.propertytypes.HttpWhiteboardContextSelect;
+import org.osgi.service.http.whiteboard.propertytypes.HttpWhiteboardServletName;
+import org.osgi.service.http.whiteboard.propertytypes.HttpWhiteboardServletPattern;
+import org.osgi.service.log.LogService;
+import org.osgi.service.log.Logger;
+
+import no.priv.bang.ratatoskr.services.MediaStore;
+import no.priv.bang.ratatoskr.services.beans.StoredMedia;
+
+/**
+ * Serves the content of the {@link MediaStore} as <code>/media/&lt;sha-256&gt;</code>.
+ *
+ * Since the name of the content is the hash of the content, the hash is
+ * a strong ETag and the content can be cached forever.  Single byte ranges
+ * are supported, so that audio and video can be seeked in.
+ *
+ * The file is copied to the response with {@link FileChannel#transferTo},
+ * which lets the container send it without the content passing through a
+ * buffer in the servlet.  Uploaded content is served in a sandbox, so that
+ * uploaded HTML and SVG can't run scripts in the origin of ratatoskr.
+ */
+@Component(service=Servlet.class, immediate=true)
+@HttpWhiteboardContextSelect("(" + HTTP_WHITEBOARD_CONTEXT_NAME + "=ratatoskr)")
+@HttpWhiteboardServletName("ratatoskrmedia")
+@HttpWhiteboardServletPattern("/media/*")
+public class RatatoskrMediaServlet extends HttpServlet {
+    private static final long serialVersionUID = 8154361874127796424L; // NOSONAR
+    static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    static final String SANDBOX = "default-src 'none'; style-src 'unsafe-inline'; sandbox";
+
+    private transient MediaStore mediaStore; // NOSONAR
+    private transient Logger logger; // NOSONAR
+
+    @Reference
+    public void setLogService(LogService logservice) {
+        this.logger = logservice.getLogger(getClass());
+    }
+
+    @Reference
+    public void setMediaStore(MediaStore mediaStore) {
+        this.mediaStore = mediaStore;
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        serve(request, response, true);
+    }
+
+    @Override
+    protected void doHead(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        serve(request, response, false);
+    }
+
+    private void serve(HttpServletRequest request, HttpServletResponse response, boolean sendContent) throws IOException {
+        var pathInfo = request.getPathInfo();
+        var media = pathInfo != null ? mediaStore.find(pathInfo.substring(1)) : Optional.<StoredMedia>empty();
+        if (media.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        var stored = media.get();
+        var etag = "\"" + stored.hash() + "\"";
+        response.setHeader("ETag", etag);
+        response.setHeader("Cache-Control", IMMUTABLE);
+        response.setHeader("Accept-Ranges", "bytes");
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        response.setHeader("Content-Security-Policy", SANDBOX);
+        if (matches(request.getHeader("If-None-Match"), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        var ifRange = request.getHeader("If-Range");
+        var range = ifRange == null || ifRange.trim().equals(etag) ? ByteRange.parse(request.getHeader("Range"), stored.size()) : null;
+        if (range == ByteRange.UNSATISFIABLE) {
+            response.setHeader("Content-Range", "bytes */" + stored.size());
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return;
+        }
+
+        var first = range != null ? range.first() : 0;
+        var length = range != null ? range.length() : stored.size();
+        try (var file = FileChannel.open(mediaStore.path(stored), StandardOpenOption.READ)) {
+            response.setStatus(range != null ? HttpServletResponse.SC_PARTIAL_CONTENT : HttpServletResponse.SC_OK);
+            if (range != null) {
+                response.setHeader("Content-Range", range.contentRange(stored.size()));
+            }
+
+            response.setContentType(stored.mediaType());
+            response.setHeader("Content-Length", Long.toString(length));
+            if (sendContent) {
+                transfer(file, first, length, response);
+            }
+        } catch (NoSuchFileException e) {
+            // Evicted or deleted since it was found
+            response.reset();
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+        } catch (IOException e) {
+            // Most often a player that has seeked to another range and closed the connection
+            logger.debug("Failed to send media {}", stored.hash(), e);
+        }
+    }
+
+    private void transfer(FileChannel file, long first, long length, HttpServletResponse response) throws IOException {
+        var output = Channels.newChannel(response.getOutputStream());
+        var position = first;
+        var remaining = length;
+        while (remaining > 0) {
+            var transferred = file.transferTo(position, remaining, output);
+            if (transferred <= 0) {
+                throw new IOException("Media file truncated while sending");
+            }
+
+            position += transferred;
+            remaining -= transferred;
+        }
+    }
+
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+
+        for (var tag : ifNoneMatch.split(",")) {
+            var trimmed = tag.trim();
+            if ("*".equals(trimmed) || etag.equals(trimmed) || ("W/" + etag).equals(trimmed)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+}
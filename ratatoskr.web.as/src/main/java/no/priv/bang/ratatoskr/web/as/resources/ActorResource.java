@@ -1,5 +1,5 @@
 /*
- * Copyright 2024 Steinar Bang
+ * Copyright 2024-2026 Steinar Bang
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,32 +15,48 @@
  */
 package no.priv.bang.ratatoskr.web.as.resources;
 
+import java.util.concurrent.CompletionStage;
+
 import javax.inject.Inject;
 import javax.ws.rs.GET;
 import javax.ws.rs.NotFoundException;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.UriInfo;
 
-import no.priv.bang.ratatoskr.services.RatatoskrService;
+import no.priv.bang.ratatoskr.services.AsyncRatatoskrService;
 import no.priv.bang.ratatoskr.services.activitypub.Person;
 
 @Path("")
 @Produces(MediaType.APPLICATION_JSON)
-public class ActorResource {
+public class ActorResource extends ResourceBase {
 
     @Inject
-    public RatatoskrService ratatoskr;
+    public AsyncRatatoskrService ratatoskr;
 
     @GET
     @Path("actor/{username}")
-    public Person getActor(@Context UriInfo uriInfo, @PathParam("username") String username ) {
+    public void getActor(@Suspended AsyncResponse asyncResponse, @Context Request request, @Context UriInfo uriInfo, @PathParam("username") String username ) {
+        var version = ratatoskr.findActorVersion(username)
+            .thenApply(v -> v.orElseThrow(() -> actorNotFound(username)));
+        resumeConditionally(asyncResponse, request, uriInfo, version, () -> actor(uriInfo, username));
+    }
+
+    private CompletionStage<Person> actor(UriInfo uriInfo, String username) {
         return ratatoskr.findPersonWithUsername(username)
-            .map(a -> setUrls(a, uriInfo))
-            .orElseThrow(() -> new NotFoundException("Did not find actor \"" + username + "\""));
+            .thenApply(actor -> actor
+                .map(a -> setUrls(a, uriInfo))
+                .orElseThrow(() -> actorNotFound(username)));
+    }
+
+    private NotFoundException actorNotFound(String username) {
+        return new NotFoundException("Did not find actor \"" + username + "\"");
     }
 
     private Person setUrls(Person actor, UriInfo uriInfo) {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2025 Steinar Bang
+ * Copyright 2025-2026 Steinar Bang
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,36 +15,116 @@
  */
 package no.priv.bang.ratatoskr.web.as.resources;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.inject.Inject;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
 
-import no.priv.bang.ratatoskr.services.RatatoskrService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import no.priv.bang.ratatoskr.services.AsyncRatatoskrService;
+import no.priv.bang.ratatoskr.services.activitypub.Person;
 import no.priv.bang.ratatoskr.services.activitypub.PersonCollection;
+import no.priv.bang.ratatoskr.services.beans.ActorCounts;
 
 @Path("")
 @Produces(MediaType.APPLICATION_JSON)
-public class FollowersResource {
+public class FollowersResource extends ResourceBase {
+    private static final ObjectMapper mapper = new ObjectMapperContextResolver().getContext(Object.class);
 
     @Inject
-    public RatatoskrService ratatoskr;
+    public AsyncRatatoskrService ratatoskr;
 
     @GET
     @Path("followers/{username}")
-    public PersonCollection getFollowers(@Context UriInfo uriInfo, @PathParam("username") String username) {
-        var followers = List.copyOf(ratatoskr.findFollowersWithUsername(username));
+    public void getFollowers(@Suspended AsyncResponse asyncResponse, @Context Request request, @Context UriInfo uriInfo, @PathParam("username") String username, @QueryParam("stream") boolean stream) {
+        var version = ratatoskr.findFollowersVersion(username);
+        if (stream) {
+            resumeConditionallyStreaming(asyncResponse, request, uriInfo, version, streamFollowers(uriInfo, username));
+            return;
+        }
+
+        resumeConditionally(asyncResponse, request, uriInfo, version, () -> followers(uriInfo, username));
+    }
+
+    /**
+     * Write the collection while the followers are read from the database, so
+     * that only one follower at a time is held in memory.
+     *
+     * The fields are written in the order, and with the values, that the
+     * {@link PersonCollection} of the buffered response serializes to.
+     */
+    StreamingOutput streamFollowers(UriInfo uriInfo, String username) {
+        var id = followersid(uriInfo, username);
+        return output -> {
+            try (var generator = mapper.getFactory().createGenerator(output)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                var counts = ratatoskr.findActorCounts(username).toCompletableFuture().join();
+                generator.writeStartObject();
+                generator.writeStringField("id", id);
+                generator.writeNumberField("totalItems", counts.map(ActorCounts::followers).orElse(0));
+                generator.writeArrayFieldStart("orderedItems");
+                var first = new AtomicReference<Person>();
+                var last = new AtomicReference<Person>();
+                ratatoskr.forEachFollowerWithUsername(username, follower -> {
+                    first.compareAndSet(null, follower);
+                    last.set(follower);
+                    writeItem(generator, follower);
+                }).toCompletableFuture().join();
+                generator.writeEndArray();
+                generator.writeObjectField("current", first.get());
+                generator.writeObjectField("first", first.get());
+                generator.writeObjectField("last", last.get());
+                generator.writeEndObject();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof UncheckedIOException failedWrite) {
+                    throw failedWrite.getCause();
+                }
+
+                throw e;
+            }
+        };
+    }
+
+    private void writeItem(JsonGenerator generator, Person follower) {
+        try {
+            generator.writeObject(follower);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private CompletionStage<PersonCollection> followers(UriInfo uriInfo, String username) {
+        return ratatoskr.findFollowersWithUsername(username)
+            .thenCombine(ratatoskr.findActorCounts(username), (followers, counts) -> followersCollection(uriInfo, username, List.copyOf(followers), counts));
+    }
+
+    private PersonCollection followersCollection(UriInfo uriInfo, String username, List<Person> followers, Optional<ActorCounts> counts) {
         return PersonCollection.with()
             .id(followersid(uriInfo, username))
-            .totalItems(followers.size())
             .orderedItems(followers)
-            .current(followers.getFirst())
+            .totalItems(counts.map(ActorCounts::followers).orElse(followers.size()))
+            .current(followers.isEmpty() ? null : followers.getFirst())
             .build();
     }
 
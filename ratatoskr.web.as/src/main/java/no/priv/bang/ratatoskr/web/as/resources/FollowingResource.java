@@ -1,5 +1,5 @@
 /*
- * Copyright 2025 Steinar Bang
+ * Copyright 2025-2026 Steinar Bang
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,35 +16,51 @@
 package no.priv.bang.ratatoskr.web.as.resources;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletionStage;
 
 import javax.inject.Inject;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.UriInfo;
 
-import no.priv.bang.ratatoskr.services.RatatoskrService;
+import no.priv.bang.ratatoskr.services.AsyncRatatoskrService;
+import no.priv.bang.ratatoskr.services.activitypub.Person;
 import no.priv.bang.ratatoskr.services.activitypub.PersonCollection;
+import no.priv.bang.ratatoskr.services.beans.ActorCounts;
 
 @Path("")
 @Produces(MediaType.APPLICATION_JSON)
-public class FollowingResource {
+public class FollowingResource extends ResourceBase {
 
     @Inject
-    public RatatoskrService ratatoskr;
+    public AsyncRatatoskrService ratatoskr;
 
     @GET
     @Path("following/{username}")
-    public PersonCollection getFollowing(@Context UriInfo uriInfo, @PathParam("username") String username) {
-        var following = List.copyOf(ratatoskr.findFollowingWithUsername(username));
+    public void getFollowing(@Suspended AsyncResponse asyncResponse, @Context Request request, @Context UriInfo uriInfo, @PathParam("username") String username) {
+        var version = ratatoskr.findFollowingVersion(username);
+        resumeConditionally(asyncResponse, request, uriInfo, version, () -> following(uriInfo, username));
+    }
+
+    private CompletionStage<PersonCollection> following(UriInfo uriInfo, String username) {
+        return ratatoskr.findFollowingWithUsername(username)
+            .thenCombine(ratatoskr.findActorCounts(username), (following, counts) -> followingCollection(uriInfo, username, List.copyOf(following), counts));
+    }
+
+    private PersonCollection followingCollection(UriInfo uriInfo, String username, List<Person> following, Optional<ActorCounts> counts) {
         return PersonCollection.with()
             .id(followingid(uriInfo, username))
-            .totalItems(following.size())
             .orderedItems(following)
-            .current(following.getFirst())
+            .totalItems(counts.map(ActorCounts::following).orElse(following.size()))
+            .current(following.isEmpty() ? null : following.getFirst())
             .build();
     }
 
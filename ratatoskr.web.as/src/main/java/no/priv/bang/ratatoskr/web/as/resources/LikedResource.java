@@ -1,5 +1,5 @@
 /*
- * Copyright 2025 Steinar Bang
+ * Copyright 2025-2026 Steinar Bang
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,35 +16,51 @@
 package no.priv.bang.ratatoskr.web.as.resources;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletionStage;
 
 import javax.inject.Inject;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.UriInfo;
 
-import no.priv.bang.ratatoskr.services.RatatoskrService;
+import no.priv.bang.ratatoskr.services.AsyncRatatoskrService;
 import no.priv.bang.ratatoskr.services.activitypub.Activity;
 import no.priv.bang.ratatoskr.services.activitypub.ActivityCollection;
+import no.priv.bang.ratatoskr.services.beans.ActorCounts;
 
 @Path("")
 @Produces(MediaType.APPLICATION_JSON)
-public class LikedResource {
+public class LikedResource extends ResourceBase {
 
     @Inject
-    RatatoskrService ratatoskr;
+    AsyncRatatoskrService ratatoskr;
 
     @GET
     @Path("liked/{username}")
-    public ActivityCollection getLiked(@Context UriInfo uriInfo, @PathParam("username") String username) {
-        List<Activity> likes = List.copyOf(ratatoskr.findLikedWithUsername(username));
+    public void getLiked(@Suspended AsyncResponse asyncResponse, @Context Request request, @Context UriInfo uriInfo, @PathParam("username") String username) {
+        var version = ratatoskr.findLikedVersion(username);
+        resumeConditionally(asyncResponse, request, uriInfo, version, () -> liked(uriInfo, username));
+    }
+
+    private CompletionStage<ActivityCollection> liked(UriInfo uriInfo, String username) {
+        return ratatoskr.findLikedWithUsername(username)
+            .thenCombine(ratatoskr.findActorCounts(username), (likes, counts) -> likedCollection(uriInfo, username, List.copyOf(likes), counts));
+    }
+
+    private ActivityCollection likedCollection(UriInfo uriInfo, String username, List<Activity> likes, Optional<ActorCounts> counts) {
         return ActivityCollection.with()
             .id(likedId(uriInfo, username))
             .orderedItems(likes)
-            .current(likes.getFirst())
+            .totalItems(counts.map(ActorCounts::liked).orElse(likes.size()))
+            .current(likes.isEmpty() ? null : likes.getFirst())
             .build();
     }
 
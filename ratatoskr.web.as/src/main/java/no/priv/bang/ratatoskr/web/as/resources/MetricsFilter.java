@@ -0,0 +1,34 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.web.as.resources;
+
+import javax.ws.rs.container.PreMatching;
+import javax.ws.rs.ext.Provider;
+
+import no.priv.bang.ratatoskr.web.common.RequestMetricsFilter;
+
+/**
+ * Record the requests to the ActivityPub server under the servlet label "as".
+ */
+@Provider
+@PreMatching
+public class MetricsFilter extends RequestMetricsFilter {
+
+    public MetricsFilter() {
+        super("as");
+    }
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2023 Steinar Bang
+ * Copyright 2023-2026 Steinar Bang
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,10 +15,39 @@
  */
 package no.priv.bang.ratatoskr.web.as.resources;
 
+import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import javax.inject.Inject;
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.core.UriInfo;
+
+import no.priv.bang.ratatoskr.services.beans.ResourceVersion;
+import no.priv.bang.ratatoskr.web.as.ResponseBodyCache;
+import no.priv.bang.ratatoskr.web.common.ResourceSupport;
 
 public class ResourceBase {
+    static final int MAX_AGE_SECONDS = 60;
+    static final long TIMEOUT_SECONDS = 30;
+
+    @Inject
+    public ResponseBodyCache responseBodyCache;
+
+    @Context
+    public HttpHeaders httpHeaders;
 
     public ResourceBase() {
         super();
@@ -32,4 +61,116 @@ public class ResourceBase {
             .build();
     }
 
+    /**
+     * Page cursors are on the form "published-id", where published is the
+     * epoch milliseconds of the last item on the previous page.  A cursor that
+     * doesn't parse is answered with 400 Bad Request instead of reaching the
+     * database.
+     */
+    static String pageCursor(String parameter, String cursor) {
+        if (cursor == null) {
+            return null;
+        }
+
+        var parts = cursor.split("-", 2);
+        try {
+            if (parts.length == 2) {
+                Long.parseLong(parts[0]);
+                Integer.parseInt(parts[1]);
+                return cursor;
+            }
+        } catch (NumberFormatException e) { // NOSONAR answered with 400 below
+        }
+
+        throw new BadRequestException(String.format("Malformed %s cursor \"%s\"", parameter, cursor));
+    }
+
+    /**
+     * Resume a suspended request with the result when it completes, or with
+     * the exception if the result completes exceptionally.
+     *
+     * The servlet thread is released as soon as the resource method returns.
+     * If the result isn't ready within {@link #TIMEOUT_SECONDS} the request is
+     * answered with 503 Service Unavailable.
+     */
+    protected void resume(AsyncResponse asyncResponse, CompletionStage<?> result) {
+        ResourceSupport.resume(asyncResponse, result, TIMEOUT_SECONDS, () -> response(503, "Timed out waiting for the database"));
+    }
+
+    /**
+     * Answer a GET with 304 Not Modified when the client already has the
+     * current version, otherwise fetch the entity and answer with 200.
+     *
+     * The ETag and Last-Modified headers are computed from the version
+     * only, so a 304 is answered without fetching or serializing the entity.
+     *
+     * When the body is served from the response body cache it is gzipped
+     * for clients that accept it.  The gzipped body is a different
+     * representation, so it gets its own strong ETag with a "-gz" suffix,
+     * and all responses, including 304, carry Vary: Accept-Encoding.
+     */
+    protected void resumeConditionally(AsyncResponse asyncResponse, Request request, UriInfo uriInfo, CompletionStage<ResourceVersion> version, Supplier<? extends CompletionStage<?>> entity) {
+        var negotiatesEncoding = responseBodyCache != null;
+        var gzip = negotiatesEncoding && acceptsGzip();
+        resume(asyncResponse, version.thenCompose(v -> conditionalResponse(request, uriInfo, v, negotiatesEncoding, gzip, etag -> okResponse(uriInfo, etag, gzip, entity))));
+    }
+
+    /**
+     * Like {@link #resumeConditionally(AsyncResponse, Request, UriInfo, CompletionStage, Supplier)}
+     * but the body is written by a {@link StreamingOutput} and is never cached.
+     */
+    protected void resumeConditionallyStreaming(AsyncResponse asyncResponse, Request request, UriInfo uriInfo, CompletionStage<ResourceVersion> version, StreamingOutput body) {
+        resume(asyncResponse, version.thenCompose(v -> conditionalResponse(request, uriInfo, v, false, false, etag -> CompletableFuture.completedFuture(Response.ok(body, MediaType.APPLICATION_JSON)))));
+    }
+
+    private CompletionStage<Response> conditionalResponse(Request request, UriInfo uriInfo, ResourceVersion version, boolean negotiatesEncoding, boolean gzip, Function<EntityTag, CompletionStage<ResponseBuilder>> ok) {
+        var etag = entityTag(uriInfo, version);
+        var representationTag = gzip ? new EntityTag(etag.getValue() + ResourceSupport.GZIP_ETAG_SUFFIX) : etag;
+        var lastModified = version.lastModified() != null ? Date.from(version.lastModified().toInstant()) : null;
+        var notModified = lastModified != null ? request.evaluatePreconditions(lastModified, representationTag) : request.evaluatePreconditions(representationTag);
+        var response = notModified != null ? CompletableFuture.completedFuture(notModified) : ok.apply(etag);
+        return response.thenApply(builder -> {
+            if (lastModified != null) {
+                builder.lastModified(lastModified);
+            }
+
+            if (negotiatesEncoding) {
+                builder.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            }
+
+            return builder
+                .tag(representationTag)
+                .cacheControl(cacheControl())
+                .build();
+        });
+    }
+
+    private CompletionStage<ResponseBuilder> okResponse(UriInfo uriInfo, EntityTag etag, boolean gzip, Supplier<? extends CompletionStage<?>> entity) {
+        if (responseBodyCache == null) {
+            return entity.get().thenApply(Response::ok);
+        }
+
+        return responseBodyCache.getAsync(uriInfo.getRequestUri().toString(), etag.getValue(), entity).thenApply(body -> {
+            var response = Response.ok(gzip ? body.gzipped() : body.raw(), MediaType.APPLICATION_JSON);
+            return gzip ? response.header(HttpHeaders.CONTENT_ENCODING, "gzip") : response;
+        });
+    }
+
+    boolean acceptsGzip() {
+        return ResourceSupport.acceptsGzip(httpHeaders);
+    }
+
+    EntityTag entityTag(UriInfo uriInfo, ResourceVersion version) {
+        var lastModified = version.lastModified() != null ? version.lastModified().toInstant().toEpochMilli() : 0;
+        var value = String.format("%x-%x-%x", version.count(), lastModified, uriInfo.getRequestUri().hashCode());
+        return new EntityTag(value);
+    }
+
+    CacheControl cacheControl() {
+        var cacheControl = new CacheControl();
+        cacheControl.setPrivate(true);
+        cacheControl.setMaxAge(MAX_AGE_SECONDS);
+        return cacheControl;
+    }
+
 }
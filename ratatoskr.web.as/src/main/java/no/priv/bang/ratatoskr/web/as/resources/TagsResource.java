@@ -0,0 +1,63 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.web.as.resources;
+
+import javax.inject.Inject;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.UriInfo;
+
+import no.priv.bang.ratatoskr.services.AsyncRatatoskrService;
+import no.priv.bang.ratatoskr.services.activitypub.TagTimeline;
+
+@Path("")
+@Produces(MediaType.APPLICATION_JSON)
+public class TagsResource extends ResourceBase {
+    static final int PAGE_SIZE = 20;
+
+    @Inject
+    public AsyncRatatoskrService ratatoskr;
+
+    @GET
+    @Path("tags/{hashtag}")
+    public void getTagTimeline(@Suspended AsyncResponse asyncResponse, @Context UriInfo uriInfo, @PathParam("hashtag") String hashtag, @QueryParam("before") String before) {
+        var cursor = pageCursor("before", before);
+        resume(asyncResponse, ratatoskr.findTagTimeline(hashtag, cursor, PAGE_SIZE).thenApply(timeline -> setUrls(timeline, uriInfo)));
+    }
+
+    private TagTimeline setUrls(TagTimeline timeline, UriInfo uriInfo) {
+        return TagTimeline.with(timeline)
+            .id(tagTimelineId(uriInfo, timeline.hashtag()))
+            .next(timeline.next() != null ? nextPage(uriInfo, timeline) : null)
+            .build();
+    }
+
+    private String tagTimelineId(UriInfo uriInfo, String hashtag) {
+        return uriInfo.getBaseUriBuilder().path("tags").path(hashtag).build().toString();
+    }
+
+    private String nextPage(UriInfo uriInfo, TagTimeline timeline) {
+        return uriInfo.getBaseUriBuilder().path("tags").path(timeline.hashtag()).queryParam("before", timeline.next()).build().toString();
+    }
+
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.web.as.resources;
+
+import javax.inject.Inject;
+import javax.ws.rs.GET;
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.UriInfo;
+
+import no.priv.bang.ratatoskr.services.AsyncRatatoskrService;
+import no.priv.bang.ratatoskr.services.activitypub.Replies;
+
+@Path("")
+@Produces(MediaType.APPLICATION_JSON)
+public class ThreadResource extends ResourceBase {
+    static final int PAGE_SIZE = 20;
+
+    @Inject
+    public AsyncRatatoskrService ratatoskr;
+
+    @GET
+    @Path("thread")
+    public void getThread(@Suspended AsyncResponse asyncResponse, @QueryParam("object") String object) {
+        resume(asyncResponse, ratatoskr.findThread(object)
+            .thenApply(thread -> thread.orElseThrow(() -> new NotFoundException("Did not find object \"" + object + "\""))));
+    }
+
+    @GET
+    @Path("replies")
+    public void getReplies(@Suspended AsyncResponse asyncResponse, @Context UriInfo uriInfo, @QueryParam("object") String object, @QueryParam("after") String after) {
+        var cursor = pageCursor("after", after);
+        resume(asyncResponse, ratatoskr.findReplies(object, cursor, PAGE_SIZE).thenApply(replies -> setUrls(replies, uriInfo)));
+    }
+
+    private Replies setUrls(Replies replies, UriInfo uriInfo) {
+        return Replies.with(replies)
+            .id(uriInfo.getBaseUriBuilder().path("replies").queryParam("object", replies.partOf()).build().toString())
+            .next(replies.next() != null ? nextPage(uriInfo, replies) : null)
+            .build();
+    }
+
+    private String nextPage(UriInfo uriInfo, Replies replies) {
+        return uriInfo.getBaseUriBuilder().path("replies").queryParam("object", replies.partOf()).queryParam("after", replies.next()).build().toString();
+    }
+
+}
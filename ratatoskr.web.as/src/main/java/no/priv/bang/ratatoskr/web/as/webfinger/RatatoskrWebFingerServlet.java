@@ -0,0 +1,71 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.web.as.webfinger;
+
+import static org.osgi.service.http.whiteboard.HttpWhiteboardConstants.*;
+
+import javax.servlet.Servlet;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.http.whiteboard.propertytypes.HttpWhiteboardContextSelect;
+import org.osgi.service.http.whiteboard.propertytypes.HttpWhiteboardServletName;
+import org.osgi.service.http.whiteboard.propertytypes.HttpWhiteboardServletPattern;
+import org.osgi.service.log.LogService;
+
+import no.priv.bang.ratatoskr.services.ActorChangeListener;
+import no.priv.bang.ratatoskr.services.RatatoskrService;
+import no.priv.bang.ratatoskr.services.activitypub.Person;
+import no.priv.bang.servlet.jersey.JerseyServlet;
+
+/**
+ * WebFinger (RFC 7033) has to be served from the root of the host, so this
+ * servlet is put in the default web context instead of the "/ratatoskr" context.
+ */
+@Component(service={Servlet.class, ActorChangeListener.class}, immediate=true)
+@HttpWhiteboardContextSelect("(" + HTTP_WHITEBOARD_CONTEXT_NAME + "=" + HTTP_WHITEBOARD_DEFAULT_CONTEXT_NAME + ")")
+@HttpWhiteboardServletName("ratatoskrwebfinger")
+@HttpWhiteboardServletPattern("/.well-known/*")
+public class RatatoskrWebFingerServlet extends JerseyServlet implements ActorChangeListener {
+    private static final long serialVersionUID = -2207263447536418627L; // NOSONAR
+    private final transient WebFingerCache webFingerCache = new WebFingerCache(); // NOSONAR
+
+    public RatatoskrWebFingerServlet() {
+        addInjectedOsgiService(WebFingerCache.class, webFingerCache);
+    }
+
+    @Override
+    @Reference
+    public void setLogService(LogService logService) {
+        super.setLogService(logService);
+    }
+
+    @Reference
+    public void setRatatoskrService(RatatoskrService ratatoskr) {
+        addInjectedOsgiService(RatatoskrService.class, ratatoskr);
+    }
+
+    @Activate
+    public void activate() {
+        // This method is called after all injections have been satisfied
+    }
+
+    @Override
+    public void actorChanged(Person actor) {
+        webFingerCache.invalidate(actor.preferredUsername());
+    }
+
+}
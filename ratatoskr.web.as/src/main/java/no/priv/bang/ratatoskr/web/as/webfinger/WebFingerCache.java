@@ -0,0 +1,115 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.web.as.webfinger;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import no.priv.bang.ratatoskr.services.RatatoskrException;
+import no.priv.bang.ratatoskr.services.activitypub.Person;
+
+/**
+ * Cache of serialized WebFinger JRD documents, keyed on the acct: subject.
+ *
+ * Found accounts are kept until {@link #invalidate(String)} is called for the
+ * username.  Unknown accounts are remembered for {@link #NEGATIVE_TIME_TO_LIVE}
+ * in a size bounded LRU map, so that lookups of random names can't grow the cache
+ * without bounds.
+ */
+public class WebFingerCache {
+    static final String ACTIVITY_JSON = "application/activity+json";
+    static final int MAX_NEGATIVE_ENTRIES = 10000;
+    static final Duration NEGATIVE_TIME_TO_LIVE = Duration.ofMinutes(5);
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Clock clock;
+    private final Map<String, byte[]> descriptors = new ConcurrentHashMap<>();
+    private final Map<String, Instant> misses = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 5212263046567337484L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Instant> eldest) {
+                return size() > MAX_NEGATIVE_ENTRIES;
+            }
+        });
+
+    public WebFingerCache() {
+        this(Clock.systemUTC());
+    }
+
+    WebFingerCache(Clock clock) {
+        this.clock = clock;
+    }
+
+    public Optional<byte[]> findDescriptor(String subject, String username, Function<String, Optional<Person>> findPersonWithUsername) {
+        var descriptor = descriptors.get(subject);
+        if (descriptor != null) {
+            return Optional.of(descriptor);
+        }
+
+        var missExpires = misses.get(subject);
+        if (missExpires != null && clock.instant().isBefore(missExpires)) {
+            return Optional.empty();
+        }
+
+        var actor = findPersonWithUsername.apply(username);
+        if (actor.isEmpty()) {
+            misses.put(subject, clock.instant().plus(NEGATIVE_TIME_TO_LIVE));
+            return Optional.empty();
+        }
+
+        misses.remove(subject);
+        descriptor = serialize(subject, actor.get());
+        descriptors.put(subject, descriptor);
+        return Optional.of(descriptor);
+    }
+
+    public void invalidate(String username) {
+        var prefix = "acct:" + username + "@";
+        descriptors.keySet().removeIf(subject -> subject.startsWith(prefix));
+        synchronized (misses) {
+            misses.keySet().removeIf(subject -> subject.startsWith(prefix));
+        }
+    }
+
+    int size() {
+        return descriptors.size() + misses.size();
+    }
+
+    private byte[] serialize(String subject, Person actor) {
+        var descriptor = new JsonResourceDescriptor(
+            subject,
+            List.of(actor.id()),
+            List.of(new JsonResourceDescriptorLink("self", ACTIVITY_JSON, actor.id())));
+        try {
+            return mapper.writeValueAsBytes(descriptor);
+        } catch (JsonProcessingException e) {
+            throw new RatatoskrException("Unable to serialize WebFinger document for " + subject, e);
+        }
+    }
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.web.as.webfinger.resources;
+
+import java.util.Optional;
+
+import javax.inject.Inject;
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.UriInfo;
+
+import no.priv.bang.ratatoskr.services.RatatoskrService;
+import no.priv.bang.ratatoskr.web.as.webfinger.WebFingerCache;
+
+@Path("webfinger")
+@Produces(WebFingerResource.JRD_JSON)
+public class WebFingerResource {
+    public static final String JRD_JSON = "application/jrd+json";
+    static final String FOUND_CACHE_CONTROL = "public, max-age=3600";
+    static final String NOT_FOUND_CACHE_CONTROL = "public, max-age=300";
+
+    @Inject
+    public RatatoskrService ratatoskr;
+
+    @Inject
+    public WebFingerCache webFingerCache;
+
+    @GET
+    public Response webfinger(@Context UriInfo uriInfo, @QueryParam("resource") String resource) {
+        if (resource == null || !resource.startsWith("acct:") || resource.indexOf('@') < 0) {
+            throw new BadRequestException("Expected a resource parameter on the form acct:user@host");
+        }
+
+        var subject = resource;
+        var separator = subject.lastIndexOf('@');
+        var username = subject.substring("acct:".length(), separator);
+        var host = subject.substring(separator + 1);
+        var descriptor = host.equalsIgnoreCase(uriInfo.getBaseUri().getAuthority()) ?
+            webFingerCache.findDescriptor(subject, username, ratatoskr::findPersonWithUsername) :
+            Optional.<byte[]>empty();
+
+        return descriptor
+            .map(jrd -> Response.ok(jrd, JRD_JSON).header(HttpHeaders.CACHE_CONTROL, FOUND_CACHE_CONTROL))
+            .orElseGet(() -> Response.status(Status.NOT_FOUND).header(HttpHeaders.CACHE_CONTROL, NOT_FOUND_CACHE_CONTROL))
+            .header("Access-Control-Allow-Origin", "*")
+            .build();
+    }
+
+}
@@ -17,15 +17,31 @@ package no.priv.bang.ratatoskr.web.as;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
 
+import java.io.ByteArrayInputStream;
+import java.io.StringWriter;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
 
+import javax.servlet.AsyncContext;
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.sql.DataSource;
 import javax.ws.rs.core.MediaType;
 
@@ -46,8 +62,11 @@ import no.priv.bang.osgi.service.mocks.logservice.MockLogService;
 import no.priv.bang.osgiservice.users.UserManagementService;
 import no.priv.bang.ratatoskr.asvocabulary.Article;
 import no.priv.bang.ratatoskr.asvocabulary.Link;
+import no.priv.bang.ratatoskr.backend.AsyncRatatoskrServiceProvider;
+import no.priv.bang.ratatoskr.backend.MetricsProvider;
 import no.priv.bang.ratatoskr.backend.RatatoskrServiceProvider;
 import no.priv.bang.ratatoskr.db.liquibase.test.RatatoskrTestDbLiquibaseRunner;
+import no.priv.bang.ratatoskr.services.Metrics;
 import no.priv.bang.ratatoskr.services.RatatoskrService;
 import no.priv.bang.ratatoskr.services.activitypub.ActivityCollection;
 import no.priv.bang.ratatoskr.services.activitypub.Like;
@@ -147,7 +166,7 @@ class RatatoskrActivityStreamsResourceServletTest extends ShiroTestBase {
         var request = buildGetUrl("/actor/johnd");
         var response = new MockHttpServletResponse();
 
-        servlet.service(request, response);
+        service(servlet, request, response);
         assertEquals(200, response.getStatus());
         var actor = mapper.readValue(response.getOutputStreamBinaryContent(), Person.class);
         var johnd = Person.with()
@@ -164,6 +183,66 @@ class RatatoskrActivityStreamsResourceServletTest extends ShiroTestBase {
         assertThat(actor).usingRecursiveComparison().isEqualTo(johnd);
     }
 
+    @Test
+    void testGetActorWithIfNoneMatch() throws Exception {
+        var logservice = new MockLogService();
+        var useradmin = mock(UserManagementService.class);
+        var ratatoskr = new RatatoskrServiceProvider();
+        ratatoskr.setLogservice(logservice);
+        ratatoskr.setDatasource(datasource);
+        ratatoskr.setUseradmin(useradmin);
+        ratatoskr.activate(Collections.singletonMap("defaultlocale", "nb_NO"));
+        var servlet = simulateDSComponentActivationAndWebWhiteboardConfiguration(ratatoskr , useradmin, logservice);
+        var response = new MockHttpServletResponse();
+        service(servlet, buildGetUrl("/actor/johnd"), response);
+        assertEquals(200, response.getStatus());
+        var etag = response.getHeader("ETag");
+        assertThat(etag).isNotBlank();
+        assertThat(response.getHeader("Cache-Control")).contains("private").contains("max-age=60").doesNotContain("public");
+
+        var conditionalRequest = buildGetUrl("/actor/johnd");
+        conditionalRequest.addHeader("If-None-Match", etag);
+        var notModifiedResponse = new MockHttpServletResponse();
+        service(servlet, conditionalRequest, notModifiedResponse);
+        assertEquals(304, notModifiedResponse.getStatus());
+        assertThat(notModifiedResponse.getOutputStreamBinaryContent()).isEmpty();
+    }
+
+    @Test
+    void testGetActorGzipped() throws Exception {
+        var logservice = new MockLogService();
+        var useradmin = mock(UserManagementService.class);
+        var ratatoskr = new RatatoskrServiceProvider();
+        ratatoskr.setLogservice(logservice);
+        ratatoskr.setDatasource(datasource);
+        ratatoskr.setUseradmin(useradmin);
+        ratatoskr.activate(Collections.singletonMap("defaultlocale", "nb_NO"));
+        var metrics = new MetricsProvider();
+        var servlet = simulateDSComponentActivationAndWebWhiteboardConfiguration(ratatoskr , useradmin, logservice, metrics);
+        var request = buildGetUrl("/actor/johnd");
+        request.addHeader("Accept-Encoding", "gzip");
+        var response = new MockHttpServletResponse();
+
+        service(servlet, request, response);
+        assertEquals(200, response.getStatus());
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        try (var gunzip = new GZIPInputStream(new ByteArrayInputStream(response.getOutputStreamBinaryContent()))) {
+            var actor = mapper.readValue(gunzip, Person.class);
+            assertThat(actor.preferredUsername()).isEqualTo("johnd");
+        }
+
+        var metricsText = new StringWriter();
+        metrics.writePrometheusText(metricsText);
+        assertThat(metricsText.toString())
+            .contains("ratatoskr_response_body_cache_entries 1\n")
+            .contains("ratatoskr_response_body_cache_misses_total 1\n");
+
+        servlet.deactivate();
+        metricsText = new StringWriter();
+        metrics.writePrometheusText(metricsText);
+        assertThat(metricsText.toString()).doesNotContain("ratatoskr_response_body_cache");
+    }
+
     @Test
     void testGetActorWhenNotFound() throws Exception {
         var logservice = new MockLogService();
@@ -177,7 +256,7 @@ class RatatoskrActivityStreamsResourceServletTest extends ShiroTestBase {
         var request = buildGetUrl("/actor/jonhd");
         var response = new MockHttpServletResponse();
 
-        servlet.service(request, response);
+        service(servlet, request, response);
         assertEquals(404, response.getStatus());
     }
 
@@ -194,7 +273,7 @@ class RatatoskrActivityStreamsResourceServletTest extends ShiroTestBase {
         var request = buildGetUrl("/followers/johnd");
         var response = new MockHttpServletResponse();
 
-        servlet.service(request, response);
+        service(servlet, request, response);
         assertEquals(200, response.getStatus());
         var followers = mapper.readValue(response.getOutputStreamBinaryContent(), PersonCollection.class);
         var follower1 = ratatoskr.findPerson("https://kenzoishii.example.com").get();
@@ -207,6 +286,33 @@ class RatatoskrActivityStreamsResourceServletTest extends ShiroTestBase {
         assertThat(followers.last()).isEqualTo(follower2);
     }
 
+    @Test
+    void testStreamFollowersCollection() throws Exception {
+        var logservice = new MockLogService();
+        var useradmin = mock(UserManagementService.class);
+        var ratatoskr = new RatatoskrServiceProvider();
+        ratatoskr.setLogservice(logservice);
+        ratatoskr.setDatasource(datasource);
+        ratatoskr.setUseradmin(useradmin);
+        ratatoskr.activate(Collections.singletonMap("defaultlocale", "nb_NO"));
+        var servlet = simulateDSComponentActivationAndWebWhiteboardConfiguration(ratatoskr , useradmin, logservice);
+        var request = buildGetUrl("/followers/johnd");
+        request.setQueryString("stream=true");
+        request.setupAddParameter("stream", "true");
+        var response = new MockHttpServletResponse();
+
+        service(servlet, request, response);
+        assertEquals(200, response.getStatus());
+        var followers = mapper.readValue(response.getOutputStreamBinaryContent(), PersonCollection.class);
+        var follower1 = ratatoskr.findPerson("https://kenzoishii.example.com").get();
+        var follower2 = ratatoskr.findPerson("https://sally.example.com").get();
+        assertThat(followers.id()).isEqualTo("http://localhost:8181/ratatoskr/as/followers/johnd");
+        assertThat(followers.totalItems()).isEqualTo(2);
+        assertThat(followers.orderedItems()).containsExactly(follower1, follower2);
+        assertThat(followers.first()).isEqualTo(follower1);
+        assertThat(followers.last()).isEqualTo(follower2);
+    }
+
     @Test
     void testGetFollowingCollection() throws Exception {
         var logservice = new MockLogService();
@@ -220,7 +326,7 @@ class RatatoskrActivityStreamsResourceServletTest extends ShiroTestBase {
         var request = buildGetUrl("/following/johnd");
         var response = new MockHttpServletResponse();
 
-        servlet.service(request, response);
+        service(servlet, request, response);
         assertEquals(200, response.getStatus());
         var followers = mapper.readValue(response.getOutputStreamBinaryContent(), PersonCollection.class);
         var follower1 = ratatoskr.findPerson("https://kenzoishii.example.com").get();
@@ -248,7 +354,7 @@ class RatatoskrActivityStreamsResourceServletTest extends ShiroTestBase {
 
         // Add liked collection to the database
 
-        servlet.service(request, response);
+        service(servlet, request, response);
         assertEquals(200, response.getStatus());
         var liked = mapper.readValue(response.getOutputStreamBinaryContent(), ActivityCollection.class);
         assertThat(liked.id()).isEqualTo("http://localhost:8181/ratatoskr/as/liked/johnd");
@@ -259,6 +365,34 @@ class RatatoskrActivityStreamsResourceServletTest extends ShiroTestBase {
         assertThat(liked.last()).isEqualTo(like);
     }
 
+    /**
+     * MockHttpServletRequest doesn't implement the servlet 3 async methods, so
+     * the request is wrapped in a mock that delegates to it and adds just enough
+     * async support for Jersey to suspend the request.  The method returns
+     * when the suspended request has been resumed and the response is complete.
+     */
+    private void service(HttpServlet servlet, MockHttpServletRequest request, HttpServletResponse response) throws Exception {
+        var completed = new CountDownLatch(1);
+        var asyncContext = mock(AsyncContext.class);
+        doAnswer(invocation -> {
+            completed.countDown();
+            return null;
+        }).when(asyncContext).complete();
+        var asyncStarted = new AtomicBoolean();
+        var asyncRequest = mock(HttpServletRequest.class, withSettings().defaultAnswer(delegatesTo(request)));
+        doReturn(true).when(asyncRequest).isAsyncSupported();
+        doAnswer(invocation -> asyncStarted.get()).when(asyncRequest).isAsyncStarted();
+        doReturn(asyncContext).when(asyncRequest).getAsyncContext();
+        doAnswer(invocation -> {
+            asyncStarted.set(true);
+            return asyncContext;
+        }).when(asyncRequest).startAsync(any(), any());
+        servlet.service(asyncRequest, response);
+        if (asyncStarted.get()) {
+            assertTrue(completed.await(10, TimeUnit.SECONDS), "Timed out waiting for the async response to complete");
+        }
+    }
+
     private MockHttpServletRequest buildGetUrl(String resource) {
         var request = buildRequest(resource);
         request.setMethod("GET");
@@ -287,9 +421,17 @@ class RatatoskrActivityStreamsResourceServletTest extends ShiroTestBase {
     }
 
     private RatatoskrActivityStreamsResourceServlet simulateDSComponentActivationAndWebWhiteboardConfiguration(RatatoskrService ratatoskr, UserManagementService useradmin, LogService logservice) throws Exception {
+        return simulateDSComponentActivationAndWebWhiteboardConfiguration(ratatoskr, useradmin, logservice, new MetricsProvider());
+    }
+
+    private RatatoskrActivityStreamsResourceServlet simulateDSComponentActivationAndWebWhiteboardConfiguration(RatatoskrService ratatoskr, UserManagementService useradmin, LogService logservice, Metrics metrics) throws Exception {
         var servlet = new RatatoskrActivityStreamsResourceServlet();
         servlet.setLogService(logservice);
-        servlet.setRatatoskrService(ratatoskr);
+        servlet.setMetrics(metrics);
+        var asyncRatatoskr = new AsyncRatatoskrServiceProvider();
+        asyncRatatoskr.setRatatoskrService(ratatoskr);
+        asyncRatatoskr.activate();
+        servlet.setAsyncRatatoskrService(asyncRatatoskr);
         servlet.setUseradmin(useradmin);
         servlet.activate();
         var config = createServletConfigWithApplicationAndPackagenameForJerseyResources();
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.web.as;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringWriter;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import no.priv.bang.ratatoskr.backend.MetricsProvider;
+import no.priv.bang.ratatoskr.services.Metrics;
+import no.priv.bang.ratatoskr.services.RatatoskrException;
+import no.priv.bang.ratatoskr.services.activitypub.Person;
+import no.priv.bang.ratatoskr.web.as.ResponseBodyCache.CachedBody;
+
+class ResponseBodyCacheTest {
+
+    private static final Person JOHND = Person.with()
+        .id("http://localhost:8181/ratatoskr/as/actor/johnd")
+        .preferredUsername("johnd")
+        .name("John Doe")
+        .build();
+
+    @Test
+    void testSerializesOnlyOncePerVersion() throws Exception {
+        var cache = new ResponseBodyCache(new ObjectMapper());
+        var entity = entitySupplier(JOHND);
+
+        var body = get(cache, "http://localhost:8181/ratatoskr/as/actor/johnd", "1-2-3", entity);
+        var cachedBody = get(cache, "http://localhost:8181/ratatoskr/as/actor/johnd", "1-2-3", entity);
+
+        assertThat(cachedBody).isSameAs(body);
+        verify(entity, times(1)).get();
+        assertThat(new ObjectMapper().readValue(body.raw(), Person.class)).isEqualTo(JOHND);
+        try (var gunzip = new GZIPInputStream(new ByteArrayInputStream(body.gzipped()))) {
+            assertThat(gunzip.readAllBytes()).isEqualTo(body.raw());
+        }
+
+        var statistics = cache.statistics();
+        assertThat(statistics.hits()).isEqualTo(1);
+        assertThat(statistics.misses()).isEqualTo(1);
+        assertThat(statistics.entries()).isEqualTo(1);
+        assertThat(statistics.bytes()).isEqualTo(body.raw().length + body.gzipped().length);
+        assertThat(statistics.hitRate()).isEqualTo(0.5);
+    }
+
+    @Test
+    void testGetAsyncFetchesEntityOnlyOnCacheMiss() {
+        var cache = new ResponseBodyCache(new ObjectMapper());
+        @SuppressWarnings("unchecked")
+        Supplier<CompletionStage<Object>> entity = mock(Supplier.class);
+        when(entity.get()).thenReturn(CompletableFuture.completedFuture(JOHND));
+
+        var body = cache.getAsync("http://localhost:8181/ratatoskr/as/actor/johnd", "1-2-3", entity).toCompletableFuture().join();
+        var cachedBody = cache.getAsync("http://localhost:8181/ratatoskr/as/actor/johnd", "1-2-3", entity).toCompletableFuture().join();
+
+        assertThat(cachedBody).isSameAs(body);
+        verify(entity, times(1)).get();
+        assertThat(cache.statistics().hits()).isEqualTo(1);
+        assertThat(cache.statistics().misses()).isEqualTo(1);
+    }
+
+    @Test
+    void testNewVersionReplacesCachedBody() {
+        var cache = new ResponseBodyCache(new ObjectMapper());
+        var entity = entitySupplier(JOHND);
+
+        var body = get(cache, "http://localhost:8181/ratatoskr/as/actor/johnd", "1-2-3", entity);
+        var newBody = get(cache, "http://localhost:8181/ratatoskr/as/actor/johnd", "1-2-4", entity);
+
+        assertThat(newBody).isNotSameAs(body);
+        assertThat(newBody.etag()).isEqualTo("1-2-4");
+        verify(entity, times(2)).get();
+        var statistics = cache.statistics();
+        assertThat(statistics.entries()).isEqualTo(1);
+        assertThat(statistics.bytes()).isEqualTo(newBody.raw().length + newBody.gzipped().length);
+    }
+
+    @Test
+    void testLeastRecentlyUsedIsEvictedWhenFull() {
+        var mapper = new ObjectMapper();
+        var sample = get(new ResponseBodyCache(mapper), "sample", "1", () -> JOHND);
+        var entrySize = sample.raw().length + sample.gzipped().length;
+        var cache = new ResponseBodyCache(mapper, 2L * entrySize);
+
+        get(cache, "actor/1", "1", () -> JOHND);
+        get(cache, "actor/2", "1", () -> JOHND);
+        get(cache, "actor/1", "1", () -> JOHND);
+        get(cache, "actor/3", "1", () -> JOHND);
+
+        var statistics = cache.statistics();
+        assertThat(statistics.entries()).isEqualTo(2);
+        assertThat(statistics.evictions()).isEqualTo(1);
+        assertThat(statistics.bytes()).isLessThanOrEqualTo(2L * entrySize);
+        get(cache, "actor/1", "1", () -> JOHND);
+        assertThat(cache.statistics().hits()).isEqualTo(2);
+        get(cache, "actor/2", "1", () -> JOHND);
+        assertThat(cache.statistics().misses()).isEqualTo(4);
+    }
+
+    @Test
+    void testBodiesLargerThanTheCacheAreNotStored() {
+        var cache = new ResponseBodyCache(new ObjectMapper(), 10);
+
+        var body = get(cache, "actor/1", "1", () -> JOHND);
+
+        assertThat(body.raw()).isNotEmpty();
+        assertThat(cache.statistics().entries()).isZero();
+        assertThat(cache.statistics().hitRate()).isZero();
+    }
+
+    @Test
+    void testSerializationFailure() throws Exception {
+        var mapper = mock(ObjectMapper.class);
+        when(mapper.writeValueAsBytes(any())).thenThrow(JsonProcessingException.class);
+        var cache = new ResponseBodyCache(mapper);
+
+        var e = assertThrows(CompletionException.class, () -> get(cache, "actor/1", "1", () -> JOHND));
+        assertThat(e).hasCauseInstanceOf(RatatoskrException.class);
+    }
+
+    @Test
+    void testRegisterAndUnregisterMetrics() throws Exception {
+        var cache = new ResponseBodyCache(new ObjectMapper());
+        var metrics = new MetricsProvider();
+        cache.registerMetrics(metrics);
+        var body = get(cache, "actor/1", "1", () -> JOHND);
+        get(cache, "actor/1", "1", () -> JOHND);
+
+        assertThat(prometheusText(metrics))
+            .contains("# TYPE ratatoskr_response_body_cache_hits_total counter\n")
+            .contains("ratatoskr_response_body_cache_hits_total 1\n")
+            .contains("ratatoskr_response_body_cache_misses_total 1\n")
+            .contains("ratatoskr_response_body_cache_evictions_total 0\n")
+            .contains("# TYPE ratatoskr_response_body_cache_entries gauge\n")
+            .contains("ratatoskr_response_body_cache_entries 1\n")
+            .contains("ratatoskr_response_body_cache_bytes " + (body.raw().length + body.gzipped().length) + "\n");
+
+        cache.unregisterMetrics(metrics);
+        assertThat(prometheusText(metrics)).isEmpty();
+    }
+
+    private CachedBody get(ResponseBodyCache cache, String uri, String etag, Supplier<Object> entity) {
+        return cache.getAsync(uri, etag, () -> CompletableFuture.completedFuture(entity.get())).toCompletableFuture().join();
+    }
+
+    private String prometheusText(Metrics metrics) throws Exception {
+        var writer = new StringWriter();
+        metrics.writePrometheusText(writer);
+        return writer.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Supplier<Object> entitySupplier(Object entity) {
+        Supplier<Object> supplier = mock(Supplier.class);
+        when(supplier.get()).thenReturn(entity);
+        return supplier;
+    }
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.web.as.media;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class ByteRangeTest {
+
+    @Test
+    void testParse() {
+        assertEquals(new ByteRange(0, 499), ByteRange.parse("bytes=0-499", 10000));
+        assertEquals(new ByteRange(500, 999), ByteRange.parse("bytes=500-999", 10000));
+        assertEquals(new ByteRange(9500, 9999), ByteRange.parse("bytes=9500-", 10000));
+        assertEquals(new ByteRange(9500, 9999), ByteRange.parse("bytes=-500", 10000));
+        assertEquals(new ByteRange(0, 99), ByteRange.parse("bytes=-500", 100));
+        assertEquals(new ByteRange(50, 99), ByteRange.parse("bytes=50-1000", 100));
+        assertEquals(new ByteRange(0, 0), ByteRange.parse("bytes= 0 - 0", 100));
+    }
+
+    @Test
+    void testParseWholeContent() {
+        assertNull(ByteRange.parse(null, 100));
+        assertNull(ByteRange.parse("items=0-10", 100));
+        assertNull(ByteRange.parse("bytes=0-10,20-30", 100));
+        assertNull(ByteRange.parse("bytes=10", 100));
+        assertNull(ByteRange.parse("bytes=ten-twenty", 100));
+        assertNull(ByteRange.parse("bytes=20-10", 100));
+    }
+
+    @Test
+    void testParseUnsatisfiable() {
+        assertSame(ByteRange.UNSATISFIABLE, ByteRange.parse("bytes=100-", 100));
+        assertSame(ByteRange.UNSATISFIABLE, ByteRange.parse("bytes=200-300", 100));
+        assertSame(ByteRange.UNSATISFIABLE, ByteRange.parse("bytes=-0", 100));
+        assertSame(ByteRange.UNSATISFIABLE, ByteRange.parse("bytes=-10", 0));
+    }
+
+    @Test
+    void testContentRange() {
+        var range = new ByteRange(500, 999);
+        assertEquals(500, range.length());
+        assertEquals("bytes 500-999/10000", range.contentRange(10000));
+    }
+
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.web.as.media;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.mockrunner.mock.web.MockHttpServletRequest;
+import com.mockrunner.mock.web.MockHttpServletResponse;
+
+import no.priv.bang.osgi.service.mocks.logservice.MockLogService;
+import no.priv.bang.ratatoskr.backend.MediaStoreProvider;
+import no.priv.bang.ratatoskr.services.beans.StoredMedia;
+
+class RatatoskrMediaServletTest {
+    private static final String CONTENT = "0123456789abcdefghij";
+
+    @TempDir
+    Path directory;
+
+    private MediaStoreProvider mediaStore;
+    private StoredMedia stored;
+    private RatatoskrMediaServlet servlet;
+
+    @BeforeEach
+    void storeMedia() {
+        mediaStore = new MediaStoreProvider();
+        mediaStore.setLogservice(new MockLogService());
+        mediaStore.activate(Map.of("directory", directory.toString()));
+        stored = mediaStore.store(new ByteArrayInputStream(CONTENT.getBytes(StandardCharsets.UTF_8)), "text/plain");
+        servlet = new RatatoskrMediaServlet();
+        servlet.setLogService(new MockLogService());
+        servlet.setMediaStore(mediaStore);
+    }
+
+    @AfterEach
+    void closeMediaStore() {
+        mediaStore.deactivate();
+    }
+
+    @Test
+    void testGet() throws Exception {
+        var request = buildRequest("GET", stored.hash());
+        var response = new MockHttpServletResponse();
+
+        servlet.service(request, response);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("text/plain", response.getContentType());
+        assertEquals("20", response.getHeader("Content-Length"));
+        assertEquals("\"" + stored.hash() + "\"", response.getHeader("ETag"));
+        assertEquals(RatatoskrMediaServlet.IMMUTABLE, response.getHeader("Cache-Control"));
+        assertEquals("bytes", response.getHeader("Accept-Ranges"));
+        assertEquals("nosniff", response.getHeader("X-Content-Type-Options"));
+        assertEquals(RatatoskrMediaServlet.SANDBOX, response.getHeader("Content-Security-Policy"));
+        assertEquals(CONTENT, response.getOutputStreamContent());
+    }
+
+    @Test
+    void testHead() throws Exception {
+        var request = buildRequest("HEAD", stored.hash());
+        var response = new MockHttpServletResponse();
+
+        servlet.service(request, response);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("20", response.getHeader("Content-Length"));
+        assertThat(response.getOutputStreamBinaryContent()).isEmpty();
+    }
+
+    @Test
+    void testGetRange() throws Exception {
+        var request = buildRequest("GET", stored.hash());
+        request.addHeader("Range", "bytes=10-14");
+        var response = new MockHttpServletResponse();
+
+        servlet.service(request, response);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 10-14/20", response.getHeader("Content-Range"));
+        assertEquals("5", response.getHeader("Content-Length"));
+        assertEquals("abcde", response.getOutputStreamContent());
+    }
+
+    @Test
+    void testGetSuffixRange() throws Exception {
+        var request = buildRequest("GET", stored.hash());
+        request.addHeader("Range", "bytes=-3");
+        var response = new MockHttpServletResponse();
+
+        servlet.service(request, response);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 17-19/20", response.getHeader("Content-Range"));
+        assertEquals("hij", response.getOutputStreamContent());
+    }
+
+    @Test
+    void testGetUnsatisfiableRange() throws Exception {
+        var request = buildRequest("GET", stored.hash());
+        request.addHeader("Range", "bytes=20-");
+        var response = new MockHttpServletResponse();
+
+        servlet.service(request, response);
+
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */20", response.getHeader("Content-Range"));
+    }
+
+    @Test
+    void testGetRangeWithIfRange() throws Exception {
+        var request = buildRequest("GET", stored.hash());
+        request.addHeader("Range", "bytes=0-1");
+        request.addHeader("If-Range", "\"" + stored.hash() + "\"");
+        var response = new MockHttpServletResponse();
+        servlet.service(request, response);
+        assertEquals(206, response.getStatus());
+        assertEquals("01", response.getOutputStreamContent());
+
+        var staleRequest = buildRequest("GET", stored.hash());
+        staleRequest.addHeader("Range", "bytes=0-1");
+        staleRequest.addHeader("If-Range", "\"some-other-etag\"");
+        var staleResponse = new MockHttpServletResponse();
+        servlet.service(staleRequest, staleResponse);
+        assertEquals(200, staleResponse.getStatus());
+        assertEquals(CONTENT, staleResponse.getOutputStreamContent());
+    }
+
+    @Test
+    void testGetNotModified() throws Exception {
+        var request = buildRequest("GET", stored.hash());
+        request.addHeader("If-None-Match", "\"other\", \"" + stored.hash() + "\"");
+        var response = new MockHttpServletResponse();
+
+        servlet.service(request, response);
+
+        assertEquals(304, response.getStatus());
+        assertThat(response.getOutputStreamBinaryContent()).isEmpty();
+    }
+
+    @Test
+    void testGetNotFound() throws Exception {
+        var response = new MockHttpServletResponse();
+        servlet.service(buildRequest("GET", "0000000000000000000000000000000000000000000000000000000000000000"), response);
+        assertEquals(404, response.getStatus());
+
+        var invalidResponse = new MockHttpServletResponse();
+        servlet.service(buildRequest("GET", "../../etc/passwd"), invalidResponse);
+        assertEquals(404, invalidResponse.getStatus());
+    }
+
+    @Test
+    void testGetWhenFileIsGone() throws Exception {
+        Files.delete(mediaStore.path(stored));
+        var response = new MockHttpServletResponse();
+
+        servlet.service(buildRequest("GET", stored.hash()), response);
+
+        assertEquals(404, response.getStatus());
+        assertNull(response.getHeader("Cache-Control"));
+    }
+
+    @Test
+    void testMatches() {
+        assertFalse(RatatoskrMediaServlet.matches(null, "\"abc\""));
+        assertTrue(RatatoskrMediaServlet.matches("\"abc\"", "\"abc\""));
+        assertTrue(RatatoskrMediaServlet.matches("W/\"abc\"", "\"abc\""));
+        assertTrue(RatatoskrMediaServlet.matches("*", "\"abc\""));
+        assertFalse(RatatoskrMediaServlet.matches("\"abd\"", "\"abc\""));
+    }
+
+    private MockHttpServletRequest buildRequest(String method, String hash) {
+        var request = new MockHttpServletRequest();
+        request.setMethod(method);
+        request.setProtocol("HTTP/1.1");
+        request.setRequestURL("http://localhost:8181/ratatoskr/media/" + hash);
+        request.setRequestURI("/ratatoskr/media/" + hash);
+        request.setContextPath("/ratatoskr");
+        request.setServletPath("/media");
+        request.setPathInfo("/" + hash);
+        return request;
+    }
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2023-2024 Steinar Bang
+ * Copyright 2023-2026 Steinar Bang
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,21 +15,35 @@
  */
 package no.priv.bang.ratatoskr.web.as.resources;
 
+import static no.priv.bang.ratatoskr.web.as.resources.AsyncResponses.*;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 import java.net.URI;
+import java.time.ZonedDateTime;
+import java.util.Date;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import javax.ws.rs.NotFoundException;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
 
 import org.glassfish.jersey.uri.internal.JerseyUriBuilder;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
-import no.priv.bang.ratatoskr.services.RatatoskrService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import no.priv.bang.ratatoskr.services.AsyncRatatoskrService;
 import no.priv.bang.ratatoskr.services.activitypub.Person;
+import no.priv.bang.ratatoskr.services.beans.ResourceVersion;
+import no.priv.bang.ratatoskr.web.as.ResponseBodyCache;
 
 class ActorResourceTest {
 
@@ -48,8 +62,9 @@ class ActorResourceTest {
             .build();
 
         var resource = new ActorResource();
-        var ratatoskr = mock(RatatoskrService.class);
-        when(ratatoskr.findPersonWithUsername(anyString())).thenReturn(Optional.of(person));
+        var ratatoskr = mock(AsyncRatatoskrService.class);
+        when(ratatoskr.findActorVersion(anyString())).thenReturn(CompletableFuture.completedFuture(Optional.of(ResourceVersion.with().count(1).lastModified(ZonedDateTime.now()).build())));
+        when(ratatoskr.findPersonWithUsername(anyString())).thenReturn(CompletableFuture.completedFuture(Optional.of(person)));
         resource.ratatoskr = ratatoskr;
         UriInfo uriInfo = mock(UriInfo.class);
         var baseUri = URI.create("http://localhost:8181/ratatoskr/as");
@@ -59,18 +74,148 @@ class ActorResourceTest {
             .thenReturn(JerseyUriBuilder.fromUri(baseUri))
             .thenReturn(JerseyUriBuilder.fromUri(baseUri))
             .thenReturn(JerseyUriBuilder.fromUri(baseUri));
-        var actor = resource.getActor(uriInfo, "johnd");
+        when(uriInfo.getRequestUri()).thenReturn(URI.create(baseUri + "/actor/johnd"));
+        var request = mock(Request.class);
+        var asyncResponse = mock(AsyncResponse.class);
+        resource.getActor(asyncResponse, request, uriInfo, "johnd");
+        var response = resumedWithResponse(asyncResponse);
+        assertEquals(200, response.getStatus());
+        assertNotNull(response.getEntityTag());
+        assertFalse(response.getEntityTag().isWeak());
+        var actor = response.getEntity();
         assertNotNull(actor);
         assertThat(actor).isEqualTo(person);
     }
 
+    @Test
+    void testGetActorFromResponseBodyCache() {
+        var person = Person.with()
+            .id("http://localhost:8181/ratatoskr/as/actor/johnd")
+            .preferredUsername("johnd")
+            .build();
+        var resource = new ActorResource();
+        var ratatoskr = mock(AsyncRatatoskrService.class);
+        when(ratatoskr.findActorVersion(anyString())).thenReturn(CompletableFuture.completedFuture(Optional.of(ResourceVersion.with().count(1).lastModified(ZonedDateTime.now()).build())));
+        when(ratatoskr.findPersonWithUsername(anyString())).thenReturn(CompletableFuture.completedFuture(Optional.of(person)));
+        resource.ratatoskr = ratatoskr;
+        resource.responseBodyCache = new ResponseBodyCache(new ObjectMapper());
+        resource.httpHeaders = mock(HttpHeaders.class);
+        when(resource.httpHeaders.getHeaderString(HttpHeaders.ACCEPT_ENCODING)).thenReturn("gzip, deflate").thenReturn(null);
+        UriInfo uriInfo = mock(UriInfo.class);
+        var baseUri = URI.create("http://localhost:8181/ratatoskr/as");
+        when(uriInfo.getBaseUriBuilder()).thenAnswer(i -> JerseyUriBuilder.fromUri(baseUri));
+        when(uriInfo.getRequestUri()).thenReturn(URI.create(baseUri + "/actor/johnd"));
+        var request = mock(Request.class);
+
+        var gzippedResponse = mock(AsyncResponse.class);
+        resource.getActor(gzippedResponse, request, uriInfo, "johnd");
+        var gzipped = resumedWithResponse(gzippedResponse);
+        assertEquals("gzip", gzipped.getHeaderString(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, gzipped.getHeaderString(HttpHeaders.VARY));
+        var plainResponse = mock(AsyncResponse.class);
+        resource.getActor(plainResponse, request, uriInfo, "johnd");
+        var plain = resumedWithResponse(plainResponse);
+        assertNull(plain.getHeaderString(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, plain.getHeaderString(HttpHeaders.VARY));
+        assertThat(plain.getEntity()).isInstanceOf(byte[].class);
+        assertFalse(gzipped.getEntityTag().isWeak());
+        assertEquals(plain.getEntityTag().getValue() + "-gz", gzipped.getEntityTag().getValue());
+        verify(ratatoskr, times(1)).findPersonWithUsername(anyString());
+        assertEquals(1, resource.responseBodyCache.statistics().hits());
+    }
+
+    @Test
+    void testAcceptsGzip() {
+        var resource = new ActorResource();
+        assertFalse(resource.acceptsGzip());
+        resource.httpHeaders = mock(HttpHeaders.class);
+        assertFalse(resource.acceptsGzip());
+        when(resource.httpHeaders.getHeaderString(HttpHeaders.ACCEPT_ENCODING))
+            .thenReturn("gzip")
+            .thenReturn("deflate, gzip;q=0.5")
+            .thenReturn("*")
+            .thenReturn("gzip;q=0")
+            .thenReturn("gzip;q=zero")
+            .thenReturn("identity, br");
+        assertTrue(resource.acceptsGzip());
+        assertTrue(resource.acceptsGzip());
+        assertTrue(resource.acceptsGzip());
+        assertFalse(resource.acceptsGzip());
+        assertFalse(resource.acceptsGzip());
+        assertFalse(resource.acceptsGzip());
+    }
+
+    @Test
+    void testGetActorNotModified() {
+        var resource = new ActorResource();
+        var ratatoskr = mock(AsyncRatatoskrService.class);
+        when(ratatoskr.findActorVersion(anyString())).thenReturn(CompletableFuture.completedFuture(Optional.of(ResourceVersion.with().count(1).lastModified(ZonedDateTime.now()).build())));
+        resource.ratatoskr = ratatoskr;
+        UriInfo uriInfo = mock(UriInfo.class);
+        when(uriInfo.getRequestUri()).thenReturn(URI.create("http://localhost:8181/ratatoskr/as/actor/johnd"));
+        var request = mock(Request.class);
+        when(request.evaluatePreconditions(any(Date.class), any(EntityTag.class))).thenReturn(Response.notModified());
+        var asyncResponse = mock(AsyncResponse.class);
+        resource.getActor(asyncResponse, request, uriInfo, "johnd");
+        var response = resumedWithResponse(asyncResponse);
+        assertEquals(304, response.getStatus());
+        verify(ratatoskr, never()).findPersonWithUsername(anyString());
+    }
+
+    @Test
+    void testGetGzippedActorNotModified() {
+        var resource = new ActorResource();
+        var ratatoskr = mock(AsyncRatatoskrService.class);
+        when(ratatoskr.findActorVersion(anyString())).thenReturn(CompletableFuture.completedFuture(Optional.of(ResourceVersion.with().count(1).lastModified(ZonedDateTime.now()).build())));
+        resource.ratatoskr = ratatoskr;
+        resource.responseBodyCache = new ResponseBodyCache(new ObjectMapper());
+        resource.httpHeaders = mock(HttpHeaders.class);
+        when(resource.httpHeaders.getHeaderString(HttpHeaders.ACCEPT_ENCODING)).thenReturn("gzip");
+        UriInfo uriInfo = mock(UriInfo.class);
+        when(uriInfo.getRequestUri()).thenReturn(URI.create("http://localhost:8181/ratatoskr/as/actor/johnd"));
+        var request = mock(Request.class);
+        when(request.evaluatePreconditions(any(Date.class), any(EntityTag.class))).thenReturn(Response.notModified());
+        var asyncResponse = mock(AsyncResponse.class);
+        resource.getActor(asyncResponse, request, uriInfo, "johnd");
+        var response = resumedWithResponse(asyncResponse);
+        assertEquals(304, response.getStatus());
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getHeaderString(HttpHeaders.VARY));
+        var etag = ArgumentCaptor.forClass(EntityTag.class);
+        verify(request).evaluatePreconditions(any(Date.class), etag.capture());
+        assertThat(etag.getValue().getValue()).endsWith("-gz");
+        assertEquals(etag.getValue(), response.getEntityTag());
+        verify(ratatoskr, never()).findPersonWithUsername(anyString());
+    }
+
+    @Test
+    void testGetActorWhenVersionIsMissingLastModified() {
+        var resource = new ActorResource();
+        var ratatoskr = mock(AsyncRatatoskrService.class);
+        when(ratatoskr.findActorVersion(anyString())).thenReturn(CompletableFuture.completedFuture(Optional.of(ResourceVersion.with().count(1).build())));
+        resource.ratatoskr = ratatoskr;
+        UriInfo uriInfo = mock(UriInfo.class);
+        when(uriInfo.getRequestUri()).thenReturn(URI.create("http://localhost:8181/ratatoskr/as/actor/johnd"));
+        var request = mock(Request.class);
+        when(request.evaluatePreconditions(any(EntityTag.class))).thenReturn(Response.notModified());
+        var asyncResponse = mock(AsyncResponse.class);
+        resource.getActor(asyncResponse, request, uriInfo, "johnd");
+        var response = resumedWithResponse(asyncResponse);
+        assertEquals(304, response.getStatus());
+        assertNull(response.getLastModified());
+    }
+
     @Test
     void testGetActorWhenNotFound() {
         var resource = new ActorResource();
-        var ratatoskr = mock(RatatoskrService.class);
+        var ratatoskr = mock(AsyncRatatoskrService.class);
+        when(ratatoskr.findActorVersion(anyString())).thenReturn(CompletableFuture.completedFuture(Optional.empty()));
         resource.ratatoskr = ratatoskr;
         UriInfo uriInfo = mock(UriInfo.class);
-        var e = assertThrows(NotFoundException.class, () -> resource.getActor(uriInfo, "kenzoishii"));
+        var request = mock(Request.class);
+        var asyncResponse = mock(AsyncResponse.class);
+        resource.getActor(asyncResponse, request, uriInfo, "kenzoishii");
+        var e = resumedWithException(asyncResponse);
+        assertThat(e).isInstanceOf(NotFoundException.class);
         assertThat(e.getMessage()).isEqualTo("Did not find actor \"kenzoishii\"");
     }
 
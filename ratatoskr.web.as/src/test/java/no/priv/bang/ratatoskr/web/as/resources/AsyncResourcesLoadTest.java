@@ -0,0 +1,132 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.web.as.resources;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.net.URI;
+import java.time.ZonedDateTime;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriInfo;
+
+import org.glassfish.jersey.uri.internal.JerseyUriBuilder;
+import org.junit.jupiter.api.Test;
+
+import no.priv.bang.ratatoskr.backend.AsyncRatatoskrServiceProvider;
+import no.priv.bang.ratatoskr.services.RatatoskrService;
+import no.priv.bang.ratatoskr.services.activitypub.Person;
+import no.priv.bang.ratatoskr.services.beans.ResourceVersion;
+
+/**
+ * Load a resource from a small fixed size pool standing in for the servlet
+ * container's request threads, while every database call is slow.
+ *
+ * With blocking resources each request would hold a pool thread for two
+ * database round trips, so the requests couldn't complete faster than
+ * {@link #BLOCKING_LOWER_BOUND_MILLIS}.  With the resources suspending the
+ * requests, the pool threads are released immediately and the database
+ * calls wait concurrently on virtual threads.
+ */
+class AsyncResourcesLoadTest {
+    static final int SERVLET_THREADS = 4;
+    static final int REQUESTS = 100;
+    static final long DATABASE_LATENCY_MILLIS = 100;
+    static final long BLOCKING_LOWER_BOUND_MILLIS = REQUESTS / SERVLET_THREADS * 2 * DATABASE_LATENCY_MILLIS;
+
+    @Test
+    void testSlowDatabaseCallsDontExhaustServletThreads() throws Exception {
+        var ratatoskr = slowRatatoskrService();
+        var asyncRatatoskr = new AsyncRatatoskrServiceProvider();
+        asyncRatatoskr.setRatatoskrService(ratatoskr);
+        asyncRatatoskr.activate();
+        var uriInfo = mock(UriInfo.class);
+        var baseUri = URI.create("http://localhost:8181/ratatoskr/as");
+        when(uriInfo.getBaseUriBuilder()).thenAnswer(i -> JerseyUriBuilder.fromUri(baseUri));
+        when(uriInfo.getRequestUri()).thenReturn(URI.create(baseUri + "/actor/johnd"));
+        var request = mock(Request.class);
+        var completed = new CountDownLatch(REQUESTS);
+        var ok = new AtomicInteger();
+        var asyncResponse = mock(AsyncResponse.class);
+        when(asyncResponse.resume(any(Object.class))).thenAnswer(invocation -> {
+            if (invocation.getArgument(0) instanceof Response response && response.getStatus() == 200) {
+                ok.incrementAndGet();
+            }
+
+            completed.countDown();
+            return true;
+        });
+        when(asyncResponse.resume(any(Throwable.class))).thenAnswer(invocation -> {
+            completed.countDown();
+            return true;
+        });
+
+        var servletThreads = Executors.newFixedThreadPool(SERVLET_THREADS);
+        var start = System.nanoTime();
+        for (int i = 0; i < REQUESTS; ++i) {
+            servletThreads.execute(() -> {
+                var resource = new ActorResource();
+                resource.ratatoskr = asyncRatatoskr;
+                resource.getActor(asyncResponse, request, uriInfo, "johnd");
+            });
+        }
+        servletThreads.shutdown();
+        assertTrue(servletThreads.awaitTermination(BLOCKING_LOWER_BOUND_MILLIS, TimeUnit.MILLISECONDS));
+        var servletThreadsBusyMillis = elapsedMillis(start);
+        assertTrue(completed.await(BLOCKING_LOWER_BOUND_MILLIS, TimeUnit.MILLISECONDS));
+        var elapsedMillis = elapsedMillis(start);
+        asyncRatatoskr.deactivate();
+
+        assertThat(ok.get()).isEqualTo(REQUESTS);
+        assertThat(servletThreadsBusyMillis).isLessThan(BLOCKING_LOWER_BOUND_MILLIS / 10);
+        assertThat(elapsedMillis).isLessThan(BLOCKING_LOWER_BOUND_MILLIS / 2);
+    }
+
+    private RatatoskrService slowRatatoskrService() {
+        var johnd = Person.with()
+            .id("http://localhost:8181/ratatoskr/as/actor/johnd")
+            .preferredUsername("johnd")
+            .build();
+        var version = ResourceVersion.with().count(1).lastModified(ZonedDateTime.now()).build();
+        var ratatoskr = mock(RatatoskrService.class);
+        when(ratatoskr.findActorVersion(anyString())).thenAnswer(invocation -> {
+            Thread.sleep(DATABASE_LATENCY_MILLIS);
+            return Optional.of(version);
+        });
+        when(ratatoskr.findPersonWithUsername(anyString())).thenAnswer(invocation -> {
+            Thread.sleep(DATABASE_LATENCY_MILLIS);
+            return Optional.of(johnd);
+        });
+        return ratatoskr;
+    }
+
+    private long elapsedMillis(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+}
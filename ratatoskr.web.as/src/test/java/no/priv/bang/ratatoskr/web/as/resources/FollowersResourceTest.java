@@ -1,5 +1,5 @@
 /*
- * Copyright 2025 Steinar Bang
+ * Copyright 2025-2026 Steinar Bang
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,21 +15,44 @@
  */
 package no.priv.bang.ratatoskr.web.as.resources;
 
+import static no.priv.bang.ratatoskr.web.as.resources.AsyncResponses.*;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayOutputStream;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.Date;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
 
 import org.glassfish.jersey.uri.internal.JerseyUriBuilder;
 import org.junit.jupiter.api.Test;
 
-import no.priv.bang.ratatoskr.services.RatatoskrService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import no.priv.bang.ratatoskr.services.AsyncRatatoskrService;
 import no.priv.bang.ratatoskr.services.activitypub.Person;
+import no.priv.bang.ratatoskr.services.activitypub.PersonCollection;
+import no.priv.bang.ratatoskr.services.beans.ActorCounts;
+import no.priv.bang.ratatoskr.services.beans.ResourceVersion;
 
 class FollowersResourceTest {
 
@@ -57,8 +80,10 @@ class FollowersResourceTest {
             .liked("http://localhost:8181/ratatoskr/as/liked/george")
             .icon("http://localhost:8181/ratatoskr/image/165987aklre4")
             .build();
-        var ratatoskr = mock(RatatoskrService.class);
-        when(ratatoskr.findFollowersWithUsername(anyString())).thenReturn(List.of(person1, person2));
+        var ratatoskr = mock(AsyncRatatoskrService.class);
+        when(ratatoskr.findFollowersVersion(anyString())).thenReturn(CompletableFuture.completedFuture(ResourceVersion.with().count(2).lastModified(ZonedDateTime.now()).build()));
+        when(ratatoskr.findFollowersWithUsername(anyString())).thenReturn(CompletableFuture.completedFuture(List.of(person1, person2)));
+        when(ratatoskr.findActorCounts(anyString())).thenReturn(CompletableFuture.completedFuture(Optional.of(ActorCounts.with().followers(2).following(7).build())));
 
         var resource = new FollowersResource();
         resource.ratatoskr = ratatoskr;
@@ -66,8 +91,17 @@ class FollowersResourceTest {
         var baseUri = URI.create("http://localhost:8181/ratatoskr/as");
         when(uriInfo.getBaseUriBuilder())
             .thenReturn(JerseyUriBuilder.fromUri(baseUri));
+        when(uriInfo.getRequestUri()).thenReturn(URI.create(baseUri + "/followers/johnd"));
         var username = "johnd";
-        var followers = resource.getFollowers(uriInfo, username);
+        var request = mock(Request.class);
+        var asyncResponse = mock(AsyncResponse.class);
+        resource.getFollowers(asyncResponse, request, uriInfo, username, false);
+        var response = resumedWithResponse(asyncResponse);
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getEntityTag()).isNotNull();
+        assertThat(response.getLastModified()).isNotNull();
+        assertThat(response.getHeaderString(HttpHeaders.CACHE_CONTROL)).contains("max-age=60");
+        var followers = (PersonCollection) response.getEntity();
         assertThat(followers.id()).isEqualTo("http://localhost:8181/ratatoskr/as/followers/johnd");
         assertThat(followers.totalItems()).isEqualTo(2);
         assertThat(followers.orderedItems()).hasSize(2);
@@ -76,4 +110,100 @@ class FollowersResourceTest {
         assertThat(followers.last()).isEqualTo(person2);
     }
 
+    @Test
+    void testGetFollowersNotModified() {
+        var ratatoskr = mock(AsyncRatatoskrService.class);
+        when(ratatoskr.findFollowersVersion(anyString())).thenReturn(CompletableFuture.completedFuture(ResourceVersion.with().count(2).lastModified(ZonedDateTime.now()).build()));
+
+        var resource = new FollowersResource();
+        resource.ratatoskr = ratatoskr;
+        var uriInfo = mock(UriInfo.class);
+        when(uriInfo.getRequestUri()).thenReturn(URI.create("http://localhost:8181/ratatoskr/as/followers/johnd"));
+        var request = mock(Request.class);
+        when(request.evaluatePreconditions(any(Date.class), any(EntityTag.class))).thenReturn(Response.notModified());
+        var asyncResponse = mock(AsyncResponse.class);
+        resource.getFollowers(asyncResponse, request, uriInfo, "johnd", false);
+        var response = resumedWithResponse(asyncResponse);
+        assertThat(response.getStatus()).isEqualTo(304);
+        assertThat(response.getEntityTag()).isNotNull();
+        verify(ratatoskr, never()).findFollowersWithUsername(anyString());
+    }
+
+    @Test
+    void testStreamFollowers() throws Exception {
+        var person1 = Person.with()
+            .id("http://localhost:8181/ratatoskr/as/actor/sally")
+            .preferredUsername("sally")
+            .name("Sally Shaw")
+            .build();
+        var person2 = Person.with()
+            .id("http://localhost:8181/ratatoskr/as/actor/george")
+            .preferredUsername("george")
+            .name("George Grant")
+            .build();
+        var ratatoskr = mock(AsyncRatatoskrService.class);
+        when(ratatoskr.findFollowersVersion(anyString())).thenReturn(CompletableFuture.completedFuture(ResourceVersion.with().count(2).lastModified(ZonedDateTime.now()).build()));
+        doAnswer(invocation -> {
+            Consumer<Person> follower = invocation.getArgument(1);
+            follower.accept(person1);
+            follower.accept(person2);
+            return CompletableFuture.completedFuture(2);
+        }).when(ratatoskr).forEachFollowerWithUsername(anyString(), any());
+        when(ratatoskr.findFollowersWithUsername(anyString())).thenReturn(CompletableFuture.completedFuture(List.of(person1, person2)));
+        when(ratatoskr.findActorCounts(anyString())).thenReturn(CompletableFuture.completedFuture(Optional.of(ActorCounts.with().followers(2).following(7).build())));
+
+        var resource = new FollowersResource();
+        resource.ratatoskr = ratatoskr;
+        var uriInfo = mock(UriInfo.class);
+        var baseUri = URI.create("http://localhost:8181/ratatoskr/as");
+        when(uriInfo.getBaseUriBuilder()).thenAnswer(i -> JerseyUriBuilder.fromUri(baseUri));
+        when(uriInfo.getRequestUri()).thenReturn(URI.create(baseUri + "/followers/johnd?stream=true"));
+        var request = mock(Request.class);
+        var asyncResponse = mock(AsyncResponse.class);
+        resource.getFollowers(asyncResponse, request, uriInfo, "johnd", true);
+        var response = resumedWithResponse(asyncResponse);
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getEntityTag()).isNotNull();
+        verify(ratatoskr, never()).findFollowersWithUsername(anyString());
+
+        var output = new ByteArrayOutputStream();
+        ((StreamingOutput) response.getEntity()).write(output);
+        var followers = new ObjectMapper().findAndRegisterModules().readValue(output.toByteArray(), PersonCollection.class);
+
+        var bufferedResponse = mock(AsyncResponse.class);
+        resource.getFollowers(bufferedResponse, request, uriInfo, "johnd", false);
+        var buffered = resumedWithResponse(bufferedResponse).getEntity();
+        var mapper = new ObjectMapperContextResolver().getContext(Object.class);
+        assertThat(output.toString(StandardCharsets.UTF_8)).isEqualTo(mapper.writeValueAsString(buffered));
+        assertThat(followers.id()).isEqualTo("http://localhost:8181/ratatoskr/as/followers/johnd");
+        assertThat(followers.totalItems()).isEqualTo(2);
+        assertThat(followers.orderedItems()).containsExactly(person1, person2);
+        assertThat(followers.current()).isEqualTo(person1);
+        assertThat(followers.first()).isEqualTo(person1);
+        assertThat(followers.last()).isEqualTo(person2);
+    }
+
+    @Test
+    void testStreamFollowersWhenThereAreNoFollowers() throws Exception {
+        var ratatoskr = mock(AsyncRatatoskrService.class);
+        when(ratatoskr.forEachFollowerWithUsername(anyString(), any())).thenReturn(CompletableFuture.completedFuture(0));
+        when(ratatoskr.findFollowersWithUsername(anyString())).thenReturn(CompletableFuture.completedFuture(List.of()));
+        when(ratatoskr.findActorCounts(anyString())).thenReturn(CompletableFuture.completedFuture(Optional.of(ActorCounts.with().build())));
+
+        var resource = new FollowersResource();
+        resource.ratatoskr = ratatoskr;
+        var uriInfo = mock(UriInfo.class);
+        var baseUri = URI.create("http://localhost:8181/ratatoskr/as");
+        when(uriInfo.getBaseUriBuilder()).thenAnswer(i -> JerseyUriBuilder.fromUri(baseUri));
+
+        var output = new ByteArrayOutputStream();
+        resource.streamFollowers(uriInfo, "johnd").write(output);
+        var buffered = PersonCollection.with()
+            .id("http://localhost:8181/ratatoskr/as/followers/johnd")
+            .orderedItems(List.of())
+            .build();
+        var mapper = new ObjectMapperContextResolver().getContext(Object.class);
+        assertThat(output.toString(StandardCharsets.UTF_8)).isEqualTo(mapper.writeValueAsString(buffered));
+    }
+
 }
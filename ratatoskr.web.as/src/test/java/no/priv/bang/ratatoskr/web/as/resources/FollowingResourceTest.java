@@ -1,5 +1,5 @@
 /*
- * Copyright 2025 Steinar Bang
+ * Copyright 2025-2026 Steinar Bang
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,21 +15,37 @@
  */
 package no.priv.bang.ratatoskr.web.as.resources;
 
+import static no.priv.bang.ratatoskr.web.as.resources.AsyncResponses.*;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.net.URI;
+import java.time.ZonedDateTime;
+import java.util.Date;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
 
 import org.glassfish.jersey.uri.internal.JerseyUriBuilder;
 import org.junit.jupiter.api.Test;
 
-import no.priv.bang.ratatoskr.services.RatatoskrService;
+import no.priv.bang.ratatoskr.services.AsyncRatatoskrService;
 import no.priv.bang.ratatoskr.services.activitypub.Person;
+import no.priv.bang.ratatoskr.services.activitypub.PersonCollection;
+import no.priv.bang.ratatoskr.services.beans.ActorCounts;
+import no.priv.bang.ratatoskr.services.beans.ResourceVersion;
 
 class FollowingResourceTest {
 
@@ -57,8 +73,10 @@ class FollowingResourceTest {
             .liked("http://localhost:8181/ratatoskr/as/liked/george")
             .icon("http://localhost:8181/ratatoskr/image/165987aklre4")
             .build();
-        var ratatoskr = mock(RatatoskrService.class);
-        when(ratatoskr.findFollowingWithUsername(anyString())).thenReturn(List.of(person1, person2));
+        var ratatoskr = mock(AsyncRatatoskrService.class);
+        when(ratatoskr.findFollowingVersion(anyString())).thenReturn(CompletableFuture.completedFuture(ResourceVersion.with().count(2).lastModified(ZonedDateTime.now()).build()));
+        when(ratatoskr.findFollowingWithUsername(anyString())).thenReturn(CompletableFuture.completedFuture(List.of(person1, person2)));
+        when(ratatoskr.findActorCounts(anyString())).thenReturn(CompletableFuture.completedFuture(Optional.empty()));
 
         var resource = new FollowingResource();
         resource.ratatoskr = ratatoskr;
@@ -66,8 +84,17 @@ class FollowingResourceTest {
         var baseUri = URI.create("http://localhost:8181/ratatoskr/as");
         when(uriInfo.getBaseUriBuilder())
             .thenReturn(JerseyUriBuilder.fromUri(baseUri));
+        when(uriInfo.getRequestUri()).thenReturn(URI.create(baseUri + "/following/johnd"));
         var username = "johnd";
-        var following = resource.getFollowing(uriInfo, username);
+        var request = mock(Request.class);
+        var asyncResponse = mock(AsyncResponse.class);
+        resource.getFollowing(asyncResponse, request, uriInfo, username);
+        var response = resumedWithResponse(asyncResponse);
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getEntityTag()).isNotNull();
+        assertThat(response.getLastModified()).isNotNull();
+        assertThat(response.getHeaderString(HttpHeaders.CACHE_CONTROL)).contains("private").contains("max-age=60");
+        var following = (PersonCollection) response.getEntity();
         assertThat(following.id()).isEqualTo("http://localhost:8181/ratatoskr/as/following/johnd");
         assertThat(following.totalItems()).isEqualTo(2);
         assertThat(following.orderedItems()).hasSize(2);
@@ -76,4 +103,74 @@ class FollowingResourceTest {
         assertThat(following.last()).isEqualTo(person2);
     }
 
+    @Test
+    void testGetFollowingTotalItemsFromActorCounts() {
+        var person = Person.with()
+            .id("http://localhost:8181/ratatoskr/as/actor/sally")
+            .preferredUsername("sally")
+            .build();
+        var ratatoskr = mock(AsyncRatatoskrService.class);
+        when(ratatoskr.findFollowingVersion(anyString())).thenReturn(CompletableFuture.completedFuture(ResourceVersion.with().count(7).lastModified(ZonedDateTime.now()).build()));
+        when(ratatoskr.findFollowingWithUsername(anyString())).thenReturn(CompletableFuture.completedFuture(List.of(person)));
+        when(ratatoskr.findActorCounts(anyString())).thenReturn(CompletableFuture.completedFuture(Optional.of(ActorCounts.with().followers(2).following(7).build())));
+
+        var resource = new FollowingResource();
+        resource.ratatoskr = ratatoskr;
+        var uriInfo = mock(UriInfo.class);
+        var baseUri = URI.create("http://localhost:8181/ratatoskr/as");
+        when(uriInfo.getBaseUriBuilder())
+            .thenReturn(JerseyUriBuilder.fromUri(baseUri));
+        when(uriInfo.getRequestUri()).thenReturn(URI.create(baseUri + "/following/johnd"));
+        var asyncResponse = mock(AsyncResponse.class);
+        resource.getFollowing(asyncResponse, mock(Request.class), uriInfo, "johnd");
+        var response = resumedWithResponse(asyncResponse);
+        assertThat(response.getStatus()).isEqualTo(200);
+        var following = (PersonCollection) response.getEntity();
+        assertThat(following.totalItems()).isEqualTo(7);
+        assertThat(following.orderedItems()).hasSize(1);
+    }
+
+    @Test
+    void testGetFollowingWhenNotFollowingAnyone() {
+        var ratatoskr = mock(AsyncRatatoskrService.class);
+        when(ratatoskr.findFollowingVersion(anyString())).thenReturn(CompletableFuture.completedFuture(ResourceVersion.with().build()));
+        when(ratatoskr.findFollowingWithUsername(anyString())).thenReturn(CompletableFuture.completedFuture(List.of()));
+        when(ratatoskr.findActorCounts(anyString())).thenReturn(CompletableFuture.completedFuture(Optional.of(ActorCounts.with().build())));
+
+        var resource = new FollowingResource();
+        resource.ratatoskr = ratatoskr;
+        var uriInfo = mock(UriInfo.class);
+        var baseUri = URI.create("http://localhost:8181/ratatoskr/as");
+        when(uriInfo.getBaseUriBuilder())
+            .thenReturn(JerseyUriBuilder.fromUri(baseUri));
+        when(uriInfo.getRequestUri()).thenReturn(URI.create(baseUri + "/following/johnd"));
+        var asyncResponse = mock(AsyncResponse.class);
+        resource.getFollowing(asyncResponse, mock(Request.class), uriInfo, "johnd");
+        var response = resumedWithResponse(asyncResponse);
+        assertThat(response.getStatus()).isEqualTo(200);
+        var following = (PersonCollection) response.getEntity();
+        assertThat(following.totalItems()).isZero();
+        assertThat(following.orderedItems()).isEmpty();
+        assertThat(following.current()).isNull();
+    }
+
+    @Test
+    void testGetFollowingNotModified() {
+        var ratatoskr = mock(AsyncRatatoskrService.class);
+        when(ratatoskr.findFollowingVersion(anyString())).thenReturn(CompletableFuture.completedFuture(ResourceVersion.with().count(2).lastModified(ZonedDateTime.now()).build()));
+
+        var resource = new FollowingResource();
+        resource.ratatoskr = ratatoskr;
+        var uriInfo = mock(UriInfo.class);
+        when(uriInfo.getRequestUri()).thenReturn(URI.create("http://localhost:8181/ratatoskr/as/following/johnd"));
+        var request = mock(Request.class);
+        when(request.evaluatePreconditions(any(Date.class), any(EntityTag.class))).thenReturn(Response.notModified());
+        var asyncResponse = mock(AsyncResponse.class);
+        resource.getFollowing(asyncResponse, request, uriInfo, "johnd");
+        var response = resumedWithResponse(asyncResponse);
+        assertThat(response.getStatus()).isEqualTo(304);
+        assertThat(response.getEntityTag()).isNotNull();
+        verify(ratatoskr, never()).findFollowingWithUsername(anyString());
+    }
+
 }
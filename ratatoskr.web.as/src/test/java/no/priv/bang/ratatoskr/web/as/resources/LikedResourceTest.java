@@ -1,5 +1,5 @@
 /*
- * Copyright 2025 Steinar Bang
+ * Copyright 2025-2026 Steinar Bang
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,23 +15,39 @@
  */
 package no.priv.bang.ratatoskr.web.as.resources;
 
+import static no.priv.bang.ratatoskr.web.as.resources.AsyncResponses.*;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.net.URI;
+import java.time.ZonedDateTime;
+import java.util.Date;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
 
 import org.glassfish.jersey.uri.internal.JerseyUriBuilder;
 import org.junit.jupiter.api.Test;
 
-import no.priv.bang.ratatoskr.services.RatatoskrService;
+import no.priv.bang.ratatoskr.services.AsyncRatatoskrService;
+import no.priv.bang.ratatoskr.services.activitypub.ActivityCollection;
 import no.priv.bang.ratatoskr.services.activitypub.Like;
 import no.priv.bang.ratatoskr.services.activitypub.Person;
 import no.priv.bang.ratatoskr.services.activitypub.Status;
+import no.priv.bang.ratatoskr.services.beans.ActorCounts;
+import no.priv.bang.ratatoskr.services.beans.ResourceVersion;
 
 class LikedResourceTest {
 
@@ -42,8 +58,10 @@ class LikedResourceTest {
             .authoredBy(Person.with().id("http://localhost:8181/ratatoskr/as/actor/johnd").build())
             .inReplyTo(Status.with().id("https://sally.example.com/posts/124").build())
             .build();
-        var ratatoskr = mock(RatatoskrService.class);
-        when(ratatoskr.findLikedWithUsername(anyString())).thenReturn(List.of(like));
+        var ratatoskr = mock(AsyncRatatoskrService.class);
+        when(ratatoskr.findLikedVersion(anyString())).thenReturn(CompletableFuture.completedFuture(ResourceVersion.with().count(2).lastModified(ZonedDateTime.now()).build()));
+        when(ratatoskr.findLikedWithUsername(anyString())).thenReturn(CompletableFuture.completedFuture(List.of(like)));
+        when(ratatoskr.findActorCounts(anyString())).thenReturn(CompletableFuture.completedFuture(Optional.empty()));
 
         var resource = new LikedResource();
         resource.ratatoskr = ratatoskr;
@@ -51,8 +69,17 @@ class LikedResourceTest {
         var baseUri = URI.create("http://localhost:8181/ratatoskr/as");
         when(uriInfo.getBaseUriBuilder())
             .thenReturn(JerseyUriBuilder.fromUri(baseUri));
+        when(uriInfo.getRequestUri()).thenReturn(URI.create(baseUri + "/liked/johnd"));
         var username = "johnd";
-        var likes = resource.getLiked(uriInfo, username);
+        var request = mock(Request.class);
+        var asyncResponse = mock(AsyncResponse.class);
+        resource.getLiked(asyncResponse, request, uriInfo, username);
+        var response = resumedWithResponse(asyncResponse);
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getEntityTag()).isNotNull();
+        assertThat(response.getLastModified()).isNotNull();
+        assertThat(response.getHeaderString(HttpHeaders.CACHE_CONTROL)).contains("max-age=60");
+        var likes = (ActivityCollection) response.getEntity();
         assertThat(likes.id()).isEqualTo("http://localhost:8181/ratatoskr/as/liked/johnd");
         assertThat(likes.totalItems()).isEqualTo(1);
         assertThat(likes.orderedItems()).hasSize(1);
@@ -61,4 +88,75 @@ class LikedResourceTest {
         assertThat(likes.last()).isEqualTo(like);
     }
 
+    @Test
+    void testGetLikedTotalItemsFromActorCounts() {
+        var like = Like.with()
+            .summary("John liked Sally's note")
+            .authoredBy(Person.with().id("http://localhost:8181/ratatoskr/as/actor/johnd").build())
+            .inReplyTo(Status.with().id("https://sally.example.com/posts/124").build())
+            .build();
+        var ratatoskr = mock(AsyncRatatoskrService.class);
+        when(ratatoskr.findLikedVersion(anyString())).thenReturn(CompletableFuture.completedFuture(ResourceVersion.with().count(5).lastModified(ZonedDateTime.now()).build()));
+        when(ratatoskr.findLikedWithUsername(anyString())).thenReturn(CompletableFuture.completedFuture(List.of(like)));
+        when(ratatoskr.findActorCounts(anyString())).thenReturn(CompletableFuture.completedFuture(Optional.of(ActorCounts.with().liked(5).build())));
+
+        var resource = new LikedResource();
+        resource.ratatoskr = ratatoskr;
+        var uriInfo = mock(UriInfo.class);
+        var baseUri = URI.create("http://localhost:8181/ratatoskr/as");
+        when(uriInfo.getBaseUriBuilder())
+            .thenReturn(JerseyUriBuilder.fromUri(baseUri));
+        when(uriInfo.getRequestUri()).thenReturn(URI.create(baseUri + "/liked/johnd"));
+        var asyncResponse = mock(AsyncResponse.class);
+        resource.getLiked(asyncResponse, mock(Request.class), uriInfo, "johnd");
+        var response = resumedWithResponse(asyncResponse);
+        assertThat(response.getStatus()).isEqualTo(200);
+        var likes = (ActivityCollection) response.getEntity();
+        assertThat(likes.totalItems()).isEqualTo(5);
+        assertThat(likes.orderedItems()).hasSize(1);
+    }
+
+    @Test
+    void testGetLikedWhenNothingIsLiked() {
+        var ratatoskr = mock(AsyncRatatoskrService.class);
+        when(ratatoskr.findLikedVersion(anyString())).thenReturn(CompletableFuture.completedFuture(ResourceVersion.with().build()));
+        when(ratatoskr.findLikedWithUsername(anyString())).thenReturn(CompletableFuture.completedFuture(List.of()));
+        when(ratatoskr.findActorCounts(anyString())).thenReturn(CompletableFuture.completedFuture(Optional.of(ActorCounts.with().build())));
+
+        var resource = new LikedResource();
+        resource.ratatoskr = ratatoskr;
+        var uriInfo = mock(UriInfo.class);
+        var baseUri = URI.create("http://localhost:8181/ratatoskr/as");
+        when(uriInfo.getBaseUriBuilder())
+            .thenReturn(JerseyUriBuilder.fromUri(baseUri));
+        when(uriInfo.getRequestUri()).thenReturn(URI.create(baseUri + "/liked/johnd"));
+        var asyncResponse = mock(AsyncResponse.class);
+        resource.getLiked(asyncResponse, mock(Request.class), uriInfo, "johnd");
+        var response = resumedWithResponse(asyncResponse);
+        assertThat(response.getStatus()).isEqualTo(200);
+        var likes = (ActivityCollection) response.getEntity();
+        assertThat(likes.totalItems()).isZero();
+        assertThat(likes.orderedItems()).isEmpty();
+        assertThat(likes.current()).isNull();
+    }
+
+    @Test
+    void testGetLikedNotModified() {
+        var ratatoskr = mock(AsyncRatatoskrService.class);
+        when(ratatoskr.findLikedVersion(anyString())).thenReturn(CompletableFuture.completedFuture(ResourceVersion.with().count(2).lastModified(ZonedDateTime.now()).build()));
+
+        var resource = new LikedResource();
+        resource.ratatoskr = ratatoskr;
+        var uriInfo = mock(UriInfo.class);
+        when(uriInfo.getRequestUri()).thenReturn(URI.create("http://localhost:8181/ratatoskr/as/liked/johnd"));
+        var request = mock(Request.class);
+        when(request.evaluatePreconditions(any(Date.class), any(EntityTag.class))).thenReturn(Response.notModified());
+        var asyncResponse = mock(AsyncResponse.class);
+        resource.getLiked(asyncResponse, request, uriInfo, "johnd");
+        var response = resumedWithResponse(asyncResponse);
+        assertThat(response.getStatus()).isEqualTo(304);
+        assertThat(response.getEntityTag()).isNotNull();
+        verify(ratatoskr, never()).findLikedWithUsername(anyString());
+    }
+
 }
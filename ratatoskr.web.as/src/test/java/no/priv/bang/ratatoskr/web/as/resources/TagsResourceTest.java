@@ -0,0 +1,146 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.web.as.resources;
+
+import static no.priv.bang.ratatoskr.web.as.resources.AsyncResponses.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.TimeoutHandler;
+import javax.ws.rs.core.UriInfo;
+
+import org.glassfish.jersey.uri.internal.JerseyUriBuilder;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import no.priv.bang.ratatoskr.asvocabulary.Article;
+import no.priv.bang.ratatoskr.services.AsyncRatatoskrService;
+import no.priv.bang.ratatoskr.services.RatatoskrException;
+import no.priv.bang.ratatoskr.services.activitypub.TagTimeline;
+
+class TagsResourceTest {
+
+    @Test
+    void testGetTagTimeline() {
+        var article = Article.with().id("https://sally.example.com/posts/123").build();
+        var ratatoskr = mock(AsyncRatatoskrService.class);
+        when(ratatoskr.findTagTimeline(anyString(), any(), anyInt())).thenReturn(CompletableFuture.completedFuture(TagTimeline.with()
+            .hashtag("caturday")
+            .totalItems(21)
+            .next("1767268800000-42")
+            .orderedItems(List.of(article))
+            .build()));
+
+        var resource = new TagsResource();
+        resource.ratatoskr = ratatoskr;
+        var uriInfo = mock(UriInfo.class);
+        var baseUri = URI.create("http://localhost:8181/ratatoskr/as");
+        when(uriInfo.getBaseUriBuilder())
+            .thenReturn(JerseyUriBuilder.fromUri(baseUri))
+            .thenReturn(JerseyUriBuilder.fromUri(baseUri));
+        var asyncResponse = mock(AsyncResponse.class);
+        resource.getTagTimeline(asyncResponse, uriInfo, "Caturday", null);
+        var timeline = (TagTimeline) resumedWith(asyncResponse);
+        assertThat(timeline.id()).isEqualTo("http://localhost:8181/ratatoskr/as/tags/caturday");
+        assertThat(timeline.hashtag()).isEqualTo("caturday");
+        assertThat(timeline.totalItems()).isEqualTo(21);
+        assertThat(timeline.next()).isEqualTo("http://localhost:8181/ratatoskr/as/tags/caturday?before=1767268800000-42");
+        assertThat(timeline.orderedItems()).containsExactly(article);
+    }
+
+    @Test
+    void testGetLastPageOfTagTimeline() {
+        var ratatoskr = mock(AsyncRatatoskrService.class);
+        when(ratatoskr.findTagTimeline(anyString(), any(), anyInt())).thenReturn(CompletableFuture.completedFuture(TagTimeline.with()
+            .hashtag("caturday")
+            .build()));
+
+        var resource = new TagsResource();
+        resource.ratatoskr = ratatoskr;
+        var uriInfo = mock(UriInfo.class);
+        var baseUri = URI.create("http://localhost:8181/ratatoskr/as");
+        when(uriInfo.getBaseUriBuilder())
+            .thenReturn(JerseyUriBuilder.fromUri(baseUri));
+        var asyncResponse = mock(AsyncResponse.class);
+        resource.getTagTimeline(asyncResponse, uriInfo, "caturday", "1767268800000-42");
+        var timeline = (TagTimeline) resumedWith(asyncResponse);
+        assertThat(timeline.next()).isNull();
+        assertThat(timeline.orderedItems()).isEmpty();
+    }
+
+    @Test
+    void testGetTagTimelineWithMalformedCursor() {
+        var ratatoskr = mock(AsyncRatatoskrService.class);
+
+        var resource = new TagsResource();
+        resource.ratatoskr = ratatoskr;
+        var uriInfo = mock(UriInfo.class);
+        var asyncResponse = mock(AsyncResponse.class);
+        for (var cursor : List.of("x", "1767268800000", "1767268800000-x", "-42", "99999999999999999999-1")) {
+            var e = assertThrows(BadRequestException.class, () -> resource.getTagTimeline(asyncResponse, uriInfo, "caturday", cursor));
+            assertThat(e.getResponse().getStatus()).isEqualTo(400);
+        }
+        verifyNoInteractions(ratatoskr, asyncResponse);
+    }
+
+    @Test
+    void testGetTagTimelineWhenDatabaseFails() {
+        var ratatoskr = mock(AsyncRatatoskrService.class);
+        when(ratatoskr.findTagTimeline(anyString(), any(), anyInt())).thenReturn(CompletableFuture.failedFuture(new RatatoskrException("Unable to fetch tag timeline")));
+
+        var resource = new TagsResource();
+        resource.ratatoskr = ratatoskr;
+        var uriInfo = mock(UriInfo.class);
+        var asyncResponse = mock(AsyncResponse.class);
+        resource.getTagTimeline(asyncResponse, uriInfo, "caturday", "1767268800000-42");
+        assertThat(resumedWithException(asyncResponse)).isInstanceOf(RatatoskrException.class);
+    }
+
+    @Test
+    void testGetTagTimelineTimesOut() {
+        var ratatoskr = mock(AsyncRatatoskrService.class);
+        when(ratatoskr.findTagTimeline(anyString(), any(), anyInt())).thenReturn(new CompletableFuture<>());
+
+        var resource = new TagsResource();
+        resource.ratatoskr = ratatoskr;
+        var uriInfo = mock(UriInfo.class);
+        var asyncResponse = mock(AsyncResponse.class);
+        resource.getTagTimeline(asyncResponse, uriInfo, "caturday", null);
+        verify(asyncResponse).setTimeout(ResourceBase.TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        var timeoutHandler = ArgumentCaptor.forClass(TimeoutHandler.class);
+        verify(asyncResponse).setTimeoutHandler(timeoutHandler.capture());
+
+        timeoutHandler.getValue().handleTimeout(asyncResponse);
+        var response = resumedWithResponse(asyncResponse);
+        assertThat(response.getStatus()).isEqualTo(503);
+        assertThat(((ErrorMessage) response.getEntity()).getStatus()).isEqualTo(503);
+    }
+
+}
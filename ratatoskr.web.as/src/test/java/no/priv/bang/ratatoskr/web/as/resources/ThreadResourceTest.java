@@ -0,0 +1,134 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.web.as.resources;
+
+import static no.priv.bang.ratatoskr.web.as.resources.AsyncResponses.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.UriInfo;
+
+import org.glassfish.jersey.uri.internal.JerseyUriBuilder;
+import org.junit.jupiter.api.Test;
+
+import no.priv.bang.ratatoskr.asvocabulary.Article;
+import no.priv.bang.ratatoskr.services.AsyncRatatoskrService;
+import no.priv.bang.ratatoskr.services.activitypub.ArticleThread;
+import no.priv.bang.ratatoskr.services.activitypub.Replies;
+
+class ThreadResourceTest {
+
+    @Test
+    void testGetThread() {
+        var root = Article.with().id("https://sally.example.com/posts/1").build();
+        var article = Article.with().id("https://sally.example.com/posts/2").build();
+        var reply = Article.with().id("https://sally.example.com/posts/3").build();
+        var thread = ArticleThread.with().ancestors(List.of(root)).article(article).descendants(List.of(reply)).build();
+        var ratatoskr = mock(AsyncRatatoskrService.class);
+        when(ratatoskr.findThread(anyString())).thenReturn(CompletableFuture.completedFuture(Optional.of(thread)));
+
+        var resource = new ThreadResource();
+        resource.ratatoskr = ratatoskr;
+        var asyncResponse = mock(AsyncResponse.class);
+        resource.getThread(asyncResponse, article.id());
+        assertThat(resumedWith(asyncResponse)).isEqualTo(thread);
+    }
+
+    @Test
+    void testGetThreadNotFound() {
+        var ratatoskr = mock(AsyncRatatoskrService.class);
+        when(ratatoskr.findThread(anyString())).thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+
+        var resource = new ThreadResource();
+        resource.ratatoskr = ratatoskr;
+        var asyncResponse = mock(AsyncResponse.class);
+        resource.getThread(asyncResponse, "https://sally.example.com/posts/nosuchpost");
+        assertThat(resumedWithException(asyncResponse)).isInstanceOf(NotFoundException.class);
+    }
+
+    @Test
+    void testGetReplies() {
+        var reply = Article.with().id("https://sally.example.com/posts/3").build();
+        var ratatoskr = mock(AsyncRatatoskrService.class);
+        when(ratatoskr.findReplies(anyString(), any(), anyInt())).thenReturn(CompletableFuture.completedFuture(Replies.with()
+            .partOf("https://sally.example.com/posts/1")
+            .totalItems(21)
+            .next("1767268800000-42")
+            .orderedItems(List.of(reply))
+            .build()));
+
+        var resource = new ThreadResource();
+        resource.ratatoskr = ratatoskr;
+        var uriInfo = mock(UriInfo.class);
+        var baseUri = URI.create("http://localhost:8181/ratatoskr/as");
+        when(uriInfo.getBaseUriBuilder()).thenAnswer(i -> JerseyUriBuilder.fromUri(baseUri));
+        var asyncResponse = mock(AsyncResponse.class);
+        resource.getReplies(asyncResponse, uriInfo, "https://sally.example.com/posts/1", null);
+        var replies = (Replies) resumedWith(asyncResponse);
+        assertThat(replies.id()).startsWith("http://localhost:8181/ratatoskr/as/replies?object=");
+        assertThat(replies.partOf()).isEqualTo("https://sally.example.com/posts/1");
+        assertThat(replies.totalItems()).isEqualTo(21);
+        assertThat(replies.next()).startsWith(replies.id()).endsWith("&after=1767268800000-42");
+        assertThat(replies.orderedItems()).containsExactly(reply);
+    }
+
+    @Test
+    void testGetLastPageOfReplies() {
+        var ratatoskr = mock(AsyncRatatoskrService.class);
+        when(ratatoskr.findReplies(anyString(), any(), anyInt())).thenReturn(CompletableFuture.completedFuture(Replies.with()
+            .partOf("https://sally.example.com/posts/1")
+            .build()));
+
+        var resource = new ThreadResource();
+        resource.ratatoskr = ratatoskr;
+        var uriInfo = mock(UriInfo.class);
+        var baseUri = URI.create("http://localhost:8181/ratatoskr/as");
+        when(uriInfo.getBaseUriBuilder()).thenAnswer(i -> JerseyUriBuilder.fromUri(baseUri));
+        var asyncResponse = mock(AsyncResponse.class);
+        resource.getReplies(asyncResponse, uriInfo, "https://sally.example.com/posts/1", "1767268800000-42");
+        var replies = (Replies) resumedWith(asyncResponse);
+        assertThat(replies.next()).isNull();
+        assertThat(replies.orderedItems()).isEmpty();
+    }
+
+    @Test
+    void testGetRepliesWithMalformedCursor() {
+        var ratatoskr = mock(AsyncRatatoskrService.class);
+
+        var resource = new ThreadResource();
+        resource.ratatoskr = ratatoskr;
+        var uriInfo = mock(UriInfo.class);
+        var asyncResponse = mock(AsyncResponse.class);
+        var e = assertThrows(BadRequestException.class, () -> resource.getReplies(asyncResponse, uriInfo, "https://sally.example.com/posts/123", "notacursor"));
+        assertThat(e.getResponse().getStatus()).isEqualTo(400);
+        verifyNoInteractions(ratatoskr, asyncResponse);
+    }
+
+}
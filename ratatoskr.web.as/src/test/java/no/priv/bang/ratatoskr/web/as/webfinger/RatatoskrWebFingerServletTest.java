@@ -0,0 +1,115 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.web.as.webfinger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletContext;
+
+import org.glassfish.jersey.server.ServerProperties;
+import org.junit.jupiter.api.Test;
+import org.osgi.service.log.LogService;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mockrunner.mock.web.MockHttpServletRequest;
+import com.mockrunner.mock.web.MockHttpServletResponse;
+
+import no.priv.bang.osgi.service.mocks.logservice.MockLogService;
+import no.priv.bang.ratatoskr.services.RatatoskrService;
+import no.priv.bang.ratatoskr.services.activitypub.Person;
+
+class RatatoskrWebFingerServletTest {
+
+    private static final Person JOHND = Person.with()
+        .id("http://localhost:8181/ratatoskr/as/actor/johnd")
+        .preferredUsername("johnd")
+        .build();
+
+    @Test
+    void testWebfinger() throws Exception {
+        var ratatoskr = mock(RatatoskrService.class);
+        when(ratatoskr.findPersonWithUsername(anyString())).thenReturn(Optional.empty());
+        when(ratatoskr.findPersonWithUsername("johnd")).thenReturn(Optional.of(JOHND));
+        var servlet = simulateDSComponentActivationAndWebWhiteboardConfiguration(ratatoskr, new MockLogService());
+        var request = buildGetUrl("acct:johnd@localhost:8181");
+        var response = new MockHttpServletResponse();
+
+        servlet.service(request, response);
+        assertEquals(200, response.getStatus());
+        assertThat(response.getContentType()).startsWith("application/jrd+json");
+        var jrd = new ObjectMapper().readValue(response.getOutputStreamBinaryContent(), JsonResourceDescriptor.class);
+        assertThat(jrd.subject()).isEqualTo("acct:johnd@localhost:8181");
+        assertThat(jrd.links()).extracting(JsonResourceDescriptorLink::href).containsExactly(JOHND.id());
+    }
+
+    @Test
+    void testActorChangedInvalidatesCachedDescriptor() throws Exception {
+        var ratatoskr = mock(RatatoskrService.class);
+        when(ratatoskr.findPersonWithUsername(anyString())).thenReturn(Optional.of(JOHND));
+        var servlet = simulateDSComponentActivationAndWebWhiteboardConfiguration(ratatoskr, new MockLogService());
+
+        servlet.service(buildGetUrl("acct:johnd@localhost:8181"), new MockHttpServletResponse());
+        servlet.service(buildGetUrl("acct:johnd@localhost:8181"), new MockHttpServletResponse());
+        verify(ratatoskr, times(1)).findPersonWithUsername(anyString());
+
+        servlet.actorChanged(JOHND);
+        servlet.service(buildGetUrl("acct:johnd@localhost:8181"), new MockHttpServletResponse());
+        verify(ratatoskr, times(2)).findPersonWithUsername(anyString());
+    }
+
+    private MockHttpServletRequest buildGetUrl(String resource) {
+        var request = new MockHttpServletRequest();
+        request.setMethod("GET");
+        request.setProtocol("HTTP/1.1");
+        request.setRequestURL("http://localhost:8181/.well-known/webfinger");
+        request.setRequestURI("/.well-known/webfinger");
+        request.setContextPath("");
+        request.setServletPath("/.well-known");
+        request.setQueryString("resource=" + resource);
+        request.setupAddParameter("resource", resource);
+        return request;
+    }
+
+    private RatatoskrWebFingerServlet simulateDSComponentActivationAndWebWhiteboardConfiguration(RatatoskrService ratatoskr, LogService logservice) throws Exception {
+        var servlet = new RatatoskrWebFingerServlet();
+        servlet.setLogService(logservice);
+        servlet.setRatatoskrService(ratatoskr);
+        servlet.activate();
+        var config = createServletConfigWithApplicationAndPackagenameForJerseyResources();
+        servlet.init(config);
+        return servlet;
+    }
+
+    private ServletConfig createServletConfigWithApplicationAndPackagenameForJerseyResources() {
+        var config = mock(ServletConfig.class);
+        when(config.getInitParameterNames()).thenReturn(Collections.enumeration(Arrays.asList(ServerProperties.PROVIDER_PACKAGES)));
+        when(config.getInitParameter(ServerProperties.PROVIDER_PACKAGES)).thenReturn("no.priv.bang.ratatoskr.web.as.webfinger.resources");
+        var servletContext = mock(ServletContext.class);
+        when(servletContext.getContextPath()).thenReturn("");
+        when(config.getServletContext()).thenReturn(servletContext);
+        when(servletContext.getAttributeNames()).thenReturn(Collections.emptyEnumeration());
+        return config;
+    }
+
+}
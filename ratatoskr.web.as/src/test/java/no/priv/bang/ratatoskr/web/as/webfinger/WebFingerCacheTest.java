@@ -0,0 +1,117 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.web.as.webfinger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import no.priv.bang.ratatoskr.services.activitypub.Person;
+
+@SuppressWarnings("unchecked")
+class WebFingerCacheTest {
+
+    private static final Person JOHND = Person.with()
+        .id("http://localhost:8181/ratatoskr/as/actor/johnd")
+        .preferredUsername("johnd")
+        .build();
+
+    @Test
+    void testFindDescriptorIsOnlyBuiltOnce() throws Exception {
+        var cache = new WebFingerCache();
+        Function<String, Optional<Person>> findPerson = mock(Function.class);
+        when(findPerson.apply("johnd")).thenReturn(Optional.of(JOHND));
+
+        var descriptor = cache.findDescriptor("acct:johnd@localhost:8181", "johnd", findPerson);
+        var cachedDescriptor = cache.findDescriptor("acct:johnd@localhost:8181", "johnd", findPerson);
+
+        assertThat(cachedDescriptor.get()).isSameAs(descriptor.get());
+        verify(findPerson, times(1)).apply(anyString());
+        var jrd = new ObjectMapper().readValue(descriptor.get(), JsonResourceDescriptor.class);
+        assertThat(jrd.subject()).isEqualTo("acct:johnd@localhost:8181");
+        assertThat(jrd.aliases()).containsExactly(JOHND.id());
+        assertThat(jrd.links()).containsExactly(new JsonResourceDescriptorLink("self", "application/activity+json", JOHND.id()));
+    }
+
+    @Test
+    void testInvalidateRebuildsDescriptor() {
+        var cache = new WebFingerCache();
+        Function<String, Optional<Person>> findPerson = mock(Function.class);
+        when(findPerson.apply("johnd")).thenReturn(Optional.of(JOHND));
+        cache.findDescriptor("acct:johnd@localhost:8181", "johnd", findPerson);
+
+        cache.invalidate("johnd");
+        assertThat(cache.size()).isZero();
+        cache.findDescriptor("acct:johnd@localhost:8181", "johnd", findPerson);
+
+        verify(findPerson, times(2)).apply(anyString());
+    }
+
+    @Test
+    void testNegativeLookupsAreCachedUntilTheyExpire() {
+        var clock = mock(Clock.class);
+        var now = Instant.parse("2026-01-01T12:00:00Z");
+        when(clock.instant()).thenReturn(now);
+        when(clock.getZone()).thenReturn(ZoneOffset.UTC);
+        var cache = new WebFingerCache(clock);
+        Function<String, Optional<Person>> findPerson = mock(Function.class);
+        when(findPerson.apply(anyString())).thenReturn(Optional.empty());
+
+        assertThat(cache.findDescriptor("acct:nobody@localhost:8181", "nobody", findPerson)).isEmpty();
+        assertThat(cache.findDescriptor("acct:nobody@localhost:8181", "nobody", findPerson)).isEmpty();
+        verify(findPerson, times(1)).apply(anyString());
+
+        when(clock.instant()).thenReturn(now.plus(WebFingerCache.NEGATIVE_TIME_TO_LIVE));
+        assertThat(cache.findDescriptor("acct:nobody@localhost:8181", "nobody", findPerson)).isEmpty();
+        verify(findPerson, times(2)).apply(anyString());
+    }
+
+    @Test
+    void testNegativeLookupIsForgottenWhenActorIsAdded() {
+        var cache = new WebFingerCache();
+        Function<String, Optional<Person>> findPerson = mock(Function.class);
+        when(findPerson.apply("johnd")).thenReturn(Optional.empty()).thenReturn(Optional.of(JOHND));
+        assertThat(cache.findDescriptor("acct:johnd@localhost:8181", "johnd", findPerson)).isEmpty();
+
+        cache.invalidate("johnd");
+
+        assertThat(cache.findDescriptor("acct:johnd@localhost:8181", "johnd", findPerson)).isPresent();
+    }
+
+    @Test
+    void testNegativeLookupsAreBounded() {
+        var cache = new WebFingerCache();
+        Function<String, Optional<Person>> findPerson = mock(Function.class);
+        when(findPerson.apply(anyString())).thenReturn(Optional.empty());
+
+        for (int i = 0; i < WebFingerCache.MAX_NEGATIVE_ENTRIES + 10; ++i) {
+            cache.findDescriptor("acct:nobody" + i + "@localhost:8181", "nobody" + i, findPerson);
+        }
+
+        assertThat(cache.size()).isEqualTo(WebFingerCache.MAX_NEGATIVE_ENTRIES);
+    }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.web.as.webfinger.resources;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import java.net.URI;
+import java.util.Optional;
+
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.UriInfo;
+
+import org.junit.jupiter.api.Test;
+
+import no.priv.bang.ratatoskr.services.RatatoskrService;
+import no.priv.bang.ratatoskr.services.activitypub.Person;
+import no.priv.bang.ratatoskr.web.as.webfinger.WebFingerCache;
+
+class WebFingerResourceTest {
+
+    @Test
+    void testWebfinger() {
+        var resource = createResource();
+        var uriInfo = createUriInfo();
+
+        var response = resource.webfinger(uriInfo, "acct:johnd@localhost:8181");
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getHeaderString(HttpHeaders.CACHE_CONTROL)).isEqualTo(WebFingerResource.FOUND_CACHE_CONTROL);
+        assertThat(response.getHeaderString("Access-Control-Allow-Origin")).isEqualTo("*");
+        assertThat(new String((byte[]) response.getEntity())).contains("http://localhost:8181/ratatoskr/as/actor/johnd");
+
+        resource.webfinger(uriInfo, "acct:johnd@localhost:8181");
+        verify(resource.ratatoskr, times(1)).findPersonWithUsername(anyString());
+    }
+
+    @Test
+    void testWebfingerWithUnknownAccount() {
+        var resource = createResource();
+        var uriInfo = createUriInfo();
+
+        var response = resource.webfinger(uriInfo, "acct:jonhd@localhost:8181");
+        assertThat(response.getStatus()).isEqualTo(404);
+        assertThat(response.getHeaderString(HttpHeaders.CACHE_CONTROL)).isEqualTo(WebFingerResource.NOT_FOUND_CACHE_CONTROL);
+
+        resource.webfinger(uriInfo, "acct:jonhd@localhost:8181");
+        verify(resource.ratatoskr, times(1)).findPersonWithUsername(anyString());
+    }
+
+    @Test
+    void testWebfingerWithAccountOnOtherHost() {
+        var resource = createResource();
+        var uriInfo = createUriInfo();
+
+        var response = resource.webfinger(uriInfo, "acct:johnd@mastodon.example.com");
+        assertThat(response.getStatus()).isEqualTo(404);
+        verify(resource.ratatoskr, never()).findPersonWithUsername(anyString());
+    }
+
+    @Test
+    void testWebfingerWithMalformedResource() {
+        var resource = createResource();
+        var uriInfo = createUriInfo();
+
+        assertThrows(BadRequestException.class, () -> resource.webfinger(uriInfo, null));
+        assertThrows(BadRequestException.class, () -> resource.webfinger(uriInfo, "https://localhost:8181/ratatoskr/as/actor/johnd"));
+        assertThrows(BadRequestException.class, () -> resource.webfinger(uriInfo, "acct:johnd"));
+    }
+
+    private WebFingerResource createResource() {
+        var johnd = Person.with()
+            .id("http://localhost:8181/ratatoskr/as/actor/johnd")
+            .preferredUsername("johnd")
+            .build();
+        var ratatoskr = mock(RatatoskrService.class);
+        when(ratatoskr.findPersonWithUsername(anyString())).thenReturn(Optional.empty());
+        when(ratatoskr.findPersonWithUsername("johnd")).thenReturn(Optional.of(johnd));
+        var resource = new WebFingerResource();
+        resource.ratatoskr = ratatoskr;
+        resource.webFingerCache = new WebFingerCache();
+        return resource;
+    }
+
+    private UriInfo createUriInfo() {
+        var uriInfo = mock(UriInfo.class);
+        when(uriInfo.getBaseUri()).thenReturn(URI.create("http://localhost:8181/.well-known/"));
+        return uriInfo;
+    }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.web.common;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+import javax.inject.Inject;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+
+import org.glassfish.jersey.server.ExtendedUriInfo;
+import org.glassfish.jersey.uri.UriTemplate;
+
+import no.priv.bang.ratatoskr.services.Metrics;
+
+/**
+ * Record the duration of each request in {@link Metrics#HTTP_REQUESTS},
+ * labeled with the resource template matched rather than the request path,
+ * so that e.g. all actors share one series.
+ *
+ * The response filter runs when a suspended request is resumed, so the
+ * duration of an async request includes the time waiting for the database.
+ *
+ * Each REST API registers a subclass, annotated with {@code @Provider} and
+ * {@code @PreMatching}, that gives the servlet label of its series.
+ */
+public abstract class RequestMetricsFilter implements ContainerRequestFilter, ContainerResponseFilter {
+    static final String START_PROPERTY = RequestMetricsFilter.class.getName() + ".start";
+
+    private final String servlet;
+
+    @Inject
+    Metrics metrics;
+
+    protected RequestMetricsFilter(String servlet) {
+        this.servlet = servlet;
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        requestContext.setProperty(START_PROPERTY, System.nanoTime());
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        if (metrics != null && requestContext.getProperty(START_PROPERTY) instanceof Long start) {
+            metrics.record(
+                Metrics.HTTP_REQUESTS,
+                System.nanoTime() - start,
+                responseContext.getStatus() >= 500,
+                "servlet", servlet,
+                "method", requestContext.getMethod(),
+                "template", template(requestContext));
+        }
+    }
+
+    static String template(ContainerRequestContext requestContext) {
+        if (!(requestContext.getUriInfo() instanceof ExtendedUriInfo uriInfo) || uriInfo.getMatchedTemplates().isEmpty()) {
+            return "unmatched";
+        }
+
+        // The matched templates are listed from the innermost to the outermost
+        var templates = new ArrayList<UriTemplate>(uriInfo.getMatchedTemplates());
+        Collections.reverse(templates);
+        var path = new StringBuilder();
+        for (var template : templates) {
+            var segment = template.getTemplate();
+            if (!segment.isEmpty() && !"/".equals(segment)) {
+                path.append(segment.startsWith("/") ? "" : "/").append(segment);
+            }
+        }
+
+        return path.isEmpty() ? "/" : path.toString();
+    }
+
+}
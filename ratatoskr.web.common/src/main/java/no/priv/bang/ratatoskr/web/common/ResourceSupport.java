@@ -0,0 +1,100 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.web.common;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+
+/**
+ * Helpers used by the resources of both the REST API and the ActivityStreams
+ * API.
+ */
+public class ResourceSupport {
+
+    /**
+     * Appended to the ETag of a gzipped body, which is a different
+     * representation than the identity body with the same content.
+     */
+    public static final String GZIP_ETAG_SUFFIX = "-gz";
+
+    private ResourceSupport() {}
+
+    /**
+     * Resume a suspended request with the result when it completes, or with
+     * the exception if the result completes exceptionally.
+     *
+     * If the result isn't ready within timeoutSeconds the request is
+     * answered with the response from timedOut.
+     */
+    public static void resume(AsyncResponse asyncResponse, CompletionStage<?> result, long timeoutSeconds, Supplier<Response> timedOut) {
+        asyncResponse.setTimeoutHandler(response -> response.resume(timedOut.get()));
+        asyncResponse.setTimeout(timeoutSeconds, TimeUnit.SECONDS);
+        result.whenComplete((value, error) -> {
+            if (error != null) {
+                asyncResponse.resume(unwrap(error));
+            } else {
+                asyncResponse.resume(value);
+            }
+        });
+    }
+
+    public static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * True if the Accept-Encoding header of the request allows a gzipped
+     * response body.
+     */
+    public static boolean acceptsGzip(HttpHeaders httpHeaders) {
+        var acceptEncoding = httpHeaders != null ? httpHeaders.getHeaderString(HttpHeaders.ACCEPT_ENCODING) : null;
+        if (acceptEncoding == null) {
+            return false;
+        }
+
+        for (var coding : acceptEncoding.split(",")) {
+            var parameters = coding.split(";");
+            var name = parameters[0].trim();
+            if ("gzip".equalsIgnoreCase(name) || "*".equals(name)) {
+                return !hasZeroQuality(parameters);
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean hasZeroQuality(String[] parameters) {
+        for (int i = 1; i < parameters.length; ++i) {
+            var parameter = parameters[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2)) == 0.0;
+                } catch (NumberFormatException e) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.web.common;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.HashMap;
+import java.util.List;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.core.UriInfo;
+
+import org.glassfish.jersey.server.ExtendedUriInfo;
+import org.glassfish.jersey.uri.UriTemplate;
+import org.junit.jupiter.api.Test;
+
+import no.priv.bang.ratatoskr.services.Metrics;
+
+class RequestMetricsFilterTest {
+
+    @Test
+    void testRequestIsRecordedWithTheMatchedTemplate() {
+        var metrics = mock(Metrics.class);
+        var filter = new RequestMetricsFilter("as") { };
+        filter.metrics = metrics;
+        var request = mockRequest("GET", List.of(new UriTemplate("/{username}"), new UriTemplate("/actor")));
+        var response = mock(ContainerResponseContext.class);
+        when(response.getStatus()).thenReturn(200);
+
+        filter.filter(request);
+        filter.filter(request, response);
+
+        verify(metrics).record(eq(Metrics.HTTP_REQUESTS), anyLong(), eq(false), eq("servlet"), eq("as"), eq("method"), eq("GET"), eq("template"), eq("/actor/{username}"));
+    }
+
+    @Test
+    void testServerErrorsAreRecordedAsFailed() {
+        var metrics = mock(Metrics.class);
+        var filter = new RequestMetricsFilter("as") { };
+        filter.metrics = metrics;
+        var request = mockRequest("POST", List.of(new UriTemplate("/inbox")));
+        var response = mock(ContainerResponseContext.class);
+        when(response.getStatus()).thenReturn(500);
+
+        filter.filter(request);
+        filter.filter(request, response);
+
+        verify(metrics).record(eq(Metrics.HTTP_REQUESTS), anyLong(), eq(true), eq("servlet"), eq("as"), eq("method"), eq("POST"), eq("template"), eq("/inbox"));
+    }
+
+    @Test
+    void testNothingIsRecordedWithoutAStartTime() {
+        var metrics = mock(Metrics.class);
+        var filter = new RequestMetricsFilter("as") { };
+        filter.metrics = metrics;
+        var request = mock(ContainerRequestContext.class);
+
+        filter.filter(request, mock(ContainerResponseContext.class));
+
+        verifyNoInteractions(metrics);
+    }
+
+    @Test
+    void testTemplateWhenNothingIsMatched() {
+        var unmatched = mockRequest("GET", List.of());
+        assertEquals("unmatched", RequestMetricsFilter.template(unmatched));
+        var plainUriInfo = mock(ContainerRequestContext.class);
+        when(plainUriInfo.getUriInfo()).thenReturn(mock(UriInfo.class));
+        assertEquals("unmatched", RequestMetricsFilter.template(plainUriInfo));
+        var root = mockRequest("GET", List.of(new UriTemplate("/")));
+        assertEquals("/", RequestMetricsFilter.template(root));
+    }
+
+    private ContainerRequestContext mockRequest(String method, List<UriTemplate> matchedTemplates) {
+        var uriInfo = mock(ExtendedUriInfo.class);
+        when(uriInfo.getMatchedTemplates()).thenReturn(matchedTemplates);
+        var request = mock(ContainerRequestContext.class);
+        when(request.getMethod()).thenReturn(method);
+        when(request.getUriInfo()).thenReturn(uriInfo);
+        var properties = new HashMap<String, Object>();
+        doAnswer(invocation -> properties.put(invocation.getArgument(0), invocation.getArgument(1))).when(request).setProperty(anyString(), any());
+        when(request.getProperty(anyString())).thenAnswer(invocation -> properties.get(invocation.getArgument(0)));
+        return request;
+    }
+
+}
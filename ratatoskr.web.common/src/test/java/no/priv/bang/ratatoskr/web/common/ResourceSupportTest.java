@@ -0,0 +1,102 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.web.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.TimeoutHandler;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+class ResourceSupportTest {
+
+    @Test
+    void testResumeWithValue() {
+        var asyncResponse = mock(AsyncResponse.class);
+        var result = new CompletableFuture<String>();
+        ResourceSupport.resume(asyncResponse, result, 30, () -> Response.status(503).build());
+        verify(asyncResponse).setTimeout(30, TimeUnit.SECONDS);
+        verify(asyncResponse, never()).resume((Object) "value");
+
+        result.complete("value");
+        verify(asyncResponse).resume((Object) "value");
+    }
+
+    @Test
+    void testResumeWithUnwrappedException() {
+        var asyncResponse = mock(AsyncResponse.class);
+        var notFound = new NotFoundException();
+        var result = CompletableFuture.completedFuture("value").thenApply(value -> { throw notFound; });
+        ResourceSupport.resume(asyncResponse, result, 30, () -> Response.status(503).build());
+        verify(asyncResponse).resume(notFound);
+    }
+
+    @Test
+    void testResumeWhenTimingOut() {
+        var asyncResponse = mock(AsyncResponse.class);
+        ResourceSupport.resume(asyncResponse, new CompletableFuture<>(), 30, () -> Response.status(503).build());
+        var timeoutHandler = ArgumentCaptor.forClass(TimeoutHandler.class);
+        verify(asyncResponse).setTimeoutHandler(timeoutHandler.capture());
+
+        timeoutHandler.getValue().handleTimeout(asyncResponse);
+        var resumed = ArgumentCaptor.forClass(Object.class);
+        verify(asyncResponse).resume(resumed.capture());
+        assertThat(((Response) resumed.getValue()).getStatus()).isEqualTo(503);
+    }
+
+    @Test
+    void testUnwrap() {
+        var cause = new IllegalStateException();
+        assertThat(ResourceSupport.unwrap(new CompletionException(cause))).isSameAs(cause);
+        var withoutCause = new CompletionException("no cause", null);
+        assertThat(ResourceSupport.unwrap(withoutCause)).isSameAs(withoutCause);
+        assertThat(ResourceSupport.unwrap(cause)).isSameAs(cause);
+    }
+
+    @Test
+    void testAcceptsGzip() {
+        assertThat(ResourceSupport.acceptsGzip(null)).isFalse();
+        var httpHeaders = mock(HttpHeaders.class);
+        assertThat(ResourceSupport.acceptsGzip(httpHeaders)).isFalse();
+        when(httpHeaders.getHeaderString(HttpHeaders.ACCEPT_ENCODING))
+            .thenReturn("gzip")
+            .thenReturn("deflate, gzip;q=0.5")
+            .thenReturn("*")
+            .thenReturn("gzip;q=0")
+            .thenReturn("gzip;q=zero")
+            .thenReturn("identity, br");
+        assertThat(ResourceSupport.acceptsGzip(httpHeaders)).isTrue();
+        assertThat(ResourceSupport.acceptsGzip(httpHeaders)).isTrue();
+        assertThat(ResourceSupport.acceptsGzip(httpHeaders)).isTrue();
+        assertThat(ResourceSupport.acceptsGzip(httpHeaders)).isFalse();
+        assertThat(ResourceSupport.acceptsGzip(httpHeaders)).isFalse();
+        assertThat(ResourceSupport.acceptsGzip(httpHeaders)).isFalse();
+    }
+
+}
@@ -1,4 +1,6 @@
 import { createApi, fetchBaseQuery } from '@reduxjs/toolkit/query/react';
+import { subscribeToEvents } from './events';
+import { INCREMENT_STEP_FIELD_MODIFIED } from './reduxactions';
 
 export const api = createApi({
     reducerPath: 'api',
@@ -13,8 +15,21 @@ export const api = createApi({
         getAvailablelocales: builder.query({ query: () => '/availablelocales' }),
         getDisplaytexts: builder.query({ query: (locale) => '/displaytexts?locale=' + locale }),
         getAccounts: builder.query({ query: () => '/accounts' }),
-        getCounterIncrementStep: builder.query({ query: (username) => '/counter/incrementstep/' + username }),
-        getCounter: builder.query({ query: (username) => '/counter/' + username }),
+        getCounterIncrementStep: builder.query({
+            query: (username) => '/counter/incrementstep/' + username,
+            async onCacheEntryAdded(username, { getState, dispatch, updateCachedData, cacheDataLoaded, cacheEntryRemoved }) {
+                await pushChanges('counterincrementstep', 'getCounterIncrementStep', username, { getState, dispatch, cacheDataLoaded, cacheEntryRemoved }, (incrementStep) => {
+                    updateCachedData(() => incrementStep);
+                    dispatch(INCREMENT_STEP_FIELD_MODIFIED(incrementStep.counterIncrementStep));
+                });
+            },
+        }),
+        getCounter: builder.query({
+            query: (username) => '/counter/' + username,
+            async onCacheEntryAdded(username, { getState, dispatch, updateCachedData, cacheDataLoaded, cacheEntryRemoved }) {
+                await pushChanges('counter', 'getCounter', username, { getState, dispatch, cacheDataLoaded, cacheEntryRemoved }, (counter) => updateCachedData(() => counter));
+            },
+        }),
         postLogin: builder.mutation({
             query: (body) => ({url: '/login', method: 'POST', body }),
             async onQueryStarted(body, { dispatch, queryFulfilled }) {
@@ -63,6 +78,24 @@ export const api = createApi({
     }),
 });
 
+// Keep a cache entry up to date with the changes pushed by the server,
+// instead of polling, for as long as the entry is in use.  If the server
+// had to drop changes, the entry is refetched.
+async function pushChanges(type, endpoint, arg, { getState, dispatch, cacheDataLoaded, cacheEntryRemoved }, onChange) {
+    try {
+        await cacheDataLoaded;
+    } catch {
+        return; // The entry was removed before the first fetch completed
+    }
+
+    const basename = getState().basename;
+    const unsubscribe = subscribeToEvents(basename, type, onChange);
+    const unsubscribeOverflow = subscribeToEvents(basename, 'overflow', () => dispatch(api.endpoints[endpoint].initiate(arg, { subscribe: false, forceRefetch: true })));
+    await cacheEntryRemoved;
+    unsubscribeOverflow();
+    unsubscribe();
+}
+
 export const {
     useGetDefaultlocaleQuery,
     useGetLoginstateQuery,
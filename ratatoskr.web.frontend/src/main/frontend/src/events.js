@@ -0,0 +1,23 @@
+// One EventSource per page, shared by all of the subscribers, and closed
+// when the last subscriber unsubscribes.  The browser reconnects by itself
+// when the connection is lost.
+let eventSource = null;
+let subscribers = 0;
+
+export function subscribeToEvents(basename, type, listener) {
+    if (!eventSource) {
+        eventSource = new EventSource(basename + '/api/events');
+    }
+
+    ++subscribers;
+    const source = eventSource;
+    const handler = (event) => listener(JSON.parse(event.data));
+    source.addEventListener(type, handler);
+    return () => {
+        source.removeEventListener(type, handler);
+        if (--subscribers === 0 && eventSource === source) {
+            source.close();
+            eventSource = null;
+        }
+    };
+}
@@ -1,12 +1,13 @@
 import { defineConfig } from 'vite';
 import path from 'path';
 import fs from 'fs';
+import zlib from 'zlib';
 import { parse } from '@babel/parser';
 import traverse from '@babel/traverse';
 import * as t from "@babel/types";
 
 export default defineConfig({
-    plugins: [exportRoutesPlugin()],
+    plugins: [exportRoutesPlugin(), fingerprintedIndexHtmlPlugin(), precompressPlugin()],
     build: {
         minify: false,
         sourcemap: true,
@@ -15,9 +16,10 @@ export default defineConfig({
             // overwrite default .html entry
             input: 'src/index.jsx',
             output: {
-                entryFileNames: `assets/[name].js`,
-                chunkFileNames: `assets/[name].js`,
-                assetFileNames: `assets/[name].[ext]`
+                // The content hash in the file names lets the servlet serve the assets as immutable
+                entryFileNames: `assets/[name]-[hash].js`,
+                chunkFileNames: `assets/[name]-[hash].js`,
+                assetFileNames: `assets/[name]-[hash].[ext]`
             }
         },
         // Relative to the root
@@ -70,3 +72,54 @@ function exportRoutesPlugin() {
         },
     };
 };
+
+// Write index.html from the index.html template, referring to the
+// content hashed names of the entry script and its CSS
+function fingerprintedIndexHtmlPlugin() {
+    const scriptReference = '/ratatoskr/assets/index.js';
+    const cssLink = '<link href="/ratatoskr/assets/index.css" rel="stylesheet">';
+    let root = '.';
+
+    return {
+        name: 'fingerprinted-index-html',
+
+        configResolved(config) {
+            root = config.root;
+        },
+
+        generateBundle(options, bundle) {
+            const entry = Object.values(bundle).find(chunk => chunk.type === 'chunk' && chunk.isEntry);
+            const cssFiles = Array.from(entry.viteMetadata?.importedCss ?? []);
+            const cssLinks = cssFiles.map(cssFile => cssLink.replace('assets/index.css', cssFile)).join('\n        ');
+            const template = fs.readFileSync(path.join(root, 'index.html'), 'utf-8');
+            const html = template
+                .replace(scriptReference, '/ratatoskr/' + entry.fileName)
+                .replace(cssLink, cssLinks);
+            this.emitFile({ type: 'asset', fileName: 'index.html', source: html });
+        },
+    };
+}
+
+// Write gzip and brotli compressed siblings of the assets, for the
+// servlet to send to the browsers accepting them
+function precompressPlugin() {
+    const compressible = /^assets\/.*\.(js|css|map|json|svg|txt)$/;
+    const minimumSize = 1024;
+
+    return {
+        name: 'precompress',
+
+        writeBundle(options, bundle) {
+            for (const fileName of Object.keys(bundle)) {
+                if (compressible.test(fileName)) {
+                    const filePath = path.join(options.dir, fileName);
+                    const content = fs.readFileSync(filePath);
+                    if (content.length >= minimumSize) {
+                        fs.writeFileSync(filePath + '.gz', zlib.gzipSync(content, { level: zlib.constants.Z_BEST_COMPRESSION }));
+                        fs.writeFileSync(filePath + '.br', zlib.brotliCompressSync(content, { params: { [zlib.constants.BROTLI_PARAM_QUALITY]: zlib.constants.BROTLI_MAX_QUALITY } }));
+                    }
+                }
+            }
+        },
+    };
+}
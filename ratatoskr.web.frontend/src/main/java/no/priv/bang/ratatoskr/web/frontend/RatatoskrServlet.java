@@ -1,5 +1,5 @@
 /*
- * Copyright 2023-2025 Steinar Bang
+ * Copyright 2023-2026 Steinar Bang
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,7 +15,12 @@
  */
 package no.priv.bang.ratatoskr.web.frontend;
 
+import java.io.IOException;
+
 import javax.servlet.Servlet;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Reference;
@@ -24,6 +29,7 @@ import org.osgi.service.http.whiteboard.propertytypes.HttpWhiteboardContextSelec
 import org.osgi.service.http.whiteboard.propertytypes.HttpWhiteboardServletName;
 import org.osgi.service.http.whiteboard.propertytypes.HttpWhiteboardServletPattern;
 import org.osgi.service.log.LogService;
+import org.osgi.service.log.Logger;
 
 import no.priv.bang.servlet.frontend.FrontendServlet;
 
@@ -33,6 +39,8 @@ import no.priv.bang.servlet.frontend.FrontendServlet;
 @HttpWhiteboardServletPattern("/*")
 public class RatatoskrServlet extends FrontendServlet {
     private static final long serialVersionUID = -3496606785818930881L;
+    private final transient StaticAssets staticAssets = new StaticAssets(RatatoskrServlet.class.getClassLoader());
+    private transient Logger logger;
 
     public RatatoskrServlet() {
         super(RatatoskrServlet.class);
@@ -42,5 +50,35 @@ public class RatatoskrServlet extends FrontendServlet {
     @Reference
     public void setLogService(LogService logservice) {
         super.setLogService(logservice);
+        this.logger = logservice.getLogger(getClass());
+    }
+
+    /**
+     * The content hashed assets are sent as immutable, pre-compressed if the
+     * browser accepts it.  Everything else, i.e. index.html for the routes
+     * of the app and the assets without a content hash, is sent by the
+     * {@link FrontendServlet} and must be revalidated by the browser.
+     */
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        var pathInfo = request.getPathInfo();
+        if (!StaticAssets.isFingerprinted(pathInfo)) {
+            response.setHeader("Cache-Control", "no-cache");
+            super.doGet(request, response);
+            return;
+        }
+
+        try {
+            var asset = staticAssets.find(pathInfo);
+            if (asset == null) {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+
+            staticAssets.send(asset, request, response);
+        } catch (IOException e) {
+            logger.error("Failed to send asset {}", pathInfo, e);
+            response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        }
     }
 }
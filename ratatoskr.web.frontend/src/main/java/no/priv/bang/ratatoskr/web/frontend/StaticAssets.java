@@ -0,0 +1,187 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.web.frontend;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * The content hashed assets built by vite, with the gzip and brotli
+ * compressed siblings built next to them.
+ *
+ * An asset is read from the bundle on the first request for it, and kept
+ * as a read only buffer, memory mapped when the bundle resource is a file,
+ * that is written to the response channel on every request.  Since the
+ * content of a file name never changes, the assets are sent as immutable.
+ */
+class StaticAssets {
+    static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    static final Pattern FINGERPRINTED = Pattern.compile("^/assets/[^/]+-[A-Za-z0-9_-]{8}\\.[a-z0-9]+(\\.map)?$");
+    static final Map<String, String> CONTENT_TYPES = Map.of(
+        "js", "text/javascript;charset=utf-8",
+        "css", "text/css;charset=utf-8",
+        "map", "application/json",
+        "json", "application/json",
+        "svg", "image/svg+xml",
+        "woff", "font/woff",
+        "woff2", "font/woff2");
+
+    private final ClassLoader classLoader;
+    private final Map<String, Asset> assets = new ConcurrentHashMap<>();
+
+    StaticAssets(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    static boolean isFingerprinted(String pathInfo) {
+        return pathInfo != null && FINGERPRINTED.matcher(pathInfo).matches();
+    }
+
+    /**
+     * The asset with its compressed siblings, or null if there is no asset
+     * with that name.  Only assets that are found are kept.
+     */
+    Asset find(String pathInfo) throws IOException {
+        var asset = assets.get(pathInfo);
+        if (asset != null) {
+            return asset;
+        }
+
+        var name = pathInfo.substring(1);
+        var identity = read(name);
+        if (identity == null) {
+            return null;
+        }
+
+        asset = new Asset(contentType(name), identity, read(name + ".br"), read(name + ".gz"));
+        var existing = assets.putIfAbsent(pathInfo, asset);
+        return existing != null ? existing : asset;
+    }
+
+    /**
+     * Send the smallest variant of the asset that the browser accepts.
+     */
+    void send(Asset asset, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        var acceptEncoding = request.getHeader("Accept-Encoding");
+        var body = asset.identity();
+        String contentEncoding = null;
+        if (asset.brotli() != null && accepts(acceptEncoding, "br")) {
+            body = asset.brotli();
+            contentEncoding = "br";
+        } else if (asset.gzip() != null && accepts(acceptEncoding, "gzip")) {
+            body = asset.gzip();
+            contentEncoding = "gzip";
+        }
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(asset.contentType());
+        response.setHeader("Cache-Control", IMMUTABLE);
+        if (asset.brotli() != null || asset.gzip() != null) {
+            response.setHeader("Vary", "Accept-Encoding");
+        }
+
+        if (contentEncoding != null) {
+            response.setHeader("Content-Encoding", contentEncoding);
+        }
+
+        var content = body.duplicate();
+        response.setContentLength(content.remaining());
+        var channel = Channels.newChannel(response.getOutputStream());
+        while (content.hasRemaining()) {
+            channel.write(content);
+        }
+    }
+
+    /**
+     * True if the coding is in the Accept-Encoding header, by name or
+     * by "*", without a zero quality.
+     */
+    static boolean accepts(String acceptEncoding, String coding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+
+        for (var acceptedCoding : acceptEncoding.split(",")) {
+            var parameters = acceptedCoding.split(";");
+            var name = parameters[0].trim();
+            if (coding.equalsIgnoreCase(name) || "*".equals(name)) {
+                return !hasZeroQuality(parameters);
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean hasZeroQuality(String[] parameters) {
+        for (int i = 1; i < parameters.length; ++i) {
+            var parameter = parameters[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2)) == 0.0;
+                } catch (NumberFormatException e) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    static String contentType(String name) {
+        var extension = name.substring(name.lastIndexOf('.') + 1);
+        var contentType = CONTENT_TYPES.get(extension);
+        if (contentType != null) {
+            return contentType;
+        }
+
+        var guessed = URLConnection.guessContentTypeFromName(name);
+        return guessed != null ? guessed : "application/octet-stream";
+    }
+
+    private ByteBuffer read(String name) throws IOException {
+        var url = classLoader.getResource(name);
+        if (url == null) {
+            return null;
+        }
+
+        if ("file".equals(url.getProtocol())) {
+            try (var channel = FileChannel.open(Path.of(url.toURI()), StandardOpenOption.READ)) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            } catch (URISyntaxException e) {
+                throw new IOException("Unable to find file of asset " + name, e);
+            }
+        }
+
+        try (var stream = url.openStream()) {
+            return ByteBuffer.wrap(stream.readAllBytes()).asReadOnlyBuffer();
+        }
+    }
+
+    record Asset(String contentType, ByteBuffer identity, ByteBuffer brotli, ByteBuffer gzip) {}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2023-2024 Steinar Bang
+ * Copyright 2023-2026 Steinar Bang
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -25,7 +25,10 @@ import no.priv.bang.osgi.service.mocks.logservice.MockLogService;
 
 import static org.mockito.Mockito.*;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
 
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletOutputStream;
@@ -52,6 +55,99 @@ public class RatatoskrServletTest {
         assertEquals("text/html", response.getContentType());
         assertEquals(200, response.getStatus());
         assertThat(response.getBufferSize()).isPositive();
+        assertEquals("no-cache", response.getHeader("Cache-Control"));
+    }
+
+    @Test
+    public void testGetFingerprintedAsset() throws Exception {
+        var servlet = new RatatoskrServlet();
+        servlet.setLogService(new MockLogService());
+        var request = assetRequest("/assets/index-AbC12_-9.js", null);
+        var response = new MockHttpServletResponse();
+
+        servlet.service(request, response);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("text/javascript;charset=utf-8", response.getContentType());
+        assertEquals(StaticAssets.IMMUTABLE, response.getHeader("Cache-Control"));
+        assertEquals("Accept-Encoding", response.getHeader("Vary"));
+        assertNull(response.getHeader("Content-Encoding"));
+        assertThat(new String(response.getOutputStreamBinaryContent(), StandardCharsets.UTF_8)).contains("content hashed asset");
+    }
+
+    @Test
+    public void testGetFingerprintedAssetBrotli() throws Exception {
+        var servlet = new RatatoskrServlet();
+        servlet.setLogService(new MockLogService());
+        var request = assetRequest("/assets/index-AbC12_-9.js", "gzip, deflate, br");
+        var response = new MockHttpServletResponse();
+
+        servlet.service(request, response);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("br", response.getHeader("Content-Encoding"));
+        assertArrayEquals(testResource("assets/index-AbC12_-9.js.br"), response.getOutputStreamBinaryContent());
+    }
+
+    @Test
+    public void testGetFingerprintedAssetGzip() throws Exception {
+        var servlet = new RatatoskrServlet();
+        servlet.setLogService(new MockLogService());
+        var request = assetRequest("/assets/index-AbC12_-9.js", "gzip, br;q=0");
+        var response = new MockHttpServletResponse();
+
+        servlet.service(request, response);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        try (var gunzip = new GZIPInputStream(new ByteArrayInputStream(response.getOutputStreamBinaryContent()))) {
+            assertArrayEquals(testResource("assets/index-AbC12_-9.js"), gunzip.readAllBytes());
+        }
+    }
+
+    @Test
+    public void testGetFingerprintedAssetWithoutCompressedSiblings() throws Exception {
+        var servlet = new RatatoskrServlet();
+        servlet.setLogService(new MockLogService());
+        var request = assetRequest("/assets/index-XyZ12345.css", "gzip, deflate, br");
+        var response = new MockHttpServletResponse();
+
+        servlet.service(request, response);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("text/css;charset=utf-8", response.getContentType());
+        assertEquals(StaticAssets.IMMUTABLE, response.getHeader("Cache-Control"));
+        assertNull(response.getHeader("Vary"));
+        assertNull(response.getHeader("Content-Encoding"));
+        assertArrayEquals(testResource("assets/index-XyZ12345.css"), response.getOutputStreamBinaryContent());
+    }
+
+    @Test
+    public void testGetFingerprintedAssetNotFound() throws Exception {
+        var servlet = new RatatoskrServlet();
+        servlet.setLogService(new MockLogService());
+        var request = assetRequest("/assets/index-00000000.js", null);
+        var response = new MockHttpServletResponse();
+
+        servlet.service(request, response);
+
+        assertEquals(404, response.getErrorCode());
+    }
+
+    @Test
+    public void testGetFingerprintedAssetResponseThrowsIOException() throws Exception {
+        var logservice = new MockLogService();
+        var servlet = new RatatoskrServlet();
+        servlet.setLogService(logservice);
+        var request = assetRequest("/assets/index-AbC12_-9.js", null);
+        var response = mock(MockHttpServletResponse.class, CALLS_REAL_METHODS);
+        response.resetAll();
+        when(response.getOutputStream()).thenThrow(IOException.class);
+
+        servlet.service(request, response);
+
+        assertEquals(500, response.getStatus());
+        assertThat(logservice.getLogmessages()).isNotEmpty();
     }
 
 
@@ -129,4 +225,19 @@ public class RatatoskrServletTest {
         assertEquals(404, response.getErrorCode());
     }
 
+    private HttpServletRequest assetRequest(String pathInfo, String acceptEncoding) {
+        var request = mock(HttpServletRequest.class);
+        when(request.getMethod()).thenReturn("GET");
+        when(request.getRequestURI()).thenReturn("http://localhost:8181/ratatoskr" + pathInfo);
+        when(request.getPathInfo()).thenReturn(pathInfo);
+        when(request.getHeader("Accept-Encoding")).thenReturn(acceptEncoding);
+        return request;
+    }
+
+    private byte[] testResource(String name) throws IOException {
+        try (var resource = getClass().getClassLoader().getResourceAsStream(name)) {
+            return resource.readAllBytes();
+        }
+    }
+
 }
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2026 Steinar Bang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package no.priv.bang.ratatoskr.web.frontend;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class StaticAssetsTest {
+
+    @Test
+    public void testIsFingerprinted() {
+        assertTrue(StaticAssets.isFingerprinted("/assets/index-AbC12_-9.js"));
+        assertTrue(StaticAssets.isFingerprinted("/assets/index-AbC12_-9.js.map"));
+        assertTrue(StaticAssets.isFingerprinted("/assets/counter-XyZ12345.css"));
+        assertFalse(StaticAssets.isFingerprinted(null));
+        assertFalse(StaticAssets.isFingerprinted("/"));
+        assertFalse(StaticAssets.isFingerprinted("/assets/routes.txt"));
+        assertFalse(StaticAssets.isFingerprinted("/assets/index.js"));
+        assertFalse(StaticAssets.isFingerprinted("/assets/../index-AbC12_-9.js"));
+        assertFalse(StaticAssets.isFingerprinted("/open-iconic/font/fonts/open-iconic.woff"));
+    }
+
+    @Test
+    public void testAccepts() {
+        assertFalse(StaticAssets.accepts(null, "gzip"));
+        assertTrue(StaticAssets.accepts("gzip, deflate, br", "gzip"));
+        assertTrue(StaticAssets.accepts("gzip, deflate, br", "br"));
+        assertTrue(StaticAssets.accepts("GZIP", "gzip"));
+        assertTrue(StaticAssets.accepts("*", "br"));
+        assertTrue(StaticAssets.accepts("br;q=0.5", "br"));
+        assertFalse(StaticAssets.accepts("br;q=0", "br"));
+        assertFalse(StaticAssets.accepts("br;q=nonsense", "br"));
+        assertFalse(StaticAssets.accepts("gzip", "br"));
+    }
+
+    @Test
+    public void testContentType() {
+        assertEquals("text/javascript;charset=utf-8", StaticAssets.contentType("assets/index-AbC12_-9.js"));
+        assertEquals("application/json", StaticAssets.contentType("assets/index-AbC12_-9.js.map"));
+        assertEquals("image/png", StaticAssets.contentType("assets/logo-AbC12_-9.png"));
+        assertEquals("application/octet-stream", StaticAssets.contentType("assets/data-AbC12_-9.nosuchtype"));
+    }
+
+}
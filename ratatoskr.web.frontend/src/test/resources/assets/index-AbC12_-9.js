@@ -0,0 +1,3 @@
+export function hello() {
+    return "Hello from a content hashed asset";
+}
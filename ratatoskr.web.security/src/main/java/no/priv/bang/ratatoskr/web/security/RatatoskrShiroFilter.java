@@ -1,5 +1,5 @@
 /*
- * Copyright 2023-2025 Steinar Bang
+ * Copyright 2023-2026 Steinar Bang
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -26,6 +26,7 @@ import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.http.whiteboard.propertytypes.HttpWhiteboardContextSelect;
+import org.osgi.service.http.whiteboard.propertytypes.HttpWhiteboardFilterAsyncSupported;
 import org.osgi.service.http.whiteboard.propertytypes.HttpWhiteboardFilterPattern;
 
 import no.priv.bang.authservice.definitions.AuthserviceShiroConfigService;
@@ -36,10 +37,14 @@ import no.priv.bang.authservice.web.security.shirofilter.AuthserviceShiroFilterB
  * This is an OSGi DS component that provides a {@link Filter} service.  This filter service will
  * be put in front of the servlets in the "/ratatoskr" webcontext, and
  * will handle authentication and verify authorization to the servlet paths.
+ *
+ * The filter supports async requests, so that the servlets behind it
+ * can suspend requests while waiting for the database.
  */
 @Component(service=Filter.class, immediate=true)
 @HttpWhiteboardContextSelect("(" + HTTP_WHITEBOARD_CONTEXT_NAME + "=ratatoskr)")
 @HttpWhiteboardFilterPattern("/*")
+@HttpWhiteboardFilterAsyncSupported
 public class RatatoskrShiroFilter extends AuthserviceShiroFilterBase { // NOSONAR
 
     private static final Ini INI_FILE = new Ini();